@@ -0,0 +1,55 @@
+package hillbillies.benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import hillbillies.model.TickMode;
+import hillbillies.model.World;
+import hillbillies.part3.HeadlessRunner;
+
+/**
+ * Benchmarks of a single time step of a world with a number of units with
+ * default behaviour, in each tick mode.
+ *
+ * The world is loaded and populated anew for each iteration, so that every
+ * iteration starts from a comparable state.
+ *
+ * @author Ruben Cartuyvels
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class AdvanceTimeBenchmark {
+
+	@Param({ "20x20x10", "50x50x10", "80x80x10" })
+	public String map;
+
+	@Param({ "10", "50", "100" })
+	public int nbUnits;
+
+	@Param({ "SEQUENTIAL", "PARALLEL" })
+	public TickMode tickMode;
+
+	private World world;
+
+	@Setup(Level.Iteration)
+	public void setUp() throws IOException {
+		HeadlessRunner runner = new HeadlessRunner(BenchmarkWorlds.load(map));
+		runner.spawnUnits(nbUnits);
+		this.world = runner.getWorld();
+		this.world.setTickMode(tickMode);
+	}
+
+	@Benchmark
+	public World advanceTime() {
+		world.advanceTime(0.1);
+		return world;
+	}
+
+}
@@ -0,0 +1,85 @@
+package hillbillies.benchmarks;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import hillbillies.model.Coordinate;
+import hillbillies.model.MovementRule;
+import hillbillies.model.World;
+import hillbillies.part3.HeadlessRunner;
+
+/**
+ * Helpers shared by the benchmarks, to load the shipped worlds and tasks and
+ * to pick cubes in them.
+ *
+ * The benchmarks are run from the project directory, so the shipped
+ * resources are found under src-provided/resources.
+ *
+ * @author Ruben Cartuyvels
+ * @version 1.0
+ */
+final class BenchmarkWorlds {
+
+	private BenchmarkWorlds() {
+	}
+
+	static final String RESOURCES = "src-provided/resources/";
+
+	/**
+	 * The seed of the worlds of the benchmarks, fixed so that every run
+	 * measures the same cave-ins, spawn positions and unit behaviour.
+	 */
+	static final long SEED = 20160101L;
+
+	/**
+	 * Return a new world with the terrain of the shipped map with the given
+	 * name, such as "20x20x10", and with the fixed seed.
+	 */
+	static World load(String map) throws IOException {
+		return HeadlessRunner.loadWorld(RESOURCES + map + ".wrld", SEED);
+	}
+
+	/**
+	 * Return the text of the shipped resource with the given path.
+	 */
+	static String read(String resource) throws IOException {
+		return new String(Files.readAllBytes(Paths.get(RESOURCES + resource)), 
+				StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Return the cubes of the given world a unit can stand in: passable cubes
+	 * next to a solid cube, in the order of their flat index.
+	 */
+	static List<Coordinate> standableCubes(World world) {
+		List<Coordinate> result = new ArrayList<Coordinate>();
+		for (int z = 0; z < world.getNbCubesZ(); z++)
+			for (int y = 0; y < world.getNbCubesY(); y++)
+				for (int x = 0; x < world.getNbCubesX(); x++)
+					if (world.isPassable(x, y, z) && world.isNeighbouringSolid(x, y, z))
+						result.add(world.getCoordinateAt(x, y, z));
+		return result;
+	}
+
+	static int manhattan(Coordinate c1, Coordinate c2) {
+		return Math.abs(c1.get(0) - c2.get(0)) + Math.abs(c1.get(1) - c2.get(1)) 
+				+ Math.abs(c1.get(2) - c2.get(2));
+	}
+
+	/**
+	 * Compute a path for a nit following the given movement rule from the given
+	 * start cube to the given destination, the way a nit computes its path.
+	 *
+	 * @return	The flat indices of the cubes along the path, or null if no
+	 * 			path is found.
+	 */
+	static int[] computePath(World world, Coordinate start, Coordinate destination, 
+			MovementRule rule) {
+		return world.computeRoute(start, destination, rule).getPath();
+	}
+
+}
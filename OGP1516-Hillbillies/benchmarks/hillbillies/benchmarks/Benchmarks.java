@@ -0,0 +1,34 @@
+package hillbillies.benchmarks;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Run the benchmarks of the model, writing the results as JSON to
+ * jmh-result.json unless another result file or format is given.
+ *
+ * The arguments are those of the JMH command line, for instance a regular
+ * expression selecting benchmarks, or -p map=20x20x10 to fix a parameter.
+ *
+ * @author Ruben Cartuyvels
+ * @version 1.0
+ */
+public class Benchmarks {
+
+	public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+		CommandLineOptions commandLine = new CommandLineOptions(args);
+		ChainedOptionsBuilder builder = new OptionsBuilder()
+				.parent(commandLine)
+				.resultFormat(commandLine.getResultFormat().orElse(ResultFormatType.JSON))
+				.result(commandLine.getResult().orElse("jmh-result.json"));
+		if (commandLine.getIncludes().isEmpty())
+			builder.include("hillbillies\\.benchmarks\\..*");
+		new Runner(builder.build()).run();
+	}
+
+}
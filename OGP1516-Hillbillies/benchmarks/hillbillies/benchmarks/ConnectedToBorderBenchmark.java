@@ -0,0 +1,74 @@
+package hillbillies.benchmarks;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import hillbillies.model.World;
+import hillbillies.util.ConnectedToBorder;
+
+/**
+ * Benchmarks of ConnectedToBorder.changeSolidToPassable, digging out solid
+ * cubes of the shipped maps in a fixed random order.
+ *
+ * Digging changes the state, so each iteration starts from the map anew and
+ * measures one batch of digs.
+ *
+ * @author Ruben Cartuyvels
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 10, batchSize = ConnectedToBorderBenchmark.BATCH_SIZE)
+@Measurement(iterations = 20, batchSize = ConnectedToBorderBenchmark.BATCH_SIZE)
+@Fork(1)
+public class ConnectedToBorderBenchmark {
+
+	static final int BATCH_SIZE = 500;
+
+	@Param({ "20x20x10", "50x50x10", "80x80x10", "50x50x50", "80x80x80" })
+	public String map;
+
+	private World world;
+	private int[][] solidCubes;
+	private ConnectedToBorder checker;
+	private int next;
+
+	@Setup(Level.Trial)
+	public void loadMap() throws IOException {
+		this.world = BenchmarkWorlds.load(map);
+		List<int[]> solid = new ArrayList<int[]>();
+		for (int z = 0; z < world.getNbCubesZ(); z++)
+			for (int y = 0; y < world.getNbCubesY(); y++)
+				for (int x = 0; x < world.getNbCubesX(); x++)
+					if (!world.isPassable(x, y, z))
+						solid.add(new int[] { x, y, z });
+		Collections.shuffle(solid, new Random(42));
+		this.solidCubes = solid.toArray(new int[solid.size()][]);
+	}
+
+	@Setup(Level.Iteration)
+	public void reset() {
+		this.checker = new ConnectedToBorder(world.getNbCubesX(), world.getNbCubesY(), 
+				world.getNbCubesZ());
+		for (int z = 0; z < world.getNbCubesZ(); z++)
+			for (int y = 0; y < world.getNbCubesY(); y++)
+				for (int x = 0; x < world.getNbCubesX(); x++)
+					if (world.isPassable(x, y, z))
+						checker.changeSolidToPassable(x, y, z);
+		this.next = 0;
+	}
+
+	@Benchmark
+	public List<int[]> changeSolidToPassable() {
+		int[] cube = solidCubes[next++ % solidCubes.length];
+		return checker.changeSolidToPassable(cube[0], cube[1], cube[2]);
+	}
+
+}
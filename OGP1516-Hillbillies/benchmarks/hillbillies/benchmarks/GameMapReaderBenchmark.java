@@ -0,0 +1,41 @@
+package hillbillies.benchmarks;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import hillbillies.part2.internal.map.GameMap;
+import hillbillies.part2.internal.map.GameMapReader;
+
+/**
+ * Benchmarks of reading the shipped maps, from text already in memory.
+ *
+ * @author Ruben Cartuyvels
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class GameMapReaderBenchmark {
+
+	@Param({ "20x20x10", "50x50x10", "80x80x10", "50x50x50", "80x80x80" })
+	public String map;
+
+	private String text;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		this.text = BenchmarkWorlds.read(map + ".wrld");
+	}
+
+	@Benchmark
+	public GameMap readFromReader() {
+		return new GameMapReader().readFromReader(new StringReader(text));
+	}
+
+}
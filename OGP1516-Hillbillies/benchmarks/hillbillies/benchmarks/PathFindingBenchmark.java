@@ -0,0 +1,85 @@
+package hillbillies.benchmarks;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import hillbillies.model.Coordinate;
+import hillbillies.model.MovementRule;
+import hillbillies.model.World;
+
+/**
+ * Benchmarks of the path computation of a unit, towards a short, a long and
+ * an unreachable target on each shipped map.
+ *
+ * The start is the first cube a unit can stand in. The short target is the
+ * nearest reachable standable cube at least 4 cubes away, the long target
+ * the farthest reachable one, and the unreachable target the first standable
+ * cube that cannot be reached.
+ *
+ * @author Ruben Cartuyvels
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class PathFindingBenchmark {
+
+	@Param({ "20x20x10", "20x40x10", "15x15x15", "25x25x25", "50x50x10", "80x80x10", 
+		"20x20x40", "50x50x50", "80x80x80" })
+	public String map;
+
+	@Param({ "short", "long", "unreachable" })
+	public String target;
+
+	private World world;
+	private Coordinate start;
+	private Coordinate destination;
+
+	private static final MovementRule RULE = MovementRule.GROUNDED;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		this.world = BenchmarkWorlds.load(map);
+		List<Coordinate> cubes = BenchmarkWorlds.standableCubes(world);
+		this.start = cubes.get(0);
+		Coordinate nearest = null, farthest = null, unreachable = null;
+		for (Coordinate cube: cubes) {
+			int distance = BenchmarkWorlds.manhattan(start, cube);
+			if (!world.getReachabilityLabels().isReachable(start, cube, RULE)) {
+				if (unreachable == null)
+					unreachable = cube;
+			}
+			else {
+				if (distance >= 4 && (nearest == null 
+						|| distance < BenchmarkWorlds.manhattan(start, nearest)))
+					nearest = cube;
+				if (farthest == null || distance > BenchmarkWorlds.manhattan(start, farthest))
+					farthest = cube;
+			}
+		}
+		switch (target) {
+		case "short":
+			this.destination = nearest;
+			break;
+		case "long":
+			this.destination = farthest;
+			break;
+		default:
+			this.destination = unreachable;
+		}
+		if (this.destination == null)
+			throw new IllegalStateException("No " + target + " target on " + map);
+	}
+
+	@Benchmark
+	public int[] computePath() {
+		return BenchmarkWorlds.computePath(world, start, destination, RULE);
+	}
+
+}
@@ -0,0 +1,63 @@
+package hillbillies.benchmarks;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import hillbillies.model.Coordinate;
+import hillbillies.model.Item;
+import hillbillies.model.Nit;
+import hillbillies.model.World;
+import hillbillies.part3.HeadlessRunner;
+
+/**
+ * Benchmarks of the queries for the nits and items in a cube, cycling over
+ * all cubes a unit can stand in of a world with 100 units.
+ *
+ * @author Ruben Cartuyvels
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class SpatialQueryBenchmark {
+
+	@Param({ "20x20x10", "50x50x10", "80x80x10" })
+	public String map;
+
+	private World world;
+	private Coordinate[] cubes;
+	private int next;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		HeadlessRunner runner = new HeadlessRunner(BenchmarkWorlds.load(map));
+		runner.spawnUnits(100);
+		this.world = runner.getWorld();
+		List<Coordinate> standable = BenchmarkWorlds.standableCubes(world);
+		this.cubes = standable.toArray(new Coordinate[standable.size()]);
+	}
+
+	private Coordinate nextCube() {
+		Coordinate cube = cubes[next];
+		next = (next + 1) % cubes.length;
+		return cube;
+	}
+
+	@Benchmark
+	public Set<Item> getObjectsAt() {
+		return world.getObjectsAt(nextCube());
+	}
+
+	@Benchmark
+	public List<Nit> getNitsAt() {
+		return world.getNitsAt(nextCube());
+	}
+
+}
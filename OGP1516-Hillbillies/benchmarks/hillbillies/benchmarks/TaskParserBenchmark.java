@@ -0,0 +1,47 @@
+package hillbillies.benchmarks;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import hillbillies.model.Task;
+import hillbillies.model.TaskFactory;
+import hillbillies.part3.programs.TaskParser;
+
+/**
+ * Benchmarks of parsing the shipped task programs, with one selected cube.
+ *
+ * @author Ruben Cartuyvels
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class TaskParserBenchmark {
+
+	@Param({ "alotofthings", "dig", "digtunnel", "digtunnel_if", "goto_10_10_10", 
+		"operate_workshop" })
+	public String program;
+
+	private String text;
+
+	private final List<int[]> selectedCubes = Collections.singletonList(new int[] { 1, 1, 1 });
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		this.text = BenchmarkWorlds.read("tasks/" + program + ".txt");
+	}
+
+	@Benchmark
+	public Optional<List<Task>> parseString() {
+		return TaskParser.create(new TaskFactory()).parseString(text, selectedCubes);
+	}
+
+}
@@ -121,6 +121,38 @@ public interface IFacade extends hillbillies.part1.facade.IFacade {
 	 */
 	public World createWorld(int[][][] terrainTypes, TerrainChangeListener modelListener) throws ModelException;
 
+	/**
+	 * Create a new world of the given size and with the given terrain, as in
+	 * {@link #createWorld(int[][][], TerrainChangeListener)}, in which all
+	 * random choices derive from the given seed.
+	 * 
+	 * Two worlds created with the same terrain and seed evolve in the same way
+	 * when they are given the same commands, so simulations can be reproduced.
+	 * 
+	 * @param terrainTypes
+	 *            The terrain of the new world, encoded as in
+	 *            {@link #createWorld(int[][][], TerrainChangeListener)}.
+	 * @param modelListener
+	 *            The listener to notify of terrain changes.
+	 * @param seed
+	 *            The seed of the random generator of the new world.
+	 * @return
+	 * @throws ModelException
+	 */
+	public World createWorld(int[][][] terrainTypes, TerrainChangeListener modelListener, long seed)
+			throws ModelException;
+
+	/**
+	 * Return the seed from which all random choices in the given world derive.
+	 * 
+	 * @param world
+	 *            The world for which to return the seed.
+	 * @return The seed of the random generator of the given world.
+	 * @throws ModelException
+	 *             A precondition was violated or an exception was thrown.
+	 */
+	public long getSeed(World world) throws ModelException;
+
 	/**
 	 * Return the number of cubes in the world in the x-direction.
 	 * 
@@ -435,4 +467,25 @@ public interface IFacade extends hillbillies.part1.facade.IFacade {
 	 */
 	public Set<Log> getLogs(World world) throws ModelException;
 
+	/* GAME OBJECTS */
+
+	/**
+	 * Return all units, boulders and logs of the given world whose position
+	 * lies in the given box.
+	 * 
+	 * @param world
+	 *            The world from which to retrieve the objects.
+	 * @param min
+	 *            The lowest corner of the box, as an array with 3 doubles {x,
+	 *            y, z}. Positions equal to this corner lie in the box.
+	 * @param max
+	 *            The highest corner of the box, as an array with 3 doubles {x,
+	 *            y, z}. Positions equal to this corner do not lie in the box.
+	 * @return A set containing all units, boulders and logs present in the
+	 *         given world whose position lies in the given box.
+	 * @throws ModelException
+	 *             A precondition was violated or an exception was thrown.
+	 */
+	public Set<Object> getObjectsInBox(World world, double[] min, double[] max) throws ModelException;
+
 }
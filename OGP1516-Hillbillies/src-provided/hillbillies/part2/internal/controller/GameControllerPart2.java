@@ -1,5 +1,6 @@
 package hillbillies.part2.internal.controller;
 
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -7,14 +8,11 @@ import java.util.Iterator;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 import hillbillies.common.internal.controller.GameController;
 import hillbillies.common.internal.inputmodes.InputMode;
 import hillbillies.common.internal.selection.Selection;
-import hillbillies.model.Boulder;
 import hillbillies.model.Faction;
-import hillbillies.model.Log;
 import hillbillies.model.Unit;
 import hillbillies.model.World;
 import hillbillies.part2.facade.IFacade;
@@ -26,6 +24,7 @@ import hillbillies.part2.internal.providers.IGameObjectInfoProvider;
 import hillbillies.part2.internal.providers.WorldInfoProvider2;
 import hillbillies.part2.internal.ui.IHillbilliesView2;
 import hillbillies.part2.internal.ui.ViewProviders2;
+import hillbillies.part2.listener.DirtyRegion;
 import hillbillies.part2.listener.TerrainChangeListener;
 import ogp.framework.util.ModelException;
 
@@ -44,6 +43,20 @@ public class GameControllerPart2 extends GameController<IHillbilliesView2> imple
 				listener.notifyTerrainChanged(x, y, z);
 			}
 		}
+
+		@Override
+		public void notifyTerrainChanged(Collection<int[]> cubes) {
+			for (TerrainChangeListener listener : new HashSet<>(listeners)) {
+				listener.notifyTerrainChanged(cubes);
+			}
+		}
+
+		@Override
+		public void notifyTerrainChanged(DirtyRegion region) {
+			for (TerrainChangeListener listener : new HashSet<>(listeners)) {
+				listener.notifyTerrainChanged(region);
+			}
+		}
 	};
 
 	public GameControllerPart2(IFacade facade, Part2Options options, GameMap map) throws ModelException {
@@ -155,51 +168,16 @@ public class GameControllerPart2 extends GameController<IHillbilliesView2> imple
 
 		@Override
 		public Set<?> getObjectsInBox(double minX, double minY, double minZ, double maxX, double maxY, double maxZ) {
-			Set<Object> result = new HashSet<>();
-			result.addAll(getObjectsOfTypeInBox(Unit.class, minX, minY, minZ, maxX, maxY, maxZ, getFacade()::getUnits,
-					getFacade()::isAlive, getFacade()::getPosition));
-			result.addAll(getObjectsOfTypeInBox(Boulder.class, minX, minY, minZ, maxX, maxY, maxZ,
-					getFacade()::getBoulders, b -> true, getFacade()::getPosition));
-			result.addAll(getObjectsOfTypeInBox(Log.class, minX, minY, minZ, maxX, maxY, maxZ, getFacade()::getLogs,
-					l -> true, getFacade()::getPosition));
-			return result;
-		}
-
-	};
-
-	@FunctionalInterface
-	private static interface MEFunction<T, R> {
-		public R apply(T obj) throws ModelException;
-	}
-
-	protected <T> Set<T> getObjectsOfTypeInBox(Class<T> type, double minX, double minY, double minZ, double maxX,
-			double maxY, double maxZ, MEFunction<World, Set<T>> objects, MEFunction<T, Boolean> isAlive,
-			MEFunction<T, double[]> position) {
-		try {
-			Set<T> objs = objects.apply(world);
-			if (objs != null) {
-				final double[] min = new double[] { minX, minY, minZ };
-				final double[] max = new double[] { maxX, maxY, maxZ };
-				return objs.stream().filter(o -> {
-					try {
-						return isAlive.apply(o) && liesInBox(position.apply(o), min, max);
-					} catch (ModelException e) {
-						handleError(e);
-						return false;
-					}
-				}).collect(Collectors.toSet());
+			try {
+				return getFacade().getObjectsInBox(world, new double[] { minX, minY, minZ },
+						new double[] { maxX, maxY, maxZ });
+			} catch (ModelException e) {
+				handleError(e);
+				return Collections.emptySet();
 			}
-		} catch (ModelException e) {
-			handleError(e);
 		}
-		return Collections.emptySet();
-	}
 
-	protected static boolean liesInBox(double[] position, double[] low, double[] high) {
-		return position != null && low[0] <= position[0] && position[0] < high[0] && low[1] <= position[1]
-				&& position[1] < high[1] && low[2] <= position[2] && position[2] < high[2];
-
-	}
+	};
 
 	@Override
 	protected InputMode createDefaultInputMode() {
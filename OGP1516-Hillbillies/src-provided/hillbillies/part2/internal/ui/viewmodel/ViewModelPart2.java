@@ -1,6 +1,8 @@
 package hillbillies.part2.internal.ui.viewmodel;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 import hillbillies.common.internal.map.IByteMap3D;
@@ -16,6 +18,8 @@ import hillbillies.part2.internal.providers.WorldInfoProvider2;
 import hillbillies.part2.internal.ui.sprites.BoulderSprite;
 import hillbillies.part2.internal.ui.sprites.LogSprite;
 import hillbillies.part2.internal.ui.sprites.UnitSprite2;
+import hillbillies.part2.listener.DirtyRegion;
+import hillbillies.part2.listener.TerrainChangeListener;
 import javafx.geometry.Rectangle2D;
 import ogp.framework.util.internal.Matrix;
 
@@ -26,11 +30,38 @@ public class ViewModelPart2 extends ViewModel implements IViewModel2 {
 
 	public ViewModelPart2(WorldInfoProvider2 wip, IGameObjectInfoProvider uip, Rectangle2D initialView, int tileSize) {
 		super(wip, uip, initialView, tileSize);
-		getWorldInfoProvider().addTerrainChangeListener(this::updateMapCacheAt);
+		getWorldInfoProvider().addTerrainChangeListener(terrainListener);
 		this.depthValues = new Matrix<>(getNbVisibleTilesX(), getNbVisibleTilesY(), 0);
 		this.anchored = new Matrix<>(getNbVisibleTilesX(), getNbVisibleTilesY(), false);
 	}
 
+	/**
+	 * Updates single cubes right away, and collects the cubes changed during
+	 * a tick, which are refreshed in the next update.
+	 */
+	private final TerrainChangeListener terrainListener = new TerrainChangeListener() {
+
+		@Override
+		public void notifyTerrainChanged(int x, int y, int z) {
+			updateMapCacheAt(x, y, z);
+		}
+
+		@Override
+		public void notifyTerrainChanged(DirtyRegion region) {
+			if (!region.isEmpty()) {
+				dirtyCubes.addAll(region.getCubes());
+			}
+		}
+	};
+
+	/**
+	 * The coordinates {x, y, z} of the cubes changed since the last update.
+	 * Only these cubes are refreshed, rather than the box bounding them, which
+	 * may span most of the world when cubes far apart change in the same
+	 * tick.
+	 */
+	private final List<int[]> dirtyCubes = new ArrayList<>();
+
 	private boolean trackAnchored = false;
 
 	public void setTrackAnchored(boolean trackAnchored) {
@@ -102,10 +133,23 @@ public class ViewModelPart2 extends ViewModel implements IViewModel2 {
 		getMap().setValue(x, y, z, getWorldInfoProvider().getCubeTypeAt(x, y, z).getByteValue());
 	}
 
+	/**
+	 * Update the cached cubes with the given coordinates {x, y, z}.
+	 */
+	protected void updateMapCacheAt(List<int[]> cubes) {
+		for (int[] cube : cubes) {
+			updateMapCacheAt(cube[0], cube[1], cube[2]);
+		}
+	}
+
 	@Override
 	public void update() {
 		// super.update(); // skip, to not fill entire map again (we're using
 		// listener to selectively update)
+		if (!dirtyCubes.isEmpty()) {
+			updateMapCacheAt(dirtyCubes);
+			dirtyCubes.clear();
+		}
 		refreshSprites();
 		updateAnchored();
 	}
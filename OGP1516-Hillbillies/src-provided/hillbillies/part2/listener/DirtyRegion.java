@@ -0,0 +1,118 @@
+package hillbillies.part2.listener;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A region of changed terrain cubes in a world of the given dimensions,
+ * collecting each changed cube once together with the box bounding all of
+ * them.
+ *
+ * A region is handed to
+ * {@link TerrainChangeListener#notifyTerrainChanged(DirtyRegion)} to report
+ * all cubes changed during a tick at once. It is cleared and reused by the
+ * world afterwards, so listeners must not keep a reference to it.
+ */
+public class DirtyRegion {
+
+	/**
+	 * Create a new, empty region for a world with the given number of cubes
+	 * along each axis.
+	 */
+	public DirtyRegion(int nbX, int nbY, int nbZ) {
+		this.nbX = nbX;
+		this.nbY = nbY;
+		this.isDirty = new boolean[nbX * nbY * nbZ];
+	}
+
+	private final int nbX;
+	private final int nbY;
+
+	/**
+	 * Whether each cube of the world, by index x + y*nbX + z*nbX*nbY, is part
+	 * of this region.
+	 */
+	private final boolean[] isDirty;
+
+	private final List<int[]> cubes = new ArrayList<>();
+
+	private final int[] min = new int[3];
+	private final int[] max = new int[3];
+
+	/**
+	 * Add the cube at the given position to this region.
+	 *
+	 * @return true if the cube was not yet part of this region; false otherwise
+	 */
+	public boolean add(int x, int y, int z) {
+		int index = x + y * nbX + z * nbX * nbY;
+		if (isDirty[index]) {
+			return false;
+		}
+		isDirty[index] = true;
+		int[] cube = new int[] { x, y, z };
+		for (int i = 0; i < 3; i++) {
+			if (cubes.isEmpty() || cube[i] < min[i]) {
+				min[i] = cube[i];
+			}
+			if (cubes.isEmpty() || cube[i] > max[i]) {
+				max[i] = cube[i];
+			}
+		}
+		cubes.add(cube);
+		return true;
+	}
+
+	/**
+	 * Remove all cubes from this region.
+	 */
+	public void clear() {
+		for (int[] cube : cubes) {
+			isDirty[cube[0] + cube[1] * nbX + cube[2] * nbX * nbY] = false;
+		}
+		cubes.clear();
+	}
+
+	/**
+	 * Returns whether this region contains no cubes.
+	 */
+	public boolean isEmpty() {
+		return cubes.isEmpty();
+	}
+
+	/**
+	 * Returns the number of cubes in this region.
+	 */
+	public int size() {
+		return cubes.size();
+	}
+
+	/**
+	 * Returns the coordinates {x, y, z} of the cubes in this region, each
+	 * cube once, in the order they were added.
+	 */
+	public List<int[]> getCubes() {
+		List<int[]> result = new ArrayList<>(cubes.size());
+		for (int[] cube : cubes) {
+			result.add(cube.clone());
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the lowest corner {x, y, z} of the box bounding the cubes in
+	 * this region, or null if it is empty.
+	 */
+	public int[] getMin() {
+		return isEmpty() ? null : min.clone();
+	}
+
+	/**
+	 * Returns the highest corner {x, y, z} of the box bounding the cubes in
+	 * this region, both corners inclusive, or null if it is empty.
+	 */
+	public int[] getMax() {
+		return isEmpty() ? null : max.clone();
+	}
+
+}
@@ -1,5 +1,7 @@
 package hillbillies.part2.listener;
 
+import java.util.Collection;
+
 /**
  * A listener for communicating terrain changes to the GUI.
  * 
@@ -25,4 +27,32 @@ public interface TerrainChangeListener {
 	 *            The z-coordinate of the cube that has changed type
 	 */
 	public void notifyTerrainChanged(int x, int y, int z);
+
+	/**
+	 * Notify the GUI that the terrain cubes at the given positions have been
+	 * changed, all at once. By default, each of the cubes is notified
+	 * separately.
+	 * 
+	 * @param cubes
+	 *            The coordinates of the cubes that have changed type, each as
+	 *            an array {x, y, z}
+	 */
+	public default void notifyTerrainChanged(Collection<int[]> cubes) {
+		for (int[] cube : cubes) {
+			notifyTerrainChanged(cube[0], cube[1], cube[2]);
+		}
+	}
+
+	/**
+	 * Notify the GUI that the terrain cubes in the given region have been
+	 * changed, all at once. The region must not be used after this method
+	 * returns. By default, the cubes of the region are notified as a batch.
+	 * 
+	 * @param region
+	 *            The region collecting the cubes that have changed type, each
+	 *            cube once, and the box bounding them
+	 */
+	public default void notifyTerrainChanged(DirtyRegion region) {
+		notifyTerrainChanged(region.getCubes());
+	}
 }
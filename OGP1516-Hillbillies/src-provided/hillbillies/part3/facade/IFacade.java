@@ -173,6 +173,18 @@ public interface IFacade extends hillbillies.part2.facade.IFacade {
 	 */
 	public void schedule(Scheduler scheduler, Task task) throws ModelException;
 
+	/**
+	 * Schedule all given tasks for execution on the given scheduler at once.
+	 * 
+	 * @param scheduler
+	 *            The scheduler on which the tasks should be scheduled.
+	 * @param tasks
+	 *            The tasks to schedule.
+	 * @throws ModelException
+	 *             A precondition was violated or an exception was thrown.
+	 */
+	public void scheduleAll(Scheduler scheduler, Collection<Task> tasks) throws ModelException;
+
 	/**
 	 * Replace the given task by another task in the given scheduler.
 	 * 
@@ -3,14 +3,7 @@ package hillbillies.util;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.Deque;
-import java.util.HashSet;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.Queue;
-import java.util.Set;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 /**
  * Interface for a (somewhat efficient) algorithm that determines whether a
@@ -49,6 +42,8 @@ public class ConnectedToBorder {
 		this.nbZ = nbZ;
 		this.passable = new boolean[nbX * nbY * nbZ];
 		this.notConnected = new boolean[nbX * nbY * nbZ];
+		this.visited = new int[nbX * nbY * nbZ];
+		this.known = new int[nbX * nbY * nbZ];
 	}
 
 	/**
@@ -97,31 +92,34 @@ public class ConnectedToBorder {
 			return Collections.emptyList();
 		}
 		passable[index] = false;
-		List<Integer> coord = Arrays.asList(x, y, z);
 		// if the coordinate is at the border, or one of its solid neighbours is known to be connected, the coordinate becomes connected as well
 		// any adjacent non-connected neighbours now also become connected, and this repeats recursively
-		if (isBorder(coord) || getDirectlyAdjacentSolids(coord).stream().anyMatch(c -> isSolidConnectedToBorder(c.get(0), c.get(1), c.get(2)))) {
-			List<int[]> result = new ArrayList<>();
-			Set<List<Integer>> alreadyMadeConnected = new HashSet<>();
-			Queue<List<Integer>> stillToMakeConnected = new LinkedList<>();
-			stillToMakeConnected.add(coord);
-			while (!stillToMakeConnected.isEmpty()) {
-				List<Integer> coordToMakeConnected = stillToMakeConnected.poll();
-				if (alreadyMadeConnected.contains(coordToMakeConnected)) {
+		if (!isBorder(x, y, z) && !hasConnectedNeighbour(x, y, z)) {
+			return Collections.emptyList();
+		}
+		List<int[]> result = new ArrayList<>();
+		int stamp = nextVisitStamp();
+		int head = 0, tail = 0;
+		visited[index] = stamp;
+		scratch[tail++] = index;
+		while (head < tail) {
+			int cube = scratch[head++];
+			notConnected[cube] = false;
+			int cx = cube % nbX, cy = (cube / nbX) % nbY, cz = cube / (nbX * nbY);
+			result.add(new int[] { cx, cy, cz });
+			for (int[] offset : directAdjacentOffsets) {
+				int nx = cx + offset[0], ny = cy + offset[1], nz = cz + offset[2];
+				if (!isInside(nx, ny, nz)) {
 					continue;
 				}
-				notConnected[getIndex(coordToMakeConnected)] = false;
-				alreadyMadeConnected.add(coordToMakeConnected);
-				result.add(new int[] { coordToMakeConnected.get(0), coordToMakeConnected.get(1), coordToMakeConnected.get(2) });
-				for (List<Integer> neighbour : getDirectlyAdjacentSolids(coordToMakeConnected)) {
-					if (!alreadyMadeConnected.contains(neighbour) && !isSolidConnectedToBorder(neighbour.get(0), neighbour.get(1), neighbour.get(2))) {
-						stillToMakeConnected.add(neighbour);
-					}
+				int neighbour = getIndex(nx, ny, nz);
+				if (isSolid(neighbour) && notConnected[neighbour] && visited[neighbour] != stamp) {
+					visited[neighbour] = stamp;
+					tail = push(tail, neighbour);
 				}
 			}
-			return result;
 		}
-		return Collections.emptyList();
+		return result;
 	}
 
 	
@@ -152,35 +150,42 @@ public class ConnectedToBorder {
 		passable[index] = true;
 		notConnected[index] = true;
 
-		Set<List<Integer>> knownConnectedToBorder = new HashSet<>();
-		Set<List<Integer>> knownNotConnectedToBorder = new HashSet<>();
+		// cubes tested during this change are stamped as known to be connected
+		// or known not to be connected
+		int connectedStamp = nextKnownStamp();
+		int notConnectedStamp = connectedStamp + 1;
 		List<int[]> changed = new ArrayList<>();
 		// get all solid neighbours
-		for (List<Integer> neighbour : getDirectlyAdjacentSolids(Arrays.asList(x, y, z))) {
-			if (knownConnectedToBorder.contains(neighbour) || knownNotConnectedToBorder.contains(neighbour)) {
+		for (int[] offset : directAdjacentOffsets) {
+			int nx = x + offset[0], ny = y + offset[1], nz = z + offset[2];
+			if (!isInside(nx, ny, nz)) {
+				continue;
+			}
+			int neighbour = getIndex(nx, ny, nz);
+			if (!isSolid(neighbour) || known[neighbour] == connectedStamp || known[neighbour] == notConnectedStamp) {
 				// if we already know the state of this neighbour, go to the
 				// next one
 				continue;
+			}
+			// if we don't already know the state of this neighbour, try to
+			// find a path to the border, keeping track of all cubes tested
+			// while trying to find it in the tested buffer
+			int nbTested = existsPathToBorder(neighbour, connectedStamp, notConnectedStamp);
+			if (nbTested < 0) {
+				// neighbour is still connected via some path; don't
+				// change anything (but now we also know that all tested
+				// cubes are also definitely connected)
+				for (int i = 0; i < -nbTested; i++) {
+					known[tested[i]] = connectedStamp;
+				}
 			} else {
-				// if we don't already know the state of this neighbour, try to
-				// find a path to the border
-				// We want to keep track of all cubes tested while trying to
-				// find a path.
-				Set<List<Integer>> testedWhenFindingPath = new HashSet<>();
-				if (!existsPathToBorder(neighbour, knownConnectedToBorder, knownNotConnectedToBorder,
-						testedWhenFindingPath)) {
-					// no path is found, so all tested cubes are definitely NOT
-					// connected to the border
-					for (List<Integer> testedCoord : testedWhenFindingPath) {
-						knownNotConnectedToBorder.add(testedCoord);
-						notConnected[getIndex(testedCoord)] = true;
-						changed.add(new int[] { testedCoord.get(0), testedCoord.get(1), testedCoord.get(2) });
-					}
-				} else {
-					// neighbour is still connected via some path; don't
-					// change anything (but now we also know that all tested
-					// cubes are also definitely connected)
-					knownConnectedToBorder.addAll(testedWhenFindingPath);
+				// no path is found, so all tested cubes are definitely NOT
+				// connected to the border
+				for (int i = 0; i < nbTested; i++) {
+					int cube = tested[i];
+					known[cube] = notConnectedStamp;
+					notConnected[cube] = true;
+					changed.add(new int[] { cube % nbX, (cube / nbX) % nbY, cube / (nbX * nbY) });
 				}
 			}
 		}
@@ -199,9 +204,25 @@ public class ConnectedToBorder {
 	private final boolean[] passable;
 	private final boolean[] notConnected;
 
-	private int getIndex(List<Integer> coord) {
-		return getIndex(coord.get(0), coord.get(1), coord.get(2));
-	}
+	/**
+	 * Generation stamps of the cubes visited by the current search.
+	 */
+	private final int[] visited;
+	private int visitStamp = 0;
+
+	/**
+	 * Generation stamps of the cubes whose connectedness is known during the
+	 * current change: the known stamp if connected, the known stamp + 1 if not.
+	 */
+	private final int[] known;
+	private int knownStamp = 0;
+
+	/**
+	 * Reusable buffers holding the queue or stack of the current search, and
+	 * the cubes tested by the current path search.
+	 */
+	private int[] scratch = new int[64];
+	private int[] tested = new int[64];
 
 	private int getIndex(int x, int y, int z) {
 		return x + y * nbX + z * (nbX * nbY);
@@ -211,64 +232,113 @@ public class ConnectedToBorder {
 		return !passable[index];
 	}
 
-	private boolean isBorder(List<Integer> coord) {
-		int x = coord.get(0);
-		int y = coord.get(1);
-		int z = coord.get(2);
+	private boolean isInside(int x, int y, int z) {
+		return x >= 0 && x < nbX && y >= 0 && y < nbY && z >= 0 && z < nbZ;
+	}
+
+	private boolean isBorder(int x, int y, int z) {
 		return x == 0 || x == nbX - 1 || y == 0 || y == nbY - 1 || z == 0 || z == nbZ - 1;
 	}
 
-	private final int[][] directAdjacentOffsets = new int[][] { { -1, 0, 0 }, { +1, 0, 0 }, { 0, -1, 0 }, { 0, +1, 0 },
-			{ 0, 0, -1 }, { 0, 0, +1 } };
+	/**
+	 * The offsets of the directly adjacent cubes. The cube below comes first,
+	 * so that searches for the border tend to head for the bottom of the world.
+	 */
+	private final int[][] directAdjacentOffsets = new int[][] { { 0, 0, -1 }, { -1, 0, 0 }, { +1, 0, 0 },
+			{ 0, -1, 0 }, { 0, +1, 0 }, { 0, 0, +1 } };
 
-	private boolean existsPathToBorder(List<Integer> origin, Set<List<Integer>> knownAdjacent,
-			Set<List<Integer>> knownNonAdjacent, Set<List<Integer>> visited) {
+	private boolean hasConnectedNeighbour(int x, int y, int z) {
+		for (int[] offset : directAdjacentOffsets) {
+			int nx = x + offset[0], ny = y + offset[1], nz = z + offset[2];
+			if (isInside(nx, ny, nz) && isSolidConnectedToBorder(nx, ny, nz)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Search depth-first for a path of solid cubes from the given cube to the
+	 * border, or to a cube known to be connected, collecting the visited cubes
+	 * in the tested buffer.
+	 * 
+	 * @return the number of tested cubes if no path exists, or minus that
+	 *         number if a path exists
+	 */
+	private int existsPathToBorder(int origin, int connectedStamp, int notConnectedStamp) {
 		// visited == part of solid blob connected to origin that has been
 		// visited (but not necessarily tested)
-		Deque<List<Integer>> cubesToVisit = new LinkedList<>();
-		cubesToVisit.add(origin);
-		visited.add(origin);
-		while (!cubesToVisit.isEmpty()) {
+		int stamp = nextVisitStamp();
+		int top = 0, nbTested = 0;
+		visited[origin] = stamp;
+		scratch[top++] = origin;
+		nbTested = record(nbTested, origin);
+		int steps = 0;
+		while (top > 0) {
 			// this might take a long time - check if the impatient user has
 			// stopped us yet
-			if (Thread.currentThread().isInterrupted()) {
+			if ((++steps & 0xfff) == 0 && Thread.currentThread().isInterrupted()) {
 				throw new IllegalStateException();
 			}
-			List<Integer> cube = cubesToVisit.pollFirst();
-			if (knownAdjacent.contains(cube)) {
-				return true;
+			int cube = scratch[--top];
+			if (known[cube] == connectedStamp) {
+				return -nbTested;
 			}
-			if (knownNonAdjacent.contains(cube)) {
-				return false;
+			if (known[cube] == notConnectedStamp) {
+				return nbTested;
 			}
-			if (isBorder(cube)) {
-				knownAdjacent.add(cube);
-				return true;
+			int x = cube % nbX, y = (cube / nbX) % nbY, z = cube / (nbX * nbY);
+			if (isBorder(x, y, z)) {
+				known[cube] = connectedStamp;
+				return -nbTested;
 			}
-			for (List<Integer> neighbour : getDirectlyAdjacentSolids(cube)) {
-				if (!visited.contains(neighbour)) {
-					visited.add(neighbour);
-					cubesToVisit.addFirst(neighbour);
+			for (int[] offset : directAdjacentOffsets) {
+				int nx = x + offset[0], ny = y + offset[1], nz = z + offset[2];
+				if (!isInside(nx, ny, nz)) {
+					continue;
+				}
+				int neighbour = getIndex(nx, ny, nz);
+				if (isSolid(neighbour) && visited[neighbour] != stamp) {
+					visited[neighbour] = stamp;
+					top = push(top, neighbour);
+					nbTested = record(nbTested, neighbour);
 				}
 			}
 		}
-		return false;
+		return nbTested;
+	}
+
+	private int push(int size, int cube) {
+		if (size == scratch.length) {
+			scratch = Arrays.copyOf(scratch, size * 2);
+		}
+		scratch[size] = cube;
+		return size + 1;
 	}
 
-	private List<List<Integer>> getDirectlyAdjacentSolids(List<Integer> coord) {
-		return getDirectlyAdjacentCoordinates(coord).filter(c -> {
-			int x = c.get(0);
-			int y = c.get(1);
-			int z = c.get(2);
-			return x >= 0 && x < nbX && y >= 0 && y < nbY && z >= 0 && z < nbZ && isSolid(getIndex(c));
-		}).collect(Collectors.toList());
+	private int record(int size, int cube) {
+		if (size == tested.length) {
+			tested = Arrays.copyOf(tested, size * 2);
+		}
+		tested[size] = cube;
+		return size + 1;
 	}
 
-	private Stream<List<Integer>> getDirectlyAdjacentCoordinates(List<Integer> coord) {
-		List<int[]> shuffledOffsets = new ArrayList<>(Arrays.asList(directAdjacentOffsets));
-		Collections.shuffle(shuffledOffsets);
-		return shuffledOffsets.stream().map(
-				offset -> Arrays.asList(coord.get(0) + offset[0], coord.get(1) + offset[1], coord.get(2) + offset[2]));
+	private int nextVisitStamp() {
+		if (visitStamp == Integer.MAX_VALUE) {
+			Arrays.fill(visited, 0);
+			visitStamp = 0;
+		}
+		return ++visitStamp;
+	}
+
+	private int nextKnownStamp() {
+		if (knownStamp >= Integer.MAX_VALUE - 2) {
+			Arrays.fill(known, 0);
+			knownStamp = 0;
+		}
+		knownStamp += 2;
+		return knownStamp - 1;
 	}
 
 	@Override
@@ -0,0 +1,33 @@
+package hillbillies.model;
+
+import be.kuleuven.cs.som.annotate.Value;
+
+/**
+ * An enumeration of the ways in which a scheduler can match its available
+ * tasks to the idle nits of its faction.
+ *
+ * Under each strategy, tasks are handed out by decreasing priority; the
+ * strategies only differ in which of the idle nits gets each task.
+ *
+ * @author Ruben Cartuyvels
+ * @version 1.0
+ */
+@Value
+public enum AssignmentStrategy {
+
+	/**
+	 * Each task goes to the first idle nit, in the order in which the nits
+	 * advance time.
+	 */
+	BY_PRIORITY,
+
+	/**
+	 * Each task with a cube goes to the idle nit closest to that cube: by the
+	 * number of steps in a distance field towards the cube if its world
+	 * already keeps one, and by the number of cubes between them along the
+	 * axis on which they are furthest apart otherwise. Tasks without a cube
+	 * go to the first idle nit.
+	 */
+	NEAREST_NIT;
+
+}
@@ -0,0 +1,43 @@
+package hillbillies.model;
+
+import java.util.List;
+
+/**
+ * An interface for algorithms that determine whether a solid cube of a world
+ * is connected to a border of the world through other directly adjacent
+ * solid cubes.
+ *
+ * Initially, every cube of the world is assumed to be solid. The state is
+ * updated cube by cube, and each update reports the cubes whose
+ * connectedness has changed because of it.
+ *
+ * @author Ruben Cartuyvels
+ * @version 1.0
+ */
+public interface BorderConnectivity {
+
+	/**
+	 * Check whether the cube with the given coordinates is a solid cube that is
+	 * connected to a border of the world through other directly adjacent
+	 * solid cubes.
+	 */
+	public boolean isSolidConnectedToBorder(int x, int y, int z);
+
+	/**
+	 * Make the cube with the given coordinates solid instead of passable.
+	 *
+	 * @return	The list of coordinates {x, y, z} of the cubes that have become
+	 * 			connected to a border because of this change. If non-empty, it
+	 * 			includes the given cube itself.
+	 */
+	public List<int[]> changePassableToSolid(int x, int y, int z);
+
+	/**
+	 * Make the cube with the given coordinates passable instead of solid.
+	 *
+	 * @return	The list of coordinates {x, y, z} of the cubes that are no
+	 * 			longer connected to a border because of this change.
+	 */
+	public List<int[]> changeSolidToPassable(int x, int y, int z);
+
+}
@@ -0,0 +1,75 @@
+package hillbillies.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A class of buffers of the changes that nits make to the world while their
+ * activities run, to be applied at the end of the phase.
+ *
+ * The changes are kept per slot of the nit that made them, so they can be
+ * added from several threads as long as each slot is only used by one of
+ * them, and they are applied in the order of the slots, and in the order
+ * in which they were added for a single slot.
+ *
+ * @author Ruben Cartuyvels
+ * @version 1.0
+ */
+class CommandBuffer {
+
+	/**
+	 * Initialize this new command buffer without any slots.
+	 */
+	CommandBuffer() {
+	}
+
+
+	/**
+	 * Remove all changes from this buffer, and make room for changes of the
+	 * given number of slots.
+	 */
+	@SuppressWarnings("unchecked")
+	void reset(int nbSlots) {
+		if (this.changes.length < nbSlots)
+			this.changes = new List[Math.max(nbSlots, 2 * this.changes.length)];
+		for (int slot = 0; slot < this.nbSlots; slot++)
+			if (this.changes[slot] != null)
+				this.changes[slot].clear();
+		this.nbSlots = nbSlots;
+	}
+
+	/**
+	 * Add the given change to the changes of the given slot.
+	 *
+	 * @throws	IndexOutOfBoundsException
+	 * 			| slot < 0 || slot >= nbSlots
+	 */
+	void add(int slot, Runnable change) throws IndexOutOfBoundsException {
+		if (slot < 0 || slot >= this.nbSlots)
+			throw new IndexOutOfBoundsException();
+		if (this.changes[slot] == null)
+			this.changes[slot] = new ArrayList<Runnable>(2);
+		this.changes[slot].add(change);
+	}
+
+	/**
+	 * Apply the changes of all slots in order, and remove them from this buffer.
+	 * Changes added while applying are applied in turn.
+	 */
+	void apply() {
+		for (int slot = 0; slot < this.nbSlots; slot++) {
+			List<Runnable> slotChanges = this.changes[slot];
+			for (int i = 0; slotChanges != null && i < slotChanges.size(); i++)
+				slotChanges.get(i).run();
+			if (slotChanges != null)
+				slotChanges.clear();
+		}
+		this.nbSlots = 0;
+	}
+
+	@SuppressWarnings("unchecked")
+	private List<Runnable>[] changes = new List[0];
+
+	private int nbSlots = 0;
+
+}
@@ -0,0 +1,64 @@
+package hillbillies.model;
+
+import java.util.List;
+
+import be.kuleuven.cs.som.annotate.Value;
+import hillbillies.util.ConnectedToBorder;
+
+/**
+ * An enumeration of the algorithms a world can use to decide which of its
+ * solid cubes are connected to its border.
+ *
+ * @author Ruben Cartuyvels
+ * @version 1.0
+ */
+@Value
+public enum ConnectivityEngine {
+
+	/**
+	 * The provided algorithm, searching for a path to the border from each
+	 * solid neighbour of a cube that becomes passable.
+	 */
+	FLOOD_FILL {
+		@Override
+		public BorderConnectivity create(int nbX, int nbY, int nbZ) {
+			final ConnectedToBorder checker = new ConnectedToBorder(nbX, nbY, nbZ);
+			return new BorderConnectivity() {
+
+				@Override
+				public boolean isSolidConnectedToBorder(int x, int y, int z) {
+					return checker.isSolidConnectedToBorder(x, y, z);
+				}
+
+				@Override
+				public List<int[]> changePassableToSolid(int x, int y, int z) {
+					return checker.changePassableToSolid(x, y, z);
+				}
+
+				@Override
+				public List<int[]> changeSolidToPassable(int x, int y, int z) {
+					return checker.changeSolidToPassable(x, y, z);
+				}
+			};
+		}
+	},
+
+	/**
+	 * A spanning forest of the connected solid cubes, rooted at the border,
+	 * of which only the subtree below a cube that becomes passable is repaired.
+	 */
+	SPANNING_FOREST {
+		@Override
+		public BorderConnectivity create(int nbX, int nbY, int nbZ) {
+			return new SpanningForest(nbX, nbY, nbZ);
+		}
+	};
+
+
+	/**
+	 * Return a new instance of this algorithm, for a world with the given
+	 * number of cubes along each axis in which all cubes are solid.
+	 */
+	public abstract BorderConnectivity create(int nbX, int nbY, int nbZ);
+
+}
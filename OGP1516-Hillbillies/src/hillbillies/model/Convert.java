@@ -62,12 +62,21 @@ public final class Convert {
 		if ( !(doublePosition instanceof double[]) || doublePosition.length != 3)
 			throw new IllegalArgumentException();
 		
-		return new Coordinate((int) doublePosition[0], 
-				(int) doublePosition[1], (int) doublePosition[2]);
+		return new Coordinate(clamp(doublePosition[0]), 
+				clamp(doublePosition[1]), clamp(doublePosition[2]));
 		
 	}
 	
 	
+	/**
+	 * Return the given value truncated to an integer coordinate, clamped to the 
+	 * range of coordinates, which lies far outside any world.
+	 */
+	private static int clamp(double value) {
+		return (int) Math.max(Coordinate.MIN_VALUE, Math.min(Coordinate.MAX_VALUE, value));
+	}
+	
+	
 	public static double[] convertCoordinateToDouble(Coordinate coordinate) 
 			throws IllegalArgumentException {
 
@@ -1,80 +1,132 @@
 package hillbillies.model;
 
-import java.util.Arrays;
-
-public class Coordinate {
-	
-	
-	public Coordinate(int x, int y, int z) {
-		setX(x);
-		setY(y);
-		setZ(z);
-	}
-	
-	public Coordinate(int[] coordinates) {
-		set(coordinates);
-	}
-	
-	public int get(int i) {
-		if (i < 0 || i > 2)
+import be.kuleuven.cs.som.annotate.*;
+
+/**
+ * A class of immutable cube coordinates, packing the x, y and z coordinate
+ * into a single long key.
+ *
+ * @invar	Each coordinate lies between MIN_VALUE and MAX_VALUE.
+ * 			| for each i in 0..2:
+ * 			|	MIN_VALUE <= get(i) && get(i) <= MAX_VALUE
+ *
+ * @author Ruben Cartuyvels
+ * @version 2.0
+ */
+@Value
+public final class Coordinate {
+
+
+	/**
+	 * Initialize this new coordinate with the given x, y and z coordinates.
+	 *
+	 * @post	| new.get(0) == x && new.get(1) == y && new.get(2) == z
+	 *
+	 * @throws	IllegalArgumentException
+	 * 			One of the given coordinates lies outside the range that can be packed.
+	 * 			| !isValidValue(x) || !isValidValue(y) || !isValidValue(z)
+	 */
+	public Coordinate(int x, int y, int z) throws IllegalArgumentException {
+		if (!isValidValue(x) || !isValidValue(y) || !isValidValue(z))
 			throw new IllegalArgumentException();
-		return this.coordinates[i];
-	}
-	
-	private void setX(int x) {
-		this.coordinates[0] = x;
+		this.key = ((long) (x & MASK) << (2 * BITS)) | ((long) (y & MASK) << BITS) | (z & MASK);
+		this.hash = mix(this.key);
 	}
-	
-	private void setY(int y) {
-		this.coordinates[1] = y;
-	}
-	
-	private void setZ(int z) {
-		this.coordinates[2] = z;
+
+	/**
+	 * Initialize this new coordinate with the coordinates in the given array,
+	 * which is not referenced by the new coordinate.
+	 *
+	 * @effect	| this(coordinates[0], coordinates[1], coordinates[2])
+	 *
+	 * @throws	IllegalArgumentException
+	 * 			| coordinates.length != 3
+	 */
+	public Coordinate(int[] coordinates) throws IllegalArgumentException {
+		this(checkLength(coordinates)[0], coordinates[1], coordinates[2]);
 	}
-	
-	
-	public void set(int i, int coord) {
-		if (i < 0 || i > 2)
+
+	private static int[] checkLength(int[] coordinates) {
+		if (coordinates.length != 3)
 			throw new IllegalArgumentException();
-		this.coordinates[i] = coord;
+		return coordinates;
 	}
-	
-	public void set(int[] coord) {
-		if (coord.length != 3)
+
+
+	/**
+	 * Return the coordinate along the given axis.
+	 *
+	 * @throws	IllegalArgumentException
+	 * 			| i < 0 || i > 2
+	 */
+	public int get(int i) throws IllegalArgumentException {
+		if (i < 0 || i > 2)
 			throw new IllegalArgumentException();
-		
-		this.coordinates = coord;
+		return (int) (this.key << (64 - (3 - i) * BITS) >> (64 - BITS));
 	}
-	
+
+	/**
+	 * Return a new array with the x, y and z coordinates.
+	 */
 	public int[] getCoordinates() {
-		return this.coordinates;
+		return new int[] { get(0), get(1), get(2) };
+	}
+
+	/**
+	 * Return the long key packing the three coordinates.
+	 */
+	@Basic @Immutable
+	public long getKey() {
+		return this.key;
 	}
-	
-	private int[] coordinates = new int[3];
-	
-	//private double[] position;
-	
-	
+
+	/**
+	 * Check whether the given value can be packed as a coordinate.
+	 */
+	public static boolean isValidValue(int value) {
+		return MIN_VALUE <= value && value <= MAX_VALUE;
+	}
+
+
+	private final long key;
+
+	private final int hash;
+
+	private static final int BITS = 21;
+
+	private static final int MASK = (1 << BITS) - 1;
+
+	public static final int MAX_VALUE = (1 << (BITS - 1)) - 1;
+
+	public static final int MIN_VALUE = -(1 << (BITS - 1));
+
+
+	/**
+	 * Return a well-mixed hash of the given key (the finalizer of MurmurHash3).
+	 */
+	private static int mix(long key) {
+		key ^= key >>> 33;
+		key *= 0xff51afd7ed558ccdL;
+		key ^= key >>> 33;
+		key *= 0xc4ceb9fe1a85ec53L;
+		key ^= key >>> 33;
+		return (int) key;
+	}
+
+
+	@Override
 	public boolean equals(Object other) {
-		if (other instanceof Coordinate && Arrays.equals(this.getCoordinates(),
-				((Coordinate) other).getCoordinates()))
-			return true;
-		return false;
+		return (other instanceof Coordinate) && ((Coordinate) other).key == this.key;
 	}
-	
+
 	@Override
 	public int hashCode() {
-		int sum = 0;
-		for (int i=0; i<this.getCoordinates().length; i++) {
-			sum += Math.pow(10, 2*i) * this.get(i);
-		}
-		return sum;
+		return this.hash;
 	}
-	
+
 	@Override
 	public String toString() {
-		return Arrays.toString(this.getCoordinates());
+		return "[" + get(0) + ", " + get(1) + ", " + get(2) + "]";
 	}
-	
+
 }
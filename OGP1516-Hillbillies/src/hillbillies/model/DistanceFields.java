@@ -0,0 +1,588 @@
+package hillbillies.model;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import be.kuleuven.cs.som.annotate.*;
+
+/**
+ * A class of services keeping distance fields towards popular destinations
+ * of a world, shared by all nits moving to those destinations.
+ *
+ * A distance field registers for each cube of the world the number of steps
+ * to its destination, computed by a single breadth-first search backwards
+ * from the destination. A nit following a field takes the neighbouring cube
+ * with the smallest distance, which takes constant time per step.
+ *
+ * A field is only built once its destination has been requested a number of
+ * times equal to the popularity threshold. When the terrain of the world
+ * changes, the existing fields are updated around the change: cubes that
+ * became traversable are relaxed into them, and when a reached cube becomes
+ * blocked, only the cubes whose shortest paths all passed through it are
+ * removed and relaxed again from the cubes around them. The least recently
+ * used fields are evicted as soon as the fields together take more memory
+ * than the memory budget. The requests for destinations without a field are
+ * counted for a bounded number of destinations, forgetting the least recently
+ * requested ones first.
+ *
+ * @invar	The memory budget of each service must be a valid memory budget.
+ * 			| isValidMemoryBudget(getMemoryBudget())
+ *
+ * @invar	The popularity threshold of each service must be a valid
+ * 			popularity threshold.
+ * 			| isValidPopularityThreshold(getPopularityThreshold())
+ *
+ * @author Ruben Cartuyvels
+ * @version 1.0
+ */
+public class DistanceFields {
+
+	/**
+	 * Initialize this new distance field service for the given world, with
+	 * the default memory budget and popularity threshold.
+	 *
+	 * @param	world
+	 * 			The world to compute distance fields in.
+	 *
+	 * @post	| new.getWorld() == world
+	 *
+	 * @post	| new.getMemoryBudget() == DEFAULT_MEMORY_BUDGET
+	 *
+	 * @post	| new.getPopularityThreshold() == DEFAULT_POPULARITY_THRESHOLD
+	 */
+	public DistanceFields(World world) {
+		this.world = world;
+		this.nbX = world.getNbCubesX();
+		this.nbY = world.getNbCubesY();
+		this.nbZ = world.getNbCubesZ();
+	}
+
+
+	/**
+	 * Return the world of this service.
+	 */
+	@Basic @Immutable
+	public World getWorld() {
+		return this.world;
+	}
+
+	private final World world;
+
+	private final int nbX;
+	private final int nbY;
+	private final int nbZ;
+
+
+	/**
+	 * Return the number of bytes all fields of this service may take together.
+	 */
+	@Basic
+	public long getMemoryBudget() {
+		return this.memoryBudget;
+	}
+
+	/**
+	 * Check whether the given memory budget is valid.
+	 *
+	 * @return	| result == (memoryBudget >= 0)
+	 */
+	public static boolean isValidMemoryBudget(long memoryBudget) {
+		return memoryBudget >= 0;
+	}
+
+	/**
+	 * Set the memory budget of this service to the given memory budget,
+	 * evicting the least recently used fields that no longer fit.
+	 *
+	 * @param	memoryBudget
+	 * 			The new memory budget, in bytes.
+	 *
+	 * @post	| new.getMemoryBudget() == memoryBudget
+	 *
+	 * @throws	IllegalArgumentException
+	 * 			| !isValidMemoryBudget(memoryBudget)
+	 */
+	public void setMemoryBudget(long memoryBudget) throws IllegalArgumentException {
+		if (!isValidMemoryBudget(memoryBudget))
+			throw new IllegalArgumentException();
+		this.memoryBudget = memoryBudget;
+		evict();
+	}
+
+	/**
+	 * The memory budget of a new service, in bytes.
+	 */
+	public static final long DEFAULT_MEMORY_BUDGET = 32L << 20;
+
+	private long memoryBudget = DEFAULT_MEMORY_BUDGET;
+
+
+	/**
+	 * Return the number of requests after which a field is built for a destination.
+	 */
+	@Basic
+	public int getPopularityThreshold() {
+		return this.popularityThreshold;
+	}
+
+	/**
+	 * Check whether the given popularity threshold is valid.
+	 *
+	 * @return	| result == (popularityThreshold > 0)
+	 */
+	public static boolean isValidPopularityThreshold(int popularityThreshold) {
+		return popularityThreshold > 0;
+	}
+
+	/**
+	 * Set the popularity threshold of this service to the given threshold.
+	 *
+	 * @post	| new.getPopularityThreshold() == popularityThreshold
+	 *
+	 * @throws	IllegalArgumentException
+	 * 			| !isValidPopularityThreshold(popularityThreshold)
+	 */
+	public void setPopularityThreshold(int popularityThreshold) throws IllegalArgumentException {
+		if (!isValidPopularityThreshold(popularityThreshold))
+			throw new IllegalArgumentException();
+		this.popularityThreshold = popularityThreshold;
+	}
+
+	/**
+	 * The popularity threshold of a new service.
+	 */
+	public static final int DEFAULT_POPULARITY_THRESHOLD = 3;
+
+	private int popularityThreshold = DEFAULT_POPULARITY_THRESHOLD;
+
+
+	/* *********************************************************
+	 *
+	 * 							FIELDS
+	 *
+	 **********************************************************/
+
+
+	/**
+	 * Return the field towards the given destination for the given movement
+	 * rule, if this service keeps one, without counting a request.
+	 *
+	 * @return	The field towards the given destination for the given rule,
+	 * 			rebuilt if the terrain invalidated it, or null if there is none.
+	 */
+	public Field getField(Coordinate destination, MovementRule rule) {
+		long key = keyOf(destination, rule);
+		Field field = this.fields.remove(key);
+		if (field == null)
+			return null;
+		this.fields.put(key, field);
+		if (field.isStale())
+			field.build();
+		return field;
+	}
+
+
+	/**
+	 * Return the field towards the given destination for the given movement
+	 * rule, if this service keeps one that is up to date, without counting a
+	 * request or marking the field as used. This only reads this service, so
+	 * nits may look up fields in parallel.
+	 *
+	 * @return	The field towards the given destination for the given rule,
+	 * 			or null if there is none or if the terrain invalidated it.
+	 */
+	Field peekField(Coordinate destination, MovementRule rule) {
+		Field field = this.fields.get(keyOf(destination, rule));
+		if (field == null || field.isStale())
+			return null;
+		return field;
+	}
+
+
+	/**
+	 * Request the field towards the given destination for the given movement
+	 * rule, building it if the destination has now been requested as many
+	 * times as the popularity threshold.
+	 *
+	 * @return	The field towards the given destination for the given rule,
+	 * 			or null if the destination is not popular enough yet, or if a
+	 * 			single field does not fit in the memory budget.
+	 */
+	public Field request(Coordinate destination, MovementRule rule) {
+		Field field = getField(destination, rule);
+		if (field != null)
+			return field;
+
+		long key = keyOf(destination, rule);
+		int nbRequests = this.requests.merge(key, 1, Integer::sum);
+		if (nbRequests < getPopularityThreshold() || getFieldSize() > getMemoryBudget())
+			return null;
+
+		this.requests.remove(key);
+		field = new Field(indexOf(destination.get(0), destination.get(1), destination.get(2)), rule);
+		field.build();
+		this.fields.put(key, field);
+		evict();
+		return field;
+	}
+
+
+	/**
+	 * Register that the type of the cube with the given coordinates has changed.
+	 */
+	void terrainChanged(int x, int y, int z) {
+		for (Field field: this.fields.values())
+			field.terrainChanged(x, y, z);
+	}
+
+
+	/**
+	 * Return the number of fields kept by this service.
+	 */
+	public int getNbFields() {
+		return this.fields.size();
+	}
+
+
+	/**
+	 * Return the number of bytes taken by a single field.
+	 */
+	private long getFieldSize() {
+		return 4L * nbX * nbY * nbZ;
+	}
+
+
+	private void evict() {
+		Iterator<Field> iterator = this.fields.values().iterator();
+		while (iterator.hasNext() && getFieldSize() * this.fields.size() > getMemoryBudget()) {
+			iterator.next();
+			iterator.remove();
+		}
+	}
+
+
+	private long keyOf(Coordinate destination, MovementRule rule) {
+		return (long) indexOf(destination.get(0), destination.get(1), destination.get(2))
+				* MovementRule.values().length + rule.ordinal();
+	}
+
+
+	private int indexOf(int x, int y, int z) {
+		return x + y * nbX + z * nbX * nbY;
+	}
+
+
+	/**
+	 * Map of the fields of this service, from least to most recently used.
+	 * A field is moved to the end when it is used, so that looking one up
+	 * without using it leaves the map unchanged.
+	 */
+	private final LinkedHashMap<Long, Field> fields = new LinkedHashMap<Long, Field>();
+
+	/**
+	 * Map registering the number of requests for destinations without a field,
+	 * from least to most recently requested, forgetting the least recently
+	 * requested destination when it grows too large.
+	 */
+	private final Map<Long, Integer> requests = new LinkedHashMap<Long, Integer>(16, 0.75f, true) {
+
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Long, Integer> eldest) {
+			return size() > MAX_TRACKED_REQUESTS;
+		}
+
+	};
+
+	private static final int MAX_TRACKED_REQUESTS = 1024;
+
+
+	/**
+	 * A class of distance fields towards a single destination.
+	 */
+	public class Field {
+
+		private Field(int destination, MovementRule rule) {
+			this.destination = destination;
+			this.rule = rule;
+			this.distances = new int[nbX * nbY * nbZ];
+		}
+
+
+		/**
+		 * Return the number of steps from the cube with the given coordinates
+		 * to the destination of this field, or -1 if it cannot be reached.
+		 */
+		public int getDistance(int x, int y, int z) {
+			return this.distances[indexOf(x, y, z)];
+		}
+
+
+		/**
+		 * Return the flat index of the next cube on a shortest path from the
+		 * cube with the given coordinates to the destination of this field.
+		 *
+		 * @return	The flat index of the given cube if it is the destination.
+		 *
+		 * @return	The flat index of the neighbouring cube closest to the
+		 * 			destination, or -1 if no neighbouring cube can reach it.
+		 */
+		public int getNextStep(int x, int y, int z) {
+			int current = indexOf(x, y, z);
+			if (current == this.destination)
+				return current;
+			int next = -1;
+			int best = Integer.MAX_VALUE;
+			for (int i = Math.max(x-1, 0); i <= Math.min(x+1, nbX-1); i++) {
+				for (int j = Math.max(y-1, 0); j <= Math.min(y+1, nbY-1); j++) {
+					for (int k = Math.max(z-1, 0); k <= Math.min(z+1, nbZ-1); k++) {
+						int neighbour = indexOf(i, j, k);
+						int distance = this.distances[neighbour];
+						if (neighbour != current && distance >= 0 && distance < best) {
+							best = distance;
+							next = neighbour;
+						}
+					}
+				}
+			}
+			return next;
+		}
+
+
+		private boolean isStale() {
+			return this.stale;
+		}
+
+
+		/**
+		 * Compute the distances of all cubes by a breadth-first search
+		 * backwards from the destination.
+		 */
+		private void build() {
+			Arrays.fill(this.distances, -1);
+			this.distances[this.destination] = 0;
+			this.queue = new int[64];
+			this.tail = 0;
+			enqueue(this.destination);
+			propagate();
+			this.stale = false;
+		}
+
+
+		/**
+		 * Relax the neighbours of the cubes in the queue, until the queue is empty.
+		 */
+		private void propagate() {
+			for (int head = 0; head < this.tail; head++)
+				relax(this.queue[head]);
+			this.queue = null;
+		}
+
+
+		private void enqueue(int node) {
+			if (this.tail == this.queue.length)
+				this.queue = Arrays.copyOf(this.queue, this.tail * 2);
+			this.queue[this.tail++] = node;
+		}
+
+
+		/**
+		 * Set the distance of each traversable neighbour of the given cube that
+		 * is further from the destination than one step past the given cube,
+		 * and append those neighbours to the queue.
+		 */
+		private void relax(int node) {
+			int x = node % nbX, y = (node / nbX) % nbY, z = node / (nbX * nbY);
+			int distance = this.distances[node] + 1;
+			for (int i = Math.max(x-1, 0); i <= Math.min(x+1, nbX-1); i++) {
+				for (int j = Math.max(y-1, 0); j <= Math.min(y+1, nbY-1); j++) {
+					for (int k = Math.max(z-1, 0); k <= Math.min(z+1, nbZ-1); k++) {
+						int neighbour = indexOf(i, j, k);
+						int old = this.distances[neighbour];
+						if ((old < 0 || old > distance) && neighbour != this.destination
+								&& this.rule.isTraversable(getWorld(), i, j, k)) {
+							this.distances[neighbour] = distance;
+							enqueue(neighbour);
+						}
+					}
+				}
+			}
+		}
+
+
+		/**
+		 * Update this field for a change of the type of the cube with the given
+		 * coordinates. Only that cube and its neighbours can change traversability.
+		 * 
+		 * Each reached cube that became blocked is removed from this field with
+		 * the cubes that depended on it, after which those cubes and the cubes
+		 * that became traversable are relaxed again from the cubes around them.
+		 */
+		private void terrainChanged(int x, int y, int z) {
+			if (isStale())
+				return;
+			this.removed = null;
+			this.nbRemoved = 0;
+			for (int i = Math.max(x-1, 0); i <= Math.min(x+1, nbX-1); i++) {
+				for (int j = Math.max(y-1, 0); j <= Math.min(y+1, nbY-1); j++) {
+					for (int k = Math.max(z-1, 0); k <= Math.min(z+1, nbZ-1); k++) {
+						int cube = indexOf(i, j, k);
+						if (cube == this.destination)
+							continue;
+						boolean traversable = this.rule.isTraversable(getWorld(), i, j, k);
+						if (this.distances[cube] >= 0 && !traversable)
+							remove(cube);
+						else if (this.distances[cube] < 0 && traversable)
+							addRemoved(cube);
+					}
+				}
+			}
+			if (this.removed != null)
+				relaxFrom(this.removed, this.nbRemoved);
+			this.removed = null;
+		}
+
+
+		/**
+		 * Remove the given blocked cube from this field, together with each
+		 * cube that no longer has a neighbour one step closer to the
+		 * destination once the cubes before it have been removed, and register
+		 * the removed cubes to be relaxed again.
+		 * 
+		 * The cubes depending on a removed cube are checked in order of their
+		 * distance, so that a cube is only checked once all cubes that could
+		 * support it have been.
+		 */
+		private void remove(int blocked) {
+			this.candidates = new int[64];
+			int head = 0;
+			int level = this.distances[blocked];
+			this.distances[blocked] = -1;
+			addRemoved(blocked);
+			int tail = addDependents(blocked, level, 0);
+			while (head < tail) {
+				int cube = this.candidates[head++];
+				int distance = this.distances[cube];
+				if (distance < 0 || isSupported(cube, distance))
+					continue;
+				this.distances[cube] = -1;
+				addRemoved(cube);
+				tail = addDependents(cube, distance, tail);
+			}
+			this.candidates = null;
+		}
+
+
+		/**
+		 * Append the neighbours of the given cube that are one step further
+		 * from the destination than the given distance of that cube to the
+		 * given number of candidates of this field, and return the new number
+		 * of candidates.
+		 */
+		private int addDependents(int node, int distance, int tail) {
+			int x = node % nbX, y = (node / nbX) % nbY, z = node / (nbX * nbY);
+			for (int i = Math.max(x-1, 0); i <= Math.min(x+1, nbX-1); i++) {
+				for (int j = Math.max(y-1, 0); j <= Math.min(y+1, nbY-1); j++) {
+					for (int k = Math.max(z-1, 0); k <= Math.min(z+1, nbZ-1); k++) {
+						int neighbour = indexOf(i, j, k);
+						if (this.distances[neighbour] != distance + 1 || neighbour == this.destination)
+							continue;
+						if (tail == this.candidates.length)
+							this.candidates = Arrays.copyOf(this.candidates, tail * 2);
+						this.candidates[tail++] = neighbour;
+					}
+				}
+			}
+			return tail;
+		}
+
+
+		/**
+		 * Check whether the given cube, at the given distance, has a neighbour
+		 * in this field that is one step closer to the destination.
+		 */
+		private boolean isSupported(int node, int distance) {
+			int x = node % nbX, y = (node / nbX) % nbY, z = node / (nbX * nbY);
+			for (int i = Math.max(x-1, 0); i <= Math.min(x+1, nbX-1); i++)
+				for (int j = Math.max(y-1, 0); j <= Math.min(y+1, nbY-1); j++)
+					for (int k = Math.max(z-1, 0); k <= Math.min(z+1, nbZ-1); k++)
+						if (this.distances[indexOf(i, j, k)] == distance - 1)
+							return true;
+			return false;
+		}
+
+
+		private void addRemoved(int cube) {
+			if (this.removed == null)
+				this.removed = new int[27];
+			if (this.nbRemoved == this.removed.length)
+				this.removed = Arrays.copyOf(this.removed, this.nbRemoved * 2);
+			this.removed[this.nbRemoved++] = cube;
+		}
+
+
+		/**
+		 * Relax the given cubes that are not in this field into it, if they are
+		 * traversable, and propagate their shorter distances through the rest
+		 * of the field.
+		 */
+		private void relaxFrom(int[] cubes, int nbCubes) {
+			this.queue = new int[64];
+			this.tail = 0;
+			for (int n = 0; n < nbCubes; n++) {
+				int cube = cubes[n];
+				if (this.distances[cube] >= 0 || !this.rule.isTraversable(getWorld(), 
+						cube % nbX, (cube / nbX) % nbY, cube / (nbX * nbY)))
+					continue;
+				int x = cube % nbX, y = (cube / nbX) % nbY, z = cube / (nbX * nbY);
+				for (int i = Math.max(x-1, 0); i <= Math.min(x+1, nbX-1); i++) {
+					for (int j = Math.max(y-1, 0); j <= Math.min(y+1, nbY-1); j++) {
+						for (int k = Math.max(z-1, 0); k <= Math.min(z+1, nbZ-1); k++) {
+							int distance = this.distances[indexOf(i, j, k)];
+							if (distance >= 0 && (this.distances[cube] < 0
+									|| this.distances[cube] > distance + 1))
+								this.distances[cube] = distance + 1;
+						}
+					}
+				}
+				if (this.distances[cube] >= 0)
+					enqueue(cube);
+			}
+			propagate();
+		}
+
+
+		private final int destination;
+
+		private final MovementRule rule;
+
+		private final int[] distances;
+
+		private boolean stale = true;
+
+		/**
+		 * The queue of cubes whose neighbours must still be relaxed, which only
+		 * exists while the field is being updated. A cube may be queued more
+		 * than once while relaxing, each time its distance improves.
+		 */
+		private int[] queue;
+
+		private int tail;
+
+		/**
+		 * The cubes to be relaxed again after a change of the terrain, and the
+		 * cubes to be checked while removing a blocked cube, which only exist
+		 * while the field is being updated.
+		 */
+		private int[] removed;
+
+		private int nbRemoved;
+
+		private int[] candidates;
+
+	}
+
+}
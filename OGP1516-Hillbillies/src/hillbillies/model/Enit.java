@@ -1,8 +1,7 @@
 package hillbillies.model;
 
-import java.util.LinkedList;
-import java.util.List;
 
+import be.kuleuven.cs.som.annotate.Immutable;
 import be.kuleuven.cs.som.annotate.Model;
 import be.kuleuven.cs.som.annotate.Raw;
 
@@ -143,6 +142,11 @@ public class Enit extends Nit {
 	 * @param 	dt
 	 * 			The amount by which the game time has to be advanced
 	 * 
+	 * @effect	If the enit has no hitpoints left, it is terminated, at the end
+	 * 			of the time step if its world defers changes, and nothing else happens.
+	 * 			| if (getCurrentHitPoints() <= 0)
+	 * 			|	then getWorld().defer(this, () -> terminate())
+	 * 
 	 * @throws IllegalArgumentException
 	 * 			The value for dt is not valid.
 	 * 			| ! isValidDT(dt)
@@ -154,7 +158,8 @@ public class Enit extends Nit {
 			throw new IllegalArgumentException();
 		}
 		if (getCurrentHitPoints() <= 0) {
-			terminate();
+			getWorld().defer(this, this::terminate);
+			return;
 		}
 		
 		super.advanceTime(dt);
@@ -170,52 +175,21 @@ public class Enit extends Nit {
 	 */
 	@Override
 	protected Coordinate getRandomReachableCube() {
-		Coordinate cube;
-		do {
-			cube = getWorld().getNearRandomCube(getCoordinate());
-		} while (!isReachable(cube));
-		return cube;
+		return getWorld().getNearRandomReachableCube(getCoordinate(), getMovementRule(),
+				cube -> true, getRandom());
 	}
 	
 	
 	
 	/**
-	 * Adds neighbours of a given cube in the given queue to the queue, with an
-	 * incremented weight, if they feature a passable terraintype,
-	 * and if the queue not already contains that neighbour with a smaller weight.
-	 * 
-	 * @param 	currentTuple
-	 * 			the tuple consisting of the cube to add the neighbours of, and its
-	 * 			weight.
-	 * 
-	 * @param 	path
-	 * 			the path queue to add the right neighbours to.
-	 * 
-	 * @return	the path is returned after the neighbours are added.
+	 * Return the rule deciding which cubes this enit can move through.
 	 * 
+	 * @return	Enits can move through any passable cube.
+	 * 			| result == MovementRule.FREE
 	 */
-	@Override
-	protected List<Tuple> search(Tuple currentTuple, List<Tuple> path) {
-		
-		List<Coordinate> neighbours = new LinkedList<Coordinate>();
-		
-		for (Coordinate neighbour: getWorld().getNeighbours(currentTuple.cube)) {
-			
-			if (getWorld().getCubeTypeAt(neighbour).isPassable()
-															
-					&& ! (Tuple.containsCube(path, neighbour)
-					
-					&& Tuple.getCubeTuple(path, neighbour).n <= currentTuple.n )
-					) {
-				neighbours.add(neighbour);
-			}
-		}
-		
-		for (Coordinate neighbour: neighbours) {
-			path.add(new Tuple(neighbour, currentTuple.n + 1));
-		}
-		
-		return path;
+	@Override @Immutable
+	protected MovementRule getMovementRule() {
+		return MovementRule.FREE;
 	}
 	
 	
@@ -6,7 +6,9 @@ import be.kuleuven.cs.som.annotate.Raw;
 import java.util.*;
 
 /**
- * A class of factions, attached to worlds. A faction contains up to 50 nits.
+ * A class of factions, attached to worlds. A faction contains up to the maximum
+ * number of nits per faction of its world, or 50 nits if it is not attached to
+ * a world.
  * 
  * @invar	Each faction must have a proper world to which it is
  * 			attached.
@@ -33,11 +35,24 @@ public class Faction /*implements Comparable<Faction>*/ {
 	public Faction () {
 	}
 	
-	private static int getMaxNbNits() {
-		return maxNits;
+	/**
+	 * Return the maximum number of nits this faction can contain.
+	 * 
+	 * @return	| if (getWorld() == null)
+	 * 			|	then result == World.DEFAULT_MAX_NB_NITS_PER_FACTION
+	 * 			|	else result == getWorld().getMaxNbNitsPerFaction()
+	 */
+	public int getMaxNbNits() {
+		if (getWorld() == null)
+			return World.DEFAULT_MAX_NB_NITS_PER_FACTION;
+		return getWorld().getMaxNbNitsPerFaction();
 	}
 	
-	private final static int maxNits = 50;
+	/**
+	 * The index of this faction in the faction heap of its world, or -1 if it
+	 * is not in a heap. This is maintained by the heap.
+	 */
+	int heapIndex = -1;
 	
 	/**
 	 * Variable registering whether or not this faction is terminated.
@@ -103,8 +118,8 @@ public class Faction /*implements Comparable<Faction>*/ {
 	 * 			|		nit.getFaction() == this
 	 * 
 	 * @invar	The number of nits in the set is always smaller than or
-	 * 			equal to 50.
-	 * 			| nits.size() <= 50
+	 * 			equal to the maximum number of nits of this faction.
+	 * 			| nits.size() <= getMaxNbNits()
 	 */
 	private final Set<Nit> nits = new HashSet<Nit>();
 	
@@ -248,7 +263,8 @@ public class Faction /*implements Comparable<Faction>*/ {
 				*/
 			}
 		
-		this.nits.add(nit);
+		if (this.nits.add(nit) && getWorld() != null)
+			getWorld().updateFaction(this);
 		nit.setFaction(this);
 	}
 	
@@ -271,6 +287,8 @@ public class Faction /*implements Comparable<Faction>*/ {
 		if (hasAsNit(nit)) {
 			this.nits.remove(nit);
 			nit.setFaction(null);
+			if (getWorld() != null)
+				getWorld().updateFaction(this);
 		}
 	}
 	
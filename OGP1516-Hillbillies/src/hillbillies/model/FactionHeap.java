@@ -0,0 +1,157 @@
+package hillbillies.model;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+import be.kuleuven.cs.som.annotate.*;
+
+/**
+ * A class of binary min-heaps of factions, keyed by their number of nits,
+ * used by a world to find its smallest faction.
+ *
+ * Each faction in a heap remembers its index in it, so that it can be
+ * removed, and moved after its number of nits has changed, in logarithmic
+ * time. A faction can be in at most one heap at a time.
+ *
+ * @author Ruben Cartuyvels
+ * @version 1.0
+ */
+class FactionHeap {
+
+	/**
+	 * Initialize this new faction heap without any factions.
+	 *
+	 * @post	| new.size() == 0
+	 */
+	FactionHeap() {
+	}
+
+
+	/**
+	 * Return the number of factions in this heap.
+	 */
+	@Basic
+	int size() {
+		return this.size;
+	}
+
+	/**
+	 * Return the faction at the given index in this heap. The faction at
+	 * index 0 has the smallest number of nits.
+	 */
+	@Basic
+	Faction get(int index) {
+		if (index < 0 || index >= size())
+			throw new IndexOutOfBoundsException();
+		return this.factions[index];
+	}
+
+	/**
+	 * Return the faction in this heap with the smallest number of nits, or
+	 * null if this heap is empty.
+	 */
+	Faction peek() {
+		return (size() == 0) ? null : this.factions[0];
+	}
+
+	/**
+	 * Check whether this heap contains the given faction.
+	 */
+	boolean contains(Faction faction) {
+		if (faction == null)
+			return false;
+		int index = faction.heapIndex;
+		return (index >= 0 && index < size() && this.factions[index] == faction);
+	}
+
+
+	/**
+	 * Add the given faction to this heap.
+	 *
+	 * @throws	IllegalArgumentException
+	 * 			| faction == null || faction.heapIndex >= 0
+	 */
+	void add(Faction faction) throws IllegalArgumentException {
+		if (faction == null || faction.heapIndex >= 0)
+			throw new IllegalArgumentException();
+		if (this.size == this.factions.length)
+			this.factions = Arrays.copyOf(this.factions, 2 * this.size);
+		place(faction, this.size++);
+		siftUp(faction.heapIndex);
+	}
+
+	/**
+	 * Remove the given faction from this heap, if it contains it.
+	 */
+	void remove(Faction faction) {
+		if (!contains(faction))
+			return;
+		int index = faction.heapIndex;
+		Faction last = this.factions[--this.size];
+		this.factions[this.size] = null;
+		faction.heapIndex = -1;
+		if (last != faction) {
+			place(last, index);
+			update(last);
+		}
+	}
+
+	/**
+	 * Restore the order of this heap after the number of nits of the given
+	 * faction has changed.
+	 */
+	void update(Faction faction) {
+		if (!contains(faction))
+			return;
+		siftDown(siftUp(faction.heapIndex));
+	}
+
+
+	private int siftUp(int index) {
+		Faction faction = this.factions[index];
+		while (index > 0) {
+			int parent = (index - 1) >>> 1;
+			if (COMPARATOR.compare(faction, this.factions[parent]) >= 0)
+				break;
+			place(this.factions[parent], index);
+			index = parent;
+		}
+		place(faction, index);
+		return index;
+	}
+
+	private int siftDown(int index) {
+		Faction faction = this.factions[index];
+		int half = this.size >>> 1;
+		while (index < half) {
+			int child = 2 * index + 1;
+			if (child + 1 < this.size
+					&& COMPARATOR.compare(this.factions[child + 1], this.factions[child]) < 0)
+				child++;
+			if (COMPARATOR.compare(faction, this.factions[child]) <= 0)
+				break;
+			place(this.factions[child], index);
+			index = child;
+		}
+		place(faction, index);
+		return index;
+	}
+
+	private void place(Faction faction, int index) {
+		this.factions[index] = faction;
+		faction.heapIndex = index;
+	}
+
+
+	/**
+	 * The factions of this heap, in heap order in the first size slots.
+	 */
+	private Faction[] factions = new Faction[INITIAL_CAPACITY];
+
+	private int size = 0;
+
+	private static final int INITIAL_CAPACITY = 8;
+
+	private static final Comparator<Faction> COMPARATOR = new NbNitsComparator();
+
+}
@@ -1,11 +1,11 @@
 package hillbillies.model;
 
-import java.util.Random;
+import java.util.SplittableRandom;
 
 import be.kuleuven.cs.som.annotate.Basic;
+import be.kuleuven.cs.som.annotate.Immutable;
 import be.kuleuven.cs.som.annotate.Model;
 import be.kuleuven.cs.som.annotate.Raw;
-import hillbillies.model.World.TerrainType;
 
 /**
  * A class of game objects, with a given position and world.
@@ -23,20 +23,78 @@ public abstract class GameObject {
 	
 	protected GameObject(World world) {
 		setWorld(world);
+		this.random = world.splitRandom();
 		setPosition(getWorld().getRandomNeighbouringSolidCube());
 	}
 	
 	protected GameObject(World world, Coordinate position) {
 		setWorld(world);
+		this.random = world.splitRandom();
 		setPosition(position);
 	}
 	
 	
-	protected static final Random random = new Random();
+	/**
+	 * Return the random generator of this game object.
+	 * 
+	 * A game object created in a world draws from a generator split off the
+	 * generator of that world when it is created. A game object created 
+	 * without a world gets one when it first needs it: split off the generator
+	 * of its world if it has one by then, and seeded freshly otherwise.
+	 */
+	@Model
+	protected SplittableRandom getRandom() {
+		if (this.random == null)
+			this.random = (getWorld() != null) ? getWorld().splitRandom() 
+					: new SplittableRandom(World.generateSeed());
+		return this.random;
+	}
+	
+	private SplittableRandom random = null;
 	
 	public abstract void advanceTime(double dt);
 	
 	
+	/**
+	 * Return the phase of a time step in which this game object advances time.
+	 */
+	@Basic @Immutable
+	abstract TickPhase getTickPhase();
+	
+	
+	/**
+	 * Return the tick scheduler this game object is registered with, or has a
+	 * pending change of its registration with, or null if there is none.
+	 */
+	@Model
+	TickScheduler getTickScheduler() {
+		return this.tickScheduler;
+	}
+	
+	/**
+	 * Return the id the tick scheduler of this game object has given it, or
+	 * -1 if it has no tick scheduler.
+	 */
+	@Model
+	int getTickId() {
+		return this.tickId;
+	}
+	
+	/**
+	 * Register the given tick scheduler as the scheduler of this game object,
+	 * which has given it the given id. Only to be used by tick schedulers.
+	 */
+	@Model
+	void setTickScheduler(TickScheduler tickScheduler, int tickId) {
+		this.tickScheduler = tickScheduler;
+		this.tickId = tickId;
+	}
+	
+	private TickScheduler tickScheduler = null;
+	
+	private int tickId = -1;
+	
+	
 	/**
 	 * Check if a given value is a valid game time dt value.
 	 * 
@@ -59,8 +117,7 @@ public abstract class GameObject {
 		if (!getWorld().canHaveAsCoordinates(coordinates)) {
 			return false; }
 
-		if (!TerrainType.byOrdinal(getWorld().getTerrainTypes()
-				[coordinates.get(0)][coordinates.get(1)][coordinates.get(2)]).isPassable() ) {
+		if (!getWorld().isPassable(coordinates.get(0), coordinates.get(1), coordinates.get(2)) ) {
 			return false;
 		}
 		return true;
@@ -76,6 +133,8 @@ public abstract class GameObject {
 		this.position[0] = position[0];
 		this.position[1] = position[1];
 		this.position[2] = position[2];
+		if (getSpatialIndex() != null && !getWorld().isDeferringChanges())
+			getSpatialIndex().positionChanged(this);
 	}
 	
 	protected void setPosition(Coordinate position) throws IllegalPositionException {
@@ -85,15 +144,30 @@ public abstract class GameObject {
 		this.position[0] = World.getCubeCenter(position)[0];
 		this.position[1] = World.getCubeCenter(position)[1];
 		this.position[2] = World.getCubeCenter(position)[2];
+		if (getSpatialIndex() != null && !getWorld().isDeferringChanges())
+			getSpatialIndex().positionChanged(this);
 	}
 	
 	
 	protected void updatePosition(double dt) throws IllegalPositionException {
+		setPosition(getPositionAfter(dt));
+	}
+	
+	
+	/**
+	 * Return the position the game object moves to in the given time
+	 * interval at its current velocity.
+	 * 
+	 * @return	| for each i in 0..2:
+	 * 			|	result[i] == getPosition()[i] + getVelocity()[i]*dt
+	 */
+	protected double[] getPositionAfter(double dt) throws IllegalPositionException {
+		double[] velocity = getVelocity();
 		double[] newPosition = new double[3];
 		for (int i=0; i<3; i++) {
-			newPosition[i] = getPosition()[i] + getVelocity()[i]*dt;
+			newPosition[i] = getPosition()[i] + velocity[i]*dt;
 		}
-		setPosition(newPosition);
+		return newPosition;
 	}
 	
 	
@@ -125,6 +199,39 @@ public abstract class GameObject {
 	 * Variable registering the position of the game object in the game world.
 	 */
 	private double position[] = new double[3];
+	
+	
+	/**
+	 * Return the spatial index of the world this game object is in, or null
+	 * if it is not indexed.
+	 */
+	@Model
+	SpatialIndex<?> getSpatialIndex() {
+		return this.spatialIndex;
+	}
+	
+	/**
+	 * Return the id the spatial index of this game object has given it, or
+	 * -1 if it is not indexed.
+	 */
+	@Model
+	int getSpatialId() {
+		return this.spatialId;
+	}
+	
+	/**
+	 * Register the given spatial index as the index of this game object,
+	 * which has given it the given id. Only to be used by spatial indices.
+	 */
+	@Model
+	void setSpatialIndex(SpatialIndex<?> spatialIndex, int spatialId) {
+		this.spatialIndex = spatialIndex;
+		this.spatialId = spatialId;
+	}
+	
+	private SpatialIndex<?> spatialIndex = null;
+	
+	private int spatialId = -1;
 
 	
 	
@@ -0,0 +1,655 @@
+package hillbillies.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import be.kuleuven.cs.som.annotate.*;
+
+/**
+ * A class of hierarchical path finders, answering long path queries in a
+ * world on an abstract graph over chunks of its terrain.
+ *
+ * The terrain is split in chunks of CHUNK_SIZE cubes along each axis. Where
+ * two chunks touch, at a face, an edge or a corner, each connected group of
+ * traversable cubes in the first chunk next to a traversable cube in the
+ * second is represented by a single pair of entrance nodes, one in each
+ * chunk, so that diagonal steps between chunks are entrances as well as
+ * straight ones. The nodes of a chunk are connected by
+ * the number of steps between them inside the chunk. A long query is answered
+ * by a search on this graph, which returns the entrance nodes to pass as
+ * waypoints; the steps between two waypoints are only computed when a nit
+ * reaches the first of them.
+ *
+ * A graph is kept for each movement rule, and only built once that rule is
+ * used. The abstract graph is searched like the A* path finder searches
+ * cubes, with costs stamped with the number of the current search and a
+ * node heap as open set, in arrays of the searching thread. When the type of a cube changes, only the chunks around that cube
+ * are rebuilt, together with the neighbouring chunks whose shared entrances
+ * have changed.
+ *
+ * @author Ruben Cartuyvels
+ * @version 1.0
+ */
+public class HierarchicalPathFinder {
+
+	/**
+	 * Initialize this new hierarchical path finder for the given world.
+	 *
+	 * @param	world
+	 * 			The world to search paths in.
+	 *
+	 * @post	| new.getWorld() == world
+	 */
+	public HierarchicalPathFinder(World world) {
+		this.world = world;
+		this.nbX = world.getNbCubesX();
+		this.nbY = world.getNbCubesY();
+		this.nbZ = world.getNbCubesZ();
+		this.nbChunksX = (nbX + CHUNK_SIZE - 1) / CHUNK_SIZE;
+		this.nbChunksY = (nbY + CHUNK_SIZE - 1) / CHUNK_SIZE;
+		this.nbChunksZ = (nbZ + CHUNK_SIZE - 1) / CHUNK_SIZE;
+		this.graphs = new Graph[MovementRule.values().length];
+		int nbCubes = nbX * nbY * nbZ;
+		this.search = ThreadLocal.withInitial(() -> new Search(nbCubes));
+	}
+
+
+	/**
+	 * Return the world of this path finder.
+	 */
+	@Basic @Immutable
+	public World getWorld() {
+		return this.world;
+	}
+
+	private final World world;
+
+	private final int nbX;
+	private final int nbY;
+	private final int nbZ;
+
+	private final int nbChunksX;
+	private final int nbChunksY;
+	private final int nbChunksZ;
+
+	/**
+	 * The number of cubes along each axis of a chunk.
+	 */
+	public static final int CHUNK_SIZE = 16;
+
+
+	/**
+	 * Compute the waypoints of a path from the given start cube to the given
+	 * destination cube, through cubes that are traversable according to the
+	 * given movement rule.
+	 *
+	 * @param	start
+	 * 			The cube to start from.
+	 *
+	 * @param	destination
+	 * 			The cube to find a path to.
+	 *
+	 * @param	rule
+	 * 			The rule deciding which cubes may be moved through.
+	 *
+	 * @return	The flat indices of the cubes to pass, ending with the destination,
+	 * 			each of which can be reached from the previous one. If the start
+	 * 			and destination are less than a chunk apart, or if the abstract
+	 * 			graph does not connect them, the result only holds the destination.
+	 */
+	public int[] findRoute(Coordinate start, Coordinate destination, MovementRule rule) {
+		int source = indexOf(start.get(0), start.get(1), start.get(2));
+		int target = indexOf(destination.get(0), destination.get(1), destination.get(2));
+		if (chunkOf(source) == chunkOf(target) || distance(source, target) <= CHUNK_SIZE)
+			return new int[] { target };
+
+		Graph graph = getGraph(rule);
+		graph.update();
+		int[] route = graph.search(source, target);
+		if (route == null)
+			return new int[] { target };
+		return route;
+	}
+
+
+	/**
+	 * Register that the type of the cube with the given coordinates has changed.
+	 * This changes the traversability of that cube and its neighbours, so each
+	 * chunk containing one of them must be rebuilt.
+	 */
+	void terrainChanged(int x, int y, int z) {
+		for (Graph graph: this.graphs) {
+			if (graph == null)
+				continue;
+			for (int i = Math.max(x-1, 0) / CHUNK_SIZE; i <= Math.min(x+1, nbX-1) / CHUNK_SIZE; i++)
+				for (int j = Math.max(y-1, 0) / CHUNK_SIZE; j <= Math.min(y+1, nbY-1) / CHUNK_SIZE; j++)
+					for (int k = Math.max(z-1, 0) / CHUNK_SIZE; k <= Math.min(z+1, nbZ-1) / CHUNK_SIZE; k++)
+						graph.dirty.add(i + j * nbChunksX + k * nbChunksX * nbChunksY);
+		}
+	}
+
+
+	/**
+	 * Build or rebuild the abstract graph for the given movement rule, so
+	 * that searches for that rule only read it until the terrain changes.
+	 */
+	void prepare(MovementRule rule) {
+		getGraph(rule).update();
+	}
+
+
+	private Graph getGraph(MovementRule rule) {
+		if (this.graphs[rule.ordinal()] == null)
+			this.graphs[rule.ordinal()] = new Graph(rule);
+		return this.graphs[rule.ordinal()];
+	}
+
+	private final Graph[] graphs;
+
+
+	private int indexOf(int x, int y, int z) {
+		return x + y * nbX + z * nbX * nbY;
+	}
+
+	private int chunkOf(int cube) {
+		int x = cube % nbX, y = (cube / nbX) % nbY, z = cube / (nbX * nbY);
+		return x / CHUNK_SIZE + (y / CHUNK_SIZE) * nbChunksX + (z / CHUNK_SIZE) * nbChunksX * nbChunksY;
+	}
+
+	/**
+	 * Return the Chebyshev distance between the two given cubes, which never
+	 * exceeds the number of steps between them.
+	 */
+	private int distance(int cube1, int cube2) {
+		return Math.max(Math.abs(cube1 % nbX - cube2 % nbX), Math.max(
+				Math.abs((cube1 / nbX) % nbY - (cube2 / nbX) % nbY),
+				Math.abs(cube1 / (nbX * nbY) - cube2 / (nbX * nbY))));
+	}
+
+	/**
+	 * Return the lowest coordinate along the given axis of the chunk with the given index.
+	 */
+	private int low(int chunk, int axis) {
+		if (axis == 0)
+			return (chunk % nbChunksX) * CHUNK_SIZE;
+		if (axis == 1)
+			return ((chunk / nbChunksX) % nbChunksY) * CHUNK_SIZE;
+		return (chunk / (nbChunksX * nbChunksY)) * CHUNK_SIZE;
+	}
+
+	/**
+	 * Return the coordinate past the highest coordinate along the given axis
+	 * of the chunk with the given index.
+	 */
+	private int high(int chunk, int axis) {
+		int nb = (axis == 0) ? nbX : (axis == 1) ? nbY : nbZ;
+		return Math.min(low(chunk, axis) + CHUNK_SIZE, nb);
+	}
+
+	/**
+	 * Return the index of the chunk at the given offset from the given chunk,
+	 * multiplied by the given sign, or -1 if there is no such chunk.
+	 */
+	private int neighbour(int chunk, int[] offset, int sign) {
+		int x = chunk % nbChunksX + sign * offset[0];
+		int y = (chunk / nbChunksX) % nbChunksY + sign * offset[1];
+		int z = chunk / (nbChunksX * nbChunksY) + sign * offset[2];
+		if (x < 0 || x >= nbChunksX || y < 0 || y >= nbChunksY || z < 0 || z >= nbChunksZ)
+			return -1;
+		return x + y * nbChunksX + z * nbChunksX * nbChunksY;
+	}
+
+	/**
+	 * The offsets to the 13 neighbouring chunks that come after a chunk, in
+	 * which the first non-zero coordinate is positive. The chunks before a
+	 * chunk lie at the opposite offsets.
+	 */
+	private static final int[][] DIRECTIONS = new int[13][];
+
+	static {
+		int n = 0;
+		for (int dx = -1; dx <= 1; dx++)
+			for (int dy = -1; dy <= 1; dy++)
+				for (int dz = -1; dz <= 1; dz++)
+					if (dx > 0 || (dx == 0 && (dy > 0 || (dy == 0 && dz > 0))))
+						DIRECTIONS[n++] = new int[] { dx, dy, dz };
+	}
+
+	/**
+	 * The offsets along an axis to try for the cube next to a cube, starting
+	 * with the cube straight across.
+	 */
+	private static final int[] STRAIGHT_FIRST = { 0, -1, 1 };
+
+
+	/* *********************************************************
+	 *
+	 * 							SEARCH STATE
+	 *
+	 **********************************************************/
+
+
+	/**
+	 * A class of the arrays used by a single search of the abstract graph,
+	 * stamped with the number of the search.
+	 */
+	private static class Search {
+
+		private Search(int nbCubes) {
+			this.cost = new int[nbCubes];
+			this.parent = new int[nbCubes];
+			this.seen = new int[nbCubes];
+			this.closed = new int[nbCubes];
+		}
+
+		private int nextGeneration() {
+			if (++this.generation == Integer.MAX_VALUE) {
+				Arrays.fill(seen, 0);
+				Arrays.fill(closed, 0);
+				this.generation = 1;
+			}
+			return this.generation;
+		}
+
+		private int generation = 0;
+
+		private final int[] cost;
+		private final int[] parent;
+		private final int[] seen;
+		private final int[] closed;
+
+		/**
+		 * The open set of the search.
+		 */
+		private final NodeHeap open = new NodeHeap();
+
+	}
+
+	/**
+	 * The arrays of the searches of each thread.
+	 */
+	private final ThreadLocal<Search> search;
+
+
+	/* *********************************************************
+	 *
+	 * 							ABSTRACT GRAPH
+	 *
+	 **********************************************************/
+
+
+	/**
+	 * A class of abstract graphs over the chunks of the world, for a single
+	 * movement rule.
+	 */
+	private class Graph {
+
+		private Graph(MovementRule rule) {
+			this.rule = rule;
+			int nbChunks = nbChunksX * nbChunksY * nbChunksZ;
+			this.chunks = new Chunk[nbChunks];
+			for (int chunk = 0; chunk < nbChunks; chunk++)
+				this.dirty.add(chunk);
+		}
+
+		private final MovementRule rule;
+
+		private final Chunk[] chunks;
+
+		/**
+		 * Map from chunk*13+direction to the pairs of entrance cubes between
+		 * that chunk and the chunk after it in that direction, as a flat array
+		 * of the cube in the first chunk followed by the cube in the second.
+		 */
+		private final Map<Integer, int[]> boundaries = new HashMap<Integer, int[]>();
+
+		/**
+		 * Set of the chunks that must be rebuilt before the next search.
+		 */
+		private final Set<Integer> dirty = new HashSet<Integer>();
+
+
+		/**
+		 * Rebuild the boundaries of all dirty chunks, and the nodes of all
+		 * chunks of which a boundary has changed.
+		 */
+		private void update() {
+			if (this.dirty.isEmpty())
+				return;
+			Set<Integer> updatedBoundaries = new HashSet<Integer>();
+			Set<Integer> toConnect = new HashSet<Integer>();
+			for (int chunk: this.dirty) {
+				toConnect.add(chunk);
+				for (int d = 0; d < DIRECTIONS.length; d++) {
+					int next = neighbour(chunk, DIRECTIONS[d], 1);
+					if (next >= 0 && updatedBoundaries.add(chunk * DIRECTIONS.length + d)
+							&& updateBoundary(chunk, d))
+						toConnect.add(next);
+					int previous = neighbour(chunk, DIRECTIONS[d], -1);
+					if (previous >= 0 && updatedBoundaries.add(previous * DIRECTIONS.length + d)
+							&& updateBoundary(previous, d))
+						toConnect.add(previous);
+				}
+			}
+			this.dirty.clear();
+			for (int chunk: toConnect)
+				connect(chunk);
+		}
+
+
+		/**
+		 * Recompute the entrances between the given chunk and the chunk after
+		 * it in the given direction. The cells of the boundary are the cubes of
+		 * the given chunk next to that chunk, which lie on a face, an edge or a
+		 * corner of the given chunk. Each traversable cell is paired with a
+		 * traversable neighbouring cube in the other chunk, preferring the cube
+		 * straight across.
+		 *
+		 * @return	True if and only if the entrances have changed.
+		 */
+		private boolean updateBoundary(int chunk, int d) {
+			int[] direction = DIRECTIONS[d];
+			int[] lows = new int[3], highs = new int[3], sizes = new int[3];
+			for (int axis = 0; axis < 3; axis++) {
+				lows[axis] = low(chunk, axis);
+				highs[axis] = high(chunk, axis);
+				sizes[axis] = (direction[axis] == 0) ? highs[axis] - lows[axis] : 1;
+			}
+			int nbCells = sizes[0] * sizes[1] * sizes[2];
+
+			int[] first = new int[nbCells];
+			int[] second = new int[nbCells];
+			boolean[] open = new boolean[nbCells];
+			int[] coordinates = new int[3];
+			for (int cell = 0; cell < nbCells; cell++) {
+				int[] local = { cell % sizes[0], (cell / sizes[0]) % sizes[1], cell / (sizes[0] * sizes[1]) };
+				for (int axis = 0; axis < 3; axis++)
+					coordinates[axis] = (direction[axis] > 0) ? highs[axis] - 1 : lows[axis] + local[axis];
+				if (!isTraversable(coordinates[0], coordinates[1], coordinates[2]))
+					continue;
+				first[cell] = indexOf(coordinates[0], coordinates[1], coordinates[2]);
+				second[cell] = partnerOf(coordinates, direction, lows, highs);
+				open[cell] = (second[cell] >= 0);
+			}
+
+			// Each group of open cells connected on the boundary becomes one
+			// entrance, represented by the middle cell of the group in scan order.
+			List<Integer> pairs = new ArrayList<Integer>();
+			int[] group = new int[nbCells];
+			int sizeX = sizes[0], sizeY = sizes[1], sizeZ = sizes[2];
+			for (int cell = 0; cell < open.length; cell++) {
+				if (!open[cell])
+					continue;
+				open[cell] = false;
+				group[0] = cell;
+				int size = 1;
+				for (int head = 0; head < size; head++) {
+					int x = group[head] % sizeX, y = (group[head] / sizeX) % sizeY;
+					int z = group[head] / (sizeX * sizeY);
+					for (int i = Math.max(x-1, 0); i <= Math.min(x+1, sizeX-1); i++) {
+						for (int j = Math.max(y-1, 0); j <= Math.min(y+1, sizeY-1); j++) {
+							for (int k = Math.max(z-1, 0); k <= Math.min(z+1, sizeZ-1); k++) {
+								int neighbour = i + j * sizeX + k * sizeX * sizeY;
+								if (open[neighbour]) {
+									open[neighbour] = false;
+									group[size++] = neighbour;
+								}
+							}
+						}
+					}
+				}
+				Arrays.sort(group, 0, size);
+				pairs.add(first[group[size / 2]]);
+				pairs.add(second[group[size / 2]]);
+			}
+
+			int[] boundary = new int[pairs.size()];
+			for (int i = 0; i < boundary.length; i++)
+				boundary[i] = pairs.get(i);
+			int[] old = this.boundaries.put(chunk * DIRECTIONS.length + d, boundary);
+			return !Arrays.equals(old, boundary);
+		}
+
+
+		/**
+		 * Return the traversable cube next to the cube with the given
+		 * coordinates in the chunk after its chunk in the given direction,
+		 * given the bounds of its chunk, or -1 if there is none. Along the
+		 * axes on which the direction is zero, the cube straight across is
+		 * tried first.
+		 */
+		private int partnerOf(int[] coordinates, int[] direction, int[] lows, int[] highs) {
+			int[][] offsets = new int[3][];
+			for (int axis = 0; axis < 3; axis++)
+				offsets[axis] = (direction[axis] == 0) ? STRAIGHT_FIRST : new int[] { direction[axis] };
+			int[] other = new int[3];
+			for (int i: offsets[0]) {
+				for (int j: offsets[1]) {
+					for (int k: offsets[2]) {
+						other[0] = coordinates[0] + i;
+						other[1] = coordinates[1] + j;
+						other[2] = coordinates[2] + k;
+						if (isInside(other, direction, lows, highs)
+								&& isTraversable(other[0], other[1], other[2]))
+							return indexOf(other[0], other[1], other[2]);
+					}
+				}
+			}
+			return -1;
+		}
+
+		/**
+		 * Check whether the given coordinates lie within the given bounds of
+		 * a chunk along the axes on which the given direction is zero.
+		 */
+		private boolean isInside(int[] coordinates, int[] direction, int[] lows, int[] highs) {
+			for (int axis = 0; axis < 3; axis++)
+				if (direction[axis] == 0 && (coordinates[axis] < lows[axis] || coordinates[axis] >= highs[axis]))
+					return false;
+			return true;
+		}
+
+
+		/**
+		 * Collect the entrance nodes of the given chunk from its boundaries, and
+		 * compute the number of steps between each pair of them inside the chunk.
+		 */
+		private void connect(int chunk) {
+			List<Integer> nodes = new ArrayList<Integer>();
+			List<Integer> partners = new ArrayList<Integer>();
+			for (int d = 0; d < DIRECTIONS.length; d++) {
+				int[] boundary = this.boundaries.get(chunk * DIRECTIONS.length + d);
+				for (int i = 0; boundary != null && i < boundary.length; i += 2) {
+					nodes.add(boundary[i]);
+					partners.add(boundary[i+1]);
+				}
+				int previous = neighbour(chunk, DIRECTIONS[d], -1);
+				boundary = (previous < 0) ? null : this.boundaries.get(previous * DIRECTIONS.length + d);
+				for (int i = 0; boundary != null && i < boundary.length; i += 2) {
+					nodes.add(boundary[i+1]);
+					partners.add(boundary[i]);
+				}
+			}
+
+			Chunk result = new Chunk(chunk, nodes.size());
+			for (int i = 0; i < result.nodes.length; i++) {
+				result.nodes[i] = nodes.get(i);
+				result.partners[i] = partners.get(i);
+			}
+			for (int i = 0; i < result.nodes.length; i++)
+				result.costs[i] = result.distancesFrom(result.nodes[i]);
+			this.chunks[chunk] = result;
+		}
+
+
+		/**
+		 * Search the abstract graph for the waypoints from the given source
+		 * cube to the given target cube.
+		 *
+		 * @return	The waypoints of the route, ending with the target, or null
+		 * 			if the abstract graph does not connect both cubes.
+		 */
+		private int[] search(int source, int target) {
+			Chunk first = this.chunks[chunkOf(source)];
+			Chunk last = this.chunks[chunkOf(target)];
+			int[] startCosts = first.distancesFrom(source);
+			int[] targetCosts = last.distancesFrom(target);
+
+			Search search = HierarchicalPathFinder.this.search.get();
+			int[] cost = search.cost, closed = search.closed;
+			NodeHeap open = search.open;
+			int generation = search.nextGeneration();
+			open.clear();
+			for (int i = 0; i < first.nodes.length; i++)
+				if (startCosts[i] >= 0)
+					reach(search, first.nodes[i], -1, startCosts[i], target, generation);
+
+			while (!open.isEmpty()) {
+				int node = open.pop();
+				if (closed[node] == generation)
+					continue;
+				if (node == target)
+					return route(search, source, target);
+				closed[node] = generation;
+				Chunk chunk = this.chunks[chunkOf(node)];
+				for (int i = 0; i < chunk.nodes.length; i++) {
+					if (chunk.nodes[i] != node)
+						continue;
+					reach(search, chunk.partners[i], node, cost[node] + 1, target, generation);
+					for (int j = 0; j < chunk.nodes.length; j++)
+						if (chunk.costs[i][j] >= 0)
+							reach(search, chunk.nodes[j], node, cost[node] + chunk.costs[i][j], target, generation);
+					if (chunk == last && targetCosts[i] >= 0)
+						reach(search, target, node, cost[node] + targetCosts[i], target, generation);
+				}
+			}
+			return null;
+		}
+
+
+		private void reach(Search search, int node, int from, int nodeCost, int target, int generation) {
+			if (search.closed[node] == generation)
+				return;
+			if (search.seen[node] == generation && search.cost[node] <= nodeCost)
+				return;
+			search.seen[node] = generation;
+			search.cost[node] = nodeCost;
+			search.parent[node] = from;
+			search.open.push(node, nodeCost + distance(node, target), nodeCost);
+		}
+
+
+		private int[] route(Search search, int source, int target) {
+			int[] parent = search.parent;
+			int length = 0;
+			for (int node = target; node != -1; node = parent[node])
+				if (node != source)
+					length++;
+			int[] result = new int[length];
+			for (int node = target; node != -1; node = parent[node])
+				if (node != source)
+					result[--length] = node;
+			return result;
+		}
+
+
+		private boolean isTraversable(int x, int y, int z) {
+			return this.rule.isTraversable(getWorld(), x, y, z);
+		}
+
+
+		/**
+		 * A class of chunks, with their entrance nodes and the number of steps
+		 * between them inside the chunk.
+		 */
+		private class Chunk {
+
+			private Chunk(int chunk, int nbNodes) {
+				this.lowX = low(chunk, 0);
+				this.lowY = low(chunk, 1);
+				this.lowZ = low(chunk, 2);
+				this.sizeX = high(chunk, 0) - lowX;
+				this.sizeY = high(chunk, 1) - lowY;
+				this.sizeZ = high(chunk, 2) - lowZ;
+				this.traversable = new boolean[sizeX * sizeY * sizeZ];
+				for (int x = 0; x < sizeX; x++)
+					for (int y = 0; y < sizeY; y++)
+						for (int z = 0; z < sizeZ; z++)
+							this.traversable[x + y * sizeX + z * sizeX * sizeY] =
+									isTraversable(lowX + x, lowY + y, lowZ + z);
+				this.nodes = new int[nbNodes];
+				this.partners = new int[nbNodes];
+				this.costs = new int[nbNodes][];
+			}
+
+			private final int lowX, lowY, lowZ;
+			private final int sizeX, sizeY, sizeZ;
+
+			private final boolean[] traversable;
+
+			/**
+			 * The cubes of the entrance nodes of this chunk.
+			 */
+			private final int[] nodes;
+
+			/**
+			 * The cubes in the neighbouring chunks facing each entrance node.
+			 */
+			private final int[] partners;
+
+			/**
+			 * The number of steps inside this chunk between each pair of
+			 * entrance nodes, or -1 if they are not connected inside this chunk.
+			 */
+			private final int[][] costs;
+
+
+			/**
+			 * Return the number of steps inside this chunk from the given cube,
+			 * which itself is not tested, to each of the entrance nodes.
+			 */
+			private int[] distancesFrom(int cube) {
+				int[] distances = new int[this.traversable.length];
+				Arrays.fill(distances, -1);
+				int[] queue = new int[this.traversable.length];
+				int head = 0, tail = 0;
+				int start = local(cube);
+				distances[start] = 0;
+				queue[tail++] = start;
+				while (head < tail) {
+					int cell = queue[head++];
+					int x = cell % sizeX, y = (cell / sizeX) % sizeY, z = cell / (sizeX * sizeY);
+					for (int i = Math.max(x-1, 0); i <= Math.min(x+1, sizeX-1); i++) {
+						for (int j = Math.max(y-1, 0); j <= Math.min(y+1, sizeY-1); j++) {
+							for (int k = Math.max(z-1, 0); k <= Math.min(z+1, sizeZ-1); k++) {
+								int neighbour = i + j * sizeX + k * sizeX * sizeY;
+								if (distances[neighbour] < 0 && this.traversable[neighbour]) {
+									distances[neighbour] = distances[cell] + 1;
+									queue[tail++] = neighbour;
+								}
+							}
+						}
+					}
+				}
+				int[] result = new int[this.nodes.length];
+				for (int n = 0; n < result.length; n++)
+					result[n] = distances[local(this.nodes[n])];
+				return result;
+			}
+
+
+			private int local(int cube) {
+				int x = cube % nbX - lowX, y = (cube / nbX) % nbY - lowY, z = cube / (nbX * nbY) - lowZ;
+				return x + y * sizeX + z * sizeX * sizeY;
+			}
+
+		}
+
+	}
+
+}
@@ -27,7 +27,7 @@ public abstract class Item extends GameObject {
 		// TODO
 		super(world, initialPosition);
 			
-		int weight = random.nextInt(41) + 10;
+		int weight = getRandom().nextInt(41) + 10;
 		if (!isValidWeight(weight))
 			throw new IllegalArgumentException();
 		this.weight = weight;
@@ -35,6 +35,12 @@ public abstract class Item extends GameObject {
 	}
 	
 	
+	@Override @Basic @Immutable
+	TickPhase getTickPhase() {
+		return TickPhase.ITEM_PHYSICS;
+	}
+	
+	
 	@Override
 	public void advanceTime (double dt) {
 		if (getWorld() != null) {
@@ -0,0 +1,50 @@
+package hillbillies.model;
+
+import be.kuleuven.cs.som.annotate.Value;
+
+/**
+ * An enumeration of the rules that decide which cubes of a world a nit
+ * may pass through while moving.
+ *
+ * @author Ruben Cartuyvels
+ * @version 1.0
+ */
+@Value
+public enum MovementRule {
+
+	/**
+	 * Units may only move through passable cubes that neighbour a solid cube.
+	 */
+	GROUNDED {
+		@Override
+		public boolean isTraversable(World world, int x, int y, int z) {
+			return world.isPassable(x, y, z) && world.isNeighbouringSolid(x, y, z);
+		}
+	},
+
+	/**
+	 * Enits may move through any passable cube.
+	 */
+	FREE {
+		@Override
+		public boolean isTraversable(World world, int x, int y, int z) {
+			return world.isPassable(x, y, z);
+		}
+	};
+
+
+	/**
+	 * Check whether a nit following this rule can move through the cube with
+	 * the given coordinates in the given world.
+	 *
+	 * @param	world
+	 * 			The world to check the cube in.
+	 *
+	 * @param	x
+	 * @param	y
+	 * @param	z
+	 * 			The coordinates of the cube, which must lie inside the world.
+	 */
+	public abstract boolean isTraversable(World world, int x, int y, int z);
+
+}
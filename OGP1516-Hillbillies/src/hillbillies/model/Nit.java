@@ -1,8 +1,6 @@
 package hillbillies.model;
 
-import java.util.ArrayList;
 import java.util.Iterator;
-import java.util.List;
 import java.util.Set;
 
 import be.kuleuven.cs.som.annotate.*;
@@ -392,7 +390,7 @@ public abstract class Nit extends GameObject {
 	@Model
 	private int generateInitialWeight() {
 		return (getStrength() + getAgility())/2
-				+ random.nextInt(getMaxInitialSkill() - (getStrength()+getAgility())/2);
+				+ getRandom().nextInt(getMaxInitialSkill() - (getStrength()+getAgility())/2 + 1);
 	}
 	
 	
@@ -594,7 +592,7 @@ public abstract class Nit extends GameObject {
 	 */
 	@Model
 	private int generateInitialSkill() {
-		return random.nextInt(getMaxInitialSkill() - getMinInitialSkill() + 1)
+		return getRandom().nextInt(getMaxInitialSkill() - getMinInitialSkill() + 1)
 				+ getMinInitialSkill();
 	}
 	
@@ -846,6 +844,11 @@ public abstract class Nit extends GameObject {
 	
 	
 	
+	@Override @Basic @Immutable
+	TickPhase getTickPhase() {
+		return TickPhase.NIT_ACTIVITIES;
+	}
+	
 	
 	/**
 	 * Advance the game time and manage activities of the nit.
@@ -913,16 +916,6 @@ public abstract class Nit extends GameObject {
 	 * 			the game time interval in which to manage the falling behavior.
 	 * 
 	 * @effect	If the default behavior is not enabled, nothing happens.
-	 * 			Else, if the nit does not already have a task,
-	 * 			the nit checks if its factions scheduler has a task that has not
-	 * 			yet been assigned to a nit. if so, the nits task is set to the unassigned
-	 * 			task with the highest priority that the nit has not tried to execute as last
-	 * 			task and was interrupted.
-	 * 			| if (isDefaultBehaviorEnabled() 
-	 * 			|		if(!hasAssignedTask() 
-	 * 			|			&& getFaction().getScheduler().hasUnassignedTask() 
-	 * 			|			&& getInterruptedTask() != getFaction().getScheduler().getHighestPriorityTask())
-	 * 			| then setAssignedTask(getFaction().getScheduler().getHighestPriorityTask())
 	 * 
 	 * @effect	If the nit already has a task and this task is not completed yet, is will
 	 * 			execute this task. If the task is completed, it is removed.
@@ -931,6 +924,12 @@ public abstract class Nit extends GameObject {
 	 * 			|				then getAssignedTask().execute(dt)
 	 * 			|			else removeAssignedTask()
 	 * 
+	 * @effect	Else, if the scheduler of the faction of the nit has a task for it,
+	 * 			the nit waits. Its world assigns it a task at the start of the next
+	 * 			time step.
+	 * 			|		else if (hasAvailableTask())
+	 * 			|			then nothing happens
+	 * 
 	 * @effect	if the default behavior is enabled and the above conditions are not met,
 	 * 			there is an equal chance that the nit will execute each
 	 * 			of the following activities: move to a random cube, start working at
@@ -950,27 +949,7 @@ public abstract class Nit extends GameObject {
 
 		if (isDefaultBehaviorEnabled()) {
 			
-			//TODO
-			if (!hasAssignedTask() && getFaction().getScheduler().hasUnassignedTask() ) {
-				Iterator<Task> it = getFaction().getScheduler().getIterator();
-				
-				Task task = getFaction().getScheduler().getHighestPriorityTask();
-				while ((task == getInterruptedTask() || task.beingExecuted() )  && it.hasNext() ) {
-					task = it.next();
-				}
-				//System.out.println(task.toString());
-				if (getInterruptedTask() != task) {
-					task.setBeingExecuted(true);
-					//System.out.println(task.toString());
-					setAssignedTask(task);
-					
-				//if (getAssignedTask().isCompleted()) {
-				//	removeAssignedTask();
-				//}
-				}
-			}
-			
-			else if (hasAssignedTask()) {
+			if (hasAssignedTask()) {
 				if (!getAssignedTask().isCompleted()) {
 					//System.out.println(getAssignedTask().toString());
 					try {
@@ -979,15 +958,15 @@ public abstract class Nit extends GameObject {
 						stopExecutingTask();
 					}
 				}
-				if (getAssignedTask().isCompleted()) {
+				if (hasAssignedTask() && getAssignedTask().isCompleted()) {
 					removeAssignedTask();
 				}
 			}
 			
-			else  {
+			else if (!hasAvailableTask()) {
 			
 			
-				double dice = random.nextDouble();
+				double dice = getRandom().nextDouble();
 				//System.out.println(dice);
 				
 				if (dice < 1.0/4.0) {
@@ -1133,11 +1112,46 @@ public abstract class Nit extends GameObject {
 	private Task assignedTask = null;
 	
 	
+	/**
+	 * Check whether this nit is idle and waiting for a task of its faction:
+	 * it follows its default behavior, has no task, and would wait in its
+	 * next time step.
+	 * 
+	 * @return	| result == (isDefaultBehaviorEnabled() && !hasAssignedTask()
+	 * 			|	&& getState() == State.EMPTY && !isAttacked()
+	 * 			|	&& getTimeAfterResting() < 180.0
+	 * 			|	&& (isDestCubeLTReached() || getCoordinate().equals(getDestCubeLT())))
+	 */
+	@Model
+	boolean isWaitingForTask() {
+		return isDefaultBehaviorEnabled() && !hasAssignedTask() 
+				&& getState() == State.EMPTY && !isAttacked()
+				&& getTimeAfterResting() < 180.0
+				&& (isDestCubeLTReached() || getCoordinate().equals(getDestCubeLT()));
+	}
+	
+	
+	/**
+	 * Check whether the scheduler of the faction of this nit has a task for
+	 * it: a task that is not being executed, other than the task this nit was
+	 * last interrupted in.
+	 * 
+	 * @return	| result == (getFaction() != null
+	 * 			|	&& getFaction().getScheduler().getHighestPriorityTaskExcept(
+	 * 			|		getInterruptedTask()) != null)
+	 */
+	@Model
+	boolean hasAvailableTask() {
+		return getFaction() != null && getFaction().getScheduler()
+				.getHighestPriorityTaskExcept(getInterruptedTask()) != null;
+	}
+	
+	
 	/**
 	 * Return the nits last interrupted task.
 	 */
-	@Basic
-	private Task getInterruptedTask() {
+	@Basic @Model
+	Task getInterruptedTask() {
 		return this.interruptedTask;
 	}
 	
@@ -1239,17 +1253,20 @@ public abstract class Nit extends GameObject {
 	 * @post	the long term destination reached field will be equal to false,
 	 * 			| 		new.isDestCubeLTReached() == false
 	 * 
-	 * @effect	a path will be computed. If the path is equal to null the destination
-	 * 			is not reachable and the long term destination reached field 
-	 * 			is set to true, hence the nit will not move. Otherwise, if a path
-	 * 			is found, the nit will move towards the first cube of the path.
-	 * 			|	if (getState() != State.RESTING_1 && computePath(getDestCubeLT()) != null )
-	 * 			|		then moveTowards(getNeighbourWSmallestN(computePath(getDestCubeLT()), getCoordinate()))
-	 * 
-	 * @effect	If the computed path is equal to null, the long term destination reached field
+	 * @effect	The next cube towards the destination is looked up. If there is none,
+	 * 			the destination is not reachable and the long term destination reached 
+	 * 			field is set to true, hence the nit will not move. Otherwise, if the
+	 * 			nit is not in the destination cube yet, it will move towards the next cube.
+	 * 			|	if (getState() != State.RESTING_1 
+	 * 			|			&& getNextCubeTowards(getDestCubeLT()) != UNREACHABLE
+	 * 			|			&& !getDestCubeLT().equals(getCoordinate())
+	 * 			|		then moveTowards(getWorld().getPathFinder().coordinateOf(
+	 * 			|				getNextCubeTowards(getDestCubeLT())))
+	 * 
+	 * @effect	If there is no next cube, the long term destination reached field
 	 * 			is set to true, to cancel the movement, and if the unit has an assigned task
 	 * 			this task is stopped.
-	 * 			| 	if (computePath(getDestCubeLT()) == null)
+	 * 			| 	if (getNextCubeTowards(getDestCubeLT()) == UNREACHABLE)
 	 * 			|		then this.destCubeLTReached = true
 	 *			|		if (hasAssignedTask())
 	 *			|			then stopExecutingTask()
@@ -1272,21 +1289,17 @@ public abstract class Nit extends GameObject {
 			
 			if (getState() != State.RESTING_1) {
 				
-				Coordinate startCube = getCoordinate();
-				List<Tuple> path = computePath(getDestCubeLT());
+				int nextCube = getNextCubeTowards(getDestCubeLT());
 				
 				
-				if (path == null) {
+				if (nextCube == UNREACHABLE) {
 					this.destCubeLTReached = true;
 					if (hasAssignedTask())
 						stopExecutingTask();
 				}
 				
-				else if (Tuple.containsCube(path, startCube)) {
-					Tuple nextTuple = getNeighbourWSmallestN(path, startCube);
-					
-					if (nextTuple != null)
-						moveTowards(nextTuple.cube);
+				else if (nextCube != getWorld().getPathFinder().indexOf(getCoordinate())) {
+					moveTowards(getWorld().getPathFinder().coordinateOf(nextCube));
 				}
 			}
 		}
@@ -1306,76 +1319,38 @@ public abstract class Nit extends GameObject {
 	 * 			| getWorld().isNeighbouring(result, getCoordinate())
 	 */
 	private Coordinate getRandomNeighbouringCube() {
-		return getWorld().getRandomNeighbouringCube(getCoordinate());
+		return getRandomNeighbouringCube(getCoordinate());
 	}
 	
 	
-	
 	/**
-	 * Find the cube that is neighboring the given cube with the smallest 
-	 * weight from a given set of tuples consisting of a weight and a cube coordinate.
-	 * 
-	 * @param 	path
-	 * 			The set containing tuples that consist of a coordinate and a weight.
+	 * Get a random cube neighbouring the given cube, drawn from the random
+	 * generator of this nit.
 	 * 
-	 * @param 	cube
-	 * 			The cube to find the neighbour of.
-	 * 	
-	 * @return	The tuple with the cube that is neighboring the given cube with the smallest 
-	 * 			weight.
+	 * @return	the result is neighbouring the given cube.
+	 * 			| getWorld().isNeighbouring(result, coordinate)
 	 */
-	private Tuple getNeighbourWSmallestN(List<Tuple> path, Coordinate cube) {
-		Set<Coordinate> neighbours = getWorld().getNeighbours(cube);
-		List<Tuple> neighboursInPath = new ArrayList<Tuple>();
-		
-		for (Coordinate neighbour: neighbours) {
-			if (Tuple.containsCube(path, neighbour)) {
-				
-				neighboursInPath.add(Tuple.getCubeTuple(path, neighbour));
-			}
-			
-		}
-		return smallestN(neighboursInPath);
+	public Coordinate getRandomNeighbouringCube(Coordinate coordinate) {
+		return getWorld().getRandomNeighbouringCube(coordinate, getRandom());
 	}
 	
 	
-	/**
-	 * Find the tuple from a given list of tuples with the smallest weight.
-	 * 
-	 * @param	lst
-	 * 			the given list of cubes.
-	 * 
-	 * @return	the tuple with the smallest weight.
-	 * 			|	for each tuple in lst:
-	 * 			|		tuple.n >= result.n
-	 */
-	private static Tuple smallestN(List<Tuple> lst) {
-		if (lst.isEmpty()){
-			return null;
-		} else {
-			Tuple smallest = lst.get(0);
-			for (Tuple element: lst){
-				if (element.n < smallest.n){
-					smallest = element;
-				}
-			}
-			return smallest;
-		}
-	}
-	
 	
 	/**
-	 * Check whether a given cube is reachable or not, by trying to compute
-	 * a path from the current cube to the given cube.
+	 * Check whether a given cube is reachable or not, by comparing the labels
+	 * of the connected components around the current cube and the given cube.
 	 * 
 	 * @param 	destCube
 	 * 			the cube to test if reachable.
 	 * 
-	 * @return	True if and only if a path can be computed to the given cube.
-	 * 			| result == (computePath(destCube) != null)
+	 * @return	True if and only if the given cube lies in the same connected 
+	 * 			component as the current cube, for the movement rule of this nit.
+	 * 			| result == getWorld().getReachabilityLabels().isReachable(
+	 * 			|		getCoordinate(), destCube, getMovementRule())
 	 */
 	protected boolean isReachable(Coordinate destCube) {
-		return (computePath(destCube) != null);
+		return getWorld().getReachabilityLabels().isReachable(getCoordinate(), destCube, 
+				getMovementRule());
 	}
 	
 	
@@ -1387,47 +1362,191 @@ public abstract class Nit extends GameObject {
 	
 	
 	/**
-	 * Compute a path from the current cube to the given destination cube.
+	 * Compute a path from the current cube to the given destination cube. The
+	 * hierarchical path finder of the world first determines the waypoints
+	 * of the path, after which only the steps to the first waypoint are computed.
 	 * 
 	 * @param 	destCube
 	 * 			The destination cube to compute a path to.
 	 * 
-	 * @return	if a path can be found within a reasonable time, this path is
-	 * 			returned.
-	 * 			| (for some tuple in result: tuple.cube == getCoordinate()
-	 * 			|	&& for some tuple in result: tuple.cube == destCube
-	 * 			|		&& (for each tuple in result: 
-	 * 			|			for some tuple2 in result: getWorld().isNeighbouring(tuple, tuple2) ) )
+	 * @return	The path of the route the world computes from the current cube
+	 * 			to the given destination cube.
+	 * 			| result == getWorld().computeRoute(getCoordinate(), destCube, 
+	 * 			|		getMovementRule()).getPath()
+	 * 
+	 * @post	The computed route is cached, so that it can be followed by
+	 * 			subsequent calls to moveTo with the same destination.
+	 */
+	private int[] computePath(Coordinate destCube) {
+		PathFinder pathFinder = getWorld().getPathFinder();
+		Route route = getWorld().computeRoute(getCoordinate(), destCube, getMovementRule());
+		this.waypoints = route.getWaypoints();
+		this.waypointStep = 0;
+		this.path = route.getPath();
+		this.pathStep = 0;
+		this.pathOrigin = pathFinder.indexOf(getCoordinate());
+		this.pathDestination = destCube;
+		this.pathFinder = pathFinder;
+		this.pathTerrainVersion = getWorld().getTerrainVersion();
+		return this.path;
+	}
+	
+	
+	/**
+	 * Return the flat index of the next cube on a shortest path from the 
+	 * current cube to the given destination cube.
+	 * 
+	 * @param	destCube
+	 * 			The destination cube to move to.
+	 * 
+	 * @return	If the world keeps a distance field towards the given destination
+	 * 			for the movement rule of this nit, the next step of that field.
 	 * 
-	 * @return	if no path can be found within a reasonable time, null is returned.
-	 * 			| result == null
+	 * @return	Otherwise, if the cached path to the destination is still valid, 
+	 * 			the next cube of that path, and else the next cube of a newly
+	 * 			computed path. The request for a field towards the destination
+	 * 			is counted at the end of the time step, so a field that becomes
+	 * 			popular enough is only followed from the next time step on.
+	 * 
+	 * @return	The flat index of the current cube if it is the destination, or
+	 * 			UNREACHABLE if the destination cannot be reached.
 	 */
-	private List<Tuple> computePath(Coordinate destCube) {
-		List<Tuple> path = new ArrayList<Tuple>();
-		path.add(new Tuple(destCube, 0));
+	private int getNextCubeTowards(Coordinate destCube) {
+		DistanceFields distanceFields = getWorld().getDistanceFields();
+		MovementRule rule = getMovementRule();
+		DistanceFields.Field field = distanceFields.peekField(destCube, rule);
 		
-		int iterations = 0;
-		while(!Tuple.containsCube(path, getCoordinate()) 
-				&& Tuple.hasNext(path) && iterations < 3001) {
-			
-			Tuple nextTuple = Tuple.getNext(path);
-			path = search(nextTuple, path);
-			nextTuple.isChecked = true;
-			iterations++;
-
-			if (iterations >= 3001) {
-				path = null;
-				break;
+		if (field != null)
+			getWorld().defer(this, () -> distanceFields.getField(destCube, rule));
+		else if (!hasValidPathTo(destCube)) {
+			getWorld().defer(this, () -> distanceFields.request(destCube, rule));
+			computePath(destCube);
+		}
+		
+		if (field != null)
+			return field.getNextStep(getCoordinate().get(0), getCoordinate().get(1), 
+					getCoordinate().get(2));
+		if (this.path == null)
+			return UNREACHABLE;
+		if (this.pathStep < this.path.length)
+			return this.path[this.pathStep];
+		return getWorld().getPathFinder().indexOf(getCoordinate());
+	}
+	
+	
+	/**
+	 * Value returned as next cube towards a destination that cannot be reached.
+	 */
+	private static final int UNREACHABLE = -1;
+	
+	
+	/**
+	 * Check whether the cached path still leads from the current cube of
+	 * this nit to the given destination cube. If the nit has reached the next
+	 * cube of the path, the path is advanced by one cube, and if it has reached
+	 * the next waypoint, the steps to the waypoint after it are computed.
+	 * 
+	 * @param	destCube
+	 * 			The destination cube to check the cached path for.
+	 * 
+	 * @return	False if no path is cached, if the cached path leads to another
+	 * 			destination or was computed in another world, or if the nit 
+	 * 			is not standing on the cached path.
+	 * 
+	 * @return	False if the terrain of the world has changed since the path 
+	 * 			was computed or last checked, and one of the remaining cubes of
+	 * 			the path, apart from the destination, can no longer be moved 
+	 * 			through by this nit.
+	 * 			| for some i in pathStep..path.length-2:
+	 * 			|	!getMovementRule().isTraversable(getWorld(), path[i])
+	 */
+	private boolean hasValidPathTo(Coordinate destCube) {
+		if (this.path == null || !destCube.equals(this.pathDestination) 
+				|| this.pathFinder != getWorld().getPathFinder())
+			return false;
+		
+		int current = this.pathFinder.indexOf(getCoordinate());
+		int previous = (this.pathStep == 0) ? this.pathOrigin : this.path[this.pathStep - 1];
+		if (current != previous) {
+			if (this.pathStep < this.path.length && current == this.path[this.pathStep])
+				this.pathStep++;
+			else
+				return false;
+		}
+		
+		if (this.pathStep == this.path.length && this.waypointStep < this.waypoints.length - 1) {
+			this.waypointStep++;
+			this.path = this.pathFinder.findPath(getCoordinate(), 
+					this.pathFinder.coordinateOf(this.waypoints[this.waypointStep]), getMovementRule());
+			this.pathStep = 0;
+			this.pathOrigin = current;
+			this.pathTerrainVersion = getWorld().getTerrainVersion();
+			if (this.path == null)
+				return false;
+		}
+		
+		if (this.pathTerrainVersion != getWorld().getTerrainVersion()) {
+			for (int i = this.pathStep; i < this.path.length - 1; i++) {
+				Coordinate cube = this.pathFinder.coordinateOf(this.path[i]);
+				if (!getMovementRule().isTraversable(getWorld(), cube.get(0), cube.get(1), cube.get(2)))
+					return false;
 			}
+			this.pathTerrainVersion = getWorld().getTerrainVersion();
 		}
-		return path;
+		return true;
 	}
 	
 	
 	/**
-	 * Search for a path in a given list of tuples.
+	 * Variable referencing the flat indices of the cubes along the last
+	 * computed path of this nit, or null if no path was found.
+	 */
+	private int[] path;
+	
+	/**
+	 * Variable referencing the flat indices of the waypoints of the cached
+	 * path, ending with its destination.
+	 */
+	private int[] waypoints;
+	
+	/**
+	 * Variable registering the position in the waypoints of the waypoint
+	 * the cached path currently leads to.
+	 */
+	private int waypointStep;
+	
+	/**
+	 * Variable registering the position in the cached path of the next cube
+	 * to move to.
+	 */
+	private int pathStep;
+	
+	/**
+	 * Variable registering the flat index of the cube the cached path starts from.
+	 */
+	private int pathOrigin;
+	
+	/**
+	 * Variable referencing the destination of the cached path.
+	 */
+	private Coordinate pathDestination;
+	
+	/**
+	 * Variable referencing the path finder that computed the cached path.
+	 */
+	private PathFinder pathFinder;
+	
+	/**
+	 * Variable registering the terrain version of the world at which the
+	 * cached path was last checked.
+	 */
+	private long pathTerrainVersion;
+	
+	
+	/**
+	 * Return the rule deciding which cubes this nit can move through.
 	 */
-	protected abstract List<Tuple> search(Tuple currentTuple, List<Tuple> path);
+	protected abstract MovementRule getMovementRule();
 	
 	
 	
@@ -1467,28 +1586,35 @@ public abstract class Nit extends GameObject {
 	 * 			|	then startSprinting()
 	 * 
 	 * @effect	if the nit does not reach its destination (short term) within this
-	 * 			time interval, its position is updated.
-	 * 			| if (!reached(dt))
+	 * 			time interval, and it can be at the position it moves to, its position
+	 * 			is updated.
+	 * 			| if (!reached(dt) && canHaveAsPosition(
+	 * 			|		Convert.convertPositionToCoordinate(getPositionAfter(dt))))
 	 * 			|	then updatePosition(dt)
 	 * 
 	 * @effect	if the nit does reach its short term destination within this time interval,
-	 * 			its position is set to the center of the destination cube and 
-	 * 			1 experience point is added to its XP.
-	 * 			| if (reached(dt)) 
+	 * 			or if the position it moves to lies in a cube it cannot be in, its position
+	 * 			is set to the center of the destination cube and 1 experience point is
+	 * 			added to its XP. A nit that resumes a move from a position away from the
+	 * 			center of its cube may otherwise cut through the corner of a solid cube
+	 * 			on its way to the destination cube.
+	 * 			| if (reached(dt) || !canHaveAsPosition(
+	 * 			|		Convert.convertPositionToCoordinate(getPositionAfter(dt))))
 	 * 			| 	then setPosition(getDestination())
 	 *			|		 addXP(1);
 	 *
-	 * @effect 	if the nit reaches its short term destination within this time interval
+	 * @effect 	if the nit is set to its short term destination within this time interval
 	 * 			and this is also its long term destination, the nits long term destination
 	 * 			reached field is set to true, and if it was sprinting it stops sprinting.
-	 * 			| if (reached(dt) && getCoordinate().equals(getDestCubeLT()) )
+	 * 			| if (new.getPosition() == World.getCubeCenter(getDestination())
+	 * 			|		&& getDestination().equals(getDestCubeLT()) )
 	 * 			|	then this.destCubeLTReached = true
 	 *			|			if (isSprinting()) 
 	 *			|				then stopSprinting()
 	 * 
-	 * @effect	if the nit does reach its short term destination within this time interval,
+	 * @effect	if the nit is set to its short term destination within this time interval,
 	 * 			its state is set to empty.
-	 * 			| if (reached(dt))
+	 * 			| if (new.getPosition() == World.getCubeCenter(getDestination()))
 	 * 			| 	then setState(State.EMPTY)
 	 * 
 	 * @effect	if the nit is not occupying a cube neighbouring a solid cube, it MAY fall
@@ -1509,16 +1635,17 @@ public abstract class Nit extends GameObject {
 			}
 		
 			if (isDefaultBehaviorEnabled() && getCurrentStaminaPoints() > getMinStaminaPoints()) {
-				double dice = random.nextDouble();
+				double dice = getRandom().nextDouble();
 				if (dice < 0.1) {
 					startSprinting();
 				}
 			}
 			
-			if (! reached(dt)) {
+			if (! reached(dt) && canHaveAsPosition(
+					Convert.convertPositionToCoordinate(getPositionAfter(dt)))) {
 				updatePosition(dt);
 			}
-			else if (reached(dt)) {
+			else {
 
 				setPosition(getDestination());
 				addXP(1);
@@ -1923,6 +2050,12 @@ public abstract class Nit extends GameObject {
 	 * 			smaller than zero, this time is set to zero
 	 * 			| if (getTimeToCompletion() <= 0.0)
 	 * 			| 		then setTimeToCompletion(0.0f)
+	 * 
+	 * @effect	if the time before completion of the work order is equal to or
+	 * 			smaller than zero, the work order is finished with the effects
+	 * 			below, at the end of the time step if the world defers changes.
+	 * 			| if (getTimeToCompletion() <= 0.0)
+	 * 			| 		then getWorld().defer(this, () -> finishWork())
 	 * 			
 	 * @effect	if the time before completion of the work order is equal to or
 	 * 			smaller than zero and if the nit is carrying an item, 
@@ -2012,40 +2145,50 @@ public abstract class Nit extends GameObject {
 		else if (getTimeToCompletion() <= 0.0) {
 			
 			setTimeToCompletion(0.0f);
+			getWorld().defer(this, this::finishWork);
+			setState(State.EMPTY);
+		}
+	}
+	
+	
+
+	/**
+	 * Finish the work order of this nit, at the end of the time step if the
+	 * world of this nit defers changes. The results of a work order are
+	 * described by controlWorking.
+	 */
+	private void finishWork() {
+		if (isCarryingItem()) {
+			dropItem();
+			addXP(10);
+			
+		} else {
+			Set<Item> items = getWorld().getObjectsAt(getTargetCube());
 			
-			if (isCarryingItem()) {
-				dropItem();
+			if ((getWorld().getCubeTypeAt(getTargetCube())==TerrainType.WORKSHOP)
+						&& getWorld().containsLog(items)
+						&& getWorld().containsBoulder(items)) {
+				improveEquipment();
 				addXP(10);
 				
-			} else {
-				Set<Item> items = getWorld().getObjectsAt(getTargetCube());
+			} else if (getWorld().containsBoulder(items)) {
+				pickUpItem(getWorld().getBoulderFrom(items));
+				addXP(10);
 				
-				if ((getWorld().getCubeTypeAt(getTargetCube())==TerrainType.WORKSHOP)
-							&& getWorld().containsLog(items)
-							&& getWorld().containsBoulder(items)) {
-					improveEquipment();
-					addXP(10);
-					
-				} else if (getWorld().containsBoulder(items)) {
-					pickUpItem(getWorld().getBoulderFrom(items));
-					addXP(10);
-					
-				} else if (getWorld().containsLog(items)) {
-					pickUpItem(getWorld().getLogFrom(items));
-					addXP(10);
-					
-				} else if (getWorld().getCubeTypeAt(getTargetCube()) == TerrainType.TREE
-								|| getWorld().getCubeTypeAt(getTargetCube()) == TerrainType.ROCK) {
-					getWorld().collapse(getTargetCube(), 1.00);
-					addXP(10);
-				} else if (getWorld().getCubeTypeAt(getTargetCube()) == TerrainType.WATER) {
-					getWorld().collapse(getTargetCube(), 1.00);
-					for (Nit nit: getWorld().getNitsAt(getTargetCube())) {
-						nit.addXP(10);
-					}
+			} else if (getWorld().containsLog(items)) {
+				pickUpItem(getWorld().getLogFrom(items));
+				addXP(10);
+				
+			} else if (getWorld().getCubeTypeAt(getTargetCube()) == TerrainType.TREE
+							|| getWorld().getCubeTypeAt(getTargetCube()) == TerrainType.ROCK) {
+				getWorld().collapse(getTargetCube(), 1.00);
+				addXP(10);
+			} else if (getWorld().getCubeTypeAt(getTargetCube()) == TerrainType.WATER) {
+				getWorld().collapse(getTargetCube(), 1.00);
+				for (Nit nit: getWorld().getNitsAt(getTargetCube())) {
+					nit.addXP(10);
 				}
 			}
-			setState(State.EMPTY);
 		}
 	}
 	
@@ -2314,19 +2457,15 @@ public abstract class Nit extends GameObject {
 	 * 			is set to the given other nit.
 	 * 			| 	new.getDefender() == defender
 	 * 
-	 * @effect	If the nit can execute an attack the nit this nit is attacking
-	 * 			its is attacked field is set to true.
-	 * 			| 	getDefender().setAttacked(true)
-	 * 
 	 * @post	If the nit can execute an attack its orientation is set towards
 	 * 			the attacked nit.
-	 * 			| 	new.getOrientation() == arctangent(defender.getPosition()[1]-this.getPosition()[1],
-	 * 			|		defender.getPosition()[0]-this.getPosition()[0]))
+	 * 			| 	new.getOrientation() == arctangent(defender.getObservedPosition()[1]-
+	 * 			|		this.getPosition()[1], defender.getObservedPosition()[0]-this.getPosition()[0]))
 	 * 
-	 * @post	If the nit can execute an attack the attacked nits orientation is set
-	 * 			towards this nit, i.e. the attacking nit.
-	 * 			| 	(new defender).getOrientation() == arctangent(this.getPosition()[1]-
-	 * 			|		defender.getPosition()[1], this.getPosition()[0]-defender.getPosition()[0]))
+	 * @effect	If the nit can execute an attack the defender is engaged, which
+	 * 			sets its is attacked field to true and turns it towards this nit.
+	 * 			The world defers this change to the end of its time step.
+	 * 			| 	getWorld().defer(this, () -> engage(defender))
 	 *  
 	 * @throws 	IllegalVictimException
 	 * 			The nit cannot attack the given other nit.
@@ -2340,16 +2479,45 @@ public abstract class Nit extends GameObject {
 			startAttacking();
 						
 			setDefender(defender);
-			getDefender().setAttacked(true);
 			
 			// Orientation update
-			this.setOrientation((float)Math.atan2(defender.getPosition()[1]-this.getPosition()[1],
-					defender.getPosition()[0]-this.getPosition()[0]));
-
-			defender.setOrientation((float)Math.atan2(this.getPosition()[1]-defender.getPosition()[1],
-					this.getPosition()[0]-defender.getPosition()[0]));
+			double[] position = defender.getObservedPosition();
+			this.setOrientation((float)Math.atan2(position[1]-this.getPosition()[1],
+					position[0]-this.getPosition()[0]));
 
+			getWorld().defer(this, () -> engage(defender));
+		}
+	}
+	
+	
+	/**
+	 * Make the given defender of this nit notice the attack of this nit, at
+	 * the end of the time step if the world of this nit defers changes.
+	 * 
+	 * @effect	If this nit is still attacking the given defender, and this nit 
+	 * 			can still attack it, the defender is attacked and turns towards
+	 * 			this nit.
+	 * 			| if (isAttacking() && getDefender() == defender && canAttack(defender))
+	 * 			|	then defender.setAttacked(true)
+	 * 			|		 defender.setOrientation((float)Math.atan2(
+	 * 			|			this.getPosition()[1]-defender.getPosition()[1],
+	 * 			|			this.getPosition()[0]-defender.getPosition()[0]))
+	 * 
+	 * @effect	Else, if this nit is still attacking the given defender, because
+	 * 			another nit engaged it first, this nit stops attacking.
+	 * 			| else if (isAttacking() && getDefender() == defender)
+	 * 			|	then setState(State.EMPTY)
+	 */
+	private void engage(Nit defender) {
+		if (!isAttacking() || getDefender() != defender)
+			return;
+		if (isTerminated() || defender.getWorld() != getWorld() || !canAttack(defender)) {
+			setState(State.EMPTY);
+			return;
 		}
+		defender.setAttacked(true);
+		defender.setOrientation((float)Math.atan2(this.getPosition()[1]-defender.getPosition()[1],
+				this.getPosition()[0]-defender.getPosition()[0]));
 	}
 	
 	
@@ -2370,21 +2538,24 @@ public abstract class Nit extends GameObject {
 	 * 			nit is not falling if it is a unit, and if it does not belong 
 	 * 			to the same faction as this nit, and if it is not already attacking some
 	 * 			nit or itself being attacked.
-	 * 			| result == (  ( getWorld().isNeighbouring(getCoordinate(), victim.getCoordinate())
-	 * 			|		|| getCoordinate().equals(victim.getCoordinate())  )
-	 * 			|		&& !victim.isFalling() && getFaction() != victim.getFaction() 
-	 * 			|		&& !victim.isAttacked() && !victim.isAttacking() )
+	 * 			The position and state of the given nit are those other nits observe.
+	 * 			| result == (  ( getWorld().isNeighbouring(getCoordinate(), victim.getObservedCoordinate())
+	 * 			|		|| getCoordinate().equals(victim.getObservedCoordinate())  )
+	 * 			|		&& victim.getObservedState() != State.FALLING
+	 * 			|		&& getFaction() != victim.getFaction() && !victim.isAttacked()
+	 * 			|		&& victim.getObservedState() != State.ATTACKING )
 	 */
 	@Model
 	protected boolean canAttack(Nit victim) {
-		if (! ( getWorld().isNeighbouring(getCoordinate(), victim.getCoordinate())
-				|| getCoordinate().equals(victim.getCoordinate())  )	)
+		Coordinate coordinate = victim.getObservedCoordinate();
+		if (! ( getWorld().isNeighbouring(getCoordinate(), coordinate)
+				|| getCoordinate().equals(coordinate)  )	)
 			return false;
-		if ( victim.isAttacked() || victim.isAttacking())
+		if ( victim.isAttacked() || victim.getObservedState() == State.ATTACKING)
 			return false;
 		if (getFaction() == victim.getFaction())
 			return false;
-		if (victim instanceof Unit && ((Unit) victim).isFalling())
+		if (victim instanceof Unit && victim.getObservedState() == State.FALLING)
 			return false;
 		return true;
 	}
@@ -2395,11 +2566,11 @@ public abstract class Nit extends GameObject {
 	 * 
 	 * @return 	true if and only if there is at least one nit in this nits 
 	 * 			world that this nit can attack.
-	 * 			| result == ( for some victim in getWorld().getAllNits():
+	 * 			| result == ( for some victim in getWorld().getNitsNear(getCoordinate(), 1):
 	 * 			|				canAttack(victim)   )
 	 */
 	private boolean enemiesInRange() {
-		Iterator<Nit> it = getWorld().getAllNits().iterator();
+		Iterator<Nit> it = getWorld().getNitsNear(getCoordinate(), 1).iterator();
 		
 		Nit victim;
 		
@@ -2416,13 +2587,13 @@ public abstract class Nit extends GameObject {
 	 * Returns a nit this nit can attack. Returns null if there is none.
 	 * 
 	 * @return	A nit this nit can attack. Null if no victim is found.
-	 * 			| for each victim in getWorld().getAllNits():
+	 * 			| for each victim in getWorld().getNitsNear(getCoordinate(), 1):
 	 * 			|		if ( canAttack(victim) )
 	 * 			|			then result == victim
 	 * 			|		else then result == null
 	 */
 	private Nit getEnemyInRange() {
-		Iterator<Nit> it = getWorld().getAllNits().iterator();
+		Iterator<Nit> it = getWorld().getNitsNear(getCoordinate(), 1).iterator();
 		while (it.hasNext()) {
 			Nit possibleVictim = it.next();
 			if (canAttack(possibleVictim))
@@ -2467,11 +2638,10 @@ public abstract class Nit extends GameObject {
 	 * 			| 	then setTimeToCompletion(0.0f)
 	 * 
 	 * @effect	if the time before completion of the attack is smaller than or equal to zero
-	 * 			the defending nit does its defending behavior,
+	 * 			the defending nit is struck, at the end of the time step if the world
+	 * 			defers changes,
 	 * 			| if (getTimeToCompletion() <= 0.0)
-	 * 			| 	then getDefender().defend(this)
-	 * 			its isAttacked field is set to false,
-	 * 			|		 getDefender().setAttacked(false)
+	 * 			| 	then getWorld().defer(this, () -> strike(getDefender()))
 	 * 			and this nits state is set to empty.
 	 * 			|		 setState(State.EMPTY)
 	 * 
@@ -2484,14 +2654,36 @@ public abstract class Nit extends GameObject {
 		if (getTimeToCompletion() <= 0.0) {
 
 			setTimeToCompletion(0.0f);
-			getDefender().defend(this);
-			getDefender().setAttacked(false);
+			Nit defender = getDefender();
+			getWorld().defer(this, () -> strike(defender));
 			setState(State.EMPTY);
 
 		}
 	}
 	
 	
+	/**
+	 * Strike the given defender at the end of an attack, at the end of the 
+	 * time step if the world of this nit defers changes.
+	 * 
+	 * @effect	If the defender is still in the world of this nit, it defends 
+	 * 			the attack.
+	 * 			| if (defender.getWorld() == getWorld())
+	 * 			|	then defender.defend(this)
+	 * 
+	 * @effect	If the defender is still in a world, it is no longer attacked.
+	 * 			| if (defender.getWorld() != null)
+	 * 			|	then defender.setAttacked(false)
+	 */
+	private void strike(Nit defender) {
+		if (defender.getWorld() == null)
+			return;
+		if (defender.getWorld() == getWorld())
+			defender.defend(this);
+		defender.setAttacked(false);
+	}
+	
+	
 	/**
 	 * Defend an attack from an attacking nit. The defending nit will first try
 	 * 		to dodge the incoming attack, if that fails it will try to block it. If one of
@@ -2545,15 +2737,15 @@ public abstract class Nit extends GameObject {
 	 * @effect	The dodging succeeds with a probability of 0.2 times the quotient of the 
 	 * 			agility of the defender and the agility of the attacker. If it succeeds,
 	 * 			this nit jumps to a random adjacent cube.
-	 * 			| if ( random.nextDouble() <= 0.20*(getAgility()/attacker.getAgility()) )
+	 * 			| if ( getRandom().nextDouble() <= 0.20*(getAgility()/attacker.getAgility()) )
 	 * 			|	then jumpToRandomAdjacent()
 	 * 
 	 * @return	True if and only if the attack is dodged, otherwise false.
-	 * 			| result == (random.nextDouble() <= 
+	 * 			| result == (getRandom().nextDouble() <= 
 	 * 			|			0.2*(this.getAgility()/attacker.getAgility()) )
 	 */
 	private boolean dodge(Nit attacker) {
-		if ( random.nextDouble() <= 0.20*(getAgility()/attacker.getAgility())) {
+		if ( getRandom().nextDouble() <= 0.20*(getAgility()/attacker.getAgility())) {
 			while(true) {
 				try {
 					jumpToRandomAdjacent();
@@ -2575,8 +2767,8 @@ public abstract class Nit extends GameObject {
 	 * Jump to a random adjacent cube.
 	 * 
 	 * @post	The nits position is set to a random adjacent cube on the same Z level.
-	 * 			| new.getPosition().equals(new Coordinate(getCoordinate().get(0) + random.nextInt(3) - 1,
-	 *			|		getCoordinate().get(1) + random.nextInt(3) - 1, 
+	 * 			| new.getPosition().equals(new Coordinate(getCoordinate().get(0) + getRandom().nextInt(3) - 1,
+	 *			|		getCoordinate().get(1) + getRandom().nextInt(3) - 1, 
 	 *			|		getCoordinate().get(2)) )
 	 * 
 	 * @throws 	IllegalPositionException
@@ -2585,8 +2777,8 @@ public abstract class Nit extends GameObject {
 	 * 			| !(canHaveAsPosition(randomAdjacentPosition))
 	 */
 	private void jumpToRandomAdjacent() throws IllegalPositionException {
-		Coordinate newPosition = new Coordinate(getCoordinate().get(0) + random.nextInt(3) - 1,
-				getCoordinate().get(1) + random.nextInt(3) - 1, 
+		Coordinate newPosition = new Coordinate(getCoordinate().get(0) + getRandom().nextInt(3) - 1,
+				getCoordinate().get(1) + getRandom().nextInt(3) - 1, 
 				getCoordinate().get(2));
 				
 		if (!canHaveAsPosition(newPosition)) 
@@ -2606,13 +2798,13 @@ public abstract class Nit extends GameObject {
 	 * 			for this to happen is equal to 0.25 times the quotient of the 
 	 * 			sum of the agility and the strength of the defender and 
 	 * 			the sum of the agility and the strength of the attacker.
-	 * 			| result == (random.nextDouble() <= 0.25*((this.getAgility() + this.getStrength())
+	 * 			| result == (getRandom().nextDouble() <= 0.25*((this.getAgility() + this.getStrength())
 	 *			|	/(attacker.getAgility() + attacker.getStrength())) )
 	 */
 	private boolean block(Nit attacker) {
 		double probability = 0.25*((this.getAgility() + this.getStrength())
 				/(attacker.getAgility() + attacker.getStrength()));
-		if ( random.nextDouble() <= probability ) {
+		if ( getRandom().nextDouble() <= probability ) {
 			return true;
 		}
 		return false;
@@ -3118,6 +3310,58 @@ public abstract class Nit extends GameObject {
 	private State state;
 	
 	
+	/**
+	 * Record the position and state of this nit as the other nits observe
+	 * them while its world defers changes, i.e. as they are at the start of
+	 * the activities of the nits in a time step.
+	 * 
+	 * @post	| new.getObservedState() == getState()
+	 * 			|	&& Arrays.equals(new.getObservedPosition(), getPosition())
+	 */
+	void observe() {
+		this.observedPosition = getPosition().clone();
+		this.observedState = getState();
+	}
+	
+	/**
+	 * Return the position of this nit as observed by the other nits.
+	 * 
+	 * @return	The recorded position of this nit while its world defers changes,
+	 * 			and its position otherwise.
+	 */
+	public double[] getObservedPosition() {
+		if (this.observedPosition == null || getWorld() == null || !getWorld().isDeferringChanges())
+			return getPosition();
+		return this.observedPosition;
+	}
+	
+	/**
+	 * Return the cube of this nit as observed by the other nits.
+	 * 
+	 * @return	| result.equals(Convert.convertPositionToCoordinate(getObservedPosition()))
+	 */
+	public Coordinate getObservedCoordinate() {
+		return Convert.convertPositionToCoordinate(getObservedPosition());
+	}
+	
+	/**
+	 * Return the state of this nit as observed by the other nits.
+	 * 
+	 * @return	The recorded state of this nit while its world defers changes,
+	 * 			and its state otherwise.
+	 */
+	@Model
+	State getObservedState() {
+		if (this.observedState == null || getWorld() == null || !getWorld().isDeferringChanges())
+			return getState();
+		return this.observedState;
+	}
+	
+	private double[] observedPosition = null;
+	
+	private State observedState = null;
+	
+	
 	/**
 	 * Get the nits current number of experience points.
 	 */
@@ -3185,10 +3429,10 @@ public abstract class Nit extends GameObject {
 	 * 			its toughness can not be incremented by 1 and if a random double is larger than 2/3: 
 	 * 			the nits strength will be incremented by 1.
 	 * 			| if ( (getTXP() > 10 && isValidStrength(getStrength() + 1) ) 
-	 * 			|		&& (  	(random.nextDouble() < 1.0/3.0)
-	 * 			|				|| (random.nextDouble() > 1.0/3.0 && random.nextDouble() < 2.0/3.0
+	 * 			|		&& (  	(getRandom().nextDouble() < 1.0/3.0)
+	 * 			|				|| (getRandom().nextDouble() > 1.0/3.0 && getRandom().nextDouble() < 2.0/3.0
 	 * 			|					&& !isValidAgility(getAgility() + 1)) 
-	 * 			|				|| (random.nextDouble() > 2.0/3.0 
+	 * 			|				|| (getRandom().nextDouble() > 2.0/3.0 
 	 * 			|					&& !isValidToughness(getToughness() + 1) ) 
 	 * 			|			)  
 	 * 			|		)
@@ -3201,10 +3445,10 @@ public abstract class Nit extends GameObject {
 	 * 			a random double is larger than 2/3: 
 	 * 			the nits agility will be incremented by 1.
 	 * 			| if ( (getTXP() > 10 && isValidAgility(getAgility() + 1) ) 
-	 * 			|		&& (  	(random.nextDouble() > 1.0/3.0 && random.nextDouble() < 2.0/3.0)
-	 * 			|				|| (random.nextDouble() < 1.0/3.0
+	 * 			|		&& (  	(getRandom().nextDouble() > 1.0/3.0 && getRandom().nextDouble() < 2.0/3.0)
+	 * 			|				|| (getRandom().nextDouble() < 1.0/3.0
 	 * 			|					&& !isValidStrength(getStrength() + 1)) 
-	 * 			|				|| (random.nextDouble() > 2.0/3.0 
+	 * 			|				|| (getRandom().nextDouble() > 2.0/3.0 
 	 * 			|					&& !isValidToughness(getToughness() + 1)
 	 * 			|					&& !isValidStrength(getStrength() + 1) ) 
 	 * 			|			)  
@@ -3218,11 +3462,11 @@ public abstract class Nit extends GameObject {
 	 * 			a random double is larger than 1/3 and smaller than 2/3: 
 	 * 			the nits toughness will be incremented by 1.
 	 * 			| if ( (getTXP() > 10 && isValidToughness(getToughness() + 1) ) 
-	 * 			|		&& (  	(random.nextDouble() > 2.0/3.0 )
-	 * 			|				|| (random.nextDouble() < 1.0/3.0
+	 * 			|		&& (  	(getRandom().nextDouble() > 2.0/3.0 )
+	 * 			|				|| (getRandom().nextDouble() < 1.0/3.0
 	 * 			|					&& !isValidStrength(getStrength() + 1)
 	 * 			|					&& !isValidAgility(getAgility() + 1)) 
-	 * 			|				|| (random.nextDouble() > 1.0/3.0  && random.nextDouble() < 2.0/3.0 
+	 * 			|				|| (getRandom().nextDouble() > 1.0/3.0  && getRandom().nextDouble() < 2.0/3.0 
 	 * 			|					&& !isValidAgility(getAgility() + 1)
 	 * 			|					&& !isValidStrength(getStrength() + 1) ) 
 	 * 			|			)  
@@ -3237,7 +3481,7 @@ public abstract class Nit extends GameObject {
 	private void controlXP() throws ArithmeticException {
 		while (getTXP() > 10) {
 			subTXP(10);
-			double dice = random.nextDouble();
+			double dice = getRandom().nextDouble();
 			
 			if (dice < 1.0/3.0 ) {
 				if (isValidStrength(getStrength() + 1)) {
@@ -3408,7 +3652,7 @@ public abstract class Nit extends GameObject {
 		
 		if ( (faction == null) && (getFaction() != null) && (getFaction().hasAsNit(this)) )
 			throw new IllegalArgumentException();
-		if (!faction.hasAsNit(this) && faction != null)
+		if (faction != null && !faction.hasAsNit(this))
 			throw new IllegalArgumentException();
 		this.faction = faction;
 	}
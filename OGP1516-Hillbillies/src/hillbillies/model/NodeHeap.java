@@ -0,0 +1,98 @@
+package hillbillies.model;
+
+import java.util.Arrays;
+
+/**
+ * A class of binary min-heaps of nodes, used as the open set of the path
+ * finders of a world.
+ *
+ * Nodes are ints, pushed with the estimated cost of a path through them and
+ * the cost of reaching them, both packed in a single primitive key. A node
+ * may be pushed more than once; searches skip the copies they have already
+ * closed.
+ *
+ * @author Ruben Cartuyvels
+ * @version 1.0
+ */
+class NodeHeap {
+
+	/**
+	 * Initialize this new node heap without any nodes.
+	 *
+	 * @post	| new.isEmpty()
+	 */
+	NodeHeap() {
+	}
+
+
+	/**
+	 * Check whether this heap holds no nodes.
+	 */
+	boolean isEmpty() {
+		return this.size == 0;
+	}
+
+	/**
+	 * Remove all nodes from this heap.
+	 *
+	 * @post	| new.isEmpty()
+	 */
+	void clear() {
+		this.size = 0;
+	}
+
+
+	/**
+	 * Push the given node on this heap. Nodes with an equal estimate are
+	 * ordered by decreasing cost, so the search goes deep before it goes wide.
+	 */
+	void push(int node, int estimate, int cost) {
+		if (this.size == this.keys.length) {
+			this.keys = Arrays.copyOf(this.keys, this.size * 2);
+			this.nodes = Arrays.copyOf(this.nodes, this.size * 2);
+		}
+		long key = ((long) estimate << 32) | (Integer.MAX_VALUE - cost);
+		int i = this.size++;
+		while (i > 0) {
+			int up = (i - 1) >>> 1;
+			if (this.keys[up] <= key)
+				break;
+			this.keys[i] = this.keys[up];
+			this.nodes[i] = this.nodes[up];
+			i = up;
+		}
+		this.keys[i] = key;
+		this.nodes[i] = node;
+	}
+
+	/**
+	 * Remove the node with the lowest estimate from this heap and return it.
+	 */
+	int pop() {
+		int result = this.nodes[0];
+		long key = this.keys[--this.size];
+		int node = this.nodes[this.size];
+		int i = 0;
+		int half = this.size >>> 1;
+		while (i < half) {
+			int child = 2 * i + 1;
+			if (child + 1 < this.size && this.keys[child + 1] < this.keys[child])
+				child++;
+			if (key <= this.keys[child])
+				break;
+			this.keys[i] = this.keys[child];
+			this.nodes[i] = this.nodes[child];
+			i = child;
+		}
+		this.keys[i] = key;
+		this.nodes[i] = node;
+		return result;
+	}
+
+	private long[] keys = new long[64];
+
+	private int[] nodes = new int[64];
+
+	private int size = 0;
+
+}
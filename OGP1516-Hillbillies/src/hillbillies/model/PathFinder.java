@@ -0,0 +1,282 @@
+package hillbillies.model;
+
+import java.util.Arrays;
+
+import be.kuleuven.cs.som.annotate.*;
+
+/**
+ * A class of A* path finders searching the cubes of a world.
+ *
+ * Cubes are addressed by their flat index x + y*nbX + z*nbX*nbY. The
+ * open and closed sets are int arrays stamped with the number of the
+ * current search, so they never have to be cleared between searches, and
+ * the open set is kept in a node heap of primitive keys. Each thread
+ * searching with a path finder gets arrays of its own, so nits may look for
+ * paths in parallel.
+ *
+ * Each step to one of the 26 neighbouring cubes costs 1, so the Chebyshev
+ * distance to the destination is an admissible and consistent heuristic
+ * and the path found is a shortest one.
+ *
+ * @invar	The node budget of each path finder must be a valid node budget.
+ * 			| isValidNodeBudget(getNodeBudget())
+ *
+ * @author Ruben Cartuyvels
+ * @version 1.0
+ */
+public class PathFinder {
+
+	/**
+	 * Initialize this new path finder for the given world, with the
+	 * default node budget.
+	 *
+	 * @param	world
+	 * 			The world to search paths in.
+	 *
+	 * @post	The world of this path finder is the given world.
+	 * 			| new.getWorld() == world
+	 *
+	 * @post	The node budget of this path finder is the default node budget.
+	 * 			| new.getNodeBudget() == DEFAULT_NODE_BUDGET
+	 */
+	public PathFinder(World world) {
+		this.world = world;
+		this.nbX = world.getNbCubesX();
+		this.nbY = world.getNbCubesY();
+		this.nbZ = world.getNbCubesZ();
+		int nbCubes = nbX * nbY * nbZ;
+		this.search = ThreadLocal.withInitial(() -> new Search(nbCubes));
+		this.neighbourOffsets = World.getNeighbourOffsets();
+		this.neighbourDeltas = new int[neighbourOffsets.length];
+		for (int n = 0; n < neighbourDeltas.length; n++) {
+			int[] offset = neighbourOffsets[n];
+			this.neighbourDeltas[n] = indexOf(offset[0], offset[1], offset[2]);
+		}
+	}
+
+
+	/**
+	 * Return the world of this path finder.
+	 */
+	@Basic @Immutable
+	public World getWorld() {
+		return this.world;
+	}
+
+	private final World world;
+
+	private final int nbX;
+	private final int nbY;
+	private final int nbZ;
+
+	/**
+	 * The offsets along each axis from a cube to its 26 neighbours.
+	 */
+	private final int[][] neighbourOffsets;
+
+	/**
+	 * The difference in flat index from a cube to each of its neighbours,
+	 * in the order of the neighbour offsets.
+	 */
+	private final int[] neighbourDeltas;
+
+
+	/**
+	 * Return the maximal number of cubes that is expanded in a single search.
+	 */
+	@Basic
+	public int getNodeBudget() {
+		return this.nodeBudget;
+	}
+
+	/**
+	 * Check whether the given node budget is valid.
+	 *
+	 * @return	| result == (nodeBudget > 0)
+	 */
+	public static boolean isValidNodeBudget(int nodeBudget) {
+		return nodeBudget > 0;
+	}
+
+	/**
+	 * Set the node budget of this path finder to the given node budget.
+	 *
+	 * @param	nodeBudget
+	 * 			The new node budget.
+	 *
+	 * @post	| new.getNodeBudget() == nodeBudget
+	 *
+	 * @throws	IllegalArgumentException
+	 * 			| !isValidNodeBudget(nodeBudget)
+	 */
+	public void setNodeBudget(int nodeBudget) throws IllegalArgumentException {
+		if (!isValidNodeBudget(nodeBudget))
+			throw new IllegalArgumentException();
+		this.nodeBudget = nodeBudget;
+	}
+
+	/**
+	 * The number of cubes expanded in a single search by default.
+	 */
+	public static final int DEFAULT_NODE_BUDGET = 1 << 19;
+
+	private int nodeBudget = DEFAULT_NODE_BUDGET;
+
+
+	/**
+	 * Return the flat index of the cube with the given coordinates.
+	 */
+	public int indexOf(int x, int y, int z) {
+		return x + y * nbX + z * nbX * nbY;
+	}
+
+	/**
+	 * Return the flat index of the cube with the given coordinate.
+	 */
+	public int indexOf(Coordinate coordinate) {
+		return indexOf(coordinate.get(0), coordinate.get(1), coordinate.get(2));
+	}
+
+	/**
+	 * Return the coordinate of the cube with the given flat index.
+	 */
+	public Coordinate coordinateOf(int index) {
+		return getWorld().getCoordinateAt(index);
+	}
+
+
+	/**
+	 * Compute a shortest path from the given start cube to the given
+	 * destination cube, through cubes that are traversable according to
+	 * the given movement rule. The destination cube itself is not tested.
+	 *
+	 * @param	start
+	 * 			The cube to start from.
+	 *
+	 * @param	destination
+	 * 			The cube to find a path to.
+	 *
+	 * @param	rule
+	 * 			The rule deciding which cubes may be moved through.
+	 *
+	 * @return	The flat indices of the cubes along the path, excluding the
+	 * 			start cube and ending with the destination cube, or null if
+	 * 			no path is found within the node budget.
+	 * 			| if (result != null)
+	 * 			|	then getWorld().isNeighbouring(start, coordinateOf(result[0]))
+	 * 			|		&& coordinateOf(result[result.length-1]).equals(destination)
+	 */
+	public int[] findPath(Coordinate start, Coordinate destination, MovementRule rule) {
+		int sx = start.get(0), sy = start.get(1), sz = start.get(2);
+		int dx = destination.get(0), dy = destination.get(1), dz = destination.get(2);
+		int source = indexOf(sx, sy, sz);
+		int target = indexOf(dx, dy, dz);
+		if (source == target)
+			return new int[0];
+
+		Search search = this.search.get();
+		int[] cost = search.cost, parent = search.parent, seen = search.seen, closed = search.closed;
+		NodeHeap open = search.open;
+		int generation = search.nextGeneration();
+		open.clear();
+
+		seen[source] = generation;
+		cost[source] = 0;
+		parent[source] = -1;
+		open.push(source, heuristic(sx, sy, sz, dx, dy, dz), 0);
+
+		int expanded = 0;
+		while (!open.isEmpty()) {
+			int current = open.pop();
+			if (closed[current] == generation)
+				continue;
+			if (current == target)
+				return search.reconstruct(source, target);
+			closed[current] = generation;
+			if (++expanded > getNodeBudget())
+				return null;
+
+			int cx = current % nbX;
+			int cy = (current / nbX) % nbY;
+			int cz = current / (nbX * nbY);
+			int nextCost = cost[current] + 1;
+
+			for (int n = 0; n < neighbourOffsets.length; n++) {
+				int[] offset = neighbourOffsets[n];
+				int x = cx + offset[0], y = cy + offset[1], z = cz + offset[2];
+				if (x < 0 || x >= nbX || y < 0 || y >= nbY || z < 0 || z >= nbZ)
+					continue;
+				int neighbour = current + neighbourDeltas[n];
+				if (closed[neighbour] == generation)
+					continue;
+				if (seen[neighbour] == generation && cost[neighbour] <= nextCost)
+					continue;
+				if (neighbour != target && !rule.isTraversable(getWorld(), x, y, z))
+					continue;
+				seen[neighbour] = generation;
+				cost[neighbour] = nextCost;
+				parent[neighbour] = current;
+				open.push(neighbour, nextCost + heuristic(x, y, z, dx, dy, dz), nextCost);
+			}
+		}
+		return null;
+	}
+
+
+	/**
+	 * Return the Chebyshev distance between the two given cubes.
+	 */
+	private static int heuristic(int x1, int y1, int z1, int x2, int y2, int z2) {
+		return Math.max(Math.abs(x1 - x2), Math.max(Math.abs(y1 - y2), Math.abs(z1 - z2)));
+	}
+
+
+	/**
+	 * A class of the arrays used by a single search, stamped with the number
+	 * of the search.
+	 */
+	private static class Search {
+
+		private Search(int nbCubes) {
+			this.cost = new int[nbCubes];
+			this.parent = new int[nbCubes];
+			this.seen = new int[nbCubes];
+			this.closed = new int[nbCubes];
+		}
+
+		private int[] reconstruct(int source, int target) {
+			int[] path = new int[cost[target]];
+			for (int node = target, i = path.length - 1; node != source; node = parent[node], i--)
+				path[i] = node;
+			return path;
+		}
+
+		private int nextGeneration() {
+			if (++this.generation == Integer.MAX_VALUE) {
+				Arrays.fill(seen, 0);
+				Arrays.fill(closed, 0);
+				this.generation = 1;
+			}
+			return this.generation;
+		}
+
+		private int generation = 0;
+
+		private final int[] cost;
+		private final int[] parent;
+		private final int[] seen;
+		private final int[] closed;
+
+		/**
+		 * The open set of the search.
+		 */
+		private final NodeHeap open = new NodeHeap();
+
+	}
+
+	/**
+	 * The arrays of the searches of each thread.
+	 */
+	private final ThreadLocal<Search> search;
+
+}
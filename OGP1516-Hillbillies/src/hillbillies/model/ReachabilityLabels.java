@@ -0,0 +1,531 @@
+package hillbillies.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import be.kuleuven.cs.som.annotate.*;
+
+/**
+ * A class of services labelling the cubes of a world with the connected
+ * component they belong to, for each movement rule.
+ *
+ * Two traversable cubes get the same label if and only if a nit following
+ * the rule can move from one to the other. Whether a destination can be
+ * reached then only takes comparing the labels around both cubes, and a
+ * random reachable cube can be drawn from the cubes with the same label.
+ *
+ * Labels are computed for a rule when it is first used. When the type of a
+ * cube changes, only that cube and its neighbours can change traversability:
+ * cubes becoming traversable join or merge the components around them. When
+ * a component loses cubes, a search is started from each of its cubes next
+ * to them, all searches taking turns. Searches that meet are joined, and a
+ * search that runs out of cubes before meeting all others has found a part
+ * that split off, which gets a label of its own. As soon as a single search
+ * is left, the rest of the component keeps its label, so only the parts that
+ * split off are labelled again, and nothing if the component is still whole.
+ *
+ * @author Ruben Cartuyvels
+ * @version 1.0
+ */
+public class ReachabilityLabels {
+
+	/**
+	 * Initialize this new labelling service for the given world.
+	 *
+	 * @param	world
+	 * 			The world to label the cubes of.
+	 *
+	 * @post	| new.getWorld() == world
+	 */
+	public ReachabilityLabels(World world) {
+		this.world = world;
+		this.nbX = world.getNbCubesX();
+		this.nbY = world.getNbCubesY();
+		this.nbZ = world.getNbCubesZ();
+		this.labellings = new Labelling[MovementRule.values().length];
+	}
+
+
+	/**
+	 * Return the world of this service.
+	 */
+	@Basic @Immutable
+	public World getWorld() {
+		return this.world;
+	}
+
+	private final World world;
+
+	private final int nbX;
+	private final int nbY;
+	private final int nbZ;
+
+
+	/**
+	 * Check whether a nit following the given movement rule can move from
+	 * the given start cube to the given destination cube. As for the path
+	 * finder, the start and destination cubes themselves are not tested.
+	 *
+	 * @return	True if and only if both cubes are equal or neighbouring, or
+	 * 			if a traversable cube next to or at the start cube has the
+	 * 			same label as a traversable cube next to or at the destination.
+	 */
+	public boolean isReachable(Coordinate start, Coordinate destination, MovementRule rule) {
+		int sx = start.get(0), sy = start.get(1), sz = start.get(2);
+		int dx = destination.get(0), dy = destination.get(1), dz = destination.get(2);
+		if (Math.abs(sx - dx) <= 1 && Math.abs(sy - dy) <= 1 && Math.abs(sz - dz) <= 1)
+			return true;
+		Labelling labelling = getLabelling(rule);
+		int[] labels = labelling.labelsAround(sx, sy, sz);
+		int label = labelling.labels[indexOf(dx, dy, dz)];
+		if (label >= 0)
+			return contains(labels, label);
+		for (int other: labelling.labelsAround(dx, dy, dz))
+			if (contains(labels, other))
+				return true;
+		return false;
+	}
+
+
+	/**
+	 * Return a random cube at most the given radius away from the given cube
+	 * along each axis, that can be reached from it by a nit following the given
+	 * movement rule and that satisfies the given condition.
+	 *
+	 * @return	A random reachable cube near the given cube that satisfies the
+	 * 			condition. If there is none within the given radius, the radius
+	 * 			is doubled until there is one or the whole world has been
+	 * 			searched. If there is none at all, the given cube.
+	 * 			| isReachable(coordinate, result, rule) 
+	 * 			|	&& (condition.test(result) || result == coordinate)
+	 */
+	public Coordinate getNearRandomReachableCube(Coordinate coordinate, int radius,
+			MovementRule rule, Predicate<Coordinate> condition, SplittableRandom random) {
+		int x = coordinate.get(0), y = coordinate.get(1), z = coordinate.get(2);
+		Labelling labelling = getLabelling(rule);
+		int[] labels = labelling.labelsAround(x, y, z);
+		if (labels.length == 0)
+			return coordinate;
+
+		int maxRadius = Math.max(nbX, Math.max(nbY, nbZ));
+		for (int r = Math.max(radius, 1); ; r *= 2) {
+			Coordinate result = getRandomCubeInBox(labelling, labels, x, y, z, r,
+					condition, random);
+			if (result != null)
+				return result;
+			if (r >= maxRadius)
+				return coordinate;
+		}
+	}
+
+	/**
+	 * Return a random cube at most the given radius away from the cube with
+	 * the given coordinates along each axis, with one of the given labels and
+	 * satisfying the given condition, or null if there is none.
+	 */
+	private Coordinate getRandomCubeInBox(Labelling labelling, int[] labels, int x, int y,
+			int z, int radius, Predicate<Coordinate> condition, SplittableRandom random) {
+		Coordinate result = null;
+		int nbCandidates = 0;
+		for (int i = Math.max(x-radius, 0); i <= Math.min(x+radius, nbX-1); i++) {
+			for (int j = Math.max(y-radius, 0); j <= Math.min(y+radius, nbY-1); j++) {
+				for (int k = Math.max(z-radius, 0); k <= Math.min(z+radius, nbZ-1); k++) {
+					if (!contains(labels, labelling.labels[indexOf(i, j, k)]))
+						continue;
+					Coordinate candidate = getWorld().getCoordinateAt(i, j, k);
+					if (condition.test(candidate) && random.nextInt(++nbCandidates) == 0)
+						result = candidate;
+				}
+			}
+		}
+		return result;
+	}
+
+
+	/**
+	 * Register that the type of the cube with the given coordinates has changed.
+	 */
+	void terrainChanged(int x, int y, int z) {
+		for (Labelling labelling: this.labellings)
+			if (labelling != null)
+				labelling.terrainChanged(x, y, z);
+	}
+
+
+	/**
+	 * Label the cubes for the given movement rule, if that has not been done
+	 * yet, so that queries for that rule only read the labels.
+	 */
+	void prepare(MovementRule rule) {
+		getLabelling(rule);
+	}
+
+
+	private Labelling getLabelling(MovementRule rule) {
+		if (this.labellings[rule.ordinal()] == null)
+			this.labellings[rule.ordinal()] = new Labelling(rule);
+		return this.labellings[rule.ordinal()];
+	}
+
+	private final Labelling[] labellings;
+
+
+	private int indexOf(int x, int y, int z) {
+		return x + y * nbX + z * nbX * nbY;
+	}
+
+	private static boolean contains(int[] labels, int label) {
+		return contains(labels, labels.length, label);
+	}
+
+	private static boolean contains(int[] labels, int nbLabels, int label) {
+		for (int i = 0; i < nbLabels; i++)
+			if (labels[i] == label)
+				return true;
+		return false;
+	}
+
+
+	/**
+	 * A class of labellings of the cubes of the world for a single movement rule.
+	 */
+	private class Labelling {
+
+		private Labelling(MovementRule rule) {
+			this.rule = rule;
+			this.labels = new int[nbX * nbY * nbZ];
+			this.positions = new int[this.labels.length];
+			Arrays.fill(this.labels, -1);
+			for (int x = 0; x < nbX; x++)
+				for (int y = 0; y < nbY; y++)
+					for (int z = 0; z < nbZ; z++)
+						if (rule.isTraversable(getWorld(), x, y, z))
+							this.labels[indexOf(x, y, z)] = UNLABELLED;
+			for (int cube = 0; cube < this.labels.length; cube++)
+				if (this.labels[cube] == UNLABELLED)
+					flood(cube, UNLABELLED, newComponent());
+		}
+
+		private final MovementRule rule;
+
+		/**
+		 * The label of each cube, or -1 if the cube is not traversable.
+		 */
+		private final int[] labels;
+
+		/**
+		 * The position of each labelled cube in the cubes of its component.
+		 */
+		private final int[] positions;
+
+		/**
+		 * The components of this labelling by label, or null for free labels.
+		 */
+		private final List<Component> components = new ArrayList<Component>();
+
+		private final List<Integer> freeLabels = new ArrayList<Integer>();
+
+		/**
+		 * The cubes visited by the searches for parts that split off, stamped
+		 * with the number of the current search, and the search that visited
+		 * each of them. Both are only created when a component first loses cubes.
+		 */
+		private int[] visited;
+
+		private int[] owners;
+
+		private int generation = 0;
+
+		/**
+		 * Value marking a traversable cube that has not been labelled yet.
+		 */
+		private static final int UNLABELLED = -2;
+
+
+		/**
+		 * Return the distinct labels of the given cube, if it is traversable,
+		 * or of its traversable neighbours otherwise.
+		 */
+		private int[] labelsAround(int x, int y, int z) {
+			int label = this.labels[indexOf(x, y, z)];
+			if (label >= 0)
+				return new int[] { label };
+			int[] result = new int[26];
+			int size = 0;
+			for (int i = Math.max(x-1, 0); i <= Math.min(x+1, nbX-1); i++)
+				for (int j = Math.max(y-1, 0); j <= Math.min(y+1, nbY-1); j++)
+					for (int k = Math.max(z-1, 0); k <= Math.min(z+1, nbZ-1); k++) {
+						int other = this.labels[indexOf(i, j, k)];
+						if (other >= 0 && !contains(result, size, other))
+							result[size++] = other;
+					}
+			return Arrays.copyOf(result, size);
+		}
+
+
+		/**
+		 * Update the labels for a change of the type of the cube with the given
+		 * coordinates, which can only change the traversability of that cube
+		 * and its neighbours.
+		 */
+		private void terrainChanged(int x, int y, int z) {
+			int[] removed = new int[27];
+			int nbRemoved = 0;
+			for (int i = Math.max(x-1, 0); i <= Math.min(x+1, nbX-1); i++) {
+				for (int j = Math.max(y-1, 0); j <= Math.min(y+1, nbY-1); j++) {
+					for (int k = Math.max(z-1, 0); k <= Math.min(z+1, nbZ-1); k++) {
+						int cube = indexOf(i, j, k);
+						boolean traversable = this.rule.isTraversable(getWorld(), i, j, k);
+						if (this.labels[cube] >= 0 && !traversable) {
+							remove(cube);
+							removed[nbRemoved++] = cube;
+						}
+						else if (this.labels[cube] < 0 && traversable)
+							add(cube, i, j, k);
+					}
+				}
+			}
+			if (nbRemoved > 0)
+				split(removed, nbRemoved);
+		}
+
+
+		/**
+		 * Label the given cube that became traversable, merging all components
+		 * next to it into the largest of them.
+		 */
+		private void add(int cube, int x, int y, int z) {
+			int label = -1;
+			for (int other: labelsAround(x, y, z))
+				if (label < 0 || this.components.get(other).size > this.components.get(label).size)
+					label = other;
+			if (label < 0)
+				label = newComponent();
+			for (int other: labelsAround(x, y, z))
+				if (other != label)
+					merge(other, label);
+			append(cube, label);
+		}
+
+
+		private void merge(int from, int into) {
+			Component component = this.components.get(from);
+			for (int n = 0; n < component.size; n++)
+				append(component.cubes[n], into);
+			freeComponent(from);
+		}
+
+
+		/**
+		 * Give each part that a component has split into after losing the
+		 * given cubes a label of its own. Each such part holds a labelled
+		 * neighbour of one of those cubes, so only the components of these
+		 * neighbours are searched, from the neighbours themselves.
+		 */
+		private void split(int[] removed, int nbRemoved) {
+			int[] seeds = new int[64];
+			int nbSeeds = 0;
+			for (int n = 0; n < nbRemoved; n++) {
+				int x = removed[n] % nbX, y = (removed[n] / nbX) % nbY, z = removed[n] / (nbX * nbY);
+				for (int i = Math.max(x-1, 0); i <= Math.min(x+1, nbX-1); i++)
+					for (int j = Math.max(y-1, 0); j <= Math.min(y+1, nbY-1); j++)
+						for (int k = Math.max(z-1, 0); k <= Math.min(z+1, nbZ-1); k++) {
+							int cube = indexOf(i, j, k);
+							if (this.labels[cube] < 0 || contains(seeds, nbSeeds, cube))
+								continue;
+							if (nbSeeds == seeds.length)
+								seeds = Arrays.copyOf(seeds, nbSeeds * 2);
+							seeds[nbSeeds++] = cube;
+						}
+			}
+			Set<Integer> labels = new HashSet<Integer>();
+			for (int n = 0; n < nbSeeds; n++)
+				labels.add(this.labels[seeds[n]]);
+			for (int label: labels) {
+				int[] sameLabel = new int[nbSeeds];
+				int nbSameLabel = 0;
+				for (int n = 0; n < nbSeeds; n++)
+					if (this.labels[seeds[n]] == label)
+						sameLabel[nbSameLabel++] = seeds[n];
+				if (nbSameLabel > 1)
+					separate(label, sameLabel, nbSameLabel);
+			}
+		}
+
+
+		/**
+		 * Search the component with the given label from each of the given
+		 * cubes in turn, joining searches that meet, and give the cubes of
+		 * each search that runs out of cubes while others are left a new label.
+		 */
+		private void separate(int label, int[] seeds, int nbSeeds) {
+			if (this.visited == null) {
+				this.visited = new int[this.labels.length];
+				this.owners = new int[this.labels.length];
+			}
+			int generation = nextGeneration();
+			int[][] queues = new int[nbSeeds][];
+			int[] heads = new int[nbSeeds], tails = new int[nbSeeds];
+			// Each search points to the search it has been joined into, and each
+			// search that was not joined counts its searches that have cubes left.
+			int[] joined = new int[nbSeeds], nbActive = new int[nbSeeds];
+			for (int s = 0; s < nbSeeds; s++) {
+				queues[s] = new int[16];
+				queues[s][tails[s]++] = seeds[s];
+				this.visited[seeds[s]] = generation;
+				this.owners[seeds[s]] = s;
+				joined[s] = s;
+				nbActive[s] = 1;
+			}
+
+			int nbParts = nbSeeds;
+			while (nbParts > 1) {
+				for (int s = 0; s < nbSeeds && nbParts > 1; s++) {
+					if (heads[s] == tails[s])
+						continue;
+					int cube = queues[s][heads[s]++];
+					int x = cube % nbX, y = (cube / nbX) % nbY, z = cube / (nbX * nbY);
+					for (int i = Math.max(x-1, 0); i <= Math.min(x+1, nbX-1); i++)
+						for (int j = Math.max(y-1, 0); j <= Math.min(y+1, nbY-1); j++)
+							for (int k = Math.max(z-1, 0); k <= Math.min(z+1, nbZ-1); k++) {
+								int neighbour = indexOf(i, j, k);
+								if (this.labels[neighbour] != label)
+									continue;
+								if (this.visited[neighbour] != generation) {
+									this.visited[neighbour] = generation;
+									this.owners[neighbour] = s;
+									if (tails[s] == queues[s].length)
+										queues[s] = Arrays.copyOf(queues[s], tails[s] * 2);
+									queues[s][tails[s]++] = neighbour;
+									continue;
+								}
+								int root = find(joined, s), other = find(joined, this.owners[neighbour]);
+								if (root != other) {
+									joined[other] = root;
+									nbActive[root] += nbActive[other];
+									nbParts--;
+								}
+							}
+					if (heads[s] < tails[s])
+						continue;
+					int root = find(joined, s);
+					if (--nbActive[root] == 0 && nbParts > 1) {
+						int part = newComponent();
+						for (int t = 0; t < nbSeeds; t++)
+							if (find(joined, t) == root)
+								for (int n = 0; n < tails[t]; n++) {
+									remove(queues[t][n]);
+									append(queues[t][n], part);
+								}
+						nbParts--;
+					}
+				}
+			}
+		}
+
+
+		private int find(int[] joined, int search) {
+			while (joined[search] != search)
+				search = joined[search] = joined[joined[search]];
+			return search;
+		}
+
+
+		private int nextGeneration() {
+			if (++this.generation == Integer.MAX_VALUE) {
+				Arrays.fill(this.visited, 0);
+				this.generation = 1;
+			}
+			return this.generation;
+		}
+
+
+		/**
+		 * Give the given label to the given cube and to all cubes connected to
+		 * it that have the given old label.
+		 */
+		private void flood(int start, int oldLabel, int label) {
+			int[] queue = new int[64];
+			int head = 0, tail = 0;
+			append(start, label);
+			queue[tail++] = start;
+			while (head < tail) {
+				int cube = queue[head++];
+				int x = cube % nbX, y = (cube / nbX) % nbY, z = cube / (nbX * nbY);
+				for (int i = Math.max(x-1, 0); i <= Math.min(x+1, nbX-1); i++)
+					for (int j = Math.max(y-1, 0); j <= Math.min(y+1, nbY-1); j++)
+						for (int k = Math.max(z-1, 0); k <= Math.min(z+1, nbZ-1); k++) {
+							int neighbour = indexOf(i, j, k);
+							if (this.labels[neighbour] != oldLabel)
+								continue;
+							append(neighbour, label);
+							if (tail == queue.length)
+								queue = Arrays.copyOf(queue, tail * 2);
+							queue[tail++] = neighbour;
+						}
+			}
+		}
+
+
+		private void append(int cube, int label) {
+			Component component = this.components.get(label);
+			if (component.size == component.cubes.length)
+				component.cubes = Arrays.copyOf(component.cubes, component.size * 2);
+			this.labels[cube] = label;
+			this.positions[cube] = component.size;
+			component.cubes[component.size++] = cube;
+		}
+
+
+		/**
+		 * Remove the given cube from its component, by moving the last cube
+		 * of that component in its place.
+		 */
+		private void remove(int cube) {
+			int label = this.labels[cube];
+			Component component = this.components.get(label);
+			int last = component.cubes[--component.size];
+			component.cubes[this.positions[cube]] = last;
+			this.positions[last] = this.positions[cube];
+			this.labels[cube] = -1;
+			if (component.size == 0)
+				freeComponent(label);
+		}
+
+
+		private int newComponent() {
+			if (!this.freeLabels.isEmpty()) {
+				int label = this.freeLabels.remove(this.freeLabels.size() - 1);
+				this.components.set(label, new Component());
+				return label;
+			}
+			this.components.add(new Component());
+			return this.components.size() - 1;
+		}
+
+
+		private void freeComponent(int label) {
+			this.components.set(label, null);
+			this.freeLabels.add(label);
+		}
+
+	}
+
+
+	/**
+	 * A class of connected components, holding the cubes with the same label.
+	 */
+	private static class Component {
+
+		private int[] cubes = new int[8];
+
+		private int size = 0;
+
+	}
+
+}
@@ -0,0 +1,53 @@
+package hillbillies.model;
+
+import be.kuleuven.cs.som.annotate.*;
+
+/**
+ * A class of routes through a world: the waypoints a nit passes on its way
+ * to a destination, together with the path to the first of them.
+ *
+ * The paths to the later waypoints are only computed once the nit reaches
+ * the waypoint before them, since the terrain may change in the meantime.
+ *
+ * @author Ruben Cartuyvels
+ * @version 1.0
+ */
+public final class Route {
+
+	/**
+	 * Initialize this new route with the given waypoints and path.
+	 *
+	 * @post	| new.getWaypoints() == waypoints
+	 * @post	| new.getPath() == path
+	 */
+	Route(int[] waypoints, int[] path) {
+		this.waypoints = waypoints;
+		this.path = path;
+	}
+
+
+	/**
+	 * Return the flat indices of the waypoints of this route, ending with its
+	 * destination.
+	 */
+	@Basic @Immutable
+	public int[] getWaypoints() {
+		return this.waypoints;
+	}
+
+	private final int[] waypoints;
+
+
+	/**
+	 * Return the flat indices of the cubes along the path to the first
+	 * waypoint of this route, excluding the start cube and ending with the
+	 * waypoint, or null if no such path was found.
+	 */
+	@Basic @Immutable
+	public int[] getPath() {
+		return this.path;
+	}
+
+	private final int[] path;
+
+}
@@ -2,14 +2,36 @@ package hillbillies.model;
 
 import java.util.*;
 
-import be.kuleuven.cs.som.annotate.Basic;
-import be.kuleuven.cs.som.annotate.Raw;
+import be.kuleuven.cs.som.annotate.*;
 
 
+/**
+ * A class of schedulers, holding the tasks of a faction.
+ * 
+ * The tasks that are available for execution are kept in a max-heap keyed by
+ * their priority, apart from the tasks that are being executed or are
+ * completed. The available task with the highest priority is found in 
+ * constant time. A task notifies its schedulers when its priority or its
+ * state changes, after which it is moved in logarithmic time.
+ * 
+ * The assignment strategy of a scheduler decides which of the idle nits of
+ * its faction gets each task.
+ * 
+ * @author Ruben Cartuyvels
+ * @version 1.0
+ */
 public class Scheduler {
 	
 	
-	private final List<Task> tasks = new ArrayList<Task>();
+	/**
+	 * The tasks of this scheduler that are available for execution.
+	 */
+	private final TaskHeap availableTasks = new TaskHeap();
+	
+	/**
+	 * The tasks of this scheduler that are being executed or are completed.
+	 */
+	private final Set<Task> unavailableTasks = new LinkedHashSet<Task>();
 	
 	
 	public Scheduler(/*Faction faction*/) {
@@ -17,61 +39,265 @@ public class Scheduler {
 	}
 	
 	
-	private void sortTasks() {
-		this.tasks.removeIf(Objects::isNull);
-		this.tasks.sort(new PriorityComparator());
+	/**
+	 * Return the strategy by which this scheduler assigns its tasks.
+	 */
+	@Basic
+	public AssignmentStrategy getAssignmentStrategy() {
+		return this.assignmentStrategy;
+	}
+	
+	/**
+	 * Set the strategy by which this scheduler assigns its tasks to the given
+	 * strategy.
+	 * 
+	 * @post	| new.getAssignmentStrategy() == assignmentStrategy
+	 * @throws	IllegalArgumentException
+	 * 			| assignmentStrategy == null
+	 */
+	public void setAssignmentStrategy(AssignmentStrategy assignmentStrategy) 
+			throws IllegalArgumentException {
+		if (assignmentStrategy == null)
+			throw new IllegalArgumentException();
+		this.assignmentStrategy = assignmentStrategy;
 	}
 	
+	private AssignmentStrategy assignmentStrategy = AssignmentStrategy.BY_PRIORITY;
 	
-	public Task getHighestPriorityTask() {
-		sortTasks();
-		for (int i=0; i<this.tasks.size(); i++) {
-			if (!this.tasks.get(i).beingExecuted() )
-				return this.tasks.get(i);
+	
+	/**
+	 * Check whether the given task is available for execution.
+	 */
+	private static boolean isAvailable(Task task) {
+		return !task.beingExecuted() && !task.isCompleted();
+	}
+	
+	
+	/**
+	 * Move the given task to the tasks of this scheduler that match its
+	 * current state and priority.
+	 * 
+	 * @effect	| if (hasAsTask(task) && isAvailable(task))
+	 * 			|	then the task is ordered among the available tasks by its
+	 * 			|		priority
+	 */
+	@Model
+	void updateTask(Task task) {
+		if (isAvailable(task)) {
+			if (this.unavailableTasks.remove(task))
+				this.availableTasks.add(task);
+			else
+				this.availableTasks.update(task);
+		}
+		else if (this.availableTasks.contains(task)) {
+			this.availableTasks.remove(task);
+			this.unavailableTasks.add(task);
 		}
-		return null;
+	}
+	
+	
+	/**
+	 * Return the task of this scheduler with the highest priority that is not
+	 * being executed, or null if there is none.
+	 */
+	public Task getHighestPriorityTask() {
+		return this.availableTasks.peek();
+	}
+	
+	
+	/**
+	 * Return the task of this scheduler with the highest priority that is not
+	 * being executed, other than the given task, or null if there is none.
+	 */
+	public Task getHighestPriorityTaskExcept(Task task) {
+		return this.availableTasks.peekExcept(task);
 	}
 	
 	
 	public boolean hasUnassignedTask() {
-		if (this.tasks.size() > 0)
-			for (int i=0; i<this.tasks.size(); i++) {
-				if (!this.tasks.get(i).beingExecuted() )
-					return true;
-			}
-		return false;
+		return this.availableTasks.size() > 0;
 	}
 	
 	
+	/**
+	 * Return a list collecting all tasks of this scheduler, by decreasing
+	 * priority.
+	 */
 	public List<Task> getAllTasks() {
-		return new ArrayList<Task>(this.tasks);
+		List<Task> tasks = new ArrayList<Task>(getNbTasks());
+		for (int i = 0; i < this.availableTasks.size(); i++)
+			tasks.add(this.availableTasks.get(i));
+		tasks.addAll(this.unavailableTasks);
+		tasks.sort(new PriorityComparator().reversed());
+		return tasks;
+	}
+	
+	
+	public int getNbTasks() {
+		return this.availableTasks.size() + this.unavailableTasks.size();
 	}
 
 	
 	public void addTask(Task task) throws IllegalArgumentException {
 		if (!canHaveAsTask(task))
 			throw new IllegalArgumentException();
-		this.tasks.add(task);
+		if (hasAsTask(task))
+			return;
+		if (isAvailable(task))
+			this.availableTasks.add(task);
+		else
+			this.unavailableTasks.add(task);
 		task.addScheduler(this);
-		sortTasks();
-		/*try {
-			throw new IllegalArgumentException();
-		} catch (Exception e) {
-			e.printStackTrace();
-		}*/
+	}
+	
+	
+	/**
+	 * Add the given tasks to this scheduler at once. Tasks already part of
+	 * this scheduler are skipped.
+	 * 
+	 * @effect	| for each task in tasks:
+	 * 			|	addTask(task)
+	 * 
+	 * @throws	IllegalArgumentException
+	 * 			One of the given tasks cannot be a task of this scheduler. No
+	 * 			task is added.
+	 * 			| for some task in tasks: !canHaveAsTask(task)
+	 */
+	public void scheduleAll(Collection<Task> tasks) throws IllegalArgumentException {
+		Set<Task> newTasks = new LinkedHashSet<Task>();
+		for (Task task: tasks) {
+			if (!canHaveAsTask(task))
+				throw new IllegalArgumentException();
+			if (!hasAsTask(task))
+				newTasks.add(task);
+		}
+		List<Task> available = new ArrayList<Task>(newTasks.size());
+		for (Task task: newTasks) {
+			if (isAvailable(task))
+				available.add(task);
+			else
+				this.unavailableTasks.add(task);
+		}
+		this.availableTasks.addAll(available);
+		for (Task task: newTasks)
+			task.addScheduler(this);
+	}
+	
+	
+	/**
+	 * Assign the available tasks of this scheduler to the given idle nits, in
+	 * one pass, according to the assignment strategy of this scheduler. No nit
+	 * gets the task it was last interrupted in.
+	 * 
+	 * Under the BY_PRIORITY strategy, each nit in turn gets the available
+	 * task with the highest priority, as long as there is one. Under the 
+	 * NEAREST_NIT strategy, each task in turn, by decreasing priority, goes to
+	 * the nit closest to its cube, as long as there are nits left.
+	 * 
+	 * @return	The number of tasks assigned.
+	 */
+	@Model
+	int assignTasks(List<Nit> nits) {
+		if (getAssignmentStrategy() == AssignmentStrategy.NEAREST_NIT)
+			return assignNearestTasks(nits);
+		int nbAssigned = 0;
+		for (int i = 0; i < nits.size() && hasUnassignedTask(); i++) {
+			Nit nit = nits.get(i);
+			Task task = getHighestPriorityTaskExcept(nit.getInterruptedTask());
+			if (task == null)
+				continue;
+			task.setBeingExecuted(true);
+			nit.setAssignedTask(task);
+			nbAssigned++;
+		}
+		return nbAssigned;
+	}
+	
+	
+	private int assignNearestTasks(List<Nit> nits) {
+		List<Nit> idleNits = new ArrayList<Nit>(nits);
+		int nbAssigned = 0;
+		while (!idleNits.isEmpty() && hasUnassignedTask()) {
+			Task task = getHighestPriorityTask();
+			int nearest = findNearest(idleNits, task);
+			if (nearest < 0) {
+				// each nit left was interrupted in this task
+				task = getHighestPriorityTaskExcept(task);
+				if (task == null)
+					break;
+				nearest = findNearest(idleNits, task);
+			}
+			Nit nit = idleNits.remove(nearest);
+			task.setBeingExecuted(true);
+			nit.setAssignedTask(task);
+			nbAssigned++;
+		}
+		return nbAssigned;
+	}
+	
+	
+	/**
+	 * Return the index of the given nit closest to the cube of the given 
+	 * task, the first one if the task has no cube, or -1 if each given nit
+	 * was interrupted in the given task.
+	 */
+	private static int findNearest(List<Nit> nits, Task task) {
+		Coordinate cube = task.getCube();
+		DistanceFields.Field[] fields = null;
+		int nearest = -1;
+		long nearestDistance = Long.MAX_VALUE;
+		for (int i = 0; i < nits.size(); i++) {
+			Nit nit = nits.get(i);
+			if (nit.getInterruptedTask() == task)
+				continue;
+			if (cube == null)
+				return i;
+			
+			if (fields == null)
+				fields = new DistanceFields.Field[MovementRule.values().length];
+			int rule = nit.getMovementRule().ordinal();
+			if (fields[rule] == null)
+				fields[rule] = nit.getWorld().getDistanceFields().getField(cube, 
+						nit.getMovementRule());
+			long distance = getDistance(nit, cube, fields[rule]);
+			if (distance < nearestDistance) {
+				nearest = i;
+				nearestDistance = distance;
+			}
+		}
+		return nearest;
+	}
+	
+	
+	/**
+	 * Return the distance from the given nit to the given cube, by the number
+	 * of steps in the given distance field towards the cube if it is effective,
+	 * and by the number of cubes between them along the axis on which they are
+	 * furthest apart otherwise. Nits that cannot reach the cube according to
+	 * the field are further than any nit that can.
+	 */
+	private static long getDistance(Nit nit, Coordinate cube, DistanceFields.Field field) {
+		Coordinate position = nit.getCoordinate();
+		long distance = 0;
+		for (int i = 0; i < 3; i++)
+			distance = Math.max(distance, Math.abs(position.get(i) - cube.get(i)));
+		if (field == null)
+			return distance;
+		int steps = field.getDistance(position.get(0), position.get(1), position.get(2));
+		return (steps >= 0) ? steps : Integer.MAX_VALUE + distance;
 	}
 	
 	
 	public void removeTask(Task task) {
 		if (hasAsTask(task)) {
-			this.tasks.remove(task);
+			this.availableTasks.remove(task);
+			this.unavailableTasks.remove(task);
 		}
-		sortTasks();
 	}
 	
 	
 	public void replace(Task original, Task replacement) {
-		if (this.tasks.contains(original)) {
+		if (hasAsTask(original)) {
 			if (original.beingExecuted()) {
 				original.getAssignedNit().stopExecutingTask();
 				//original.getAssignedNit().deleteTask();
@@ -79,17 +305,18 @@ public class Scheduler {
 				original.setAssignedNit(null);
 			}
 			
-			this.tasks.set(this.tasks.indexOf(original), replacement);
-			sortTasks();
+			removeTask(original);
+			addTask(replacement);
 		}
 		
 	}
 
 	
 	public boolean areTasksPartOf(Collection<Task> tasks) {
-		if (this.tasks.containsAll(tasks))
-				return true;
-		return false;
+		for (Task task: tasks)
+			if (!hasAsTask(task))
+				return false;
+		return true;
 	}
 
 	
@@ -104,7 +331,7 @@ public class Scheduler {
 
 	
 	public boolean hasAsTask(Task task) {
-		return (this.tasks.contains(task));
+		return this.availableTasks.contains(task) || this.unavailableTasks.contains(task);
 	}
 
 	
@@ -0,0 +1,301 @@
+package hillbillies.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A class of spanning forests of the solid cubes of a world that are
+ * connected to its border, used to decide incrementally which solid cubes
+ * are connected to the border.
+ *
+ * Each connected solid cube has a parent: either the border itself, for
+ * cubes at the border, or a directly adjacent connected solid cube one step
+ * closer to the border in the forest. A cube is connected if and only if it
+ * has a parent, so queries take constant time.
+ *
+ * When a solid cube becomes passable, only the cubes in its subtree can lose
+ * their connection. Those cubes are detached and reattached to the rest of
+ * the forest from any of them that neighbours a connected cube outside the
+ * subtree; the cubes that cannot be reattached are no longer connected.
+ * Because the forest is grown breadth-first from the border, subtrees stay
+ * small, and a change costs time in the size of the subtree rather than in
+ * the size of the world. When a passable cube becomes solid, only the cubes
+ * that become connected through it are visited.
+ *
+ * @author Ruben Cartuyvels
+ * @version 1.0
+ */
+public class SpanningForest implements BorderConnectivity {
+
+	/**
+	 * Initialize this new spanning forest for a world with the given number of
+	 * cubes along each axis, in which all cubes are solid.
+	 */
+	public SpanningForest(int nbX, int nbY, int nbZ) {
+		this.nbX = nbX;
+		this.nbY = nbY;
+		this.nbZ = nbZ;
+		int nbCubes = nbX * nbY * nbZ;
+		this.passable = new boolean[nbCubes];
+		this.parent = new int[nbCubes];
+		this.depth = new int[nbCubes];
+		this.marks = new int[nbCubes];
+		this.queue = new int[Math.max(nbCubes, 1)];
+
+		int tail = 0;
+		for (int cube = 0; cube < nbCubes; cube++) {
+			if (isBorder(cube)) {
+				this.parent[cube] = BORDER;
+				this.queue[tail++] = cube;
+			}
+			else
+				this.parent[cube] = NONE;
+		}
+		for (int head = 0; head < tail; head++) {
+			int cube = this.queue[head];
+			int x = cube % nbX, y = (cube / nbX) % nbY, z = cube / (nbX * nbY);
+			for (int[] offset: OFFSETS) {
+				int nx = x + offset[0], ny = y + offset[1], nz = z + offset[2];
+				if (!isInside(nx, ny, nz))
+					continue;
+				int neighbour = indexOf(nx, ny, nz);
+				if (this.parent[neighbour] == NONE) {
+					attach(neighbour, cube);
+					this.queue[tail++] = neighbour;
+				}
+			}
+		}
+	}
+
+
+	private final int nbX;
+	private final int nbY;
+	private final int nbZ;
+
+	/**
+	 * Whether each cube is passable, by flat index.
+	 */
+	private final boolean[] passable;
+
+	/**
+	 * The parent of each connected solid cube in the forest, BORDER for
+	 * connected cubes at the border, or NONE for passable cubes and solid
+	 * cubes that are not connected.
+	 */
+	private final int[] parent;
+
+	/**
+	 * The depth of each connected solid cube in the forest.
+	 */
+	private final int[] depth;
+
+	private static final int NONE = -1;
+	private static final int BORDER = -2;
+
+
+	@Override
+	public boolean isSolidConnectedToBorder(int x, int y, int z) {
+		return this.parent[indexOf(x, y, z)] != NONE;
+	}
+
+
+	@Override
+	public List<int[]> changePassableToSolid(int x, int y, int z) {
+		int index = indexOf(x, y, z);
+		if (!this.passable[index])
+			return Collections.emptyList();
+		this.passable[index] = false;
+
+		if (isBorder(index)) {
+			this.parent[index] = BORDER;
+			this.depth[index] = 0;
+		}
+		else {
+			int anchor = findAnchor(index, -1);
+			if (anchor == NONE)
+				return Collections.emptyList();
+			attach(index, anchor);
+		}
+
+		// every solid cube that was not connected and can now be reached
+		// from the given cube becomes connected through it
+		List<int[]> result = new ArrayList<int[]>();
+		int tail = 0;
+		this.queue[tail++] = index;
+		for (int head = 0; head < tail; head++) {
+			int cube = this.queue[head];
+			result.add(coordinatesOf(cube));
+			int cx = cube % nbX, cy = (cube / nbX) % nbY, cz = cube / (nbX * nbY);
+			for (int[] offset: OFFSETS) {
+				int nx = cx + offset[0], ny = cy + offset[1], nz = cz + offset[2];
+				if (!isInside(nx, ny, nz))
+					continue;
+				int neighbour = indexOf(nx, ny, nz);
+				if (!this.passable[neighbour] && this.parent[neighbour] == NONE) {
+					attach(neighbour, cube);
+					this.queue[tail++] = neighbour;
+				}
+			}
+		}
+		return result;
+	}
+
+
+	@Override
+	public List<int[]> changeSolidToPassable(int x, int y, int z) {
+		int index = indexOf(x, y, z);
+		if (this.passable[index])
+			return Collections.emptyList();
+		this.passable[index] = true;
+		boolean wasConnected = this.parent[index] != NONE;
+		this.parent[index] = NONE;
+		if (!wasConnected)
+			return Collections.emptyList();
+
+		// collect the subtree below the given cube, marking its cubes as detached
+		int detached = nextMark();
+		int reattached = detached + 1;
+		int nbDetached = 0;
+		for (int child: childrenOf(index))
+			if (child >= 0) {
+				this.marks[child] = detached;
+				this.queue[nbDetached++] = child;
+			}
+		for (int head = 0; head < nbDetached; head++) {
+			for (int child: childrenOf(this.queue[head]))
+				if (child >= 0) {
+					this.marks[child] = detached;
+					this.queue[nbDetached++] = child;
+				}
+		}
+		if (nbDetached == 0)
+			return Collections.emptyList();
+
+		// reattach the detached cubes that neighbour a connected cube outside
+		// the subtree, and through them the detached cubes next to them
+		int[] subtree = Arrays.copyOf(this.queue, nbDetached);
+		int tail = 0;
+		for (int cube: subtree) {
+			int anchor = findAnchor(cube, detached);
+			if (anchor != NONE) {
+				attach(cube, anchor);
+				this.marks[cube] = reattached;
+				this.queue[tail++] = cube;
+			}
+		}
+		for (int head = 0; head < tail; head++) {
+			int cube = this.queue[head];
+			int cx = cube % nbX, cy = (cube / nbX) % nbY, cz = cube / (nbX * nbY);
+			for (int[] offset: OFFSETS) {
+				int nx = cx + offset[0], ny = cy + offset[1], nz = cz + offset[2];
+				if (!isInside(nx, ny, nz))
+					continue;
+				int neighbour = indexOf(nx, ny, nz);
+				if (this.marks[neighbour] == detached) {
+					attach(neighbour, cube);
+					this.marks[neighbour] = reattached;
+					this.queue[tail++] = neighbour;
+				}
+			}
+		}
+
+		// the cubes that could not be reattached are no longer connected
+		List<int[]> changed = new ArrayList<int[]>();
+		for (int cube: subtree)
+			if (this.marks[cube] == detached) {
+				this.parent[cube] = NONE;
+				changed.add(coordinatesOf(cube));
+			}
+		return changed;
+	}
+
+
+	/**
+	 * Return the connected solid neighbour of the given cube with the smallest
+	 * depth that is not marked with the given mark, or NONE if there is none.
+	 */
+	private int findAnchor(int cube, int excludedMark) {
+		int x = cube % nbX, y = (cube / nbX) % nbY, z = cube / (nbX * nbY);
+		int anchor = NONE;
+		for (int[] offset: OFFSETS) {
+			int nx = x + offset[0], ny = y + offset[1], nz = z + offset[2];
+			if (!isInside(nx, ny, nz))
+				continue;
+			int neighbour = indexOf(nx, ny, nz);
+			if (this.parent[neighbour] == NONE || this.marks[neighbour] == excludedMark)
+				continue;
+			if (anchor == NONE || this.depth[neighbour] < this.depth[anchor])
+				anchor = neighbour;
+		}
+		return anchor;
+	}
+
+	/**
+	 * Return the flat indices of the children of the given cube in the forest,
+	 * with -1 in the place of each neighbour that is not a child.
+	 */
+	private int[] childrenOf(int cube) {
+		int x = cube % nbX, y = (cube / nbX) % nbY, z = cube / (nbX * nbY);
+		int[] children = this.children;
+		for (int i = 0; i < OFFSETS.length; i++) {
+			int nx = x + OFFSETS[i][0], ny = y + OFFSETS[i][1], nz = z + OFFSETS[i][2];
+			children[i] = -1;
+			if (isInside(nx, ny, nz) && this.parent[indexOf(nx, ny, nz)] == cube)
+				children[i] = indexOf(nx, ny, nz);
+		}
+		return children;
+	}
+
+	private final int[] children = new int[6];
+
+	private void attach(int cube, int anchor) {
+		this.parent[cube] = anchor;
+		this.depth[cube] = this.depth[anchor] + 1;
+	}
+
+
+	/**
+	 * Return a fresh pair of marks, the first for detached cubes and the
+	 * second for reattached cubes.
+	 */
+	private int nextMark() {
+		if (this.mark >= Integer.MAX_VALUE - 2) {
+			Arrays.fill(this.marks, 0);
+			this.mark = 0;
+		}
+		this.mark += 2;
+		return this.mark - 1;
+	}
+
+	private final int[] marks;
+	private int mark = 0;
+
+	/**
+	 * Scratch queue, large enough to hold every cube of the world once.
+	 */
+	private final int[] queue;
+
+
+	private int indexOf(int x, int y, int z) {
+		return x + y * nbX + z * nbX * nbY;
+	}
+
+	private int[] coordinatesOf(int cube) {
+		return new int[] { cube % nbX, (cube / nbX) % nbY, cube / (nbX * nbY) };
+	}
+
+	private boolean isInside(int x, int y, int z) {
+		return 0 <= x && x < nbX && 0 <= y && y < nbY && 0 <= z && z < nbZ;
+	}
+
+	private boolean isBorder(int cube) {
+		int x = cube % nbX, y = (cube / nbX) % nbY, z = cube / (nbX * nbY);
+		return x == 0 || x == nbX - 1 || y == 0 || y == nbY - 1 || z == 0 || z == nbZ - 1;
+	}
+
+	private static final int[][] OFFSETS = new int[][] { { 0, 0, -1 }, { -1, 0, 0 }, { +1, 0, 0 },
+		{ 0, -1, 0 }, { 0, +1, 0 }, { 0, 0, +1 } };
+
+}
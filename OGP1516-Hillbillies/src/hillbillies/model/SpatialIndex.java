@@ -0,0 +1,276 @@
+package hillbillies.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+
+import be.kuleuven.cs.som.annotate.*;
+
+/**
+ * A class of spatial indices, bucketing the game objects of a world by the
+ * cube they occupy.
+ *
+ * Each cube of the world has a bucket, stored at the flat index
+ * x + y*nbX + z*nbX*nbY and allocated when the first object enters it.
+ * The index gives each object it holds an id, and keeps the bucket of each
+ * object and its slot in that bucket in arrays by that id, so that adding,
+ * removing and moving an object take constant time, and the objects in a
+ * cube or in a box of cubes can be collected without looking at any other
+ * object of the world. Ids of removed objects are given out again.
+ *
+ * The index is kept up to date by the world, which adds and removes its
+ * objects, and by the game objects themselves, which report each change
+ * of their position.
+ *
+ * @param	<T>
+ * 			The type of the indexed game objects.
+ *
+ * @author Ruben Cartuyvels
+ * @version 1.0
+ */
+public class SpatialIndex<T extends GameObject> {
+
+	/**
+	 * Initialize this new spatial index for the given world.
+	 *
+	 * @param	world
+	 * 			The world whose cubes the objects are bucketed by.
+	 *
+	 * @post	| new.getWorld() == world
+	 * @post	| new.getNbObjects() == 0
+	 */
+	@SuppressWarnings("unchecked")
+	public SpatialIndex(World world) {
+		this.world = world;
+		this.nbX = world.getNbCubesX();
+		this.nbY = world.getNbCubesY();
+		this.nbZ = world.getNbCubesZ();
+		this.buckets = (ArrayList<T>[]) new ArrayList<?>[nbX * nbY * nbZ];
+	}
+
+
+	/**
+	 * Return the world of this spatial index.
+	 */
+	@Basic @Immutable
+	public World getWorld() {
+		return this.world;
+	}
+
+	private final World world;
+
+	private final int nbX;
+	private final int nbY;
+	private final int nbZ;
+
+
+	/**
+	 * Return the number of objects in this spatial index.
+	 */
+	@Basic
+	public int getNbObjects() {
+		return this.nbObjects;
+	}
+
+	private int nbObjects = 0;
+
+
+	/**
+	 * Check whether this spatial index contains the given object.
+	 */
+	public boolean contains(GameObject object) {
+		return object.getSpatialIndex() == this;
+	}
+
+
+	/**
+	 * Add the given object to this spatial index, in the bucket of the cube
+	 * it occupies.
+	 *
+	 * @post	| new.contains(object)
+	 *
+	 * @throws	IllegalArgumentException
+	 * 			The given object is already in a spatial index.
+	 * 			| object.getSpatialIndex() != null
+	 */
+	public void add(T object) throws IllegalArgumentException {
+		if (object.getSpatialIndex() != null)
+			throw new IllegalArgumentException();
+		int id = newId();
+		object.setSpatialIndex(this, id);
+		insert(object, id, cubeOf(object));
+		this.nbObjects++;
+	}
+
+	/**
+	 * Remove the given object from this spatial index, if it contains it.
+	 *
+	 * @post	| !new.contains(object)
+	 */
+	public void remove(T object) {
+		if (!contains(object))
+			return;
+		int id = object.getSpatialId();
+		extract(object, id);
+		object.setSpatialIndex(null, -1);
+		this.freeIds[this.nbFreeIds++] = id;
+		this.nbObjects--;
+	}
+
+	/**
+	 * Move the given object of this spatial index to the bucket of the cube
+	 * it occupies now.
+	 */
+	@SuppressWarnings("unchecked")
+	void positionChanged(GameObject object) {
+		int id = object.getSpatialId();
+		int cube = cubeOf(object);
+		if (cube == this.cubes[id])
+			return;
+		extract(object, id);
+		insert((T) object, id, cube);
+	}
+
+
+	/**
+	 * Add each object of this spatial index in the cube with the given
+	 * coordinates to the given collection.
+	 */
+	public void collectAt(int x, int y, int z, Collection<? super T> result) {
+		if (!isInside(x, y, z))
+			return;
+		ArrayList<T> bucket = this.buckets[indexOf(x, y, z)];
+		if (bucket != null)
+			result.addAll(bucket);
+	}
+
+	/**
+	 * Add each object of this spatial index in a cube of the box between the
+	 * given minimum and maximum coordinates, both inclusive, to the given
+	 * collection.
+	 */
+	public void collectInBox(int minX, int minY, int minZ, int maxX, int maxY, int maxZ,
+			Collection<? super T> result) {
+		if (this.nbObjects == 0)
+			return;
+		minX = Math.max(minX, 0);
+		minY = Math.max(minY, 0);
+		minZ = Math.max(minZ, 0);
+		maxX = Math.min(maxX, nbX-1);
+		maxY = Math.min(maxY, nbY-1);
+		maxZ = Math.min(maxZ, nbZ-1);
+		for (int z = minZ; z <= maxZ; z++)
+			for (int y = minY; y <= maxY; y++)
+				for (int x = minX; x <= maxX; x++) {
+					ArrayList<T> bucket = this.buckets[indexOf(x, y, z)];
+					if (bucket != null)
+						result.addAll(bucket);
+				}
+	}
+
+	/**
+	 * Add each object of this spatial index at most the given number of cubes
+	 * away from the given cube along each axis to the given collection.
+	 *
+	 * @effect	| collectInBox(coordinate.get(0)-radius, coordinate.get(1)-radius,
+	 * 			|	coordinate.get(2)-radius, coordinate.get(0)+radius,
+	 * 			|	coordinate.get(1)+radius, coordinate.get(2)+radius, result)
+	 */
+	public void collectInRadius(Coordinate coordinate, int radius, Collection<? super T> result) {
+		int x = coordinate.get(0), y = coordinate.get(1), z = coordinate.get(2);
+		collectInBox(x-radius, y-radius, z-radius, x+radius, y+radius, z+radius, result);
+	}
+
+
+	private void insert(T object, int id, int cube) {
+		this.cubes[id] = cube;
+		if (cube < 0)
+			return;
+		ArrayList<T> bucket = this.buckets[cube];
+		if (bucket == null) {
+			bucket = new ArrayList<T>(2);
+			this.buckets[cube] = bucket;
+		}
+		this.slots[id] = bucket.size();
+		bucket.add(object);
+	}
+
+	/**
+	 * Remove the given object with the given id from its bucket, by moving
+	 * the last object of that bucket in its place.
+	 */
+	private void extract(GameObject object, int id) {
+		if (this.cubes[id] < 0)
+			return;
+		ArrayList<T> bucket = this.buckets[this.cubes[id]];
+		T last = bucket.remove(bucket.size() - 1);
+		if (last != object) {
+			bucket.set(this.slots[id], last);
+			this.slots[last.getSpatialId()] = this.slots[id];
+		}
+		this.cubes[id] = -1;
+	}
+
+
+	/**
+	 * Return an id for a new object of this index, reusing the id of a
+	 * removed object if there is one.
+	 */
+	private int newId() {
+		if (this.nbFreeIds > 0)
+			return this.freeIds[--this.nbFreeIds];
+		if (this.nbIds == this.cubes.length) {
+			this.cubes = Arrays.copyOf(this.cubes, this.nbIds * 2);
+			this.slots = Arrays.copyOf(this.slots, this.nbIds * 2);
+			this.freeIds = Arrays.copyOf(this.freeIds, this.nbIds * 2);
+		}
+		return this.nbIds++;
+	}
+
+
+	/**
+	 * Return the flat index of the cube the given object occupies, or -1 if
+	 * it lies outside the world.
+	 */
+	private int cubeOf(GameObject object) {
+		double[] position = object.getPosition();
+		int x = (int) position[0], y = (int) position[1], z = (int) position[2];
+		if (!isInside(x, y, z))
+			return -1;
+		return indexOf(x, y, z);
+	}
+
+	private boolean isInside(int x, int y, int z) {
+		return 0 <= x && x < nbX && 0 <= y && y < nbY && 0 <= z && z < nbZ;
+	}
+
+	private int indexOf(int x, int y, int z) {
+		return x + y * nbX + z * nbX * nbY;
+	}
+
+
+	/**
+	 * The objects in each cube of the world by flat index, or null if no
+	 * object has entered that cube yet.
+	 */
+	private final ArrayList<T>[] buckets;
+
+	/**
+	 * The flat index of the cube of the object with each id, or -1 if it lies
+	 * outside the world, and its slot in the bucket of that cube.
+	 */
+	private int[] cubes = new int[16];
+
+	private int[] slots = new int[16];
+
+	/**
+	 * The number of ids given out so far, and the ids of removed objects that
+	 * can be given out again.
+	 */
+	private int nbIds = 0;
+
+	private int[] freeIds = new int[16];
+
+	private int nbFreeIds = 0;
+
+}
@@ -5,6 +5,8 @@ import java.util.*;
 import be.kuleuven.cs.som.annotate.*;
 import hillbillies.model.statement.*;
 import hillbillies.model.expression.*;
+import hillbillies.model.program.Execution;
+import hillbillies.model.program.Program;
 
 public class Task {
 	
@@ -65,9 +67,10 @@ public class Task {
 	
 	
 	/**
-	 * A variable registering the assigned variables in this task.
+	 * A variable registering the values of the variables in this task, each
+	 * in the slot its name got when the task was parsed.
 	 */
-	private final Map<String, Object> variables = new HashMap<String, Object>();
+	private final Object[] variables;
 	
 	
 	/**
@@ -77,9 +80,16 @@ public class Task {
 	
 	
 	/**
-	 * A variable keeping track of the currently executed activity of the task.
+	 * A variable registering the program compiled from the statements of
+	 * this task.
 	 */
-	private Statement executingActivity = null;
+	private final Program program;
+	
+	
+	/**
+	 * A variable keeping track of how far the program of this task has run.
+	 */
+	private final Execution execution;
 	
 	
 	
@@ -94,6 +104,33 @@ public class Task {
 	 * 
 	 * @param cube
 	 * 
+	 * @effect	The new task is initialized with the given name, priority,
+	 * 			statement and cube, and the program compiled from the statement.
+	 * 			| this(name, priority, statement, Program.compile(statement), cube)
+	 */
+	public Task(String name, int priority, Statement statement, int[] cube ) throws IllegalNameException {
+		this(name, priority, statement, compile(statement), cube);
+	}
+	
+	
+	/**
+	 * Initialize this task with the given name, priority, statement, program
+	 * and cube.
+	 * 
+	 * @param name
+	 * 			
+	 * @param priority
+	 * 
+	 * @param statement
+	 * 
+	 * @param program
+	 * 			The program compiled from the given statement, which may be
+	 * 			shared with the other tasks created from that statement.
+	 * 
+	 * @param cube
+	 * 
+	 * @pre		The given program is compiled from the given statement.
+	 * 
 	 * @post	The new tasks name is equal to the given name.
 	 * 			| new.getName() == name
 	 * 
@@ -106,36 +143,28 @@ public class Task {
 	 * @effect	The new tasks statement is set to the given statement.
 	 * 			| setActions(statement)
 	 * 
-	 * @post	The new tasks executingActivity is set to its statement.
-	 * 			| new.getExecutingActivity() = getActivity()
-	 * 
-	 * @effect	The task of the new tasks statements is set to this task.
-	 * 			| getActions().setTask(this)
+	 * @post	The new tasks program is the given program, and has not started 
+	 * 			running yet. None of its variables is assigned.
+	 * 			| new.getProgram() == program
 	 * 
 	 * @throws	IllegalNameException
 	 * 			The given name is not a valid name.
 	 * 			| !isValidName(name)
 	 * 
+	 * @throws	IllegalArgumentException
+	 * 			The given program is not effective.
+	 * 			| program == null
 	 */
-	public Task(String name, int priority, Statement statement, int[] cube ) throws IllegalNameException {
-		if (!isValidName(name)) {
-			throw new IllegalNameException(name);
-		}
-		this.name = name;
-		
-		setPriority(priority);
+	public Task(String name, int priority, Statement statement, Program program, int[] cube) 
+			throws IllegalNameException, IllegalArgumentException {
+		this(name, priority, statement, program);
 		setCube(new Coordinate(cube[0], cube[1], cube[2]));
-		setActions(statement);
-		
-		setExecutingActivity(getActions());
-		
-		getActions().setTask(this);
 	}
 	
 	
 	
 	/**
-	 * Initialize this task with the given name, priority, statement and cube.
+	 * Initialize this task with the given name, priority and statement.
 	 * 
 	 * @param name
 	 * 			
@@ -143,7 +172,30 @@ public class Task {
 	 * 
 	 * @param statement
 	 * 
-	 * @param cube
+	 * @effect	The new task is initialized with the given name, priority and
+	 * 			statement, and the program compiled from the statement.
+	 * 			| this(name, priority, statement, Program.compile(statement))
+	 */
+	public Task(String name, int priority, Statement statement ){
+		this(name, priority, statement, compile(statement));
+	}
+	
+	
+	/**
+	 * Initialize this task with the given name, priority, statement and
+	 * program.
+	 * 
+	 * @param name
+	 * 			
+	 * @param priority
+	 * 
+	 * @param statement
+	 * 
+	 * @param program
+	 * 			The program compiled from the given statement, which may be
+	 * 			shared with the other tasks created from that statement.
+	 * 
+	 * @pre		The given program is compiled from the given statement.
 	 * 
 	 * @post	The new tasks name is equal to the given name.
 	 * 			| new.getName() == name
@@ -157,18 +209,20 @@ public class Task {
 	 * @effect	The new tasks statement is set to the given statement.
 	 * 			| setActions(statement)
 	 * 
-	 * @post	The new tasks executingActivity is set to its statement.
-	 * 			| new.getExecutingActivity() = getActivity()
-	 * 
-	 * @effect	The task of the new tasks statements is set to this task.
-	 * 			| getActions().setTask(this)
+	 * @post	The new tasks program is the given program, and has not started 
+	 * 			running yet. None of its variables is assigned.
+	 * 			| new.getProgram() == program
 	 * 
 	 * @throws	IllegalNameException
 	 * 			The given name is not a valid name.
 	 * 			| !isValidName(name)
 	 * 
+	 * @throws	IllegalArgumentException
+	 * 			The given program is not effective.
+	 * 			| program == null
 	 */
-	public Task(String name, int priority, Statement statement ){
+	public Task(String name, int priority, Statement statement, Program program) 
+			throws IllegalNameException, IllegalArgumentException {
 		if (!isValidName(name)) {
 			throw new IllegalNameException(name);
 		}
@@ -176,10 +230,22 @@ public class Task {
 		
 		setPriority(priority);
 		setActions(statement);
+		if (program == null)
+			throw new IllegalArgumentException();
 		
-		setExecutingActivity(getActions());
-
-		getActions().setTask(this);
+		this.program = program;
+		this.execution = new Execution(this.program);
+		this.variables = new Object[this.program.getNbVariables()];
+	}
+	
+	
+	/**
+	 * Return the program compiled from the given statement, or null if the
+	 * statement is not valid, so that the constructors report an invalid 
+	 * name or statement before a missing program.
+	 */
+	private static Program compile(Statement statement) {
+		return isValidActions(statement) ? Program.compile(statement) : null;
 	}
 	
 	
@@ -188,26 +254,20 @@ public class Task {
 	 * 
 	 * @param 	dt
 	 * 			The time interval in which to execute this task. For each 0.001 second,
-	 * 			1 substatement of the tasks statement may be executed.
+	 * 			1 substatement of the tasks statement may be executed. After a
+	 * 			statement that gives the assigned nit an activity, the task waits
+	 * 			until it is executed again.
 	 * 
+	 * @effect	If the program of this task runs to its end, this task is
+	 * 			completed, and it is terminated.
 	 * 
 	 */
 	public void execute(double dt) {
-	    while (!isCompleted() && dt > 0 ) {
-	    	
-	    	this.executingActivity.execute();
-	    	
-	    	if (this.executingActivity.isCompleted()) {
-	    		break;
-	    		
-	    	} else {
-	    		this.executingActivity = this.executingActivity.getNextStatement();
-	    		
-	    		dt -= 0.001d;
-	    		if (this.executingActivity == null)
-	    			setCompleted();
-			}
-	    }
+		if (!isCompleted()) {
+			this.execution.run(this, dt);
+			if (this.execution.isFinished())
+				setCompleted();
+		}
 	    if ( isCompleted()) {
     		setBeingExecuted(false);
 			setAssignedNit(null);
@@ -216,21 +276,25 @@ public class Task {
 	}
 	
 	
+	/**
+	 * Interrupt the execution of this task. The next nit that executes it
+	 * starts over from its first statement.
+	 */
 	public void interrupt() {
 		setBeingExecuted(false);
 		setAssignedNit(null);
-		// TODO start over
-		getActions().setNextStatement(null);
+		this.execution.reset();
+		Arrays.fill(this.variables, null);
 		setPriority(getPriority() - 1);
 	}
 	
 	
-	public Statement getExecutingActivity() {
-		return this.executingActivity;
-	}
-
-	public void setExecutingActivity(Statement executingActivity) {
-		this.executingActivity = executingActivity;
+	/**
+	 * Return the program compiled from the statements of this task.
+	 */
+	@Basic @Immutable
+	public Program getProgram() {
+		return this.program;
 	}
 
 	@Basic
@@ -241,25 +305,45 @@ public class Task {
 
 	public void setCompleted() {
 		this.isCompleted = true;
+		notifySchedulers();
 	}
 	
 	
-	public Map<String, Object> getVariables() {
-		return new HashMap<String, Object>(this.variables);
+	/**
+	 * Return the value of the variable in the given slot of this task, or
+	 * null if it has not been assigned yet.
+	 * 
+	 * @throws	IllegalArgumentException
+	 * 			| !isValidVariableSlot(slot)
+	 */
+	public Object getVariable(int slot) throws IllegalArgumentException {
+		if (!isValidVariableSlot(slot))
+			throw new IllegalArgumentException();
+		return this.variables[slot];
 	}
 	
 	
-	public Object getVariableFromName(String name) {
-		if (this.variables.containsKey(name)) {
-			return this.variables.get(name);
-		}
-		return null;
+	/**
+	 * Assign the given value to the variable in the given slot of this task.
+	 * 
+	 * @post	| new.getVariable(slot) == value
+	 * @throws	IllegalArgumentException
+	 * 			| !isValidVariableSlot(slot)
+	 */
+	public void setVariable(int slot, Object value) throws IllegalArgumentException {
+		if (!isValidVariableSlot(slot))
+			throw new IllegalArgumentException();
+		this.variables[slot] = value;
 	}
 	
 	
-	public void addVariableName(String name, Object object) {
-		// TODO valid name, object?
-		this.variables.put(name, object);
+	/**
+	 * Check whether the given slot is the slot of a variable of this task.
+	 * 
+	 * @return	| result == (slot >= 0 && slot < getProgram().getNbVariables())
+	 */
+	public boolean isValidVariableSlot(int slot) {
+		return (slot >= 0 && slot < this.variables.length);
 	}
 	
 	
@@ -496,7 +580,7 @@ public class Task {
 		if (!isValidPriority(priority))
 			throw new IllegalArgumentException();
 		this.priority = priority;
-		
+		notifySchedulers();
 	}
 
 
@@ -509,6 +593,17 @@ public class Task {
 	@Raw
 	public void setBeingExecuted(boolean value) {
 		this.beingExecuted = value;
+		notifySchedulers();
+	}
+	
+	
+	/**
+	 * Let each scheduler of this task reorder it after its priority or state
+	 * has changed.
+	 */
+	private void notifySchedulers() {
+		for (Scheduler scheduler: this.schedulersForTask)
+			scheduler.updateTask(this);
 	}
 	
 	
@@ -526,7 +621,7 @@ public class Task {
 	public void terminate() {
 		if (getAssignedNit() == null && !beingExecuted() && isCompleted()) {
 			for (Scheduler scheduler: getSchedulersForTask()) {
-				if (scheduler.getAllTasks().contains(this)) {
+				if (scheduler.hasAsTask(this)) {
 					scheduler.removeTask(this);
 				}
 				removeScheduler(scheduler);
@@ -1,12 +1,15 @@
 package hillbillies.model;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 //import java.util.*;
 //import java.*;
 //import java.beans.Expression;
 //import java.beans.Statement;
 
+import hillbillies.model.program.Program;
 import hillbillies.part3.programs.ITaskFactory;
 import hillbillies.part3.programs.SourceLocation;
 import hillbillies.model.statement.*;
@@ -19,31 +22,52 @@ public class TaskFactory implements ITaskFactory<Expression<?>, Statement, Task>
 		
 	}
 	
+	
+	/**
+	 * The slot of each variable of the task being parsed. A variable gets
+	 * the next free slot where its name first occurs, and each task starts
+	 * again from slot 0.
+	 */
+	private final Map<String, Integer> variableSlots = new HashMap<String, Integer>();
+	
+	
+	private int getVariableSlot(String variableName) {
+		Integer slot = this.variableSlots.get(variableName);
+		if (slot == null) {
+			slot = this.variableSlots.size();
+			this.variableSlots.put(variableName, slot);
+		}
+		return slot;
+	}
+	
 	@Override
 	public List<Task> createTasks(String name, int priority, Statement activity, List<int[]> selectedCubes) {
-		List<Task> listOfTasks = new ArrayList<Task>();
-		//System.out.println("create task in TF");
-		if (selectedCubes != null && selectedCubes.size() > 0) {
-			for (int[] selectedCube : selectedCubes) {
-				Task task = new Task(name, priority, activity, selectedCube);
+		try {
+			List<Task> listOfTasks = new ArrayList<Task>();
+			//System.out.println("create task in TF");
+			Program program = Program.compile(activity);
+			if (selectedCubes != null && selectedCubes.size() > 0) {
+				for (int[] selectedCube : selectedCubes) {
+					Task task = new Task(name, priority, activity, program, selectedCube);
+					listOfTasks.add(task);
+					System.out.println(task.toString());
+				} 
+			} else {
+				Task task = new Task(name, priority, activity, program);
 				listOfTasks.add(task);
-				task.getActions().setTask(task);
 				System.out.println(task.toString());
-			} 
-		} else {
-			Task task = new Task(name, priority, activity);
-			listOfTasks.add(task);
-			task.getActions().setTask(task);
-			System.out.println(task.toString());
+			}
+			return listOfTasks;
+		} finally {
+			// The next task starts again from slot 0, also if this one fails.
+			this.variableSlots.clear();
 		}
-		
-		return listOfTasks;
 	}
 	
 
 	@Override
 	public Statement createAssignment(String variableName, Expression<?> value, SourceLocation sourceLocation) {
-		return new Assignment(variableName, value);
+		return new Assignment(getVariableSlot(variableName), value);
 	}
 
 	@Override
@@ -58,8 +82,7 @@ public class TaskFactory implements ITaskFactory<Expression<?>, Statement, Task>
 
 	@Override
 	public Statement createBreak(SourceLocation sourceLocation) {
-		// TODO Auto-generated method stub
-		return null;
+		return new Break();
 	}
 
 	@Override
@@ -96,7 +119,7 @@ public class TaskFactory implements ITaskFactory<Expression<?>, Statement, Task>
 
 	@Override
 	public Expression<?> createReadVariable(String variableName, SourceLocation sourceLocation) {
-		return new ReadVariable(variableName);
+		return new ReadVariable(getVariableSlot(variableName));
 	}
 
 	@Override
@@ -0,0 +1,237 @@
+package hillbillies.model;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import be.kuleuven.cs.som.annotate.*;
+
+/**
+ * A class of binary max-heaps of tasks, keyed by their priority, used by a
+ * scheduler to find its available task with the highest priority.
+ *
+ * Tasks with equal priority are ordered by the time they were added to the
+ * heap, earliest first. The heap maps each of its tasks to its index in it,
+ * so that a task can be removed, and moved after its priority has changed,
+ * in logarithmic time. Since a task can be part of several schedulers, the
+ * index is kept by the heap rather than by the task.
+ *
+ * @author Ruben Cartuyvels
+ * @version 1.0
+ */
+class TaskHeap {
+
+	/**
+	 * Initialize this new task heap without any tasks.
+	 *
+	 * @post	| new.size() == 0
+	 */
+	TaskHeap() {
+	}
+
+
+	/**
+	 * Return the number of tasks in this heap.
+	 */
+	@Basic
+	int size() {
+		return this.size;
+	}
+
+	/**
+	 * Return the task at the given index in this heap. The task at index 0
+	 * has the highest priority.
+	 */
+	@Basic
+	Task get(int index) {
+		if (index < 0 || index >= size())
+			throw new IndexOutOfBoundsException();
+		return this.tasks[index];
+	}
+
+	/**
+	 * Return the task in this heap with the highest priority, or null if this
+	 * heap is empty.
+	 */
+	Task peek() {
+		return (size() == 0) ? null : this.tasks[0];
+	}
+
+	/**
+	 * Return the task in this heap with the highest priority other than the
+	 * given task, or null if there is none.
+	 *
+	 * Only the root of the heap and its children need to be inspected, so
+	 * this takes constant time.
+	 */
+	Task peekExcept(Task excluded) {
+		if (size() == 0)
+			return null;
+		if (this.tasks[0] != excluded)
+			return this.tasks[0];
+		int best = 1;
+		if (best >= size())
+			return null;
+		if (best + 1 < size() && precedes(best + 1, best))
+			best++;
+		return this.tasks[best];
+	}
+
+	/**
+	 * Check whether this heap contains the given task.
+	 */
+	boolean contains(Task task) {
+		return this.index.containsKey(task);
+	}
+
+
+	/**
+	 * Add the given task to this heap, after all tasks with the same
+	 * priority.
+	 *
+	 * @throws	IllegalArgumentException
+	 * 			| task == null || contains(task)
+	 */
+	void add(Task task) throws IllegalArgumentException {
+		if (task == null || contains(task))
+			throw new IllegalArgumentException();
+		if (this.size == this.tasks.length) {
+			this.tasks = Arrays.copyOf(this.tasks, 2 * this.size);
+			this.order = Arrays.copyOf(this.order, 2 * this.size);
+		}
+		int slot = this.size++;
+		place(task, this.nextOrder++, slot);
+		siftUp(slot);
+	}
+
+	/**
+	 * Add the given tasks to this heap, in the order in which they are given,
+	 * after all tasks with the same priority.
+	 *
+	 * When the given tasks outnumber the tasks already in this heap, the heap
+	 * is rebuilt bottom-up in linear time instead of adding them one by one.
+	 *
+	 * @throws	IllegalArgumentException
+	 * 			One of the given tasks is not effective, is already in this heap,
+	 * 			or is given twice. No task is added.
+	 */
+	void addAll(Collection<Task> tasks) throws IllegalArgumentException {
+		Set<Task> added = new HashSet<Task>();
+		for (Task task: tasks)
+			if (task == null || contains(task) || !added.add(task))
+				throw new IllegalArgumentException();
+		if (tasks.size() <= size()) {
+			for (Task task: tasks)
+				add(task);
+			return;
+		}
+		int capacity = this.tasks.length;
+		while (capacity < this.size + tasks.size())
+			capacity *= 2;
+		this.tasks = Arrays.copyOf(this.tasks, capacity);
+		this.order = Arrays.copyOf(this.order, capacity);
+		for (Task task: tasks)
+			place(task, this.nextOrder++, this.size++);
+		for (int slot = (this.size >>> 1) - 1; slot >= 0; slot--)
+			siftDown(slot);
+	}
+
+	/**
+	 * Remove the given task from this heap, if it contains it.
+	 */
+	void remove(Task task) {
+		Integer slot = this.index.remove(task);
+		if (slot == null)
+			return;
+		int last = --this.size;
+		if (slot != last) {
+			place(this.tasks[last], this.order[last], slot);
+			siftDown(siftUp(slot));
+		}
+		this.tasks[last] = null;
+	}
+
+	/**
+	 * Restore the order of this heap after the priority of the given task has
+	 * changed.
+	 */
+	void update(Task task) {
+		Integer slot = this.index.get(task);
+		if (slot != null)
+			siftDown(siftUp(slot));
+	}
+
+
+	/**
+	 * Check whether the task at the first given slot goes before the task at
+	 * the second given slot.
+	 */
+	private boolean precedes(int first, int second) {
+		int priority = this.tasks[first].getPriority();
+		int otherPriority = this.tasks[second].getPriority();
+		if (priority != otherPriority)
+			return priority > otherPriority;
+		return this.order[first] < this.order[second];
+	}
+
+	private int siftUp(int slot) {
+		while (slot > 0) {
+			int parent = (slot - 1) >>> 1;
+			if (!precedes(slot, parent))
+				break;
+			swap(slot, parent);
+			slot = parent;
+		}
+		return slot;
+	}
+
+	private int siftDown(int slot) {
+		int half = this.size >>> 1;
+		while (slot < half) {
+			int child = 2 * slot + 1;
+			if (child + 1 < this.size && precedes(child + 1, child))
+				child++;
+			if (!precedes(child, slot))
+				break;
+			swap(slot, child);
+			slot = child;
+		}
+		return slot;
+	}
+
+	private void swap(int first, int second) {
+		Task task = this.tasks[first];
+		long order = this.order[first];
+		place(this.tasks[second], this.order[second], first);
+		place(task, order, second);
+	}
+
+	private void place(Task task, long order, int slot) {
+		this.tasks[slot] = task;
+		this.order[slot] = order;
+		this.index.put(task, slot);
+	}
+
+
+	/**
+	 * The tasks of this heap, in heap order in the first size slots, and the
+	 * order in which each of them was added.
+	 */
+	private Task[] tasks = new Task[INITIAL_CAPACITY];
+	private long[] order = new long[INITIAL_CAPACITY];
+
+	private int size = 0;
+
+	private long nextOrder = 0;
+
+	/**
+	 * The slot of each task of this heap.
+	 */
+	private final Map<Task, Integer> index = new HashMap<Task, Integer>();
+
+	private static final int INITIAL_CAPACITY = 16;
+
+}
@@ -0,0 +1,200 @@
+package hillbillies.model;
+
+import be.kuleuven.cs.som.annotate.*;
+
+/**
+ * A class of terrain maps, storing the terrain type number of each cube of
+ * a box-shaped world in a single flat array of bytes.
+ *
+ * The cube with coordinates (x, y, z) is stored at index x + y*nbX + z*nbX*nbY,
+ * the layout also used by ConnectedToBorder and by the ByteMap3D of the view,
+ * so that whole rows along the x-axis and whole horizontal slices are
+ * contiguous and can be copied at once.
+ *
+ * @invar	Each terrain map has at least one cube along each axis.
+ * 			| getNbX() > 0 && getNbY() > 0 && getNbZ() > 0
+ *
+ * @author Ruben Cartuyvels
+ * @version 1.0
+ */
+public class TerrainMap {
+
+	/**
+	 * Initialize this new terrain map with the given number of cubes along
+	 * each axis, all of terrain type number 0.
+	 *
+	 * @throws	IllegalArgumentException
+	 * 			One of the given numbers of cubes is not positive.
+	 * 			| nbX <= 0 || nbY <= 0 || nbZ <= 0
+	 */
+	public TerrainMap(int nbX, int nbY, int nbZ) throws IllegalArgumentException {
+		if (nbX <= 0 || nbY <= 0 || nbZ <= 0)
+			throw new IllegalArgumentException();
+		this.nbX = nbX;
+		this.nbY = nbY;
+		this.nbZ = nbZ;
+		this.values = new byte[nbX * nbY * nbZ];
+	}
+
+	/**
+	 * Initialize this new terrain map with the terrain type numbers of the
+	 * given box-shaped array, indexed as terrainTypes[x][y][z].
+	 *
+	 * @post	| for each x, y, z:
+	 * 			|	new.get(x, y, z) == terrainTypes[x][y][z]
+	 */
+	public TerrainMap(int[][][] terrainTypes) throws IllegalArgumentException {
+		this(terrainTypes.length, terrainTypes[0].length, terrainTypes[0][0].length);
+		for (int x = 0; x < nbX; x++)
+			for (int y = 0; y < nbY; y++)
+				for (int z = 0; z < nbZ; z++)
+					this.values[indexOf(x, y, z)] = (byte) terrainTypes[x][y][z];
+	}
+
+	/**
+	 * Initialize this new terrain map as a copy of the given terrain map.
+	 *
+	 * @post	| for each x, y, z:
+	 * 			|	new.get(x, y, z) == other.get(x, y, z)
+	 */
+	public TerrainMap(TerrainMap other) {
+		this.nbX = other.nbX;
+		this.nbY = other.nbY;
+		this.nbZ = other.nbZ;
+		this.values = other.values.clone();
+	}
+
+
+	@Basic @Immutable
+	public int getNbX() {
+		return this.nbX;
+	}
+
+	@Basic @Immutable
+	public int getNbY() {
+		return this.nbY;
+	}
+
+	@Basic @Immutable
+	public int getNbZ() {
+		return this.nbZ;
+	}
+
+	/**
+	 * Return the number of cubes of this terrain map.
+	 */
+	public int getNbCubes() {
+		return this.values.length;
+	}
+
+	private final int nbX;
+	private final int nbY;
+	private final int nbZ;
+
+
+	/**
+	 * Return the flat index of the cube with the given coordinates.
+	 */
+	public int indexOf(int x, int y, int z) {
+		return x + y * nbX + z * nbX * nbY;
+	}
+
+	/**
+	 * Check whether the given coordinates lie inside this terrain map.
+	 */
+	public boolean isValidIndex(int x, int y, int z) {
+		return 0 <= x && x < nbX && 0 <= y && y < nbY && 0 <= z && z < nbZ;
+	}
+
+
+	/**
+	 * Return the terrain type number of the cube with the given coordinates.
+	 */
+	public byte get(int x, int y, int z) {
+		return this.values[indexOf(x, y, z)];
+	}
+
+	/**
+	 * Return the terrain type number of the cube with the given flat index.
+	 */
+	public byte get(int index) {
+		return this.values[index];
+	}
+
+	/**
+	 * Set the terrain type number of the cube with the given coordinates.
+	 *
+	 * @post	| new.get(x, y, z) == value
+	 */
+	public void set(int x, int y, int z, byte value) {
+		this.values[indexOf(x, y, z)] = value;
+	}
+
+
+	/**
+	 * Copy the terrain type numbers of the row of cubes along the x-axis with
+	 * the given y and z coordinates into the given array, from the given offset on.
+	 *
+	 * @post	| for each x in 0..getNbX()-1:
+	 * 			|	destination[offset + x] == get(x, y, z)
+	 */
+	public void getRow(int y, int z, byte[] destination, int offset) {
+		System.arraycopy(this.values, indexOf(0, y, z), destination, offset, nbX);
+	}
+
+	/**
+	 * Set the terrain type numbers of the row of cubes along the x-axis with
+	 * the given y and z coordinates to those in the given array, from the
+	 * given offset on.
+	 *
+	 * @post	| for each x in 0..getNbX()-1:
+	 * 			|	new.get(x, y, z) == source[offset + x]
+	 */
+	public void setRow(int y, int z, byte[] source, int offset) {
+		System.arraycopy(source, offset, this.values, indexOf(0, y, z), nbX);
+	}
+
+	/**
+	 * Copy the terrain type numbers of the horizontal slice of cubes with the
+	 * given z coordinate into the given array, from the given offset on, row
+	 * after row.
+	 *
+	 * @post	| for each x in 0..getNbX()-1, y in 0..getNbY()-1:
+	 * 			|	destination[offset + x + y*getNbX()] == get(x, y, z)
+	 */
+	public void getSlice(int z, byte[] destination, int offset) {
+		System.arraycopy(this.values, indexOf(0, 0, z), destination, offset, nbX * nbY);
+	}
+
+	/**
+	 * Set the terrain type numbers of the horizontal slice of cubes with the
+	 * given z coordinate to those in the given array, from the given offset on.
+	 *
+	 * @post	| for each x in 0..getNbX()-1, y in 0..getNbY()-1:
+	 * 			|	new.get(x, y, z) == source[offset + x + y*getNbX()]
+	 */
+	public void setSlice(int z, byte[] source, int offset) {
+		System.arraycopy(source, offset, this.values, indexOf(0, 0, z), nbX * nbY);
+	}
+
+
+	/**
+	 * Return a new array with the terrain type numbers of this map, indexed
+	 * as result[x][y][z].
+	 */
+	public int[][][] toArray() {
+		int[][][] result = new int[nbX][nbY][nbZ];
+		for (int x = 0; x < nbX; x++)
+			for (int y = 0; y < nbY; y++)
+				for (int z = 0; z < nbZ; z++)
+					result[x][y][z] = this.values[indexOf(x, y, z)];
+		return result;
+	}
+
+
+	/**
+	 * The terrain type number of each cube, by flat index.
+	 */
+	private final byte[] values;
+
+}
@@ -0,0 +1,33 @@
+package hillbillies.model;
+
+import be.kuleuven.cs.som.annotate.Value;
+
+/**
+ * An enumeration of the ways in which a world runs the activities of its
+ * nits in a time step.
+ *
+ * In both modes, the nits are split in partitions that do not share tasks,
+ * one per faction unless factions share tasks. While the nits carry out
+ * their activities, each of them observes the other nits as they were at
+ * the start of the phase, and the changes it makes to other nits, items and
+ * the terrain are buffered, and applied in the order of the nits at the end
+ * of the phase. Both modes therefore lead to the same world for the same seed.
+ *
+ * @author Ruben Cartuyvels
+ * @version 1.0
+ */
+@Value
+public enum TickMode {
+
+	/**
+	 * The partitions of the nits run one after the other, on the thread
+	 * advancing the time of the world.
+	 */
+	SEQUENTIAL,
+
+	/**
+	 * The partitions of the nits run in parallel, on the common fork/join pool.
+	 */
+	PARALLEL;
+
+}
@@ -0,0 +1,29 @@
+package hillbillies.model;
+
+import be.kuleuven.cs.som.annotate.Value;
+
+/**
+ * An enumeration of the phases of a time step of a world in which game objects
+ * advance time, in the order in which they are run.
+ *
+ * A world first lets its scheduled cave-ins happen, and then runs these phases
+ * one after the other, each over all game objects registered for it.
+ *
+ * @author Ruben Cartuyvels
+ * @version 1.0
+ */
+@Value
+public enum TickPhase {
+
+	/**
+	 * The phase in which nits decide on, and carry out, their activities:
+	 * moving, working, resting, attacking and executing tasks.
+	 */
+	NIT_ACTIVITIES,
+
+	/**
+	 * The phase in which items that are not supported fall.
+	 */
+	ITEM_PHYSICS;
+
+}
@@ -0,0 +1,236 @@
+package hillbillies.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import be.kuleuven.cs.som.annotate.*;
+
+/**
+ * A class of tick schedulers, advancing the time of the game objects of a
+ * world phase by phase.
+ *
+ * Each phase keeps its game objects in a slot array. The scheduler gives each
+ * game object it handles an id, and keeps the slot of each object in an array
+ * by that id, so that it can be removed in constant time by moving the last
+ * object of its phase into that slot. Ids of unregistered objects are given
+ * out again once they are flushed.
+ *
+ * Registering and unregistering game objects is deferred: the changes are
+ * buffered, and only applied when the scheduler is flushed at the start of
+ * the next time step. Game objects may therefore be added to and removed from
+ * the world while a phase is running, and the order in which the objects of a
+ * phase advance time only depends on the order of the earlier changes.
+ *
+ * @author Ruben Cartuyvels
+ * @version 1.0
+ */
+public class TickScheduler {
+
+	/**
+	 * Initialize this new tick scheduler without any game objects.
+	 *
+	 * @post	| for each phase in TickPhase.values():
+	 * 			|	new.getNbObjects(phase) == 0
+	 */
+	public TickScheduler() {
+		int nbPhases = TickPhase.values().length;
+		this.objects = new GameObject[nbPhases][INITIAL_CAPACITY];
+		this.nbObjects = new int[nbPhases];
+	}
+
+
+	/**
+	 * Return the number of game objects registered for the given phase, not
+	 * counting the changes that have not been flushed yet.
+	 */
+	@Basic
+	public int getNbObjects(TickPhase phase) {
+		return this.nbObjects[phase.ordinal()];
+	}
+
+
+	/**
+	 * Return the game object in the given slot of the given phase.
+	 *
+	 * @throws	IndexOutOfBoundsException
+	 * 			| slot < 0 || slot >= getNbObjects(phase)
+	 */
+	@Basic
+	public GameObject getObjectAt(TickPhase phase, int slot) throws IndexOutOfBoundsException {
+		if (slot < 0 || slot >= getNbObjects(phase))
+			throw new IndexOutOfBoundsException();
+		return this.objects[phase.ordinal()][slot];
+	}
+
+	/**
+	 * Return the slot of the given game object in its phase, or -1 if it is
+	 * not registered with this scheduler as of the last flush.
+	 */
+	int getSlotOf(GameObject gameObject) {
+		if (gameObject.getTickScheduler() != this)
+			return -1;
+		return this.slots[gameObject.getTickId()];
+	}
+
+
+	/**
+	 * Register the given game object for its phase, from the next flush on.
+	 *
+	 * @effect	| defer(gameObject, true)
+	 */
+	public void register(GameObject gameObject) {
+		defer(gameObject, true);
+	}
+
+	/**
+	 * Unregister the given game object from its phase, from the next flush on.
+	 *
+	 * @effect	| defer(gameObject, false)
+	 */
+	public void unregister(GameObject gameObject) {
+		defer(gameObject, false);
+	}
+
+	/**
+	 * Buffer the given change of the registration of the given game object.
+	 * Only the last change before a flush counts, and each game object is
+	 * buffered at most once.
+	 *
+	 * @throws	IllegalArgumentException
+	 * 			The given game object is handled by another tick scheduler.
+	 * 			| gameObject.getTickScheduler() != null &&
+	 * 			|	gameObject.getTickScheduler() != this
+	 */
+	private void defer(GameObject gameObject, boolean registered) throws IllegalArgumentException {
+		if (gameObject.getTickScheduler() == null) {
+			if (!registered)
+				return;
+			gameObject.setTickScheduler(this, newId());
+		}
+		else if (gameObject.getTickScheduler() != this)
+			throw new IllegalArgumentException();
+		int id = gameObject.getTickId();
+		this.isRegistered[id] = registered;
+		if (!this.isPending[id]) {
+			this.isPending[id] = true;
+			this.pending.add(gameObject);
+		}
+	}
+
+	/**
+	 * The game objects whose registration has changed since the last flush.
+	 */
+	private final List<GameObject> pending = new ArrayList<GameObject>();
+
+
+	/**
+	 * Apply all changes to the registration of game objects buffered since
+	 * the last flush.
+	 */
+	public void flush() {
+		for (GameObject gameObject: this.pending) {
+			int id = gameObject.getTickId();
+			this.isPending[id] = false;
+			if (this.isRegistered[id] && this.slots[id] < 0)
+				insert(gameObject, id);
+			else if (!this.isRegistered[id] && this.slots[id] >= 0)
+				delete(gameObject, id);
+			if (!this.isRegistered[id]) {
+				gameObject.setTickScheduler(null, -1);
+				this.freeIds[this.nbFreeIds++] = id;
+			}
+		}
+		this.pending.clear();
+	}
+
+	private void insert(GameObject gameObject, int id) {
+		int phase = gameObject.getTickPhase().ordinal();
+		int size = this.nbObjects[phase];
+		if (size == this.objects[phase].length)
+			this.objects[phase] = Arrays.copyOf(this.objects[phase], size * 2);
+		this.objects[phase][size] = gameObject;
+		this.slots[id] = size;
+		this.nbObjects[phase] = size + 1;
+	}
+
+	private void delete(GameObject gameObject, int id) {
+		int phase = gameObject.getTickPhase().ordinal();
+		int last = --this.nbObjects[phase];
+		GameObject moved = this.objects[phase][last];
+		this.objects[phase][this.slots[id]] = moved;
+		this.slots[moved.getTickId()] = this.slots[id];
+		this.objects[phase][last] = null;
+		this.slots[id] = -1;
+	}
+
+
+	/**
+	 * Return an id for a game object newly handled by this scheduler, reusing
+	 * the id of an unregistered object if there is one.
+	 */
+	private int newId() {
+		if (this.nbFreeIds > 0)
+			return this.freeIds[--this.nbFreeIds];
+		if (this.nbIds == this.slots.length) {
+			int capacity = this.nbIds * 2;
+			this.isRegistered = Arrays.copyOf(this.isRegistered, capacity);
+			this.isPending = Arrays.copyOf(this.isPending, capacity);
+			this.slots = Arrays.copyOf(this.slots, capacity);
+			Arrays.fill(this.slots, this.nbIds, capacity, -1);
+			this.freeIds = Arrays.copyOf(this.freeIds, capacity);
+		}
+		return this.nbIds++;
+	}
+
+
+	/**
+	 * Advance the time of every game object registered for the given phase by
+	 * the given amount, in the order of their slots.
+	 */
+	public void advanceTime(TickPhase phase, double dt) {
+		GameObject[] objects = this.objects[phase.ordinal()];
+		int size = this.nbObjects[phase.ordinal()];
+		for (int slot = 0; slot < size; slot++)
+			objects[slot].advanceTime(dt);
+	}
+
+
+	/**
+	 * The game objects registered for each phase, by the ordinal of the phase,
+	 * in the first slots of the array of that phase.
+	 */
+	private final GameObject[][] objects;
+
+	private final int[] nbObjects;
+
+	/**
+	 * For each id given out, whether its game object is to be registered,
+	 * whether that has changed since the last flush, and its slot in its
+	 * phase, or -1 if it is not registered.
+	 */
+	private boolean[] isRegistered = new boolean[INITIAL_CAPACITY];
+
+	private boolean[] isPending = new boolean[INITIAL_CAPACITY];
+
+	private int[] slots = newSlots(INITIAL_CAPACITY);
+
+	private static int[] newSlots(int capacity) {
+		int[] slots = new int[capacity];
+		Arrays.fill(slots, -1);
+		return slots;
+	}
+
+	private int nbIds = 0;
+
+	/**
+	 * The ids of unregistered game objects, to be given out again, in the
+	 * first slots of this array.
+	 */
+	private int[] freeIds = new int[INITIAL_CAPACITY];
+
+	private int nbFreeIds = 0;
+
+	private static final int INITIAL_CAPACITY = 16;
+
+}
@@ -209,6 +209,11 @@ public class Unit extends Nit {
 	 * @param 	dt
 	 * 			The amount by which the game time has to be advanced
 	 * 
+	 * @effect	If the unit has no hitpoints left, it is terminated, at the end
+	 * 			of the time step if its world defers changes, and nothing else happens.
+	 * 			| if (getCurrentHitPoints() <= 0)
+	 * 			|	then getWorld().defer(this, () -> terminate())
+	 * 
 	 * @throws IllegalArgumentException
 	 * 			The value for dt is not valid.
 	 * 			| ! isValidDT(dt)
@@ -220,7 +225,8 @@ public class Unit extends Nit {
 			throw new IllegalArgumentException();
 		}
 		if (getCurrentHitPoints() <= 0) {
-			terminate();
+			getWorld().defer(this, this::terminate);
+			return;
 		}
 		
 		if (!isNeighbouringSolid(getCoordinate()) && !isFalling())
@@ -363,54 +369,21 @@ public class Unit extends Nit {
 	 */
 	@Override
 	protected Coordinate getRandomReachableCube() {
-		Coordinate cube;
-		do {
-			cube = getWorld().getNearRandomNeighbouringSolidCube(getCoordinate());
-		} while (!isReachable(cube));
-		return cube;
+		return getWorld().getNearRandomReachableCube(getCoordinate(), getMovementRule(),
+				cube -> getWorld().isAboveSolid(cube), getRandom());
 	}
 	
 	
 	/**
-	 * Adds neighbours of a given cube in the given queue to the queue, with an
-	 * incremented weight, if they feature a passable terraintype, if they 
-	 * neighbour a solid cube, and if the queue not already contains that 
-	 * neighbour with a smaller weight.
-	 * 
-	 * @param 	currentTuple
-	 * 			the tuple consisting of the cube to add the neighbours of, and its
-	 * 			weight.
-	 * 
-	 * @param 	path
-	 * 			the path queue to add the right neighbours to.
-	 * 
-	 * @return	the path is returned after the neighbours are added.
+	 * Return the rule deciding which cubes this unit can move through.
 	 * 
+	 * @return	Units can only move through passable cubes that neighbour
+	 * 			a solid cube.
+	 * 			| result == MovementRule.GROUNDED
 	 */
-	@Override
-	protected List<Tuple> search(Tuple currentTuple, List<Tuple> path) {
-		
-		List<Coordinate> neighbours = new LinkedList<Coordinate>();
-		
-		for (Coordinate neighbour: getWorld().getNeighbours(currentTuple.cube)) {
-			
-			if (getWorld().getCubeTypeAt(neighbour).isPassable()
-					
-					&& isNeighbouringSolid(neighbour)
-										
-					&& ! (Tuple.containsCube(path, neighbour)
-					
-					&& Tuple.getCubeTuple(path, neighbour).n <= currentTuple.n )
-					) {
-				neighbours.add(neighbour);
-			}
-		}
-		
-		for (Coordinate neighbour: neighbours) {
-			path.add(new Tuple(neighbour, currentTuple.n + 1));
-		}
-		
-		return path;
+	@Override @Immutable
+	protected MovementRule getMovementRule() {
+		return MovementRule.GROUNDED;
 	}
 	
 	
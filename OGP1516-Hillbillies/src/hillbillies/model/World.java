@@ -1,14 +1,20 @@
 package hillbillies.model;
 
+import hillbillies.part2.listener.DirtyRegion;
 import hillbillies.part2.listener.TerrainChangeListener;
-import hillbillies.util.ConnectedToBorder;
 
 import be.kuleuven.cs.som.annotate.*;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.IntConsumer;
+import java.util.function.Predicate;
 
 
 /**
- * A class of worlds containing up to 100 nits and 5 factions, and a number of items.
+ * A class of worlds containing a number of nits divided over a number of 
+ * factions, and a number of items. By default, a world contains up to 100 nits
+ * and 5 factions of up to 50 nits each; these limits can be raised.
  * 
  * @invar	The nits in each world must be proper nits for that world.
  * 			| hasProperNits()
@@ -48,16 +54,140 @@ public class World {
 	@Raw
 	public World(int[][][] terrainTypes, TerrainChangeListener modelListener) 
 							throws IllegalArgumentException {
-		if (!isValidTerrainTypes(terrainTypes)) 
+		this(terrainTypes, modelListener, ConnectivityEngine.FLOOD_FILL);
+	}
+	
+	
+	/**
+	 * Initialize this new world with given terrain types for each cube of the
+	 * game world, the given modelListener and the given algorithm to decide 
+	 * which solid cubes are connected to the border.
+	 * 
+	 * The random generator of the new world is seeded with a fresh seed.
+	 * 
+	 * @effect	| this(terrainTypes, modelListener, connectivityEngine, generateSeed())
+	 */
+	@Raw
+	public World(int[][][] terrainTypes, TerrainChangeListener modelListener,
+			ConnectivityEngine connectivityEngine) throws IllegalArgumentException {
+		this(terrainTypes, modelListener, connectivityEngine, generateSeed());
+	}
+	
+	
+	/**
+	 * Initialize this new world with given terrain types for each cube of the
+	 * game world, the given modelListener, the given algorithm to decide 
+	 * which solid cubes are connected to the border and the given seed for
+	 * its random generator.
+	 * 
+	 * The terrain types are converted into a terrain map once, which the new
+	 * world keeps as its terrain without copying it again.
+	 * 
+	 * @effect	The new world is initialized as with a terrain map holding the
+	 * 			given terrain types.
+	 * 			| this(new TerrainMap(terrainTypes), modelListener, connectivityEngine,
+	 * 			|		seed)
+	 * 
+	 * @throws	IllegalArgumentException
+	 * 			The given terrain type array is not valid.
+	 */
+	@Raw
+	public World(int[][][] terrainTypes, TerrainChangeListener modelListener,
+			ConnectivityEngine connectivityEngine, long seed) throws IllegalArgumentException {
+		this(modelListener, connectivityEngine, seed, toTerrainMap(terrainTypes));
+	}
+	
+	
+	/**
+	 * Initialize this new world with a copy of the given terrain map as its
+	 * terrain, and the given modelListener.
+	 * 
+	 * @param	terrain
+	 * 
+	 * @param	modelListener
+	 * 
+	 * @throws	IllegalArgumentException
+	 * 			The given terrain map contains an invalid terrain type number.
+	 */
+	@Raw
+	public World(TerrainMap terrain, TerrainChangeListener modelListener) 
+							throws IllegalArgumentException {
+		this(terrain, modelListener, ConnectivityEngine.FLOOD_FILL);
+	}
+	
+	
+	/**
+	 * Initialize this new world with a copy of the given terrain map as its
+	 * terrain, the given modelListener and the given algorithm to decide 
+	 * which solid cubes are connected to the border.
+	 * 
+	 * The random generator of the new world is seeded with a fresh seed.
+	 * 
+	 * @effect	| this(terrain, modelListener, connectivityEngine, generateSeed())
+	 */
+	@Raw
+	public World(TerrainMap terrain, TerrainChangeListener modelListener,
+			ConnectivityEngine connectivityEngine) throws IllegalArgumentException {
+		this(terrain, modelListener, connectivityEngine, generateSeed());
+	}
+	
+	
+	/**
+	 * Initialize this new world with a copy of the given terrain map as its
+	 * terrain, the given modelListener, the given algorithm to decide which 
+	 * solid cubes are connected to the border, and the given seed for its 
+	 * random generator. Later changes to the given map do not affect the
+	 * world, whose terrain only changes through setCubeTypeAt.
+	 * 
+	 * Every random choice made in the world, including the cave-ins while 
+	 * it is initialized, derives from this seed, so two worlds with the same
+	 * terrain and seed evolve in the same way under the same commands.
+	 * 
+	 * @post	| new.getConnectivityEngine() == connectivityEngine
+	 * @post	| new.getSeed() == seed
+	 * 
+	 * @throws	IllegalArgumentException
+	 * 			The given terrain map contains an invalid terrain type number,
+	 * 			or the given algorithm is not effective.
+	 * 			| !isValidTerrain(terrain) || connectivityEngine == null
+	 */
+	@Raw
+	public World(TerrainMap terrain, TerrainChangeListener modelListener,
+			ConnectivityEngine connectivityEngine, long seed) throws IllegalArgumentException {
+		this(modelListener, connectivityEngine, seed, copyOf(terrain));
+	}
+	
+	
+	/**
+	 * Initialize this new world with the given terrain map as its terrain,
+	 * without copying it, the given modelListener, the given algorithm to
+	 * decide which solid cubes are connected to the border, and the given
+	 * seed for its random generator. The given map must not be used elsewhere.
+	 * 
+	 * @throws	IllegalArgumentException
+	 * 			| !isValidTerrain(terrain) || connectivityEngine == null
+	 */
+	@Raw
+	private World(TerrainChangeListener modelListener, ConnectivityEngine connectivityEngine,
+			long seed, TerrainMap terrain) throws IllegalArgumentException {
+		if (!isValidTerrain(terrain) || connectivityEngine == null) 
 			throw new IllegalArgumentException();
 		
-		this.terrainTypes = terrainTypes;
+		this.terrain = terrain;
 		this.modelListener = modelListener;
+		this.seed = seed;
+		this.random = new SplittableRandom(seed);
 		
-		this.connectedToBorderChecker = new ConnectedToBorder(getNbCubesX(),
+		this.connectivityEngine = connectivityEngine;
+		this.connectedToBorderChecker = connectivityEngine.create(getNbCubesX(),
 				getNbCubesY(), getNbCubesZ());
 		
+		this.terrainChanges = new DirtyRegion(getNbCubesX(), getNbCubesY(), getNbCubesZ());
+		this.nitIndex = new SpatialIndex<Nit>(this);
+		this.itemIndex = new SpatialIndex<Item>(this);
+		
 		this.caveInAll();
+		this.caveIn(new ArrayList<Item>());
 		
 		/*for (int i=0; i<getMaxNbFactions(); i++) {
 			Faction faction = new Faction();
@@ -67,17 +197,95 @@ public class World {
 	}
 	
 	
-	protected final static int getMaxNbNits() {
-		return maxNits;
+	/**
+	 * Return the maximum number of nits this world can contain.
+	 */
+	@Basic @Raw
+	public int getMaxNbNits() {
+		return this.maxNbNits;
+	}
+	
+	/**
+	 * Set the maximum number of nits this world can contain to the given
+	 * number.
+	 * 
+	 * @post	| new.getMaxNbNits() == maxNbNits
+	 * @throws	IllegalArgumentException
+	 * 			The given number is not positive, or smaller than the number of
+	 * 			nits this world already contains.
+	 * 			| maxNbNits <= 0 || maxNbNits < getNbNits()
+	 */
+	public void setMaxNbNits(int maxNbNits) throws IllegalArgumentException {
+		if (maxNbNits <= 0 || maxNbNits < getNbNits())
+			throw new IllegalArgumentException();
+		this.maxNbNits = maxNbNits;
+	}
+	
+	private int maxNbNits = DEFAULT_MAX_NB_NITS;
+	
+	public final static int DEFAULT_MAX_NB_NITS = 100;
+	
+	
+	/**
+	 * Return the maximum number of factions this world can contain.
+	 */
+	@Basic @Raw
+	public int getMaxNbFactions() {
+		return this.maxNbFactions;
+	}
+	
+	/**
+	 * Set the maximum number of factions this world can contain to the given
+	 * number.
+	 * 
+	 * @post	| new.getMaxNbFactions() == maxNbFactions
+	 * @throws	IllegalArgumentException
+	 * 			The given number is not positive, or smaller than the number of
+	 * 			factions this world already contains.
+	 * 			| maxNbFactions <= 0 || maxNbFactions < getNbFactions()
+	 */
+	public void setMaxNbFactions(int maxNbFactions) throws IllegalArgumentException {
+		if (maxNbFactions <= 0 || maxNbFactions < getNbFactions())
+			throw new IllegalArgumentException();
+		this.maxNbFactions = maxNbFactions;
 	}
 	
-	private final static int maxNits = 100;
+	private int maxNbFactions = DEFAULT_MAX_NB_FACTIONS;
+	
+	public final static int DEFAULT_MAX_NB_FACTIONS = 5;
+	
+	
+	/**
+	 * Return the maximum number of nits each faction of this world can contain.
+	 */
+	@Basic @Raw
+	public int getMaxNbNitsPerFaction() {
+		return this.maxNbNitsPerFaction;
+	}
 	
-	protected final static int getMaxNbFactions() {
-		return maxFactions;
+	/**
+	 * Set the maximum number of nits each faction of this world can contain 
+	 * to the given number.
+	 * 
+	 * @post	| new.getMaxNbNitsPerFaction() == maxNbNitsPerFaction
+	 * @throws	IllegalArgumentException
+	 * 			The given number is not positive, or smaller than the number of
+	 * 			nits of some faction of this world.
+	 * 			| maxNbNitsPerFaction <= 0 || (for some faction in getAllFactions():
+	 * 			|	maxNbNitsPerFaction < faction.getNbNits())
+	 */
+	public void setMaxNbNitsPerFaction(int maxNbNitsPerFaction) throws IllegalArgumentException {
+		if (maxNbNitsPerFaction <= 0)
+			throw new IllegalArgumentException();
+		for (int i = 0; i < this.factions.size(); i++)
+			if (maxNbNitsPerFaction < this.factions.get(i).getNbNits())
+				throw new IllegalArgumentException();
+		this.maxNbNitsPerFaction = maxNbNitsPerFaction;
 	}
 	
-	private final static int maxFactions = 5;
+	private int maxNbNitsPerFaction = DEFAULT_MAX_NB_NITS_PER_FACTION;
+	
+	public final static int DEFAULT_MAX_NB_NITS_PER_FACTION = 50;
 	
 	
 	public final static double getCubeLength() {
@@ -90,26 +298,111 @@ public class World {
 	private final static double cubeLength = 1.0;
 	
 	
-	private static final Random random = new Random();
+	/**
+	 * Return the seed of the random generator of this world.
+	 */
+	@Basic @Immutable
+	public long getSeed() {
+		return this.seed;
+	}
 	
+	/**
+	 * Return a new seed for the random generator of a world.
+	 */
+	public static long generateSeed() {
+		return new SplittableRandom().nextLong();
+	}
 	
 	/**
-	 * Return the terrain type array of this game world.
+	 * Return a new random generator split off the random generator of this 
+	 * world, for a game object of this world. 
+	 * 
+	 * Each game object draws from its own generator, so that its random
+	 * choices do not depend on how the draws of the other game objects
+	 * are interleaved with its own.
 	 */
-	@Basic @Raw
+	@Model
+	SplittableRandom splitRandom() {
+		return this.random.split();
+	}
+	
+	private final long seed;
+	
+	/**
+	 * The random generator of this world, for the random choices made by the
+	 * world itself.
+	 */
+	private final SplittableRandom random;
+	
+	
+	/**
+	 * Return a new array with the terrain type numbers of this game world,
+	 * indexed as result[x][y][z].
+	 */
+	@Raw
 	public int[][][] getTerrainTypes() {
-		return this.terrainTypes;
+		return this.terrain.toArray();
 	}
 	
 	
-	private int[][][] terrainTypes;
+	private final TerrainMap terrain;
 	
 	
 	private final TerrainChangeListener modelListener;
-	private final ConnectedToBorder connectedToBorderChecker;
+	private final BorderConnectivity connectedToBorderChecker;
+	
+	
+	/**
+	 * Return the algorithm this world uses to decide which solid cubes are
+	 * connected to its border.
+	 */
+	@Basic @Immutable
+	public ConnectivityEngine getConnectivityEngine() {
+		return this.connectivityEngine;
+	}
 	
+	private final ConnectivityEngine connectivityEngine;
 	
-	private boolean isValidTerrainTypes(int[][][] terrainTypes) {
+	
+	/**
+	 * Return a new terrain map holding the given terrain types.
+	 * 
+	 * @throws	IllegalArgumentException
+	 * 			The given terrain type array is not valid.
+	 */
+	private static TerrainMap toTerrainMap(int[][][] terrainTypes) throws IllegalArgumentException {
+		if (!isValidTerrainTypes(terrainTypes)) 
+			throw new IllegalArgumentException();
+		return new TerrainMap(terrainTypes);
+	}
+	
+	
+	/**
+	 * Return a copy of the given terrain map.
+	 * 
+	 * @throws	IllegalArgumentException
+	 * 			| terrain == null
+	 */
+	private static TerrainMap copyOf(TerrainMap terrain) throws IllegalArgumentException {
+		if (terrain == null)
+			throw new IllegalArgumentException();
+		return new TerrainMap(terrain);
+	}
+	
+	
+	private static boolean isValidTerrain(TerrainMap terrain) {
+		if (terrain == null)
+			return false;
+		for (int index = 0; index < terrain.getNbCubes(); index++) {
+			int number = terrain.get(index);
+			if ( !(number == 0 || number == 1 || number == 2 || number == 3))
+				return false;
+		}
+		return true;
+	}
+	
+	
+	private static boolean isValidTerrainTypes(int[][][] terrainTypes) {
 		
 		int b = terrainTypes[0].length;
 		int c = terrainTypes[0][0].length;
@@ -164,39 +457,111 @@ public class World {
 	
 	public static double[] getCubeCenter(Coordinate cubeCoordinate) {
 		double[] cubeCenter = new double[3];
-		for (int i=0; i<cubeCoordinate.getCoordinates().length; i++) {
-			cubeCenter[i] = cubeCoordinate.getCoordinates()[i] + getCubeLength()/2;
+		for (int i=0; i<3; i++) {
+			cubeCenter[i] = cubeCoordinate.get(i) + getCubeLength()/2;
 		}
 		return cubeCenter;
 	}
 	
+	
+	/**
+	 * Return the coordinate of the cube of this world with the given flat 
+	 * index x + y*getNbCubesX() + z*getNbCubesX()*getNbCubesY().
+	 * 
+	 * Coordinates are immutable, so each cube of this world has a single 
+	 * interned coordinate, created when it is first asked for.
+	 * 
+	 * @return	| result.equals(new Coordinate(index % getNbCubesX(), 
+	 * 			|	(index / getNbCubesX()) % getNbCubesY(), index / (getNbCubesX()*getNbCubesY())))
+	 */
+	public Coordinate getCoordinateAt(int index) {
+		if (this.coordinates == null)
+			this.coordinates = new Coordinate[this.terrain.getNbCubes()];
+		Coordinate result = this.coordinates[index];
+		if (result == null) {
+			int nbX = getNbCubesX(), nbY = getNbCubesY();
+			result = new Coordinate(index % nbX, (index / nbX) % nbY, index / (nbX * nbY));
+			this.coordinates[index] = result;
+		}
+		return result;
+	}
+	
+	/**
+	 * Return the interned coordinate of the cube of this world with the given 
+	 * coordinates, which must lie inside this world.
+	 * 
+	 * @return	| result == getCoordinateAt(x + y*getNbCubesX() + z*getNbCubesX()*getNbCubesY())
+	 */
+	public Coordinate getCoordinateAt(int x, int y, int z) {
+		return getCoordinateAt(this.terrain.indexOf(x, y, z));
+	}
+	
+	/**
+	 * The interned coordinate of each cube of this world by flat index, or null
+	 * if it has not been asked for yet.
+	 */
+	private Coordinate[] coordinates;
+	
 	@Basic
 	public int getNbCubesX() {
-		return this.terrainTypes.length;
+		return this.terrain.getNbX();
 	}
 	
 	@Basic
 	public int getNbCubesY() {
-		return this.terrainTypes[0].length;
+		return this.terrain.getNbY();
 	}
 	
 	@Basic
 	public int getNbCubesZ() {
-		return this.terrainTypes[0][0].length;
+		return this.terrain.getNbZ();
 	}
 	
 	
+	/**
+	 * Set the type of the cube with the given coordinate to the given type.
+	 * 
+	 * The change is reported to the terrain change listener of this world 
+	 * together with the other changes made during the same time step, or
+	 * before the next cave-in pass outside time steps, and the solid cubes it
+	 * disconnects from the border cave in during that pass.
+	 */
 	public void setCubeTypeAt(Coordinate coordinate, TerrainType type) {
 		if (!isValidTerrainType(type))
 			throw new IllegalArgumentException();
-		this.terrainTypes[coordinate.get(0)][coordinate.get(1)][coordinate.get(2)] = type.getNumber();
+		int x = coordinate.get(0), y = coordinate.get(1), z = coordinate.get(2);
+		boolean wasPassable = isPassable(x, y, z);
+		this.terrain.set(x, y, z, (byte) type.getNumber());
+		this.terrainVersion++;
+		this.terrainChanges.add(x, y, z);
+		if (wasPassable != type.isPassable())
+			updateConnectivity(x, y, z, type.isPassable());
+		if (this.distanceFields != null)
+			this.distanceFields.terrainChanged(x, y, z);
+		if (this.hierarchicalPathFinder != null)
+			this.hierarchicalPathFinder.terrainChanged(x, y, z);
+		if (this.reachabilityLabels != null)
+			this.reachabilityLabels.terrainChanged(x, y, z);
 	}
 	
 	
+	/**
+	 * Return the terrain version of this world, which is incremented each 
+	 * time the type of one of its cubes is set.
+	 */
+	@Basic
+	public long getTerrainVersion() {
+		return this.terrainVersion;
+	}
+	
+	
+	private long terrainVersion = 0;
+	
+	
 	public TerrainType getCubeTypeAt(Coordinate coordinate) throws IllegalPositionException {
 		if (!canHaveAsCoordinates(coordinate) )
 			throw new IllegalPositionException(coordinate);
-		return TerrainType.byOrdinal(this.terrainTypes[coordinate.get(0)][coordinate.get(1)][coordinate.get(2)]);
+		return TerrainType.byOrdinal(this.terrain.get(coordinate.get(0), coordinate.get(1), coordinate.get(2)));
 	}
 	
 	
@@ -209,36 +574,104 @@ public class World {
 		if (!canHaveAsCoordinates(coordinates) )
 			throw new IllegalPositionException(coordinates);
 		
-		Set<Coordinate> neighbours = getNeighbours(coordinates);
-		for (Coordinate neighbour: neighbours) {
-			if (canHaveAsCoordinates(neighbour))
-				if (!getCubeTypeAt(neighbour).isPassable())
-					return true;
+		return isNeighbouringSolid(coordinates.get(0), coordinates.get(1), coordinates.get(2));
+	}
+	
+	
+	/**
+	 * Check whether the cube with the given coordinates, which must lie 
+	 * inside this world, neighbours a solid cube.
+	 */
+	public boolean isNeighbouringSolid(int x, int y, int z) {
+		for (int[] offset: NEIGHBOUR_OFFSETS) {
+			int i = x + offset[0], k = y + offset[1], l = z + offset[2];
+			if (this.terrain.isValidIndex(i, k, l) && !isPassable(i, k, l))
+				return true;
 		}
 		return false;
 	}
 	
 	
+	/**
+	 * Check whether the cube with the given coordinates, which must lie 
+	 * inside this world, is passable.
+	 */
+	public boolean isPassable(int x, int y, int z) {
+		return TerrainType.isPassable(this.terrain.get(x, y, z));
+	}
+	
+	
 	public Set<Coordinate> getNeighbours(Coordinate coordinates) {
 		Set<Coordinate> neighbours = new HashSet<Coordinate>();
-		for (int i = -1; i<2; i++) {
-			for (int k = -1; k<2; k++) {
-				for (int l = -1; l<2; l++) {
-					Coordinate neighbour = new Coordinate(coordinates.get(0)+i,coordinates.get(1)+k,coordinates.get(2)+l);
-					if (canHaveAsCoordinates(neighbour) && !neighbour.equals(coordinates))
-						neighbours.add(neighbour);
-				}
-			}
-		}
+		forEachNeighbour(coordinates.get(0), coordinates.get(1), coordinates.get(2), 
+				index -> neighbours.add(getCoordinateAt(index)));
 		return neighbours;
 	}
 	
 	
+	/**
+	 * Perform the given action on the flat index of each cube of this world
+	 * neighbouring the cube with the given coordinates, without allocating
+	 * any coordinates.
+	 * 
+	 * @param	action
+	 * 			The action to perform on the index x + y*getNbCubesX() 
+	 * 			+ z*getNbCubesX()*getNbCubesY() of each neighbouring cube.
+	 */
+	public void forEachNeighbour(int x, int y, int z, IntConsumer action) {
+		for (int[] offset: NEIGHBOUR_OFFSETS) {
+			int i = x + offset[0], k = y + offset[1], l = z + offset[2];
+			if (this.terrain.isValidIndex(i, k, l))
+				action.accept(this.terrain.indexOf(i, k, l));
+		}
+	}
+	
+	
+	/**
+	 * Return the number of cubes of this world neighbouring the cube with
+	 * the given coordinates.
+	 */
+	public int getNbNeighbours(int x, int y, int z) {
+		int nbX = Math.min(x+1, getNbCubesX()-1) - Math.max(x-1, 0) + 1;
+		int nbY = Math.min(y+1, getNbCubesY()-1) - Math.max(y-1, 0) + 1;
+		int nbZ = Math.min(z+1, getNbCubesZ()-1) - Math.max(z-1, 0) + 1;
+		return nbX * nbY * nbZ - 1;
+	}
+	
+	
+	/**
+	 * Return the offsets along each axis from a cube to its 26 neighbours,
+	 * in a new array.
+	 */
+	public static int[][] getNeighbourOffsets() {
+		int[][] result = new int[NEIGHBOUR_OFFSETS.length][];
+		for (int n = 0; n < result.length; n++)
+			result[n] = NEIGHBOUR_OFFSETS[n].clone();
+		return result;
+	}
+	
+	/**
+	 * The offsets along each axis from a cube to its 26 neighbours.
+	 */
+	private static final int[][] NEIGHBOUR_OFFSETS = new int[26][];
+	
+	static {
+		int n = 0;
+		for (int i = -1; i<2; i++)
+			for (int k = -1; k<2; k++)
+				for (int l = -1; l<2; l++)
+					if (i != 0 || k != 0 || l != 0)
+						NEIGHBOUR_OFFSETS[n++] = new int[] { i, k, l };
+	}
+	
+	
 	public boolean isNeighbouring(Coordinate coordinates, Coordinate neighbourCoordinates) {
-		Set<Coordinate> neighbours = getNeighbours(coordinates);
-		/*System.out.println(neighbourCoordinates.toString());
-		System.out.println( (neighbours.contains(neighbourCoordinates)) );*/
-		return (neighbours.contains(neighbourCoordinates));
+		if (!canHaveAsCoordinates(neighbourCoordinates) || coordinates.equals(neighbourCoordinates))
+			return false;
+		for (int i = 0; i < 3; i++)
+			if (Math.abs(coordinates.get(i) - neighbourCoordinates.get(i)) > 1)
+				return false;
+		return true;
 	}
 	
 	
@@ -302,6 +735,38 @@ public class World {
 	}
 	
 	
+	/**
+	 * Return a random cube near the given cube, that can be reached from it
+	 * by a nit following the given movement rule and satisfies the given condition.
+	 * 
+	 * @return	A random cube at most 3 cubes away from the given cube along each
+	 * 			axis, that is reachable from it and satisfies the condition, if 
+	 * 			there is one. Otherwise such a cube in a box around the given cube
+	 * 			that is widened until it holds one, or the given cube if there 
+	 * 			is none at all.
+	 * 			| getReachabilityLabels().isReachable(coordinate, result, rule)
+	 */
+	public Coordinate getNearRandomReachableCube(Coordinate coordinate, MovementRule rule,
+			Predicate<Coordinate> condition) {
+		return getNearRandomReachableCube(coordinate, rule, condition, this.random);
+	}
+	
+	
+	/**
+	 * Return a random cube near the given cube, that can be reached from it
+	 * by a nit following the given movement rule and satisfies the given 
+	 * condition, drawn from the given random generator.
+	 * 
+	 * @return	| result == getReachabilityLabels().getNearRandomReachableCube(
+	 * 			|		coordinate, 3, rule, condition, random)
+	 */
+	public Coordinate getNearRandomReachableCube(Coordinate coordinate, MovementRule rule,
+			Predicate<Coordinate> condition, SplittableRandom random) {
+		return getReachabilityLabels().getNearRandomReachableCube(coordinate, 3, rule, 
+				condition, random);
+	}
+	
+	
 	public Coordinate getNearRandomCube(Coordinate coordinate) {
 		int x, y, z;
 		Coordinate position;
@@ -357,27 +822,325 @@ public class World {
 	
 	
 	public Coordinate getRandomNeighbouringCube(Coordinate coordinate) {
-		Set<Coordinate> neighbours = getNeighbours(coordinate);
-		int dice = random.nextInt(neighbours.size());
+		return getRandomNeighbouringCube(coordinate, this.random);
+	}
+	
+	
+	/**
+	 * Return a random cube neighbouring the given cube, drawn from the given
+	 * random generator.
+	 */
+	public Coordinate getRandomNeighbouringCube(Coordinate coordinate, SplittableRandom random) {
+		int x = coordinate.get(0), y = coordinate.get(1), z = coordinate.get(2);
+		int dice = random.nextInt(getNbNeighbours(x, y, z));
 		int counter = 0;
-		for (Coordinate neighbour: neighbours) {
-			if (counter == dice)
-				return neighbour;
-			counter++;
+		for (int[] offset: NEIGHBOUR_OFFSETS) {
+			int i = x + offset[0], k = y + offset[1], l = z + offset[2];
+			if (this.terrain.isValidIndex(i, k, l) && counter++ == dice)
+				return getCoordinateAt(i, k, l);
 		}
 		return null;
 	}
 	
-	// TODO arraylist with all timesubjects
+	/**
+	 * Advance the time of this world by the given amount.
+	 * 
+	 * @effect	The scheduled cave-ins happen first, then the game objects added to 
+	 * 			or removed from this world since the previous time step are 
+	 * 			registered or unregistered, then the idle nits are assigned tasks, 
+	 * 			and finally the game objects advance time phase by phase. The
+	 * 			nits carry out their activities in the tick mode of this world.
+	 * 			| caveIn(new ArrayList<Item>())
+	 * 			| getTickScheduler().flush()
+	 * 			| assignTasks()
+	 * 			| for each phase in TickPhase.values():
+	 * 			|	if (phase == TickPhase.NIT_ACTIVITIES)
+	 * 			|		then advanceNits(dt)
+	 * 			|	else getTickScheduler().advanceTime(phase, dt)
+	 * 
+	 * @throws	IllegalArgumentException
+	 * 			| !isValidDT(dt)
+	 */
 	public void advanceTime(double dt) throws RuntimeException {
 		if (!isValidDT(dt))
 			throw new IllegalArgumentException();
 		
-		updateGameObjects();
+		this.isAdvancingTime = true;
+		try {
+			caveIn(new ArrayList<Item>());
+			this.tickScheduler.flush();
+			assignTasks();
+			
+			for (TickPhase phase: TickPhase.values()) {
+				if (phase == TickPhase.NIT_ACTIVITIES)
+					advanceNits(dt);
+				else
+					this.tickScheduler.advanceTime(phase, dt);
+			}
+		}
+		finally {
+			this.isAdvancingTime = false;
+			notifyTerrainChanges();
+		}
+	}
+	
+	
+	/**
+	 * Let the nits of this world carry out their activities for the given
+	 * amount of time.
+	 * 
+	 * The nits are split in partitions, one per faction, except that factions
+	 * whose schedulers share a task are put in the same partition, because a
+	 * task notifies all its schedulers. The nits of a partition advance time
+	 * in the order of their slots. While they do, this world defers changes:
+	 * each nit observes the other nits as they were at the start of this phase,
+	 * the spatial index of the nits is left as it was, and the changes a nit 
+	 * makes to other nits, to items and to the terrain are buffered. At the
+	 * end, the nits are moved to their cubes in the spatial index and the 
+	 * buffered changes are applied, both in the order of the slots, so the
+	 * result does not depend on the order in which the partitions ran.
+	 * 
+	 * In the parallel tick mode, the partitions run on the common fork/join
+	 * pool, after the path finders and labels for the movement rules of the
+	 * nits have been built, so that the nits only read them.
+	 * 
+	 * @throws	RuntimeException
+	 * 			The first exception thrown by a nit, in the order of the
+	 * 			partitions, after the changes of all nits have been applied.
+	 */
+	private void advanceNits(double dt) throws RuntimeException {
+		int nbNits = this.tickScheduler.getNbObjects(TickPhase.NIT_ACTIVITIES);
+		if (nbNits == 0)
+			return;
+		Set<MovementRule> rules = EnumSet.noneOf(MovementRule.class);
+		for (int slot = 0; slot < nbNits; slot++) {
+			Nit nit = (Nit) this.tickScheduler.getObjectAt(TickPhase.NIT_ACTIVITIES, slot);
+			nit.observe();
+			rules.add(nit.getMovementRule());
+		}
+		List<List<Nit>> partitions = partitionNits(nbNits);
+		if (getTickMode() == TickMode.PARALLEL && partitions.size() > 1)
+			prepareSharedState(rules);
+		RuntimeException[] failures = new RuntimeException[partitions.size()];
+		
+		this.commandBuffer.reset(nbNits);
+		this.isDeferringChanges = true;
+		try {
+			if (getTickMode() == TickMode.PARALLEL && partitions.size() > 1) {
+				List<ForkJoinTask<?>> tasks = new ArrayList<ForkJoinTask<?>>(partitions.size());
+				for (int i = 0; i < partitions.size(); i++) {
+					int partition = i;
+					tasks.add(ForkJoinPool.commonPool().submit(
+							() -> advanceTime(partitions.get(partition), dt, failures, partition)));
+				}
+				for (ForkJoinTask<?> task: tasks)
+					task.join();
+			}
+			else {
+				for (int i = 0; i < partitions.size(); i++)
+					advanceTime(partitions.get(i), dt, failures, i);
+			}
+		}
+		finally {
+			this.isDeferringChanges = false;
+			for (int slot = 0; slot < nbNits; slot++) {
+				Nit nit = (Nit) this.tickScheduler.getObjectAt(TickPhase.NIT_ACTIVITIES, slot);
+				if (this.nitIndex.contains(nit))
+					this.nitIndex.positionChanged(nit);
+			}
+			this.commandBuffer.apply();
+		}
+		for (RuntimeException failure: failures)
+			if (failure != null)
+				throw failure;
+	}
+	
+	
+	/**
+	 * Let the given nits advance time one after the other, recording the 
+	 * first exception thrown by one of them at the given index of the given
+	 * failures, after which the other nits are skipped.
+	 */
+	private static void advanceTime(List<Nit> nits, double dt, RuntimeException[] failures,
+			int index) {
+		try {
+			for (Nit nit: nits)
+				nit.advanceTime(dt);
+		}
+		catch (RuntimeException exc) {
+			failures[index] = exc;
+		}
+	}
+	
+	
+	/**
+	 * Split the nits registered in the first given number of slots for the 
+	 * activities of nits in partitions, one per faction, merging factions 
+	 * whose schedulers share a task. The partitions are ordered by their first
+	 * nit, and hold their nits in the order of their slots.
+	 */
+	private List<List<Nit>> partitionNits(int nbNits) {
+		Map<Faction, Faction> parents = new HashMap<Faction, Faction>();
+		Map<Task, Faction> owners = new HashMap<Task, Faction>();
+		for (int slot = 0; slot < nbNits; slot++) {
+			Faction faction = ((Nit) this.tickScheduler.getObjectAt(TickPhase.NIT_ACTIVITIES, 
+					slot)).getFaction();
+			if (faction == null || parents.containsKey(faction))
+				continue;
+			parents.put(faction, faction);
+			for (Task task: faction.getScheduler().getAllTasks()) {
+				Faction owner = owners.putIfAbsent(task, faction);
+				if (owner != null)
+					parents.put(findRoot(parents, faction), findRoot(parents, owner));
+			}
+		}
 		
-		for (GameObject timesubject: this.gameObjects) {
-			timesubject.advanceTime(dt);
+		Map<Faction, List<Nit>> partitions = new LinkedHashMap<Faction, List<Nit>>();
+		for (int slot = 0; slot < nbNits; slot++) {
+			Nit nit = (Nit) this.tickScheduler.getObjectAt(TickPhase.NIT_ACTIVITIES, slot);
+			Faction root = (nit.getFaction() == null) ? null : findRoot(parents, nit.getFaction());
+			List<Nit> partition = partitions.get(root);
+			if (partition == null) {
+				partition = new ArrayList<Nit>();
+				partitions.put(root, partition);
+			}
+			partition.add(nit);
+		}
+		return new ArrayList<List<Nit>>(partitions.values());
+	}
+	
+	private static Faction findRoot(Map<Faction, Faction> parents, Faction faction) {
+		Faction parent = parents.get(faction);
+		while (parent != faction) {
+			faction = parent;
+			parent = parents.get(faction);
+		}
+		return faction;
+	}
+	
+	
+	/**
+	 * Create the path finders, labels and distance fields of this world, the
+	 * interned coordinates of all cubes, and the abstract graphs and labels
+	 * for the given movement rules, which are otherwise only created when they
+	 * are first asked for. After this, nits only read them.
+	 */
+	private void prepareSharedState(Set<MovementRule> rules) {
+		if (!this.areAllCoordinatesInterned) {
+			for (int index = 0; index < this.terrain.getNbCubes(); index++)
+				getCoordinateAt(index);
+			this.areAllCoordinatesInterned = true;
+		}
+		getPathFinder();
+		getDistanceFields();
+		for (MovementRule rule: rules) {
+			getHierarchicalPathFinder().prepare(rule);
+			getReachabilityLabels().prepare(rule);
+		}
+	}
+	
+	private boolean areAllCoordinatesInterned = false;
+	
+	
+	/**
+	 * Return the tick mode in which the nits of this world carry out their
+	 * activities.
+	 */
+	@Basic
+	public TickMode getTickMode() {
+		return this.tickMode;
+	}
+	
+	/**
+	 * Set the tick mode of this world to the given tick mode.
+	 * 
+	 * @post	| new.getTickMode() == tickMode
+	 * 
+	 * @throws	IllegalArgumentException
+	 * 			| tickMode == null
+	 */
+	public void setTickMode(TickMode tickMode) throws IllegalArgumentException {
+		if (tickMode == null)
+			throw new IllegalArgumentException();
+		this.tickMode = tickMode;
+	}
+	
+	private TickMode tickMode = TickMode.SEQUENTIAL;
+	
+	
+	/**
+	 * Check whether this world defers the changes nits make to the world,
+	 * which it does while the nits carry out their activities.
+	 */
+	@Basic
+	public boolean isDeferringChanges() {
+		return this.isDeferringChanges;
+	}
+	
+	/**
+	 * Apply the given change made by the given nit, at the end of the
+	 * activities of the nits if this world defers changes, in the order of
+	 * the slot of that nit, and right away otherwise.
+	 * 
+	 * @throws	IllegalArgumentException
+	 * 			This world defers changes, and the given nit is not registered
+	 * 			for the activities of nits.
+	 * 			| isDeferringChanges() && !(for some slot in 
+	 * 			|	0..getTickScheduler().getNbObjects(TickPhase.NIT_ACTIVITIES)-1:
+	 * 			|		getTickScheduler().getObjectAt(TickPhase.NIT_ACTIVITIES, slot) == nit)
+	 */
+	void defer(Nit nit, Runnable change) throws IllegalArgumentException {
+		if (!isDeferringChanges()) {
+			change.run();
+			return;
+		}
+		int slot = this.tickScheduler.getSlotOf(nit);
+		if (slot < 0)
+			throw new IllegalArgumentException();
+		this.commandBuffer.add(slot, change);
+	}
+	
+	private boolean isDeferringChanges = false;
+	
+	/**
+	 * The changes made by the nits while this world defers changes, by slot.
+	 */
+	private final CommandBuffer commandBuffer = new CommandBuffer();
+	
+	
+	/**
+	 * Assign tasks to the idle nits of this world, in one pass for all
+	 * factions.
+	 * 
+	 * The idle nits for which the scheduler of their faction has a task
+	 * available are collected in the order in which they advance time, and
+	 * then matched to the tasks of that scheduler by decreasing priority.
+	 * 
+	 * @effect	| for each faction in getAllFactions():
+	 * 			|	faction.getScheduler().assignTasks(
+	 * 			|		{nit in faction.getAllNits() | nit.isWaitingForTask()
+	 * 			|			&& nit.hasAvailableTask()})
+	 */
+	private void assignTasks() {
+		Map<Scheduler, List<Nit>> idleNits = null;
+		int nbNits = this.tickScheduler.getNbObjects(TickPhase.NIT_ACTIVITIES);
+		for (int slot = 0; slot < nbNits; slot++) {
+			Nit nit = (Nit) this.tickScheduler.getObjectAt(TickPhase.NIT_ACTIVITIES, slot);
+			if (!nit.isWaitingForTask() || !nit.hasAvailableTask())
+				continue;
+			Scheduler scheduler = nit.getFaction().getScheduler();
+			if (idleNits == null)
+				idleNits = new LinkedHashMap<Scheduler, List<Nit>>();
+			List<Nit> nits = idleNits.get(scheduler);
+			if (nits == null) {
+				nits = new ArrayList<Nit>();
+				idleNits.put(scheduler, nits);
+			}
+			nits.add(nit);
 		}
+		if (idleNits != null)
+			for (Map.Entry<Scheduler, List<Nit>> entry: idleNits.entrySet())
+				entry.getKey().assignTasks(entry.getValue());
 	}
 	
 	
@@ -403,31 +1166,23 @@ public class World {
 	 **********************************************************/
 	
 	
-	private final List<GameObject> gameObjects = new ArrayList<GameObject>();
-	
-	
-	/*
-	 * Intermediate lists to avoid concurrent modification exceptions.
+	/**
+	 * Return the tick scheduler advancing the time of the game objects of 
+	 * this world.
 	 */
-	private final List<GameObject> toAddToGameObjects = new ArrayList<GameObject>();
-	private final List<GameObject> toRemoveFromGameObjects = new ArrayList<GameObject>();
-	
-	
-	private void updateGameObjects() {
-		for (GameObject ts: this.toAddToGameObjects) {
-			gameObjects.add(ts);
-		}
-		this.toAddToGameObjects.clear();
-		
-		for (GameObject ts: this.toRemoveFromGameObjects) {
-			if (gameObjects.contains(ts))
-				gameObjects.remove(ts);
-		}
-		
-		this.toRemoveFromGameObjects.clear();
-		gameObjects.removeAll(Collections.singleton(null));
+	@Basic @Immutable
+	public TickScheduler getTickScheduler() {
+		return this.tickScheduler;
 	}
 	
+	/**
+	 * The tick scheduler of this world. Game objects are registered with it 
+	 * when they are added to this world and unregistered when they are 
+	 * removed, and these changes only take effect at the next time step, 
+	 * so game objects can be added and removed while time advances.
+	 */
+	private final TickScheduler tickScheduler = new TickScheduler();
+	
 
 	public boolean canHaveAsGameObject(GameObject gameObject) {
 		if (gameObject instanceof Nit)
@@ -455,6 +1210,48 @@ public class World {
 	}
 	
 	
+	/**
+	 * Return a set collecting all nits and items of this world whose position
+	 * lies in the box between the given minimum and maximum position, the 
+	 * minimum inclusive and the maximum exclusive.
+	 * 
+	 * Only the cubes overlapping the box are looked at, so the cost of this 
+	 * query does not depend on the number of game objects outside the box.
+	 * 
+	 * @return	| for each gameObject in GameObject:
+	 * 			|	result.contains(gameObject) == (hasAsGameObject(gameObject)
+	 * 			|		&& for each i in 0..2:
+	 * 			|			min[i] <= gameObject.getPosition()[i] 
+	 * 			|			&& gameObject.getPosition()[i] < max[i])
+	 * 
+	 * @throws	IllegalArgumentException
+	 * 			| min.length != 3 || max.length != 3
+	 */
+	public Set<GameObject> getObjectsInBox(double[] min, double[] max) 
+			throws IllegalArgumentException {
+		if (min.length != 3 || max.length != 3)
+			throw new IllegalArgumentException();
+		int minX = (int) Math.floor(min[0]), minY = (int) Math.floor(min[1]), 
+				minZ = (int) Math.floor(min[2]);
+		int maxX = (int) Math.floor(max[0]), maxY = (int) Math.floor(max[1]), 
+				maxZ = (int) Math.floor(max[2]);
+		
+		List<GameObject> candidates = new ArrayList<GameObject>();
+		this.nitIndex.collectInBox(minX, minY, minZ, maxX, maxY, maxZ, candidates);
+		this.itemIndex.collectInBox(minX, minY, minZ, maxX, maxY, maxZ, candidates);
+		
+		Set<GameObject> gameObjects = new HashSet<GameObject>();
+		for (GameObject gameObject: candidates) {
+			double[] position = gameObject.getPosition();
+			if (min[0] <= position[0] && position[0] < max[0] 
+					&& min[1] <= position[1] && position[1] < max[1]
+					&& min[2] <= position[2] && position[2] < max[2])
+				gameObjects.add(gameObject);
+		}
+		return gameObjects;
+	}
+	
+	
 	/* *********************************************************
 	 * 
 	 * 							NITS
@@ -471,18 +1268,7 @@ public class World {
 	 */
 	public Nit spawnNit(boolean enableDefaultBehavior) {
 		
-		if (getAllNits().size() >= getMaxNbNits()) {
-			throw new IllegalNbException();
-		}
-		
-		Faction faction;
-		if (this.factions.size() < 5) {
-			faction = new Faction();
-			addFaction(faction);
-		} else {
-			sortFactions();
-			faction = this.factions.get(0);
-		}
+		Faction faction = getFactionForSpawn();
 		
 		Nit nit;
 		double dice = random.nextDouble();
@@ -497,18 +1283,7 @@ public class World {
 	
 	
 	public Unit spawnUnit(boolean enableDefaultBehavior) {
-		if (getAllNits().size() >= getMaxNbNits()) {
-			throw new IllegalNbException();
-		}
-		
-		Faction faction;
-		if (this.factions.size() < 5) {
-			faction = new Faction();
-			addFaction(faction);
-		} else {
-			sortFactions();
-			faction = this.factions.get(0);
-		}
+		Faction faction = getFactionForSpawn();
 		
 		Unit unit;
 		unit = new Unit(this, faction, enableDefaultBehavior);
@@ -518,6 +1293,29 @@ public class World {
 		
 		return unit;
 	}
+	
+	
+	/**
+	 * Return the faction a newly spawned nit joins: a new faction as long as
+	 * this world can contain more factions, and its smallest faction otherwise.
+	 * 
+	 * @throws	IllegalNbException
+	 * 			This world, or its smallest faction, cannot contain any more nits.
+	 */
+	private Faction getFactionForSpawn() throws IllegalNbException {
+		if (getNbNits() >= getMaxNbNits())
+			throw new IllegalNbException();
+		
+		if (getNbFactions() < getMaxNbFactions()) {
+			Faction faction = new Faction();
+			addFaction(faction);
+			return faction;
+		}
+		Faction faction = this.factions.peek();
+		if (faction.getNbNits() >= faction.getMaxNbNits())
+			throw new IllegalNbException();
+		return faction;
+	}
 
 
 	
@@ -623,12 +1421,23 @@ public class World {
 	
 	public List<Nit> getNitsAt(Coordinate cubeCoordinates) {
 		List<Nit> nits = new ArrayList<Nit>();
-		
-		for (Nit nit: this.nits) {
-			if (nit != null && (nit.getCoordinate().equals(cubeCoordinates)) ) {
-				nits.add(nit);
-			}
-		}
+		this.nitIndex.collectAt(cubeCoordinates.get(0), cubeCoordinates.get(1), 
+				cubeCoordinates.get(2), nits);
+		return nits;
+	}
+	
+	
+	/**
+	 * Return a list collecting all nits of this world at most the given number
+	 * of cubes away from the given cube along each axis.
+	 * 
+	 * @return	| for each nit in Nit:
+	 * 			|	result.contains(nit) == (hasAsNit(nit) && for each i in 0..2:
+	 * 			|		Math.abs(nit.getCoordinate().get(i) - cubeCoordinates.get(i)) <= radius)
+	 */
+	public List<Nit> getNitsNear(Coordinate cubeCoordinates, int radius) {
+		List<Nit> nits = new ArrayList<Nit>();
+		this.nitIndex.collectInRadius(cubeCoordinates, radius, nits);
 		return nits;
 	}
 	
@@ -663,8 +1472,9 @@ public class World {
 			throw new IllegalNbException();
 		
 		nit.setWorld(this);
-		this.nits.add(nit);
-		this.toAddToGameObjects.add(nit);
+		if (this.nits.add(nit))
+			this.nitIndex.add(nit);
+		this.tickScheduler.register(nit);
 	}
 	
 	
@@ -683,7 +1493,8 @@ public class World {
 	public void removeNit(Nit nit) {
 		if (hasAsNit(nit)) {
 			this.nits.remove(nit);
-			this.toRemoveFromGameObjects.add(nit);
+			this.nitIndex.remove(nit);
+			this.tickScheduler.unregister(nit);
 			nit.setWorld(null);
 		}
 	}
@@ -705,12 +1516,18 @@ public class World {
 	 * 			|		nit.getWorld() == this
 	 * 
 	 * @invar	The number of nits in the set is always smaller than or
-	 * 			equal to 100.
-	 * 			| nits.size() <= 100
+	 * 			equal to the maximum number of nits of this world.
+	 * 			| nits.size() <= getMaxNbNits()
 	 */
 	private final Set<Nit> nits = new HashSet<Nit>();
 	
 	
+	/**
+	 * Spatial index bucketing the nits of this world by the cube they occupy.
+	 */
+	private final SpatialIndex<Nit> nitIndex;
+	
+	
 	/* *********************************************************
 	 * 
 	 * 							FACTIONS
@@ -761,7 +1578,8 @@ public class World {
 	 */
 	@Raw
 	public boolean hasProperFactions() {
-		for (Faction faction: this.factions) {
+		for (int i = 0; i < this.factions.size(); i++) {
+			Faction faction = this.factions.get(i);
 			if (!canHaveAsFaction(faction)) 
 				return false;
 			if (faction.getWorld() != this)
@@ -793,8 +1611,8 @@ public class World {
 	 */
 	public Set<Faction> getAllFactions() {
 		Set<Faction> allFactions = new HashSet<Faction>();
-		for (Faction faction: this.factions) {
-			allFactions.add(faction);
+		for (int i = 0; i < this.factions.size(); i++) {
+			allFactions.add(this.factions.get(i));
 		}
 		return allFactions;
 	}
@@ -853,13 +1671,18 @@ public class World {
 	}
 	
 	
-	private void sortFactions() {
-		this.factions.sort(new NbNitsComparator());
+	/**
+	 * Restore the order of the factions of this world after the number of
+	 * nits of the given faction has changed.
+	 */
+	@Model
+	void updateFaction(Faction faction) {
+		this.factions.update(faction);
 	}
 	
 	
 	/**
-	 * Set collecting references to factions that this world contains.
+	 * Heap collecting references to factions that this world contains.
 	 * 
 	 * @invar	the set of factions is effective.
 	 * 			| factions != null
@@ -874,10 +1697,13 @@ public class World {
 	 * 			|		faction.getWorld() == this
 	 * 
 	 * @invar	The number of active factions in the set is always smaller than or
-	 * 			equal to 5.
-	 * 			| factions.size() <= 5
+	 * 			equal to the maximum number of factions of this world.
+	 * 			| factions.size() <= getMaxNbFactions()
+	 * 
+	 * The factions are kept in a min-heap keyed by their number of nits, so 
+	 * that the smallest faction is found in constant time.
 	 */
-	private final List<Faction> factions = new ArrayList<Faction>();
+	private final FactionHeap factions = new FactionHeap();
 	
 	
 	/* *********************************************************
@@ -897,21 +1723,19 @@ public class World {
 	
 	public Set<Item> getObjectsAt(Coordinate cubeCoordinates) {
 		Set<Item> items = new HashSet<Item>();
-		
-		for (Boulder boulder: this.boulders) {
-			if (boulder != null && (boulder.getCoordinate().equals(cubeCoordinates)) ) {
-				items.add(boulder);
-			}
-		}
-		for (Log log: this.logs) {
-			if (log != null && (log.getCoordinate().equals(cubeCoordinates) )) {
-				items.add(log);
-			}
-		}
+		this.itemIndex.collectAt(cubeCoordinates.get(0), cubeCoordinates.get(1), 
+				cubeCoordinates.get(2), items);
 		return items;
 	}
 	
 	
+	/**
+	 * Spatial index bucketing the boulders and logs of this world by the cube 
+	 * they occupy.
+	 */
+	private final SpatialIndex<Item> itemIndex;
+	
+	
 	
 	@Basic @Raw
 	public boolean hasAsItem(Item item) {
@@ -1043,8 +1867,9 @@ public class World {
 			throw new IllegalArgumentException();
 		if (log.getWorld() != this)
 			throw new IllegalArgumentException();
-		this.logs.add(log);
-		this.toAddToGameObjects.add(log);
+		if (this.logs.add(log))
+			this.itemIndex.add(log);
+		this.tickScheduler.register(log);
 		log.setWorld(this);
 	}
 	
@@ -1066,7 +1891,8 @@ public class World {
 	public void removeLog(Log log) {
 		if (hasAsItem(log)) {
 			this.logs.remove(log);
-			this.toRemoveFromGameObjects.add(log);
+			this.itemIndex.remove(log);
+			this.tickScheduler.unregister(log);
 			log.setWorld(null);
 		}
 	}
@@ -1187,8 +2013,9 @@ public class World {
 			throw new IllegalArgumentException();
 		if (boulder.getWorld() != this)
 			throw new IllegalArgumentException();
-		this.boulders.add(boulder);
-		this.toAddToGameObjects.add(boulder);
+		if (this.boulders.add(boulder))
+			this.itemIndex.add(boulder);
+		this.tickScheduler.register(boulder);
 		boulder.setWorld(this);
 	}
 	
@@ -1210,7 +2037,8 @@ public class World {
 	public void removeBoulder(Boulder boulder) {
 		if (hasAsItem(boulder)) {
 			this.boulders.remove(boulder);
-			this.toRemoveFromGameObjects.add(boulder);
+			this.itemIndex.remove(boulder);
+			this.tickScheduler.unregister(boulder);
 			boulder.setWorld(null);
 		}
 	}
@@ -1244,27 +2072,144 @@ public class World {
 	 **********************************************************/
 	
 	
+	/**
+	 * Return the path finder searching paths in this world.
+	 */
+	public PathFinder getPathFinder() {
+		if (this.pathFinder == null)
+			this.pathFinder = new PathFinder(this);
+		return this.pathFinder;
+	}
+	
+	/**
+	 * Variable referencing the path finder of this world, which is only
+	 * created once a nit asks for a path.
+	 */
+	private PathFinder pathFinder;
+	
+	
+	/**
+	 * Return the path finder answering long path queries in this world on
+	 * an abstract graph over chunks of its terrain.
+	 */
+	public HierarchicalPathFinder getHierarchicalPathFinder() {
+		if (this.hierarchicalPathFinder == null)
+			this.hierarchicalPathFinder = new HierarchicalPathFinder(this);
+		return this.hierarchicalPathFinder;
+	}
+	
+	/**
+	 * Variable referencing the hierarchical path finder of this world, which
+	 * is only created once a nit asks for a path.
+	 */
+	private HierarchicalPathFinder hierarchicalPathFinder;
+	
+	
+	/**
+	 * Return the service labelling the cubes of this world with the connected
+	 * component they belong to, for each movement rule.
+	 */
+	public ReachabilityLabels getReachabilityLabels() {
+		if (this.reachabilityLabels == null)
+			this.reachabilityLabels = new ReachabilityLabels(this);
+		return this.reachabilityLabels;
+	}
+	
+	/**
+	 * Variable referencing the labelling service of this world, which is
+	 * only created once a nit asks whether a cube is reachable.
+	 */
+	private ReachabilityLabels reachabilityLabels;
+	
+	
+	/**
+	 * Compute a route from the given start cube to the given destination
+	 * cube, for a nit following the given movement rule. The hierarchical
+	 * path finder of this world determines the waypoints of the route, after
+	 * which only the path to the first waypoint is computed.
+	 * 
+	 * @return	If the destination is reachable from the start cube and a path
+	 * 			to the first waypoint can be found within the node budget of the
+	 * 			path finder of this world, a route with those waypoints and that
+	 * 			path.
+	 * 			| let waypoints = getHierarchicalPathFinder().findRoute(start,
+	 * 			|		destination, rule)
+	 * 			| in result.getWaypoints() == waypoints
+	 * 			|	&& result.getPath() == getPathFinder().findPath(start, 
+	 * 			|		waypoints[0], rule)
+	 * @return	Otherwise, a route with the destination as its only waypoint,
+	 * 			and a path straight to it if the waypoints were further away,
+	 * 			or no path at all.
+	 */
+	public Route computeRoute(Coordinate start, Coordinate destination, MovementRule rule) {
+		PathFinder pathFinder = getPathFinder();
+		int[] waypoints = new int[] { pathFinder.indexOf(destination) };
+		int[] path = null;
+		if (getReachabilityLabels().isReachable(start, destination, rule)) {
+			waypoints = getHierarchicalPathFinder().findRoute(start, destination, rule);
+			path = pathFinder.findPath(start, pathFinder.coordinateOf(waypoints[0]), rule);
+		}
+		if (path == null && waypoints.length > 1) {
+			waypoints = new int[] { pathFinder.indexOf(destination) };
+			path = pathFinder.findPath(start, destination, rule);
+		}
+		return new Route(waypoints, path);
+	}
+	
+	
+	/**
+	 * Return the service keeping distance fields towards popular destinations
+	 * in this world.
+	 */
+	public DistanceFields getDistanceFields() {
+		if (this.distanceFields == null)
+			this.distanceFields = new DistanceFields(this);
+		return this.distanceFields;
+	}
+	
+	/**
+	 * Variable referencing the distance field service of this world, which 
+	 * is only created once a nit asks for a path.
+	 */
+	private DistanceFields distanceFields;
+	
+	
+	
 	
 	public boolean isSolidConnectedToBorder(int x, int y, int z) {
 		return getConnectedToBorderChecker().isSolidConnectedToBorder(x, y, z);
 	}
 	
 	
+	/**
+	 * Collapse the cube with the given coordinate, turning it into air and 
+	 * leaving a boulder or log with the given probability, and let every solid 
+	 * cube that is no longer connected to the border cave in.
+	 */
 	public void collapse(Coordinate coordinate, double diceTreshold) {
+		List<Item> newItems = new ArrayList<Item>();
+		collapse(coordinate, diceTreshold, newItems);
+		caveIn(newItems);
+	}
+	
+	
+	/**
+	 * Collapse the cube with the given coordinate, adding the boulder or log it
+	 * leaves, if any, to the given list instead of to this world.
+	 */
+	private void collapse(Coordinate coordinate, double diceTreshold, List<Item> newItems) {
 		double dice = random.nextDouble();
 		
 		if (getCubeTypeAt(coordinate) == TerrainType.ROCK) {
 			setCubeTypeAt(coordinate, TerrainType.AIR);
 			if (dice < diceTreshold) {
-				Boulder boulder = new Boulder(coordinate, this);
-				addBoulder(boulder);
+				newItems.add(new Boulder(coordinate, this));
 			}
 		}
 		else if (getCubeTypeAt(coordinate) == TerrainType.TREE) {
 			setCubeTypeAt(coordinate, TerrainType.AIR);
 			if (dice < diceTreshold) {
-				Log log = new Log(coordinate, this);
-				addLog(log);
+				newItems.add(new Log(coordinate, this));
 			}
 		}
 		else if (getCubeTypeAt(coordinate) == TerrainType.WATER) {
@@ -1274,44 +2219,118 @@ public class World {
 	
 	
 	@Basic @Immutable
-	private ConnectedToBorder getConnectedToBorderChecker() {
+	private BorderConnectivity getConnectedToBorderChecker() {
 		return this.connectedToBorderChecker;
 	}
 	
 	
+	/**
+	 * Tell the border connectivity checker about the passable cubes of this 
+	 * world, which it initially assumes to be solid, and schedule each solid 
+	 * cube that is not connected to the border to cave in.
+	 */
 	private void caveInAll() {
-		for (int x = 0; x < terrainTypes.length; x++) {
-			for (int y = 0; y < terrainTypes[0].length; y++) {
-				for (int z = 0; z < terrainTypes[0][0].length; z++) {
-					int[] coordinate = new int[]{x,y,z};
-					Coordinate cubeCoordinate = new Coordinate(x, y, z);
-					if(!getCubeTypeAt(cubeCoordinate).isPassable() && !isSolidConnectedToBorder(x, y, z)) {
-
-						collapse(cubeCoordinate, 0.25);
-						this.modelListener.notifyTerrainChanged(x, y, z);
-						caveIn(coordinate);
-					}
-					
-					
-				}
-			}
+		int nbX = getNbCubesX(), nbY = getNbCubesY(), nbZ = getNbCubesZ();
+		for (int z = 0; z < nbZ; z++)
+			for (int y = 0; y < nbY; y++)
+				for (int x = 0; x < nbX; x++)
+					if (isPassable(x, y, z))
+						getConnectedToBorderChecker().changeSolidToPassable(x, y, z);
+		for (int z = 0; z < nbZ; z++)
+			for (int y = 0; y < nbY; y++)
+				for (int x = 0; x < nbX; x++)
+					if (!isPassable(x, y, z) && !isSolidConnectedToBorder(x, y, z))
+						scheduleCaveIn(this.terrain.indexOf(x, y, z));
+	}
+	
+	
+	/**
+	 * Tell the border connectivity checker that the cube with the given 
+	 * coordinates has become passable or solid, and schedule the solid cubes
+	 * that are disconnected from the border by it to cave in.
+	 */
+	private void updateConnectivity(int x, int y, int z, boolean passable) {
+		if (!passable) {
+			getConnectedToBorderChecker().changePassableToSolid(x, y, z);
+			return;
 		}
+		for (int[] cube: getConnectedToBorderChecker().changeSolidToPassable(x, y, z))
+			scheduleCaveIn(this.terrain.indexOf(cube[0], cube[1], cube[2]));
 	}
 	
-	private void caveIn(int[] coordinate) {
-		List<int[]> changed = getConnectedToBorderChecker().changeSolidToPassable(coordinate[0],
-				coordinate[1], coordinate[2]);
-		for (int[] cube: changed) {
-			Coordinate cubeCoordinate = new Coordinate(cube[0], cube[1], cube[2]);
-			if (!getCubeTypeAt(cubeCoordinate).isPassable() ) {
-				collapse(cubeCoordinate, 0.25);
-				this.modelListener.notifyTerrainChanged(cube[0], cube[1], cube[2]);
-				caveIn(cube);
-			}
+	
+	private void scheduleCaveIn(int cube) {
+		if (this.isCaveInScheduled == null)
+			this.isCaveInScheduled = new boolean[this.terrain.getNbCubes()];
+		if (this.isCaveInScheduled[cube])
+			return;
+		this.isCaveInScheduled[cube] = true;
+		if (this.nbScheduledCaveIns == this.scheduledCaveIns.length)
+			this.scheduledCaveIns = Arrays.copyOf(this.scheduledCaveIns, 2 * this.nbScheduledCaveIns);
+		this.scheduledCaveIns[this.nbScheduledCaveIns++] = cube;
+	}
+	
+	
+	/**
+	 * Let every scheduled solid cube that is still not connected to the border
+	 * cave in, until no cube is scheduled anymore, then add the given items and
+	 * the items left by the collapsed cubes to this world. Outside a time step,
+	 * all terrain changes are then reported to the terrain change listener at 
+	 * once; during a time step, they are reported at its end.
+	 */
+	private void caveIn(List<Item> newItems) {
+		while (this.nbScheduledCaveIns > 0) {
+			int cube = this.scheduledCaveIns[--this.nbScheduledCaveIns];
+			this.isCaveInScheduled[cube] = false;
+			Coordinate coordinate = getCoordinateAt(cube);
+			if (!isPassable(coordinate.get(0), coordinate.get(1), coordinate.get(2)) 
+					&& !isSolidConnectedToBorder(coordinate.get(0), coordinate.get(1), coordinate.get(2)))
+				collapse(coordinate, 0.25, newItems);
+		}
+		for (Item item: newItems)
+			addItem(item);
+		if (!this.isAdvancingTime)
+			notifyTerrainChanges();
+	}
+	
+	
+	/**
+	 * Report the cubes changed since the last report to the terrain change 
+	 * listener of this world, in a single batch.
+	 */
+	private void notifyTerrainChanges() {
+		if (this.terrainChanges.isEmpty())
+			return;
+		try {
+			this.modelListener.notifyTerrainChanged(this.terrainChanges);
+		}
+		finally {
+			this.terrainChanges.clear();
 		}
 	}
 	
 	
+	/**
+	 * The cubes scheduled to cave in, as a stack of flat indices, and whether 
+	 * each cube of this world is scheduled.
+	 */
+	private int[] scheduledCaveIns = new int[16];
+	private int nbScheduledCaveIns = 0;
+	private boolean[] isCaveInScheduled;
+	
+	/**
+	 * The cubes changed since the last report to the terrain change listener,
+	 * each cube once.
+	 */
+	private final DirtyRegion terrainChanges;
+	
+	/**
+	 * Variable registering whether this world is advancing time, during which
+	 * terrain changes are coalesced and reported at the end of the time step.
+	 */
+	private boolean isAdvancingTime = false;
+	
+	
 	public enum TerrainType {
 		AIR(true, 0),
 		ROCK(false, 1),
@@ -1349,13 +2368,27 @@ public class World {
 		}
 		
 		public static TerrainType byOrdinal(int ord) {
-	        for (TerrainType t : TerrainType.values()) {
-	            if (t.getNumber() == ord) {
-	                return t;
-	            }
-	        }
-	        return null;
-	    }
+			if (ord < 0 || ord >= byNumber.length)
+				return null;
+			return byNumber[ord];
+		}
+		
+		/**
+		 * Check whether terrain with the given type number is passable.
+		 */
+		public static boolean isPassable(int number) {
+			return passableByNumber[number];
+		}
+		
+		private static final TerrainType[] byNumber = new TerrainType[values().length];
+		private static final boolean[] passableByNumber = new boolean[values().length];
+		
+		static {
+			for (TerrainType t : values()) {
+				byNumber[t.getNumber()] = t;
+				passableByNumber[t.getNumber()] = t.isPassable();
+			}
+		}
 		
 	}
 	
@@ -1402,13 +2435,13 @@ public class World {
 			if (!nit.isTerminated()) {
 				nit.setWorld(null);
 				this.nits.remove(nit);
+				this.nitIndex.remove(nit);
 			}
 		}
-		//this.factions.clear(); (IF WE CHOOSE TO MAKE FACTIONS A LIST)
-		for (Faction faction: this.factions) {
+		for (Faction faction: getAllFactions()) {
 			if (!faction.isTerminated()) {
-				faction.setWorld(null);
 				this.factions.remove(faction);
+				faction.setWorld(null);
 			}
 		}
 		
@@ -1417,12 +2450,14 @@ public class World {
 			if (!log.isTerminated()) {
 				log.setWorld(null);
 				this.logs.remove(log);
+				this.itemIndex.remove(log);
 			}
 		}
 		for (Boulder boulder: this.boulders) {
 			if (!boulder.isTerminated()) {
 				boulder.setWorld(null);
 				this.boulders.remove(boulder);
+				this.itemIndex.remove(boulder);
 			}
 		}
 		
@@ -1,8 +1,9 @@
 package hillbillies.model.expression;
 
+import hillbillies.model.Task;
 import hillbillies.model.Unit;
 
-public class Any extends Expression<Unit> {
+public class Any extends NullaryExpression<Unit> {
 	
 	public Any() {
 		
@@ -10,10 +11,10 @@ public class Any extends Expression<Unit> {
 	
 	
 	@Override
-	public Unit evaluate() {
+	public Unit evaluate(Task task) {
 		Unit anyUnit = null;
-		for (Unit unit2: getTask().getAssignedUnit().getWorld().getAllUnits()) {
-			if (getTask().getAssignedUnit() != unit2) {
+		for (Unit unit2: task.getAssignedUnit().getWorld().getAllUnits()) {
+			if (task.getAssignedUnit() != unit2) {
 				return unit2;
 			}
 		}
@@ -2,8 +2,9 @@ package hillbillies.model.expression;
 
 import hillbillies.model.Boulder;
 import hillbillies.model.Coordinate;
+import hillbillies.model.Task;
 
-public class BoulderPosition extends Expression<Coordinate> {
+public class BoulderPosition extends NullaryExpression<Coordinate> {
 	
 	
 	public BoulderPosition() {
@@ -12,9 +13,9 @@ public class BoulderPosition extends Expression<Coordinate> {
 	
 	
 	@Override 
-	public Coordinate evaluate() {
+	public Coordinate evaluate(Task task) {
 		Coordinate boulderCoordinateNull = null;
-		for (Boulder boulder: getTask().getAssignedUnit().getWorld().getAllBoulders()) {
+		for (Boulder boulder: task.getAssignedUnit().getWorld().getAllBoulders()) {
 			return boulder.getCoordinate();
 		}
 		return boulderCoordinateNull;
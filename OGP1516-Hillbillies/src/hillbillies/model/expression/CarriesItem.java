@@ -1,21 +1,17 @@
 package hillbillies.model.expression;
 
+import hillbillies.model.Task;
 import hillbillies.model.Unit;
 
-public class CarriesItem extends Expression<Boolean> {
-	
-	private final Expression<Unit> unit2;
+public class CarriesItem extends UnaryExpression<Boolean> {
 
 	public CarriesItem(Expression<Unit> unit2) {
-		this.unit2 = unit2;
-		
+		super(unit2);
 	}
 	
 	@Override
-	public Boolean evaluate() {
-		this.unit2.setTask(getTask());
-		
-		return this.unit2.evaluate().isCarryingItem();
+	public Boolean evaluate(Task task, Object unit2) {
+		return ((Unit) unit2).isCarryingItem();
 	}
 
 }
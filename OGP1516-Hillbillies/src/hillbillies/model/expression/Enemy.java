@@ -1,17 +1,18 @@
 package hillbillies.model.expression;
 
+import hillbillies.model.Task;
 import hillbillies.model.Unit;
 
-public class Enemy extends Expression<Unit> {
+public class Enemy extends NullaryExpression<Unit> {
 	
 	public Enemy() {
 		
 	}
 
 	@Override
-	public Unit evaluate() {
+	public Unit evaluate(Task task) {
 		Unit enemyNull = null;
-		Unit currentUnit = getTask().getAssignedUnit();
+		Unit currentUnit = task.getAssignedUnit();
 		for (Unit enemy: currentUnit.getWorld().getAllUnits()) {
 			if (enemy.getFaction() != currentUnit.getFaction())
 				return enemy;
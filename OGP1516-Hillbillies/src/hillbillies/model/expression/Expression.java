@@ -1,19 +1,13 @@
 package hillbillies.model.expression;
 
-import hillbillies.model.Task;
+import hillbillies.model.program.ProgramBuilder;
 
 public abstract class Expression<Type> {
 	
-	private Task task;
-	
-	protected Task getTask() {
-		return this.task;
-	}
-	
-	public void setTask(Task task) {
-		this.task = task;
-	}
-	
-	public abstract Type evaluate();
+	/**
+	 * Append the instructions that push the value of this expression to
+	 * the given builder.
+	 */
+	public abstract void compile(ProgramBuilder builder);
 
 }
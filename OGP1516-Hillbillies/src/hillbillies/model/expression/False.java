@@ -1,5 +1,7 @@
 package hillbillies.model.expression;
 
+import hillbillies.model.program.Program;
+import hillbillies.model.program.ProgramBuilder;
 
 public class False extends Expression<Boolean> {
 	
@@ -10,9 +12,8 @@ public class False extends Expression<Boolean> {
 	
 	
 	@Override
-	public Boolean evaluate() {
-		return false;
+	public void compile(ProgramBuilder builder) {
+		builder.emit(Program.PUSH, builder.constant(Boolean.FALSE));
 	}
 	
-	
 }
@@ -1,8 +1,9 @@
 package hillbillies.model.expression;
 
+import hillbillies.model.Task;
 import hillbillies.model.Unit;
 
-public class Friend extends Expression<Unit> {
+public class Friend extends NullaryExpression<Unit> {
 	
 	
 	public Friend() {
@@ -10,9 +11,9 @@ public class Friend extends Expression<Unit> {
 	}
 
 	@Override
-	public Unit evaluate() {
+	public Unit evaluate(Task task) {
 		Unit friendNull = null;
-		Unit currentUnit = getTask().getAssignedUnit();
+		Unit currentUnit = task.getAssignedUnit();
 		for (Unit friend: currentUnit.getWorld().getAllUnits()) {
 			if (friend.getFaction() == currentUnit.getFaction())
 				return friend;
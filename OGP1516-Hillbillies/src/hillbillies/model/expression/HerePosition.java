@@ -1,8 +1,9 @@
 package hillbillies.model.expression;
 
 import hillbillies.model.Coordinate;
+import hillbillies.model.Task;
 
-public class HerePosition extends Expression<Coordinate> {
+public class HerePosition extends NullaryExpression<Coordinate> {
 	
 	
 	
@@ -12,9 +13,9 @@ public class HerePosition extends Expression<Coordinate> {
 	
 	
 	@Override 
-	public Coordinate evaluate() {
+	public Coordinate evaluate(Task task) {
 		
-		return getTask().getAssignedUnit().getCoordinate();
+		return task.getAssignedUnit().getCoordinate();
 	}
 	
 	
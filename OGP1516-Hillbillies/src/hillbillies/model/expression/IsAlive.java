@@ -1,22 +1,18 @@
 package hillbillies.model.expression;
 
+import hillbillies.model.Task;
 import hillbillies.model.Unit;
 
-public class IsAlive extends Expression<Boolean> {
-
-	private final Expression<Unit> unit2;
+public class IsAlive extends UnaryExpression<Boolean> {
 	
 	public IsAlive(Expression<Unit> unit2) {
-		this.unit2 = unit2;
-		
+		super(unit2);
 	}
 	
 	
 	@Override
-	public Boolean evaluate() {
-		this.unit2.setTask(getTask());
-		
-		return !this.unit2.evaluate().isTerminated();
+	public Boolean evaluate(Task task, Object unit2) {
+		return !((Unit) unit2).isTerminated();
 	}
 
 }
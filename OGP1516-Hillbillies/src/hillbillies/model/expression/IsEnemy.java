@@ -1,24 +1,20 @@
 package hillbillies.model.expression;
 
+import hillbillies.model.Task;
 import hillbillies.model.Unit;
 
 
-public class IsEnemy extends Expression<Boolean> {
-	
-	
-	private final Expression<Unit> unit2;
+public class IsEnemy extends UnaryExpression<Boolean> {
 
 	
 	public IsEnemy(Expression<Unit> unit2) {
-		this.unit2 = unit2;
+		super(unit2);
 	}
 	
 	
 	@Override
-	public Boolean evaluate() {
-		this.unit2.setTask(getTask());
-		
-		return (unit2.evaluate().getFaction() != getTask().getAssignedUnit().getFaction());
+	public Boolean evaluate(Task task, Object unit2) {
+		return (((Unit) unit2).getFaction() != task.getAssignedUnit().getFaction());
 	}
 	
 }
@@ -2,21 +2,17 @@ package hillbillies.model.expression;
 
 
 import hillbillies.model.Coordinate;
+import hillbillies.model.Task;
 
-public class IsPassable extends Expression<Boolean> {
-	
-	private final Expression<Coordinate> position;
+public class IsPassable extends UnaryExpression<Boolean> {
 
 	public IsPassable(Expression<Coordinate> position) {
-		this.position = position;
-		
+		super(position);
 	}
 	
 	@Override
-	public Boolean evaluate() {
-		this.position.setTask(getTask());
-		
-		return getTask().getAssignedUnit().getWorld().getCubeTypeAt(position.evaluate()).isPassable();
+	public Boolean evaluate(Task task, Object position) {
+		return task.getAssignedUnit().getWorld().getCubeTypeAt((Coordinate) position).isPassable();
 	}
 
 }
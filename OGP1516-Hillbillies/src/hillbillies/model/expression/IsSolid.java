@@ -1,22 +1,18 @@
 package hillbillies.model.expression;
 
 import hillbillies.model.Coordinate;
+import hillbillies.model.Task;
 
-public class IsSolid extends Expression<Boolean> {
-
-	private final Expression<Coordinate> position;
+public class IsSolid extends UnaryExpression<Boolean> {
 
 	public IsSolid(Expression<Coordinate> position) {
-		this.position = position;
-		
+		super(position);
 	}
 	
 	@Override
-	public Boolean evaluate() {
-		this.position.setTask(getTask());
-		
-		return !getTask().getAssignedUnit().getWorld()
-				.getCubeTypeAt(position.evaluate()).isPassable();
+	public Boolean evaluate(Task task, Object position) {
+		return !task.getAssignedUnit().getWorld()
+				.getCubeTypeAt((Coordinate) position).isPassable();
 	}
 
 }
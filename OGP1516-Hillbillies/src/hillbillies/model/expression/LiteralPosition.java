@@ -1,6 +1,8 @@
 package hillbillies.model.expression;
 
 import hillbillies.model.Coordinate;
+import hillbillies.model.program.Program;
+import hillbillies.model.program.ProgramBuilder;
 
 public class LiteralPosition extends Expression<Coordinate> {
 	
@@ -12,10 +14,9 @@ public class LiteralPosition extends Expression<Coordinate> {
 	}
 
 	
-	@Override 
-	public Coordinate evaluate() {
-		
-		return this.coordinate;
+	@Override
+	public void compile(ProgramBuilder builder) {
+		builder.emit(Program.PUSH, builder.constant(this.coordinate));
 	}
 	
 	
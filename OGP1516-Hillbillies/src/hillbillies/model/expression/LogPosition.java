@@ -2,8 +2,9 @@ package hillbillies.model.expression;
 
 import hillbillies.model.Log;
 import hillbillies.model.Coordinate;
+import hillbillies.model.Task;
 
-public class LogPosition extends Expression<Coordinate> {
+public class LogPosition extends NullaryExpression<Coordinate> {
 	
 	
 	public LogPosition() {
@@ -12,9 +13,9 @@ public class LogPosition extends Expression<Coordinate> {
 	
 	
 	@Override 
-	public Coordinate evaluate() {
+	public Coordinate evaluate(Task task) {
 		Coordinate logCoordinateNull = null;
-		for (Log log: getTask().getAssignedUnit().getWorld().getAllLogs()) {
+		for (Log log: task.getAssignedUnit().getWorld().getAllLogs()) {
 			return log.getCoordinate();
 		}
 		return logCoordinateNull;
@@ -1,33 +1,28 @@
 package hillbillies.model.expression;
 
 import hillbillies.model.Coordinate;
+import hillbillies.model.Task;
 import hillbillies.model.Unit;
 
-public class NextToPosition extends Expression<Coordinate> {
-
-	private final Expression<Coordinate> position;
+public class NextToPosition extends UnaryExpression<Coordinate> {
 	
 	public NextToPosition(Expression<Coordinate> position) {
-		this.position = position;
-		//this.position.setTask(getTask());
+		super(position);
 	}
 	
 	
 	@Override 
-	public Coordinate evaluate() {
-		this.position.setTask(getTask());
-		
+	public Coordinate evaluate(Task task, Object position) {
 		Coordinate cube;
-		Unit currentUnit = getTask().getAssignedUnit();
+		Unit currentUnit = task.getAssignedUnit();
 		int i = 0;
 		do {
-			cube = currentUnit.getWorld().getRandomNeighbouringCube(this.position.evaluate());
+			cube = currentUnit.getRandomNeighbouringCube((Coordinate) position);
 			i++;
 		} while ((!currentUnit.canHaveAsPosition(cube) || currentUnit.wouldFall(cube)) && i < 30);
 		return cube;
 	}
 	
 	
-	
 
 }
@@ -1,5 +1,7 @@
 package hillbillies.model.expression;
 
+import hillbillies.model.program.Program;
+import hillbillies.model.program.ProgramBuilder;
 
 public class Not extends Expression<Boolean> {
 	
@@ -12,10 +14,9 @@ public class Not extends Expression<Boolean> {
 	}
 	
 	@Override
-	public Boolean evaluate() {
-		this.expression.setTask(getTask());
-		
-		return !this.expression.evaluate();
+	public void compile(ProgramBuilder builder) {
+		this.expression.compile(builder);
+		builder.emit(Program.NOT);
 	}
-
+	
 }
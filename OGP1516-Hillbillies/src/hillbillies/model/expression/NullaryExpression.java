@@ -0,0 +1,33 @@
+package hillbillies.model.expression;
+
+import hillbillies.model.Task;
+import hillbillies.model.program.Program;
+import hillbillies.model.program.ProgramBuilder;
+
+/**
+ * A class of expressions without operands, whose value is computed from the
+ * task and its nit when the program of the task runs.
+ * 
+ * @author Ruben Cartuyvels
+ * @version 1.0
+ */
+public abstract class NullaryExpression<Type> extends Expression<Type> {
+	
+	/**
+	 * Return the value of this expression for the given task.
+	 */
+	public abstract Type evaluate(Task task);
+	
+	
+	/**
+	 * Append the instruction that pushes the value of this expression to the
+	 * given builder.
+	 * 
+	 * @effect	| builder.emit(Program.QUERY, builder.constant(this))
+	 */
+	@Override
+	public void compile(ProgramBuilder builder) {
+		builder.emit(Program.QUERY, builder.constant(this));
+	}
+
+}
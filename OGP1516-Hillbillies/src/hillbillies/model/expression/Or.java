@@ -1,5 +1,7 @@
 package hillbillies.model.expression;
 
+import hillbillies.model.program.Program;
+import hillbillies.model.program.ProgramBuilder;
 
 public class Or extends Expression<Boolean> {
 
@@ -15,11 +17,11 @@ public class Or extends Expression<Boolean> {
 	}
 	
 	@Override
-	public Boolean evaluate() {
-		this.left.setTask(getTask());
-		this.right.setTask(getTask());
-		
-		return (this.left.evaluate() || this.right.evaluate());
+	public void compile(ProgramBuilder builder) {
+		this.left.compile(builder);
+		int jump = builder.emit(Program.JUMP_IF_TRUE_OR_POP, -1);
+		this.right.compile(builder);
+		builder.patchHere(jump);
 	}
 	
 }
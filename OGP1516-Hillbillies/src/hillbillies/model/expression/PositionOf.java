@@ -1,24 +1,19 @@
 package hillbillies.model.expression;
 
 import hillbillies.model.Coordinate;
+import hillbillies.model.Task;
 import hillbillies.model.Unit;
 
-public class PositionOf extends Expression<Coordinate> {
-	
-	
-	private final Expression<Unit> unit2;
+public class PositionOf extends UnaryExpression<Coordinate> {
 
 	public PositionOf(Expression<Unit> unit2) {
-		this.unit2 = unit2;
-		
+		super(unit2);
 	}
 	
 	
 	@Override 
-	public Coordinate evaluate() {
-		this.unit2.setTask(getTask());
-		
-		return unit2.evaluate().getCoordinate();
+	public Coordinate evaluate(Task task, Object unit2) {
+		return ((Unit) unit2).getObservedCoordinate();
 	}
 	
 	
@@ -1,17 +1,19 @@
 package hillbillies.model.expression;
 
+import hillbillies.model.program.Program;
+import hillbillies.model.program.ProgramBuilder;
 
 public class ReadVariable extends Expression<Object> {
 	
-	private final String variableName;
+	private final int slot;
 
-	public ReadVariable(String variableName) {
-		this.variableName = variableName;
+	public ReadVariable(int slot) {
+		this.slot = slot;
 	}
 	
 	@Override
-	public Object evaluate() {
-		return getTask().getVariableFromName(this.variableName);
+	public void compile(ProgramBuilder builder) {
+		builder.emit(Program.LOAD, this.slot);
 	}
-
+	
 }
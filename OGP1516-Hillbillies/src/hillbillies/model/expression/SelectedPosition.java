@@ -1,8 +1,9 @@
 package hillbillies.model.expression;
 
 import hillbillies.model.Coordinate;
+import hillbillies.model.Task;
 
-public class SelectedPosition extends Expression<Coordinate> {
+public class SelectedPosition extends NullaryExpression<Coordinate> {
 	
 	
 	public SelectedPosition() {
@@ -11,8 +12,8 @@ public class SelectedPosition extends Expression<Coordinate> {
 	
 	
 	@Override 
-	public Coordinate evaluate() {
-		return getTask().getCube();
+	public Coordinate evaluate(Task task) {
+		return task.getCube();
 	}
 	
 	
@@ -1,16 +1,17 @@
 package hillbillies.model.expression;
 
+import hillbillies.model.Task;
 import hillbillies.model.Unit;
 
-public class This extends Expression<Unit> {
+public class This extends NullaryExpression<Unit> {
 	
 	public This() {
 		
 	}
 	
 	@Override
-	public Unit evaluate() {
-		return getTask().getAssignedUnit();
+	public Unit evaluate(Task task) {
+		return task.getAssignedUnit();
 	}
 	
 }
@@ -1,5 +1,7 @@
 package hillbillies.model.expression;
 
+import hillbillies.model.program.Program;
+import hillbillies.model.program.ProgramBuilder;
 
 public class True extends Expression<Boolean> {
 	
@@ -9,8 +11,8 @@ public class True extends Expression<Boolean> {
 	
 	
 	@Override
-	public Boolean evaluate() {
-		return true;
+	public void compile(ProgramBuilder builder) {
+		builder.emit(Program.PUSH, builder.constant(Boolean.TRUE));
 	}
-
+	
 }
@@ -0,0 +1,59 @@
+package hillbillies.model.expression;
+
+import be.kuleuven.cs.som.annotate.*;
+import hillbillies.model.Task;
+import hillbillies.model.program.Program;
+import hillbillies.model.program.ProgramBuilder;
+
+/**
+ * A class of expressions with a single operand, whose value is computed from
+ * the value of that operand when the program of the task runs.
+ * 
+ * @author Ruben Cartuyvels
+ * @version 1.0
+ */
+public abstract class UnaryExpression<Type> extends Expression<Type> {
+	
+	/**
+	 * Initialize this new expression with the given operand.
+	 * 
+	 * @post	| new.getOperand() == operand
+	 */
+	protected UnaryExpression(Expression<?> operand) {
+		this.operand = operand;
+	}
+	
+	
+	/**
+	 * Return the operand of this expression.
+	 */
+	@Basic @Immutable
+	public Expression<?> getOperand() {
+		return this.operand;
+	}
+	
+	private final Expression<?> operand;
+	
+	
+	/**
+	 * Return the value of this expression for the given task, if its operand
+	 * has the given value.
+	 */
+	public abstract Type evaluate(Task task, Object operand);
+	
+	
+	/**
+	 * Append the instructions that push the value of the operand of this
+	 * expression and replace it by the value of this expression to the given
+	 * builder.
+	 * 
+	 * @effect	| getOperand().compile(builder)
+	 * @effect	| builder.emit(Program.APPLY, builder.constant(this))
+	 */
+	@Override
+	public void compile(ProgramBuilder builder) {
+		this.operand.compile(builder);
+		builder.emit(Program.APPLY, builder.constant(this));
+	}
+
+}
@@ -1,10 +1,11 @@
 package hillbillies.model.expression;
 
 import hillbillies.model.Coordinate;
+import hillbillies.model.Task;
 import hillbillies.model.Unit;
 import hillbillies.model.World.TerrainType;
 
-public class WorkshopPosition extends Expression<Coordinate> {
+public class WorkshopPosition extends NullaryExpression<Coordinate> {
 	
 	public WorkshopPosition() {
 		
@@ -12,12 +13,12 @@ public class WorkshopPosition extends Expression<Coordinate> {
 	
 	
 	@Override 
-	public Coordinate evaluate() {
+	public Coordinate evaluate(Task task) {
 		Coordinate workshopCoordinateNull = null;
 		
 		Coordinate coordinate = null;
 		
-		Unit currentUnit = getTask().getAssignedUnit();
+		Unit currentUnit = task.getAssignedUnit();
 		int x = currentUnit.getWorld().getNbCubesX();
 		int y = currentUnit.getWorld().getNbCubesY();
 		int z = currentUnit.getWorld().getNbCubesZ();
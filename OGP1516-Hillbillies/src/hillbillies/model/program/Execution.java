@@ -0,0 +1,219 @@
+package hillbillies.model.program;
+
+import be.kuleuven.cs.som.annotate.*;
+import hillbillies.model.Coordinate;
+import hillbillies.model.Nit;
+import hillbillies.model.Task;
+import hillbillies.model.expression.NullaryExpression;
+import hillbillies.model.expression.UnaryExpression;
+
+/**
+ * A class of executions of a program by a task.
+ *
+ * An execution keeps the position of the next instruction to run and the
+ * operand stack, so that a task can run its program in steps spread over
+ * several time steps. Each statement takes one step of 0.001 seconds;
+ * evaluating expressions and jumping takes no time. After a statement that
+ * gives its nit an activity, the execution stops until the next time the
+ * task is executed, which is when the nit is idle again.
+ *
+ * @invar	The position of the next instruction lies within the program or
+ * 			right after it.
+ * 			| 0 <= getPosition() && getPosition() <= getProgram().getLength()
+ *
+ * @author Ruben Cartuyvels
+ * @version 1.0
+ */
+public class Execution {
+
+	/**
+	 * Initialize this new execution of the given program, at its first
+	 * instruction.
+	 *
+	 * @post	| new.getProgram() == program
+	 * @post	| new.getPosition() == 0
+	 * @throws	IllegalArgumentException
+	 * 			| program == null
+	 */
+	public Execution(Program program) throws IllegalArgumentException {
+		if (program == null)
+			throw new IllegalArgumentException();
+		this.program = program;
+		this.stack = new Object[program.getMaxStackDepth()];
+	}
+
+
+	/**
+	 * Return the program of this execution.
+	 */
+	@Basic @Immutable
+	public Program getProgram() {
+		return this.program;
+	}
+
+	private final Program program;
+
+
+	/**
+	 * Return the position of the next instruction of this execution.
+	 */
+	@Basic
+	public int getPosition() {
+		return this.pc;
+	}
+
+	/**
+	 * Check whether this execution has run all of its program.
+	 *
+	 * @return	| result == (getPosition() == getProgram().getLength())
+	 */
+	public boolean isFinished() {
+		return this.pc >= this.program.code.length;
+	}
+
+	/**
+	 * Restart this execution at the first instruction of its program.
+	 *
+	 * @post	| new.getPosition() == 0
+	 */
+	public void reset() {
+		this.pc = 0;
+		clearStack();
+	}
+
+
+	/**
+	 * Run the program of this execution for the given task, during the given
+	 * time.
+	 *
+	 * @param	task
+	 * 			The task whose program runs, and whose nit carries out its
+	 * 			statements.
+	 * @param	dt
+	 * 			The time during which to run. For each 0.001 seconds, one
+	 * 			statement is run.
+	 */
+	public void run(Task task, double dt) {
+		final int[] code = this.program.code;
+		final Object[] constants = this.program.constants;
+		final Object[] stack = this.stack;
+		int pc = this.pc;
+		int sp = this.sp;
+		int steps = (int) Math.ceil(dt / STEP_TIME);
+		try {
+			while (pc < code.length && steps > 0) {
+				switch (code[pc]) {
+				case Program.PUSH:
+					stack[sp++] = constants[code[pc + 1]];
+					pc += 2;
+					break;
+				case Program.LOAD:
+					stack[sp++] = task.getVariable(code[pc + 1]);
+					pc += 2;
+					break;
+				case Program.STORE:
+					task.setVariable(code[pc + 1], stack[--sp]);
+					pc += 2;
+					steps--;
+					break;
+				case Program.QUERY:
+					stack[sp++] = ((NullaryExpression<?>) constants[code[pc + 1]]).evaluate(task);
+					pc += 2;
+					break;
+				case Program.APPLY:
+					stack[sp - 1] = ((UnaryExpression<?>) constants[code[pc + 1]])
+							.evaluate(task, stack[sp - 1]);
+					pc += 2;
+					break;
+				case Program.NOT:
+					stack[sp - 1] = !(Boolean) stack[sp - 1];
+					pc += 1;
+					break;
+				case Program.JUMP:
+					pc = code[pc + 1];
+					break;
+				case Program.JUMP_IF_FALSE:
+					pc = ((Boolean) stack[--sp]) ? pc + 2 : code[pc + 1];
+					steps--;
+					break;
+				case Program.JUMP_IF_FALSE_OR_POP:
+					if ((Boolean) stack[sp - 1]) {
+						sp--;
+						pc += 2;
+					} else
+						pc = code[pc + 1];
+					break;
+				case Program.JUMP_IF_TRUE_OR_POP:
+					if ((Boolean) stack[sp - 1])
+						pc = code[pc + 1];
+					else {
+						sp--;
+						pc += 2;
+					}
+					break;
+				case Program.PRINT:
+					System.out.println(stack[--sp].toString());
+					pc += 1;
+					steps--;
+					break;
+				case Program.MOVE_TO:
+					pc += 1;
+					task.getAssignedNit().moveTo((Coordinate) stack[--sp]);
+					return;
+				case Program.WORK:
+					pc += 1;
+					task.getAssignedNit().workAt((Coordinate) stack[--sp]);
+					return;
+				case Program.ATTACK:
+					pc += 1;
+					task.getAssignedNit().attack((Nit) stack[--sp]);
+					return;
+				case Program.FOLLOW:
+					Nit nit = task.getAssignedNit();
+					Nit target = (Nit) stack[--sp];
+					if (target.isTerminated() || nit.getCoordinate().equals(target.getObservedCoordinate())
+							|| nit.getWorld().isNeighbouring(nit.getCoordinate(),
+									target.getObservedCoordinate())) {
+						pc += 2;
+						steps--;
+						break;
+					}
+					pc = code[pc + 1];
+					nit.moveTo(target.getObservedCoordinate());
+					return;
+				default:
+					throw new IllegalStateException();
+				}
+			}
+		} finally {
+			this.pc = pc;
+			this.sp = sp;
+		}
+	}
+
+
+	private void clearStack() {
+		for (int i = 0; i < this.sp; i++)
+			this.stack[i] = null;
+		this.sp = 0;
+	}
+
+
+	/**
+	 * The position of the next instruction.
+	 */
+	private int pc = 0;
+
+	/**
+	 * The operand stack, of which the first sp slots are in use.
+	 */
+	private final Object[] stack;
+
+	private int sp = 0;
+
+	/**
+	 * The time it takes to run one statement.
+	 */
+	private static final double STEP_TIME = 0.001;
+
+}
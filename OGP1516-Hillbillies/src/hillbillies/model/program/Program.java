@@ -0,0 +1,179 @@
+package hillbillies.model.program;
+
+import be.kuleuven.cs.som.annotate.*;
+import hillbillies.model.statement.Statement;
+
+/**
+ * A class of programs, the compiled form of the activities of a task.
+ *
+ * A program is a flat array of instructions, each an opcode followed by at
+ * most one operand, together with a pool of the constants the instructions
+ * refer to. Variables are numbered slots, given to their names while the
+ * task is parsed, so that each task keeps their values in an array of its
+ * own. Expressions push their values on an operand stack; statements pop
+ * them, and the control flow of if, while and break statements becomes jumps
+ * to instruction positions. A program is immutable, so the tasks created from
+ * the same activities can share it, each with its own execution.
+ *
+ * @author Ruben Cartuyvels
+ * @version 1.0
+ */
+public final class Program {
+
+	/**
+	 * Push the constant with the given index.
+	 */
+	public static final int PUSH = 0;
+
+	/**
+	 * Push the value of the variable in the given slot.
+	 */
+	public static final int LOAD = 1;
+
+	/**
+	 * Pop a value and assign it to the variable in the given slot.
+	 */
+	public static final int STORE = 2;
+
+	/**
+	 * Push the value of the expression that is the constant with the given
+	 * index, which has no operand.
+	 */
+	public static final int QUERY = 3;
+
+	/**
+	 * Pop a value and push the value of the expression that is the constant
+	 * with the given index for that value as its operand.
+	 */
+	public static final int APPLY = 4;
+
+	/**
+	 * Replace the boolean on top of the stack by its negation.
+	 */
+	public static final int NOT = 5;
+
+	/**
+	 * Jump to the given position.
+	 */
+	public static final int JUMP = 6;
+
+	/**
+	 * Pop a boolean and jump to the given position if it is false.
+	 */
+	public static final int JUMP_IF_FALSE = 7;
+
+	/**
+	 * Jump to the given position if the boolean on top of the stack is false,
+	 * and pop it otherwise.
+	 */
+	public static final int JUMP_IF_FALSE_OR_POP = 8;
+
+	/**
+	 * Jump to the given position if the boolean on top of the stack is true,
+	 * and pop it otherwise.
+	 */
+	public static final int JUMP_IF_TRUE_OR_POP = 9;
+
+	/**
+	 * Pop a value and print it.
+	 */
+	public static final int PRINT = 10;
+
+	/**
+	 * Pop a position and let the nit of the task move to it.
+	 */
+	public static final int MOVE_TO = 11;
+
+	/**
+	 * Pop a position and let the nit of the task work at it.
+	 */
+	public static final int WORK = 12;
+
+	/**
+	 * Pop a unit and let the nit of the task attack it.
+	 */
+	public static final int ATTACK = 13;
+
+	/**
+	 * Pop a unit and, unless the nit of the task stands next to it or it is
+	 * dead, let the nit move to it and jump back to the given position.
+	 */
+	public static final int FOLLOW = 14;
+
+
+	/**
+	 * Initialize this new program with the given instructions and constants.
+	 */
+	Program(int[] code, Object[] constants, int maxStackDepth, int nbVariables) {
+		this.code = code;
+		this.constants = constants;
+		this.maxStackDepth = maxStackDepth;
+		this.nbVariables = nbVariables;
+	}
+
+
+	/**
+	 * Return a new program compiled from the given activities.
+	 *
+	 * @throws	IllegalArgumentException
+	 * 			| activities == null
+	 */
+	public static Program compile(Statement activities) throws IllegalArgumentException {
+		if (activities == null)
+			throw new IllegalArgumentException();
+		ProgramBuilder builder = new ProgramBuilder();
+		activities.compile(builder);
+		return builder.build();
+	}
+
+
+	/**
+	 * Return the number of positions in the instructions of this program.
+	 */
+	@Basic @Immutable
+	public int getLength() {
+		return this.code.length;
+	}
+
+	/**
+	 * Return the largest number of values on the operand stack while this
+	 * program runs.
+	 */
+	@Basic @Immutable
+	public int getMaxStackDepth() {
+		return this.maxStackDepth;
+	}
+
+	/**
+	 * Return the number of variable slots this program uses, which is one
+	 * more than the highest slot it reads or assigns.
+	 */
+	@Basic @Immutable
+	public int getNbVariables() {
+		return this.nbVariables;
+	}
+
+
+	/**
+	 * The instructions of this program, each an opcode followed by its operand,
+	 * if it has one.
+	 */
+	final int[] code;
+
+	final Object[] constants;
+
+	private final int maxStackDepth;
+
+	private final int nbVariables;
+
+
+	/**
+	 * Return the number of positions taken by an instruction with the given
+	 * opcode.
+	 */
+	static int getSize(int opcode) {
+		return (opcode == NOT || opcode == PRINT || opcode == MOVE_TO || opcode == WORK
+				|| opcode == ATTACK) ? 1 : 2;
+	}
+
+}
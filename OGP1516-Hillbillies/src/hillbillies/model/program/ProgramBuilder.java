@@ -0,0 +1,199 @@
+package hillbillies.model.program;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import be.kuleuven.cs.som.annotate.*;
+
+/**
+ * A class of builders of programs, to which statements and expressions emit
+ * their instructions while they are compiled.
+ *
+ * A builder keeps track of the depth of the operand stack, the loops that
+ * enclose the current position, and the jumps whose target is not known yet.
+ *
+ * @author Ruben Cartuyvels
+ * @version 1.0
+ */
+public class ProgramBuilder {
+
+	/**
+	 * Initialize this new builder without any instructions.
+	 */
+	ProgramBuilder() {
+	}
+
+
+	/**
+	 * Return the position of the next instruction.
+	 */
+	@Basic
+	public int getPosition() {
+		return this.size;
+	}
+
+
+	/**
+	 * Append an instruction with the given opcode and without an operand.
+	 *
+	 * @return	The position of the instruction.
+	 */
+	public int emit(int opcode) {
+		return emit(opcode, 0);
+	}
+
+	/**
+	 * Append an instruction with the given opcode and operand. The operand of
+	 * an instruction that has none is ignored.
+	 *
+	 * @return	The position of the instruction.
+	 */
+	public int emit(int opcode, int operand) {
+		int position = this.size;
+		ensureCapacity(position + 2);
+		this.code[this.size++] = opcode;
+		if (Program.getSize(opcode) == 2)
+			this.code[this.size++] = operand;
+		adjustStackDepth(opcode);
+		if (opcode == Program.LOAD || opcode == Program.STORE)
+			this.nbVariables = Math.max(this.nbVariables, operand + 1);
+		return position;
+	}
+
+	/**
+	 * Set the target of the jump at the given position to the given position.
+	 */
+	public void patch(int jump, int target) {
+		this.code[jump + 1] = target;
+	}
+
+	/**
+	 * Set the target of the jump at the given position to the position of the
+	 * next instruction.
+	 */
+	public void patchHere(int jump) {
+		patch(jump, getPosition());
+	}
+
+
+	/**
+	 * Return the index of the given constant, adding it to the constants of
+	 * the program if it is not one of them yet.
+	 */
+	public int constant(Object constant) {
+		Integer index = this.constantIndices.get(constant);
+		if (index == null) {
+			index = this.constants.size();
+			this.constants.add(constant);
+			this.constantIndices.put(constant, index);
+		}
+		return index;
+	}
+
+
+	/**
+	 * Register the start of the body of a loop, whose break statements jump
+	 * to the position given when it ends.
+	 */
+	public void beginLoop() {
+		this.loops.push(new ArrayList<Integer>());
+	}
+
+	/**
+	 * Register the end of the innermost loop, letting each of its break
+	 * statements jump to the given position.
+	 */
+	public void endLoop(int exit) {
+		for (int jump: this.loops.pop())
+			patch(jump, exit);
+	}
+
+	/**
+	 * Append a jump out of the innermost loop, or to the end of the program
+	 * if there is no enclosing loop.
+	 */
+	public void emitBreak() {
+		int jump = emit(Program.JUMP, -1);
+		if (this.loops.isEmpty())
+			this.breaksOutside.add(jump);
+		else
+			this.loops.peek().add(jump);
+	}
+
+
+	/**
+	 * Return the program with the instructions appended to this builder.
+	 */
+	Program build() {
+		for (int jump: this.breaksOutside)
+			patch(jump, this.size);
+		return new Program(Arrays.copyOf(this.code, this.size), this.constants.toArray(),
+				this.maxStackDepth, this.nbVariables);
+	}
+
+
+	private void ensureCapacity(int capacity) {
+		if (capacity > this.code.length)
+			this.code = Arrays.copyOf(this.code, Math.max(capacity, 2 * this.code.length));
+	}
+
+	/**
+	 * Track the depth of the operand stack after an instruction with the
+	 * given opcode, on the path that does not jump.
+	 */
+	private void adjustStackDepth(int opcode) {
+		switch (opcode) {
+		case Program.PUSH:
+		case Program.LOAD:
+		case Program.QUERY:
+			this.stackDepth++;
+			break;
+		case Program.STORE:
+		case Program.JUMP_IF_FALSE:
+		case Program.JUMP_IF_FALSE_OR_POP:
+		case Program.JUMP_IF_TRUE_OR_POP:
+		case Program.PRINT:
+		case Program.MOVE_TO:
+		case Program.WORK:
+		case Program.ATTACK:
+		case Program.FOLLOW:
+			this.stackDepth--;
+			break;
+		default:
+			break;
+		}
+		this.maxStackDepth = Math.max(this.maxStackDepth, this.stackDepth);
+	}
+
+
+	private int[] code = new int[32];
+
+	private int size = 0;
+
+	private final List<Object> constants = new ArrayList<Object>();
+
+	/**
+	 * The index of each constant. Constants are compared by identity, so that
+	 * each expression node is a constant of its own.
+	 */
+	private final Map<Object, Integer> constantIndices = new IdentityHashMap<Object, Integer>();
+
+	private int stackDepth = 0;
+
+	private int maxStackDepth = 0;
+
+	private int nbVariables = 0;
+
+	/**
+	 * The break jumps of each enclosing loop, innermost first.
+	 */
+	private final Deque<List<Integer>> loops = new ArrayDeque<List<Integer>>();
+
+	private final List<Integer> breaksOutside = new ArrayList<Integer>();
+
+}
@@ -1,14 +1,16 @@
 package hillbillies.model.statement;
 
 import hillbillies.model.expression.Expression;
+import hillbillies.model.program.Program;
+import hillbillies.model.program.ProgramBuilder;
 
 public class Assignment extends Statement {
 	
-	private final String variableName;
+	private final int slot;
 	private final Expression<?> value;
 
-	public Assignment(String variableName, Expression<?> value) {
-		this.variableName = variableName;
+	public Assignment(int slot, Expression<?> value) {
+		this.slot = slot;
 		this.value = value;
 		
 		
@@ -16,10 +18,9 @@ public class Assignment extends Statement {
 	
 	
 	@Override
-	public void execute() {
-		this.value.setTask(getTask());
-		
-		getTask().addVariableName(this.variableName, this.value.evaluate());
+	public void compile(ProgramBuilder builder) {
+		this.value.compile(builder);
+		builder.emit(Program.STORE, this.slot);
 	}
 	
 }
@@ -2,6 +2,8 @@ package hillbillies.model.statement;
 
 import hillbillies.model.Unit;
 import hillbillies.model.expression.Expression;
+import hillbillies.model.program.Program;
+import hillbillies.model.program.ProgramBuilder;
 
 public class Attack extends Statement {
 	
@@ -13,9 +15,9 @@ public class Attack extends Statement {
 	}
 	
 	@Override
-	public void execute() {
-		this.victim.setTask(getTask());
-		
-		getTask().getAssignedUnit().attack(this.victim.evaluate());
+	public void compile(ProgramBuilder builder) {
+		this.victim.compile(builder);
+		builder.emit(Program.ATTACK);
 	}
+	
 }
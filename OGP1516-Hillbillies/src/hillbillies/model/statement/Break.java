@@ -0,0 +1,21 @@
+package hillbillies.model.statement;
+
+import hillbillies.model.program.ProgramBuilder;
+
+public class Break extends Statement {
+	
+	public Break() {
+		
+	}
+	
+	
+	/**
+	 * Append a jump out of the innermost enclosing while loop, or to the end
+	 * of the task if there is none.
+	 */
+	@Override
+	public void compile(ProgramBuilder builder) {
+		builder.emitBreak();
+	}
+
+}
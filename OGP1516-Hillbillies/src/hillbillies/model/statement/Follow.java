@@ -2,6 +2,8 @@ package hillbillies.model.statement;
 
 import hillbillies.model.Unit;
 import hillbillies.model.expression.Expression;
+import hillbillies.model.program.Program;
+import hillbillies.model.program.ProgramBuilder;
 
 public class Follow extends Statement {
 	
@@ -13,22 +15,10 @@ public class Follow extends Statement {
 	}
 	
 	@Override
-	public void execute() {
-		this.unit.setTask(getTask());
-		
-		Unit currentUnit = getTask().getAssignedUnit();
-		Unit unitToFollow = this.unit.evaluate();
-		
-		// while
-		if (! (currentUnit.getCoordinate().equals(unitToFollow.getCoordinate()) 
-				|| currentUnit.getWorld().isNeighbouring(currentUnit.getCoordinate(), 
-						unitToFollow.getCoordinate())  
-				|| unitToFollow.isTerminated()  ) )
-		{
-			currentUnit.moveTo(unitToFollow.getCoordinate());
-		}
-		
-		
+	public void compile(ProgramBuilder builder) {
+		int start = builder.getPosition();
+		this.unit.compile(builder);
+		builder.emit(Program.FOLLOW, start);
 	}
-
+	
 }
@@ -1,10 +1,10 @@
 package hillbillies.model.statement;
 
-import java.util.Iterator;
-
 import hillbillies.model.expression.Expression;
+import hillbillies.model.program.Program;
+import hillbillies.model.program.ProgramBuilder;
 
-public class If extends ComposedStatement {
+public class If extends Statement {
 	
 	private final Expression<Boolean> condition;
 	private final Statement ifBody;
@@ -32,57 +32,18 @@ public class If extends ComposedStatement {
 	
 	
 	@Override
-	public void execute() {
-		this.condition.setTask(getTask());
-		this.ifBody.setTask(getTask());
-		
-		if (this.elseBody != null)
-			this.elseBody.setTask(getTask());
-		
-	}
-	
-	
-	
-	@Override
-	public void setNextToExecStatement(Statement nextToExecStatement) {
-		super.setNextToExecStatement(this.getIfBody());
-		if (this.getElse() == null) {
-			this.getIfBody().setNextToExecStatement(nextToExecStatement);
+	public void compile(ProgramBuilder builder) {
+		getCondition().compile(builder);
+		int toElse = builder.emit(Program.JUMP_IF_FALSE, -1);
+		getIfBody().compile(builder);
+		if (getElse() == null) {
+			builder.patchHere(toElse);
 		} else {
-			this.getIfBody().setNextToExecStatement(this.getElse());
-			this.getElse().setNextToExecStatement(nextToExecStatement);
+			int toEnd = builder.emit(Program.JUMP, -1);
+			builder.patchHere(toElse);
+			getElse().compile(builder);
+			builder.patchHere(toEnd);
 		}
 	}
 	
-	
-	@Override
-	public Statement getNextStatement () {
-		if (getCondition().evaluate()) {
-			return getIfBody();
-		} else if (getElse() == null) {
-			return getNextStatement();
-		} else {
-			return getElse();
-		}
-	}
-	
-	
-	@Override
-	public void setNextStatement(Statement nextStatement) {
-		super.setNextStatement(nextStatement);
-		getIfBody().setNextStatement(nextStatement);
-		if (getElse() != null) {
-			getElse().setNextStatement(nextStatement);
-		}
-	}
-	
-	/*
-	@Override
-	public void setTask (Task task) {
-		super.setTask(task);
-		this.ifBody.setTask(task);
-		if (this.elseBody != null) {
-			this.elseBody.setTask(task);
-		}
-	}*/
 }
@@ -2,6 +2,8 @@ package hillbillies.model.statement;
 
 import hillbillies.model.Coordinate;
 import hillbillies.model.expression.Expression;
+import hillbillies.model.program.Program;
+import hillbillies.model.program.ProgramBuilder;
 
 public class MoveTo extends Statement {
 
@@ -23,17 +25,9 @@ public class MoveTo extends Statement {
 	}*/
 	
 	@Override
-	public void execute() {
-		if (position != null) {
-			this.position.setTask(getTask());
-			//System.out.println("");
-			//System.out.println(this.position.evaluate().toString());
-			//System.out.println(this.position.toString());
-			getTask().getAssignedUnit().moveTo(this.position.evaluate());
-		} else {
-			//this.position.setTask(getTask());
-			
-			//getTask().getAssignedUnit().moveTo(this.position2);
-		}
+	public void compile(ProgramBuilder builder) {
+		this.position.compile(builder);
+		builder.emit(Program.MOVE_TO);
 	}
+	
 }
@@ -1,6 +1,8 @@
 package hillbillies.model.statement;
 
 import hillbillies.model.expression.Expression;
+import hillbillies.model.program.Program;
+import hillbillies.model.program.ProgramBuilder;
 
 public class Print extends Statement {
 	
@@ -12,10 +14,9 @@ public class Print extends Statement {
 	}
 	
 	@Override
-	public void execute() {
-		this.value.setTask(getTask());
-		
-		System.out.println(this.value.evaluate().toString());
+	public void compile(ProgramBuilder builder) {
+		this.value.compile(builder);
+		builder.emit(Program.PRINT);
 	}
-
+	
 }
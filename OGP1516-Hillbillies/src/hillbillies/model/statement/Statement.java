@@ -1,60 +1,15 @@
 package hillbillies.model.statement;
 
 
-import hillbillies.model.Task;
+import hillbillies.model.program.ProgramBuilder;
 
 public abstract class Statement {
 	
-	private Statement nextStatement = null;
-	
-	private Statement nextToExecStatement = null;
-	
-	private ComposedStatement enclosingStatement = null;
-	private Task task;
-	
-	private boolean isCompleted = false;
-	
-	
-	public boolean isCompleted() {
-		return this.isCompleted;
-	}
-	
-	
-	protected Task getTask() {
-		return this.task;
-	}
-	
-	public void setTask(Task task) {
-		this.task = task;
-	}
-	
-	
-	public Statement getNextToExecStatement() {
-		return this.nextToExecStatement;
-	}
-	
-	public void setNextToExecStatement(Statement nextToExecStatement) {
-		this.nextToExecStatement = nextToExecStatement;
-	}
-	
-	public Statement getNextStatement() {
-		return this.nextStatement;
-	}
-	
-	public void setNextStatement(Statement stmt) {
-		this.nextStatement = stmt;
-	}
-	
-	public ComposedStatement getEnclosingStatement() {
-		return this.enclosingStatement;
-	}
-	
-	public void setEnclosingStatement(ComposedStatement enclosingStatement) {
-		this.enclosingStatement = enclosingStatement;
-	}
-	
-	
-	public abstract void execute();
+	/**
+	 * Append the instructions that carry out this statement to the given
+	 * builder.
+	 */
+	public abstract void compile(ProgramBuilder builder);
 	
 
 	
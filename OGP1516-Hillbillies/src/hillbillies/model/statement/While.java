@@ -1,8 +1,10 @@
 package hillbillies.model.statement;
 
 import hillbillies.model.expression.Expression;
+import hillbillies.model.program.Program;
+import hillbillies.model.program.ProgramBuilder;
 
-public class While extends ComposedStatement {
+public class While extends Statement {
 	
 	
 	private final Expression<Boolean> condition;
@@ -15,30 +17,15 @@ public class While extends ComposedStatement {
 	}
 	
 	@Override
-	public void execute() {
-		
-		this.condition.setTask(getTask());
-		this.body.setTask(getTask());
-		
-		
+	public void compile(ProgramBuilder builder) {
+		int start = builder.getPosition();
+		this.condition.compile(builder);
+		int toEnd = builder.emit(Program.JUMP_IF_FALSE, -1);
+		builder.beginLoop();
+		this.body.compile(builder);
+		builder.emit(Program.JUMP, start);
+		builder.patchHere(toEnd);
+		builder.endLoop(builder.getPosition());
 	}
 	
-	@Override
-	public Statement getNextStatement()
-	{
-		if (!this.condition.evaluate())
-			return this.getNextStatement();
-		return this.body;
-	}
-	
-	
-	@Override
-	public void setNextToExecStatement(Statement nextToExecStatement) {
-		
-		super.setNextToExecStatement(this.body);
-		
-		this.body.setNextToExecStatement(nextToExecStatement);
-	}
-
-
 }
@@ -2,6 +2,8 @@ package hillbillies.model.statement;
 
 import hillbillies.model.Coordinate;
 import hillbillies.model.expression.Expression;
+import hillbillies.model.program.Program;
+import hillbillies.model.program.ProgramBuilder;
 
 public class Work extends Statement {
 	
@@ -14,8 +16,9 @@ public class Work extends Statement {
 	
 	
 	@Override
-	public void execute() {
-		this.position.setTask(getTask());
-		getTask().getAssignedUnit().workAt(this.position.evaluate());
+	public void compile(ProgramBuilder builder) {
+		this.position.compile(builder);
+		builder.emit(Program.WORK);
 	}
+	
 }
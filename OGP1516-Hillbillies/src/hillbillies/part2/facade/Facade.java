@@ -5,6 +5,7 @@ import hillbillies.model.World.TerrainType;
 import hillbillies.part2.listener.TerrainChangeListener;
 
 //import java.util.List;
+import java.util.HashSet;
 import java.util.Set;
 
 import ogp.framework.util.ModelException;
@@ -29,6 +30,29 @@ public class Facade implements hillbillies.part2.facade.IFacade, hillbillies.par
 		}
 	}
 	
+	@Override
+	public World createWorld(int[][][] terrainTypes, 
+				TerrainChangeListener modelListener, long seed) throws ModelException {
+		try {
+			return new World(terrainTypes, modelListener, ConnectivityEngine.FLOOD_FILL, seed);
+		}
+		catch (RuntimeException exc) {
+			exc.printStackTrace();
+			throw new ModelException();
+		}
+	}
+	
+	@Override
+	public long getSeed(World world) throws ModelException {
+		try {
+			return world.getSeed();
+		}
+		catch (RuntimeException exc) {
+			exc.printStackTrace();
+			throw new ModelException();
+		}
+	}
+	
 	@Override
 	public int getNbCubesX(World world) throws ModelException {
 		return world.getNbCubesX();
@@ -395,6 +419,23 @@ public class Facade implements hillbillies.part2.facade.IFacade, hillbillies.par
 	public Set<Log> getLogs(World world) throws ModelException {
 		return world.getAllLogs();
 	}
+
+	@Override
+	public Set<Object> getObjectsInBox(World world, double[] min, double[] max) 
+			throws ModelException {
+		try {
+			Set<Object> objects = new HashSet<Object>();
+			for (GameObject object: world.getObjectsInBox(min, max)) {
+				if (object instanceof Unit || object instanceof Item)
+					objects.add(object);
+			}
+			return objects;
+		}
+		catch (RuntimeException exc) {
+			exc.printStackTrace();
+			throw new ModelException();
+		}
+	}
 	
 	
 	
@@ -0,0 +1,280 @@
+package hillbillies.part3;
+
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import be.kuleuven.cs.som.annotate.*;
+import hillbillies.model.AssignmentStrategy;
+import hillbillies.model.ConnectivityEngine;
+import hillbillies.model.Faction;
+import hillbillies.model.IllegalNbException;
+import hillbillies.model.Task;
+import hillbillies.model.TaskFactory;
+import hillbillies.model.World;
+import hillbillies.part2.internal.map.GameMap;
+import hillbillies.part2.internal.map.GameMapReader;
+import hillbillies.part2.listener.DefaultTerrainChangeListener;
+import hillbillies.part3.programs.TaskParser;
+
+/**
+ * A class of headless runners, simulating a world without a user interface.
+ *
+ * A runner advances the time of its world at a fixed time step, as fast as
+ * possible, and measures the number of time steps per second. It only uses the
+ * model and the map and task readers, so it runs without JavaFX and without a
+ * display, for batch simulations and capacity tests.
+ *
+ * The limits on the number of nits of the world are raised to fit the
+ * requested number of units, divided over the requested number of factions.
+ *
+ * The schedulers of all factions use the requested assignment strategy.
+ *
+ * The seed of the world is reported, and a run with the same world, seed,
+ * units, tasks and time step can be reproduced by passing that seed again.
+ *
+ * Usage:
+ * <pre>
+ * HeadlessRunner &lt;world.wrld&gt; [-units N] [-ticks N] [-dt DT] [-seed SEED]
+ *               [-factions N] [-assignment STRATEGY] [-tasks FILE]...
+ * </pre>
+ *
+ * @author Ruben Cartuyvels
+ * @version 1.0
+ */
+public class HeadlessRunner {
+
+	/**
+	 * Initialize this new headless runner for the given world.
+	 *
+	 * @param	world
+	 * 			The world to simulate.
+	 *
+	 * @post	| new.getWorld() == world
+	 * @post	| new.getNbTicks() == 0
+	 *
+	 * @throws	IllegalArgumentException
+	 * 			| world == null
+	 */
+	public HeadlessRunner(World world) throws IllegalArgumentException {
+		if (world == null)
+			throw new IllegalArgumentException();
+		this.world = world;
+	}
+
+
+	/**
+	 * Return a new world with the terrain read from the .wrld file with the
+	 * given name, that ignores terrain changes, with a fresh seed.
+	 *
+	 * @effect	| result == loadWorld(filename, World.generateSeed())
+	 */
+	public static World loadWorld(String filename) throws IOException {
+		return loadWorld(filename, World.generateSeed());
+	}
+
+	/**
+	 * Return a new world with the terrain read from the .wrld file with the
+	 * given name, that ignores terrain changes, with the given seed.
+	 *
+	 * @throws	IOException
+	 * 			The file cannot be read.
+	 */
+	public static World loadWorld(String filename, long seed) throws IOException {
+		GameMap map;
+		try (FileReader reader = new FileReader(filename)) {
+			map = new GameMapReader().readFromReader(reader);
+		}
+		if (map == null)
+			throw new IOException("Could not read world " + filename);
+
+		int[][][] types = new int[map.getNbTilesX()][map.getNbTilesY()][map.getNbTilesZ()];
+		for (int x = 0; x < types.length; x++)
+			for (int y = 0; y < types[x].length; y++)
+				for (int z = 0; z < types[x][y].length; z++)
+					types[x][y][z] = map.getTypeAt(x, y, z).getByteValue();
+		return new World(types, new DefaultTerrainChangeListener(), 
+				ConnectivityEngine.FLOOD_FILL, seed);
+	}
+
+
+	/**
+	 * Return the world of this runner.
+	 */
+	@Basic @Immutable
+	public World getWorld() {
+		return this.world;
+	}
+
+	private final World world;
+
+
+	/**
+	 * Raise the limits of the world of this runner so that it can contain at
+	 * least the given number of nits, divided over at most the given number
+	 * of factions.
+	 *
+	 * @throws	IllegalArgumentException
+	 * 			| nbFactions < getWorld().getNbFactions()
+	 */
+	public void reserve(int nbNits, int nbFactions) throws IllegalArgumentException {
+		World world = getWorld();
+		world.setMaxNbFactions(nbFactions);
+		world.setMaxNbNits(Math.max(world.getMaxNbNits(), nbNits));
+		int perFaction = (nbNits + nbFactions - 1) / nbFactions;
+		world.setMaxNbNitsPerFaction(Math.max(world.getMaxNbNitsPerFaction(), perFaction));
+	}
+
+
+	/**
+	 * Spawn the given number of units with default behaviour in the world of
+	 * this runner, or as many as the world can still contain.
+	 *
+	 * @return	The number of units spawned.
+	 */
+	public int spawnUnits(int nbUnits) {
+		int nbSpawned = 0;
+		try {
+			while (nbSpawned < nbUnits) {
+				getWorld().spawnUnit(true);
+				nbSpawned++;
+			}
+		} catch (IllegalNbException e) {
+			// the world is full
+		}
+		return nbSpawned;
+	}
+
+
+	/**
+	 * Parse the tasks in the file with the given name, and schedule them for
+	 * every faction of the world of this runner. Each faction gets its own
+	 * tasks, parsed anew, without selected cubes.
+	 *
+	 * @return	The number of tasks scheduled.
+	 *
+	 * @throws	IOException
+	 * 			The file cannot be read.
+	 * @throws	IllegalArgumentException
+	 * 			The tasks in the file cannot be parsed.
+	 */
+	public int scheduleTasks(String filename) throws IOException, IllegalArgumentException {
+		String text = new String(Files.readAllBytes(Paths.get(filename)), StandardCharsets.UTF_8);
+		List<int[]> selectedCubes = Collections.emptyList();
+		int nbScheduled = 0;
+		for (Faction faction: new ArrayList<Faction>(getWorld().getAllFactions())) {
+			List<Task> tasks = TaskParser.parseTasksFromString(text, new TaskFactory(), selectedCubes);
+			if (tasks == null)
+				throw new IllegalArgumentException("Could not parse tasks in " + filename);
+			faction.getScheduler().scheduleAll(tasks);
+			nbScheduled += tasks.size();
+		}
+		return nbScheduled;
+	}
+
+
+	/**
+	 * Advance the time of the world of this runner the given number of times
+	 * by the given time step, as fast as possible.
+	 *
+	 * @return	The number of time steps per second.
+	 *
+	 * @effect	| for i in 1..nbTicks:
+	 * 			|	getWorld().advanceTime(dt)
+	 * @post	| new.getNbTicks() == getNbTicks() + nbTicks
+	 */
+	public double run(int nbTicks, double dt) {
+		long start = System.nanoTime();
+		for (int tick = 0; tick < nbTicks; tick++) {
+			getWorld().advanceTime(dt);
+			this.nbTicks++;
+		}
+		long elapsed = Math.max(System.nanoTime() - start, 1);
+		return nbTicks * 1e9 / elapsed;
+	}
+
+
+	/**
+	 * Return the number of time steps this runner has completed.
+	 */
+	@Basic
+	public long getNbTicks() {
+		return this.nbTicks;
+	}
+
+	private long nbTicks = 0;
+
+
+	public static void main(String[] args) throws IOException {
+		if (args.length == 0) {
+			System.err.println("Usage: HeadlessRunner <world.wrld> [-units N] [-ticks N] "
+					+ "[-dt DT] [-seed SEED] [-factions N] [-assignment STRATEGY] [-tasks FILE]...");
+			System.exit(2);
+		}
+		int nbUnits = 10;
+		int nbTicks = 10000;
+		double dt = 0.1;
+		long seed = World.generateSeed();
+		int nbFactions = World.DEFAULT_MAX_NB_FACTIONS;
+		AssignmentStrategy assignmentStrategy = AssignmentStrategy.BY_PRIORITY;
+		List<String> taskFiles = new ArrayList<String>();
+		for (int i = 1; i < args.length; i += 2) {
+			if (i + 1 >= args.length)
+				throw new IllegalArgumentException("Missing value for " + args[i]);
+			switch (args[i]) {
+			case "-units":
+				nbUnits = Integer.parseInt(args[i + 1]);
+				break;
+			case "-ticks":
+				nbTicks = Integer.parseInt(args[i + 1]);
+				break;
+			case "-dt":
+				dt = Double.parseDouble(args[i + 1]);
+				break;
+			case "-seed":
+				seed = Long.parseLong(args[i + 1]);
+				break;
+			case "-factions":
+				nbFactions = Integer.parseInt(args[i + 1]);
+				break;
+			case "-assignment":
+				assignmentStrategy = AssignmentStrategy.valueOf(args[i + 1]);
+				break;
+			case "-tasks":
+				taskFiles.add(args[i + 1]);
+				break;
+			default:
+				throw new IllegalArgumentException("Unknown option " + args[i]);
+			}
+		}
+
+		long start = System.nanoTime();
+		HeadlessRunner runner = new HeadlessRunner(loadWorld(args[0], seed));
+		runner.reserve(nbUnits, nbFactions);
+		int nbSpawned = runner.spawnUnits(nbUnits);
+		for (Faction faction: runner.getWorld().getAllFactions())
+			faction.getScheduler().setAssignmentStrategy(assignmentStrategy);
+		int nbScheduled = 0;
+		for (String taskFile: taskFiles)
+			nbScheduled += runner.scheduleTasks(taskFile);
+		World world = runner.getWorld();
+		System.out.printf("Loaded %dx%dx%d world with seed %d, %d units in %d factions and %d tasks in %.0f ms%n",
+				world.getNbCubesX(), world.getNbCubesY(), world.getNbCubesZ(), world.getSeed(),
+				nbSpawned, world.getNbFactions(), nbScheduled, (System.nanoTime() - start) / 1e6);
+
+		try {
+			double ticksPerSecond = runner.run(nbTicks, dt);
+			System.out.printf("Ran %d ticks of %.3f s: %.1f ticks/s, %d units left%n",
+					nbTicks, dt, ticksPerSecond, world.getNbNits());
+		} catch (RuntimeException e) {
+			System.err.println("Simulation failed after " + runner.getNbTicks() + " ticks");
+			throw e;
+		}
+	}
+
+}
@@ -1,12 +1,16 @@
 package hillbillies.part3.facade;
 
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Set;
 
 import hillbillies.model.Boulder;
+import hillbillies.model.ConnectivityEngine;
 import hillbillies.model.Coordinate;
 import hillbillies.model.Faction;
+import hillbillies.model.GameObject;
+import hillbillies.model.Item;
 import hillbillies.model.Log;
 import hillbillies.model.Nit;
 import hillbillies.model.Scheduler;
@@ -39,6 +43,29 @@ public class Facade implements hillbillies.part3.facade.IFacade,
 		}
 	}
 	
+	@Override
+	public World createWorld(int[][][] terrainTypes, 
+				TerrainChangeListener modelListener, long seed) throws ModelException {
+		try {
+			return new World(terrainTypes, modelListener, ConnectivityEngine.FLOOD_FILL, seed);
+		}
+		catch (RuntimeException exc) {
+			exc.printStackTrace();
+			throw new ModelException();
+		}
+	}
+	
+	@Override
+	public long getSeed(World world) throws ModelException {
+		try {
+			return world.getSeed();
+		}
+		catch (RuntimeException exc) {
+			exc.printStackTrace();
+			throw new ModelException();
+		}
+	}
+	
 	@Override
 	public int getNbCubesX(World world) throws ModelException {
 		return world.getNbCubesX();
@@ -416,6 +443,23 @@ public class Facade implements hillbillies.part3.facade.IFacade,
 	public Set<Log> getLogs(World world) throws ModelException {
 		return world.getAllLogs();
 	}
+
+	@Override
+	public Set<Object> getObjectsInBox(World world, double[] min, double[] max) 
+			throws ModelException {
+		try {
+			Set<Object> objects = new HashSet<Object>();
+			for (GameObject object: world.getObjectsInBox(min, max)) {
+				if (object instanceof Unit || object instanceof Item)
+					objects.add(object);
+			}
+			return objects;
+		}
+		catch (RuntimeException exc) {
+			exc.printStackTrace();
+			throw new ModelException();
+		}
+	}
 	
 	
 	
@@ -444,6 +488,16 @@ public class Facade implements hillbillies.part3.facade.IFacade,
 		scheduler.addTask(task);
 	}
 
+	@Override
+	public void scheduleAll(Scheduler scheduler, Collection<Task> tasks) throws ModelException {
+		try {
+			scheduler.scheduleAll(tasks);
+		} catch (RuntimeException e) {
+			e.printStackTrace();
+			throw new ModelException();
+		}
+	}
+
 	@Override
 	public void replace(Scheduler scheduler, Task original, Task replacement) throws ModelException {
 		scheduler.replace(original, replacement);
@@ -0,0 +1,185 @@
+package hillbillies.tests.unit;
+
+import static org.junit.Assert.*;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.*;
+
+import hillbillies.model.*;
+
+/**
+ * A class collecting tests comparing the spanning forest that decides which
+ * solid cubes of a world are connected to its border with the provided flood
+ * fill, over random sequences of changes.
+ *
+ * @author Ruben Cartuyvels
+ * @version 1.0
+ *
+ */
+public class BorderConnectivityTest {
+
+	private int nbX, nbY, nbZ;
+
+	private BorderConnectivity floodFill;
+
+	private BorderConnectivity forest;
+
+	/**
+	 * Whether each cube is passable, by the index x + nbX * (y + nbY * z).
+	 */
+	private boolean[] passable;
+
+	private void setUp(int nbX, int nbY, int nbZ) {
+		this.nbX = nbX;
+		this.nbY = nbY;
+		this.nbZ = nbZ;
+		floodFill = ConnectivityEngine.FLOOD_FILL.create(nbX, nbY, nbZ);
+		forest = ConnectivityEngine.SPANNING_FOREST.create(nbX, nbY, nbZ);
+		passable = new boolean[nbX * nbY * nbZ];
+	}
+
+	private int getNbCubes() {
+		return passable.length;
+	}
+
+	private int[] cubeAt(int index) {
+		return new int[] { index % nbX, (index / nbX) % nbY, index / (nbX * nbY) };
+	}
+
+	private int indexOf(int[] cube) {
+		return cube[0] + nbX * (cube[1] + nbY * cube[2]);
+	}
+
+	/**
+	 * Return the indices of the cubes the given engine considers connected
+	 * to the border.
+	 */
+	private Set<Integer> getConnected(BorderConnectivity engine) {
+		Set<Integer> connected = new HashSet<Integer>();
+		for (int index = 0; index < getNbCubes(); index++) {
+			int[] cube = cubeAt(index);
+			if (engine.isSolidConnectedToBorder(cube[0], cube[1], cube[2]))
+				connected.add(index);
+		}
+		return connected;
+	}
+
+	private Set<Integer> toIndices(List<int[]> cubes) {
+		Set<Integer> indices = new HashSet<Integer>();
+		for (int[] cube: cubes)
+			indices.add(indexOf(cube));
+		return indices;
+	}
+
+	/**
+	 * Make the cube with the given index passable if it is solid and solid
+	 * otherwise, in both engines, and check that they agree on the connected
+	 * cubes afterwards, and that the spanning forest reports exactly the cubes
+	 * whose connectedness changed.
+	 *
+	 * The flood fill may report cubes that were disconnected before the change
+	 * as well, so only its connectedness is compared.
+	 */
+	private void change(int index) {
+		int[] cube = cubeAt(index);
+		Set<Integer> before = getConnected(forest);
+		Set<Integer> reported;
+		if (passable[index]) {
+			floodFill.changePassableToSolid(cube[0], cube[1], cube[2]);
+			reported = toIndices(forest.changePassableToSolid(cube[0], cube[1], cube[2]));
+		} else {
+			floodFill.changeSolidToPassable(cube[0], cube[1], cube[2]);
+			reported = toIndices(forest.changeSolidToPassable(cube[0], cube[1], cube[2]));
+		}
+		passable[index] = !passable[index];
+		Set<Integer> after = getConnected(forest);
+		assertEquals(getConnected(floodFill), after);
+
+		Set<Integer> changed = new HashSet<Integer>();
+		for (int other = 0; other < getNbCubes(); other++)
+			if (other != index && before.contains(other) != after.contains(other))
+				changed.add(other);
+		reported.remove(index);
+		assertEquals(changed, reported);
+	}
+
+	/**
+	 * Apply the given number of random changes to a world with the given
+	 * dimensions, digging a random cube with the given probability and
+	 * filling one otherwise.
+	 */
+	private void checkRandomChanges(int nbX, int nbY, int nbZ, int nbChanges,
+			double digProbability, long seed) {
+		setUp(nbX, nbY, nbZ);
+		Random random = new Random(seed);
+		assertEquals(getConnected(floodFill), getConnected(forest));
+		for (int i = 0; i < nbChanges; i++) {
+			boolean dig = random.nextDouble() < digProbability;
+			int index = random.nextInt(getNbCubes());
+			for (int j = 0; j < getNbCubes() && passable[index] == dig; j++)
+				index = (index + 1) % getNbCubes();
+			change(index);
+		}
+	}
+
+
+	@Test
+	public void randomChanges_Small() {
+		for (long seed = 0; seed < 20; seed++)
+			checkRandomChanges(5, 4, 3, 100, 0.6, seed);
+	}
+
+	@Test
+	public void randomChanges_Cube() {
+		for (long seed = 0; seed < 5; seed++)
+			checkRandomChanges(8, 8, 8, 800, 0.6, seed);
+	}
+
+	@Test
+	public void randomChanges_MostlyDug() {
+		for (long seed = 0; seed < 5; seed++)
+			checkRandomChanges(8, 8, 8, 800, 0.8, seed);
+	}
+
+	@Test
+	public void randomChanges_Flat() {
+		checkRandomChanges(20, 20, 2, 1000, 0.5, 1);
+	}
+
+	@Test
+	public void randomChanges_Line() {
+		checkRandomChanges(12, 1, 1, 200, 0.5, 2);
+	}
+
+	/**
+	 * A hollow box whose walls are dug out around a pillar hanging from the
+	 * top, so that whole structures get disconnected at once.
+	 */
+	@Test
+	public void dig_DisconnectsStructure() {
+		setUp(7, 7, 7);
+		for (int x = 1; x < 6; x++)
+			for (int y = 1; y < 6; y++)
+				for (int z = 1; z < 6; z++)
+					if (x != 3 || y != 3)
+						change(x + 7 * (y + 7 * z));
+		assertTrue(forest.isSolidConnectedToBorder(3, 3, 1));
+		for (int x = 0; x < 7; x++)
+			for (int y = 0; y < 7; y++)
+				if (x != 3 || y != 3)
+					change(x + 7 * (y + 7 * 6));
+		change(3 + 7 * (3 + 7 * 0));
+		assertTrue(forest.isSolidConnectedToBorder(3, 3, 6));
+		change(3 + 7 * (3 + 7 * 6));
+		for (int z = 1; z < 6; z++)
+			assertFalse(forest.isSolidConnectedToBorder(3, 3, z));
+		change(3 + 7 * (3 + 7 * 6));
+		for (int z = 1; z < 6; z++)
+			assertTrue(forest.isSolidConnectedToBorder(3, 3, z));
+	}
+
+}
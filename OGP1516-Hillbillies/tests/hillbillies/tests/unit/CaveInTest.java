@@ -0,0 +1,200 @@
+package hillbillies.tests.unit;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.*;
+
+import hillbillies.model.*;
+import hillbillies.model.World.TerrainType;
+import hillbillies.part2.listener.DirtyRegion;
+import hillbillies.part2.listener.TerrainChangeListener;
+
+/**
+ * A class collecting tests for the cave-ins of worlds, checking that every
+ * solid cube that is no longer connected to the border caves in, and that
+ * the changed cubes are reported to the terrain change listener at once.
+ *
+ * @author Ruben Cartuyvels
+ * @version 1.0
+ *
+ */
+public class CaveInTest {
+
+	private static final int NB_X = 40, NB_Y = 40, NB_Z = 8;
+
+	/**
+	 * A terrain change listener recording the cubes of each batch reported
+	 * to it, and the number of cubes reported one by one.
+	 */
+	private static class RecordingListener implements TerrainChangeListener {
+
+		private final List<Set<Coordinate>> batches = new ArrayList<Set<Coordinate>>();
+
+		private int nbSingleCubes = 0;
+
+		@Override
+		public void notifyTerrainChanged(int x, int y, int z) {
+			nbSingleCubes++;
+		}
+
+		@Override
+		public void notifyTerrainChanged(DirtyRegion region) {
+			Set<Coordinate> batch = new HashSet<Coordinate>();
+			for (int[] cube: region.getCubes())
+				assertTrue(batch.add(new Coordinate(cube)));
+			batches.add(batch);
+		}
+
+	}
+
+	private RecordingListener listener;
+
+	private World world;
+
+	/**
+	 * The cubes of a slab of rock at the given height, spanning the world
+	 * apart from its border, and of a pillar of rock holding it up from the
+	 * floor in the middle of the world.
+	 */
+	private Set<Coordinate> slab;
+
+	/**
+	 * A 40x40x8 world with a floor of rock, a slab of rock at height 6 that
+	 * touches the border of the world if the given flag is set, and a pillar
+	 * of rock from the floor to the slab.
+	 */
+	private void setUpWorld(boolean touchingBorder) {
+		int[][][] types = new int[NB_X][NB_Y][NB_Z];
+		slab = new HashSet<Coordinate>();
+		for (int x = 0; x < NB_X; x++)
+			for (int y = 0; y < NB_Y; y++) {
+				types[x][y][0] = TerrainType.ROCK.getNumber();
+				if (x > 0 && x < NB_X - 1 && y > 0 && y < NB_Y - 1) {
+					types[x][y][6] = TerrainType.ROCK.getNumber();
+					slab.add(new Coordinate(x, y, 6));
+				}
+			}
+		for (int z = 1; z < 6; z++) {
+			types[20][20][z] = TerrainType.ROCK.getNumber();
+			slab.add(new Coordinate(20, 20, z));
+		}
+		if (touchingBorder)
+			types[0][20][6] = TerrainType.ROCK.getNumber();
+		listener = new RecordingListener();
+		world = new World(types, listener, ConnectivityEngine.FLOOD_FILL, 42L);
+	}
+
+	@Before
+	public void setUpWorld() {
+		setUpWorld(false);
+	}
+
+	private void checkCollapsed(Set<Coordinate> cubes) {
+		for (Coordinate cube: cubes)
+			assertEquals(TerrainType.AIR, world.getCubeTypeAt(cube));
+		assertTrue(world.getAllBoulders().size() <= cubes.size());
+		assertTrue(world.getAllBoulders().size() > cubes.size() / 8);
+		assertTrue(world.getAllBoulders().size() < cubes.size() / 2);
+		assertTrue(world.getAllLogs().isEmpty());
+	}
+
+
+	/**************************************************
+	 * 	CAVE-INS
+	 **************************************************/
+
+	/**
+	 * The solid cubes that are not connected to the border when a world is
+	 * created cave in at once.
+	 */
+	@Test
+	public void constructor_FloatingRock() {
+		int[][][] types = new int[10][10][6];
+		Set<Coordinate> floating = new HashSet<Coordinate>();
+		for (int x = 0; x < 10; x++)
+			for (int y = 0; y < 10; y++) {
+				types[x][y][0] = TerrainType.ROCK.getNumber();
+				if (x > 1 && x < 8 && y > 1 && y < 8) {
+					types[x][y][3] = TerrainType.ROCK.getNumber();
+					floating.add(new Coordinate(x, y, 3));
+				}
+			}
+		listener = new RecordingListener();
+		world = new World(types, listener, ConnectivityEngine.FLOOD_FILL, 42L);
+		for (Coordinate cube: floating)
+			assertEquals(TerrainType.AIR, world.getCubeTypeAt(cube));
+		assertTrue(world.getAllBoulders().size() <= floating.size());
+		assertEquals(1, listener.batches.size());
+		assertEquals(floating, listener.batches.get(0));
+	}
+
+	@Test
+	public void constructor_ConnectedRockStays() {
+		assertEquals(TerrainType.ROCK, world.getCubeTypeAt(new Coordinate(1, 1, 6)));
+		assertEquals(TerrainType.ROCK, world.getCubeTypeAt(new Coordinate(20, 20, 3)));
+		assertTrue(listener.batches.isEmpty());
+		assertTrue(world.getAllBoulders().isEmpty());
+	}
+
+	/**
+	 * Cutting the pillar at the floor lets the pillar and the whole slab on
+	 * top of it cave in, which are reported in a single batch.
+	 */
+	@Test
+	public void collapse_LargeSlab() {
+		world.collapse(new Coordinate(20, 20, 1), 0);
+		checkCollapsed(slab);
+		assertEquals(1, listener.batches.size());
+		assertEquals(slab, listener.batches.get(0));
+		assertEquals(0, listener.nbSingleCubes);
+		for (Boulder boulder: world.getAllBoulders())
+			assertTrue(slab.contains(boulder.getCoordinate()));
+	}
+
+	@Test
+	public void collapse_SlabTouchingBorder() {
+		setUpWorld(true);
+		Coordinate cube = new Coordinate(20, 20, 1);
+		world.collapse(cube, 0);
+		assertEquals(TerrainType.AIR, world.getCubeTypeAt(cube));
+		assertEquals(TerrainType.ROCK, world.getCubeTypeAt(new Coordinate(20, 20, 2)));
+		assertEquals(TerrainType.ROCK, world.getCubeTypeAt(new Coordinate(38, 38, 6)));
+		assertTrue(world.getAllBoulders().isEmpty());
+		assertEquals(1, listener.batches.size());
+		assertEquals(1, listener.batches.get(0).size());
+		assertTrue(listener.batches.get(0).contains(cube));
+	}
+
+	/**
+	 * A cube dug outside a time step is reported together with the cubes
+	 * caving in because of it, at the start of the next time step, and the
+	 * time step does not report them again.
+	 */
+	@Test
+	public void advanceTime_CavesInAfterDigging() {
+		world.setCubeTypeAt(new Coordinate(20, 20, 1), TerrainType.AIR);
+		assertTrue(listener.batches.isEmpty());
+		assertEquals(TerrainType.ROCK, world.getCubeTypeAt(new Coordinate(1, 1, 6)));
+		world.advanceTime(0.1);
+		checkCollapsed(slab);
+		assertEquals(1, listener.batches.size());
+		assertEquals(slab, listener.batches.get(0));
+		for (int i = 0; i < 10; i++)
+			world.advanceTime(0.1);
+		assertEquals(1, listener.batches.size());
+	}
+
+	@Test
+	public void advanceTime_NoChanges() {
+		for (int i = 0; i < 10; i++)
+			world.advanceTime(0.1);
+		assertTrue(listener.batches.isEmpty());
+		assertEquals(0, listener.nbSingleCubes);
+	}
+
+}
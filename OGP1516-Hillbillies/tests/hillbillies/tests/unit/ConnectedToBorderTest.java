@@ -0,0 +1,225 @@
+package hillbillies.tests.unit;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayDeque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.*;
+
+import hillbillies.util.ConnectedToBorder;
+
+/**
+ * A class collecting tests for the provided algorithm deciding which solid
+ * cubes are connected to the border, comparing it with a search from the
+ * border over the whole world after each change.
+ *
+ * @author Ruben Cartuyvels
+ * @version 1.0
+ *
+ */
+public class ConnectedToBorderTest {
+
+	private static final int[][] OFFSETS = { { 1, 0, 0 }, { -1, 0, 0 }, { 0, 1, 0 },
+			{ 0, -1, 0 }, { 0, 0, 1 }, { 0, 0, -1 } };
+
+	private int nbX, nbY, nbZ;
+
+	private ConnectedToBorder connectedToBorder;
+
+	/**
+	 * Whether each cube is passable, by the index x + nbX * (y + nbY * z).
+	 */
+	private boolean[] passable;
+
+	private void setUp(int nbX, int nbY, int nbZ) {
+		this.nbX = nbX;
+		this.nbY = nbY;
+		this.nbZ = nbZ;
+		connectedToBorder = new ConnectedToBorder(nbX, nbY, nbZ);
+		passable = new boolean[nbX * nbY * nbZ];
+	}
+
+	private int indexOf(int x, int y, int z) {
+		return x + nbX * (y + nbY * z);
+	}
+
+	private int indexOf(int[] cube) {
+		return indexOf(cube[0], cube[1], cube[2]);
+	}
+
+	private boolean isInside(int x, int y, int z) {
+		return 0 <= x && x < nbX && 0 <= y && y < nbY && 0 <= z && z < nbZ;
+	}
+
+	/**
+	 * Return the indices of the solid cubes that can be reached from a solid
+	 * cube at the border through directly adjacent solid cubes.
+	 */
+	private Set<Integer> searchFromBorder() {
+		Set<Integer> connected = new HashSet<Integer>();
+		ArrayDeque<int[]> queue = new ArrayDeque<int[]>();
+		for (int x = 0; x < nbX; x++)
+			for (int y = 0; y < nbY; y++)
+				for (int z = 0; z < nbZ; z++)
+					if ((x == 0 || x == nbX - 1 || y == 0 || y == nbY - 1 || z == 0 || z == nbZ - 1)
+							&& !passable[indexOf(x, y, z)]) {
+						connected.add(indexOf(x, y, z));
+						queue.add(new int[] { x, y, z });
+					}
+		while (!queue.isEmpty()) {
+			int[] cube = queue.poll();
+			for (int[] offset: OFFSETS) {
+				int x = cube[0] + offset[0], y = cube[1] + offset[1], z = cube[2] + offset[2];
+				if (isInside(x, y, z) && !passable[indexOf(x, y, z)] && connected.add(indexOf(x, y, z)))
+					queue.add(new int[] { x, y, z });
+			}
+		}
+		return connected;
+	}
+
+	private Set<Integer> getConnected() {
+		Set<Integer> connected = new HashSet<Integer>();
+		for (int x = 0; x < nbX; x++)
+			for (int y = 0; y < nbY; y++)
+				for (int z = 0; z < nbZ; z++)
+					if (connectedToBorder.isSolidConnectedToBorder(x, y, z))
+						connected.add(indexOf(x, y, z));
+		return connected;
+	}
+
+	/**
+	 * Return the indices of the given cubes, checking that none of them is
+	 * reported twice.
+	 */
+	private Set<Integer> toIndices(List<int[]> cubes) {
+		Set<Integer> indices = new HashSet<Integer>();
+		for (int[] cube: cubes)
+			assertTrue(indices.add(indexOf(cube)));
+		return indices;
+	}
+
+	/**
+	 * Dig out the given cube if it is solid and fill it otherwise, and check
+	 * that the algorithm agrees with a search from the border afterwards,
+	 * and that it reports the cubes whose connectedness changed.
+	 *
+	 * A dig may also report solid cubes next to it that were disconnected
+	 * before, since those are searched again.
+	 */
+	private void change(int x, int y, int z) {
+		int index = indexOf(x, y, z);
+		Set<Integer> before = searchFromBorder();
+		Set<Integer> reported;
+		passable[index] = !passable[index];
+		if (passable[index])
+			reported = toIndices(connectedToBorder.changeSolidToPassable(x, y, z));
+		else
+			reported = toIndices(connectedToBorder.changePassableToSolid(x, y, z));
+		Set<Integer> after = searchFromBorder();
+		assertEquals(after, getConnected());
+
+		Set<Integer> changed = new HashSet<Integer>();
+		if (passable[index]) {
+			changed.addAll(before);
+			changed.removeAll(after);
+			changed.remove(index);
+			reported.remove(index);
+			assertTrue(reported.containsAll(changed));
+			for (int cube: reported)
+				assertTrue(!passable[cube] && !after.contains(cube));
+		}
+		else {
+			changed.addAll(after);
+			changed.removeAll(before);
+			assertEquals(changed, reported);
+		}
+	}
+
+	private void checkRandomChanges(int nbX, int nbY, int nbZ, int nbChanges,
+			double digProbability, long seed) {
+		setUp(nbX, nbY, nbZ);
+		Random random = new Random(seed);
+		assertEquals(searchFromBorder(), getConnected());
+		for (int i = 0; i < nbChanges; i++) {
+			boolean dig = random.nextDouble() < digProbability;
+			int x = random.nextInt(nbX), y = random.nextInt(nbY), z = random.nextInt(nbZ);
+			if (passable[indexOf(x, y, z)] != dig)
+				change(x, y, z);
+		}
+	}
+
+
+	/**************************************************
+	 * 	RANDOM CHANGES
+	 **************************************************/
+
+	@Test
+	public void randomChanges_Small() {
+		for (long seed = 0; seed < 20; seed++)
+			checkRandomChanges(5, 5, 5, 200, 0.6, seed);
+	}
+
+	@Test
+	public void randomChanges_MostlyDug() {
+		for (long seed = 0; seed < 5; seed++)
+			checkRandomChanges(9, 9, 9, 1500, 0.8, seed);
+	}
+
+	@Test
+	public void randomChanges_Flat() {
+		checkRandomChanges(20, 20, 3, 1500, 0.6, 1);
+	}
+
+	/**
+	 * Only digging, which is how the algorithm was meant to be used.
+	 */
+	@Test
+	public void randomChanges_OnlyDigging() {
+		for (long seed = 0; seed < 5; seed++)
+			checkRandomChanges(8, 8, 8, 600, 1, seed);
+	}
+
+
+	/**************************************************
+	 * 	STRUCTURES
+	 **************************************************/
+
+	@Test
+	public void changeSolidToPassable_Passable() {
+		setUp(3, 3, 3);
+		change(1, 1, 1);
+		assertTrue(connectedToBorder.changeSolidToPassable(1, 1, 1).isEmpty());
+		assertFalse(connectedToBorder.isSolidConnectedToBorder(1, 1, 1));
+	}
+
+	@Test
+	public void changePassableToSolid_Solid() {
+		setUp(3, 3, 3);
+		assertTrue(connectedToBorder.changePassableToSolid(1, 1, 1).isEmpty());
+		assertTrue(connectedToBorder.isSolidConnectedToBorder(1, 1, 1));
+	}
+
+	/**
+	 * A hollow box is dug out around a cube hanging from its ceiling, which
+	 * is then cut loose and attached again.
+	 */
+	@Test
+	public void change_HangingCube() {
+		setUp(5, 5, 5);
+		for (int x = 1; x < 4; x++)
+			for (int y = 1; y < 4; y++)
+				for (int z = 1; z < 4; z++)
+					if (x != 2 || y != 2 || z != 3)
+						change(x, y, z);
+		assertTrue(connectedToBorder.isSolidConnectedToBorder(2, 2, 3));
+		change(2, 2, 4);
+		assertFalse(connectedToBorder.isSolidConnectedToBorder(2, 2, 3));
+		change(2, 2, 4);
+		assertTrue(connectedToBorder.isSolidConnectedToBorder(2, 2, 3));
+	}
+
+}
@@ -0,0 +1,137 @@
+package hillbillies.tests.unit;
+
+import static org.junit.Assert.*;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.*;
+
+import hillbillies.model.Coordinate;
+
+/**
+ * A class collecting tests for the class of coordinates.
+ *
+ * @author Ruben Cartuyvels
+ * @version 1.0
+ *
+ */
+public class CoordinateTest {
+
+	/**************************************************
+	 * 	PACKING
+	 **************************************************/
+
+	private static void checkValues(int x, int y, int z) {
+		Coordinate coordinate = new Coordinate(x, y, z);
+		assertEquals(x, coordinate.get(0));
+		assertEquals(y, coordinate.get(1));
+		assertEquals(z, coordinate.get(2));
+		assertArrayEquals(new int[] { x, y, z }, coordinate.getCoordinates());
+	}
+
+	@Test
+	public void get_Values() {
+		checkValues(0, 0, 0);
+		checkValues(1, 2, 3);
+		checkValues(-1, -2, -3);
+		checkValues(-1, 0, 1);
+		checkValues(Coordinate.MAX_VALUE, Coordinate.MIN_VALUE, Coordinate.MAX_VALUE);
+		checkValues(Coordinate.MIN_VALUE, Coordinate.MAX_VALUE, Coordinate.MIN_VALUE);
+	}
+
+	@Test
+	public void get_RandomValues() {
+		Random random = new Random(42L);
+		int range = Coordinate.MAX_VALUE - Coordinate.MIN_VALUE + 1;
+		for (int i = 0; i < 10000; i++)
+			checkValues(Coordinate.MIN_VALUE + random.nextInt(range),
+					Coordinate.MIN_VALUE + random.nextInt(range),
+					Coordinate.MIN_VALUE + random.nextInt(range));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void get_IllegalAxis() {
+		new Coordinate(1, 2, 3).get(3);
+	}
+
+	@Test
+	public void constructor_Array() {
+		int[] values = { 4, 5, 6 };
+		Coordinate coordinate = new Coordinate(values);
+		values[0] = 7;
+		assertEquals(new Coordinate(4, 5, 6), coordinate);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void constructor_ArrayIllegalLength() {
+		new Coordinate(new int[] { 1, 2 });
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void constructor_TooLarge() {
+		new Coordinate(0, Coordinate.MAX_VALUE + 1, 0);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void constructor_TooSmall() {
+		new Coordinate(0, 0, Coordinate.MIN_VALUE - 1);
+	}
+
+	@Test
+	public void getCoordinates_NewArray() {
+		Coordinate coordinate = new Coordinate(1, 2, 3);
+		coordinate.getCoordinates()[0] = 9;
+		assertEquals(1, coordinate.get(0));
+	}
+
+
+	/**************************************************
+	 * 	EQUALITY
+	 **************************************************/
+
+	@Test
+	public void equals_SameValues() {
+		Coordinate coordinate = new Coordinate(1, -2, 3);
+		Coordinate other = new Coordinate(1, -2, 3);
+		assertEquals(coordinate, other);
+		assertEquals(coordinate.hashCode(), other.hashCode());
+		assertEquals(coordinate.getKey(), other.getKey());
+	}
+
+	@Test
+	public void equals_OtherValues() {
+		Coordinate coordinate = new Coordinate(1, 2, 3);
+		assertNotEquals(coordinate, new Coordinate(3, 2, 1));
+		assertNotEquals(coordinate, new Coordinate(1, 2, -3));
+		assertNotEquals(new Coordinate(0, 0, -1), new Coordinate(0, -1, Coordinate.MAX_VALUE));
+		assertNotEquals(coordinate, null);
+		assertNotEquals(coordinate, "[1, 2, 3]");
+	}
+
+	/**
+	 * All coordinates of a world have distinct keys, and their hashes rarely
+	 * collide.
+	 */
+	@Test
+	public void hashCode_Spread() {
+		Set<Long> keys = new HashSet<Long>();
+		Set<Integer> hashes = new HashSet<Integer>();
+		for (int x = 0; x < 50; x++)
+			for (int y = 0; y < 50; y++)
+				for (int z = 0; z < 50; z++) {
+					Coordinate coordinate = new Coordinate(x, y, z);
+					keys.add(coordinate.getKey());
+					hashes.add(coordinate.hashCode());
+				}
+		assertEquals(50 * 50 * 50, keys.size());
+		assertTrue(hashes.size() > 50 * 50 * 50 - 10);
+	}
+
+	@Test
+	public void toString_Values() {
+		assertEquals("[1, -2, 3]", new Coordinate(1, -2, 3).toString());
+	}
+
+}
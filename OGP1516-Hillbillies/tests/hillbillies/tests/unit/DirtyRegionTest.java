@@ -0,0 +1,231 @@
+package hillbillies.tests.unit;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.*;
+
+import hillbillies.model.*;
+import hillbillies.model.World.TerrainType;
+import hillbillies.part2.listener.DirtyRegion;
+import hillbillies.part2.listener.TerrainChangeListener;
+
+/**
+ * A class collecting tests for regions of changed terrain cubes, and for the
+ * way worlds report their terrain changes through them.
+ *
+ * @author Ruben Cartuyvels
+ * @version 1.0
+ *
+ */
+public class DirtyRegionTest {
+
+	private static final int NB_X = 10, NB_Y = 12, NB_Z = 5;
+
+	private DirtyRegion region;
+
+	@Before
+	public void setUpRegion() {
+		region = new DirtyRegion(NB_X, NB_Y, NB_Z);
+	}
+
+	private static Set<Coordinate> toCoordinates(List<int[]> cubes) {
+		Set<Coordinate> coordinates = new HashSet<Coordinate>();
+		for (int[] cube: cubes)
+			assertTrue(coordinates.add(new Coordinate(cube)));
+		return coordinates;
+	}
+
+
+	/**************************************************
+	 * 	REGIONS
+	 **************************************************/
+
+	@Test
+	public void constructor_Empty() {
+		assertTrue(region.isEmpty());
+		assertEquals(0, region.size());
+		assertTrue(region.getCubes().isEmpty());
+		assertNull(region.getMin());
+		assertNull(region.getMax());
+	}
+
+	@Test
+	public void add_EachCubeOnce() {
+		assertTrue(region.add(1, 2, 3));
+		assertTrue(region.add(3, 2, 1));
+		assertFalse(region.add(1, 2, 3));
+		assertEquals(2, region.size());
+		assertEquals(2, region.getCubes().size());
+		assertArrayEquals(new int[] { 1, 2, 3 }, region.getCubes().get(0));
+		assertArrayEquals(new int[] { 3, 2, 1 }, region.getCubes().get(1));
+	}
+
+	/**
+	 * Random cubes are added to the region, which must hold each of them once
+	 * within the smallest box bounding them.
+	 */
+	@Test
+	public void add_RandomCubes() {
+		Random random = new Random(42L);
+		Set<Coordinate> added = new HashSet<Coordinate>();
+		int[] min = new int[3], max = new int[3];
+		for (int i = 0; i < 200; i++) {
+			int[] cube = { random.nextInt(NB_X), random.nextInt(NB_Y), random.nextInt(NB_Z) };
+			for (int j = 0; j < 3; j++) {
+				min[j] = added.isEmpty() ? cube[j] : Math.min(min[j], cube[j]);
+				max[j] = added.isEmpty() ? cube[j] : Math.max(max[j], cube[j]);
+			}
+			assertEquals(added.add(new Coordinate(cube)), region.add(cube[0], cube[1], cube[2]));
+			assertEquals(added.size(), region.size());
+			assertArrayEquals(min, region.getMin());
+			assertArrayEquals(max, region.getMax());
+		}
+		assertEquals(added, toCoordinates(region.getCubes()));
+	}
+
+	@Test
+	public void add_Corners() {
+		region.add(NB_X - 1, NB_Y - 1, NB_Z - 1);
+		region.add(0, 0, 0);
+		assertArrayEquals(new int[] { 0, 0, 0 }, region.getMin());
+		assertArrayEquals(new int[] { NB_X - 1, NB_Y - 1, NB_Z - 1 }, region.getMax());
+	}
+
+	@Test
+	public void clear_Reused() {
+		region.add(1, 1, 1);
+		region.add(2, 2, 2);
+		region.clear();
+		assertTrue(region.isEmpty());
+		assertNull(region.getMin());
+		assertTrue(region.add(2, 2, 2));
+		assertTrue(region.add(4, 5, 1));
+		assertEquals(2, region.size());
+		assertArrayEquals(new int[] { 2, 2, 1 }, region.getMin());
+		assertArrayEquals(new int[] { 4, 5, 2 }, region.getMax());
+	}
+
+	@Test
+	public void getCubes_Copies() {
+		region.add(1, 2, 3);
+		region.getCubes().get(0)[0] = 9;
+		region.getMin()[0] = 9;
+		region.getMax()[0] = 9;
+		assertArrayEquals(new int[] { 1, 2, 3 }, region.getCubes().get(0));
+		assertArrayEquals(new int[] { 1, 2, 3 }, region.getMin());
+		assertArrayEquals(new int[] { 1, 2, 3 }, region.getMax());
+	}
+
+
+	/**************************************************
+	 * 	WORLDS
+	 **************************************************/
+
+	/**
+	 * A terrain change listener only recording the cubes reported to it one
+	 * by one, relying on the default batch methods.
+	 */
+	private static class CubeListener implements TerrainChangeListener {
+
+		private final List<int[]> cubes = new ArrayList<int[]>();
+
+		@Override
+		public void notifyTerrainChanged(int x, int y, int z) {
+			cubes.add(new int[] { x, y, z });
+		}
+
+	}
+
+	/**
+	 * A terrain change listener recording the number of regions reported to
+	 * it, and the cubes and bounding box of the last one.
+	 */
+	private static class RegionListener implements TerrainChangeListener {
+
+		private int nbRegions = 0;
+
+		private Set<Coordinate> cubes;
+
+		private int[] min, max;
+
+		@Override
+		public void notifyTerrainChanged(int x, int y, int z) {
+			fail();
+		}
+
+		@Override
+		public void notifyTerrainChanged(DirtyRegion region) {
+			nbRegions++;
+			cubes = toCoordinates(region.getCubes());
+			min = region.getMin();
+			max = region.getMax();
+		}
+
+	}
+
+	private static World createWorld(TerrainChangeListener listener) {
+		int[][][] types = new int[NB_X][NB_Y][NB_Z];
+		for (int x = 0; x < NB_X; x++)
+			for (int y = 0; y < NB_Y; y++)
+				types[x][y][0] = TerrainType.ROCK.getNumber();
+		return new World(types, listener, ConnectivityEngine.FLOOD_FILL, 42L);
+	}
+
+	/**
+	 * The cubes changed before a time step are reported once, in a single
+	 * region, at the start of that time step, even if a cube changed more
+	 * than once.
+	 */
+	@Test
+	public void advanceTime_ReportsRegion() {
+		RegionListener listener = new RegionListener();
+		World world = createWorld(listener);
+		world.setCubeTypeAt(new Coordinate(2, 3, 1), TerrainType.ROCK);
+		world.setCubeTypeAt(new Coordinate(7, 1, 0), TerrainType.WORKSHOP);
+		world.setCubeTypeAt(new Coordinate(2, 3, 1), TerrainType.AIR);
+		world.setCubeTypeAt(new Coordinate(2, 3, 1), TerrainType.TREE);
+		assertEquals(0, listener.nbRegions);
+		world.advanceTime(0.1);
+		assertEquals(1, listener.nbRegions);
+		Set<Coordinate> expected = new HashSet<Coordinate>();
+		expected.add(new Coordinate(2, 3, 1));
+		expected.add(new Coordinate(7, 1, 0));
+		assertEquals(expected, listener.cubes);
+		assertArrayEquals(new int[] { 2, 1, 0 }, listener.min);
+		assertArrayEquals(new int[] { 7, 3, 1 }, listener.max);
+		world.advanceTime(0.1);
+		assertEquals(1, listener.nbRegions);
+		world.setCubeTypeAt(new Coordinate(5, 5, 1), TerrainType.ROCK);
+		world.advanceTime(0.1);
+		assertEquals(2, listener.nbRegions);
+		assertEquals(1, listener.cubes.size());
+		assertTrue(listener.cubes.contains(new Coordinate(5, 5, 1)));
+	}
+
+	/**
+	 * A listener only handling single cubes is told about each changed cube
+	 * once.
+	 */
+	@Test
+	public void advanceTime_DefaultsToSingleCubes() {
+		CubeListener listener = new CubeListener();
+		World world = createWorld(listener);
+		Random random = new Random(42L);
+		Set<Coordinate> changed = new HashSet<Coordinate>();
+		for (int i = 0; i < 50; i++) {
+			Coordinate cube = new Coordinate(random.nextInt(NB_X), random.nextInt(NB_Y), 0);
+			world.setCubeTypeAt(cube, i % 2 == 0 ? TerrainType.WORKSHOP : TerrainType.ROCK);
+			changed.add(cube);
+		}
+		assertTrue(listener.cubes.isEmpty());
+		world.advanceTime(0.1);
+		assertEquals(changed, toCoordinates(listener.cubes));
+	}
+
+}
@@ -0,0 +1,319 @@
+package hillbillies.tests.unit;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.*;
+
+import hillbillies.model.*;
+import hillbillies.model.World.TerrainType;
+import hillbillies.part2.listener.DefaultTerrainChangeListener;
+
+/**
+ * A class collecting tests for the distance fields a world keeps towards
+ * popular destinations.
+ *
+ * @author Ruben Cartuyvels
+ * @version 1.0
+ *
+ */
+public class DistanceFieldsTest {
+
+	private static final int NB_X = 10, NB_Y = 10, NB_Z = 5;
+
+	private World world;
+
+	private DistanceFields distanceFields;
+
+	/**
+	 * A 10x10x5 world with a floor of rock and rock in a fifth of the other
+	 * cubes, chosen by the given seed.
+	 */
+	private void setUpWorld(long seed) {
+		Random random = new Random(seed);
+		int[][][] types = new int[NB_X][NB_Y][NB_Z];
+		for (int x = 0; x < NB_X; x++)
+			for (int y = 0; y < NB_Y; y++)
+				for (int z = 0; z < NB_Z; z++)
+					if (z == 0 || random.nextDouble() < 0.2)
+						types[x][y][z] = TerrainType.ROCK.getNumber();
+		world = new World(types, new DefaultTerrainChangeListener(),
+				ConnectivityEngine.FLOOD_FILL, seed);
+		distanceFields = world.getDistanceFields();
+	}
+
+	@Before
+	public void setUpWorld() {
+		setUpWorld(1);
+	}
+
+	/**
+	 * Return the field towards the given destination, requesting it as many
+	 * times as the popularity threshold.
+	 */
+	private DistanceFields.Field build(DistanceFields distanceFields, Coordinate destination,
+			MovementRule rule) {
+		DistanceFields.Field field = null;
+		for (int i = 0; i < distanceFields.getPopularityThreshold(); i++)
+			field = distanceFields.request(destination, rule);
+		assertNotNull(field);
+		return field;
+	}
+
+	/**
+	 * Check that the given field registers the same distance for each cube
+	 * as a field built from scratch in the current terrain.
+	 */
+	private void checkSameAsRebuilt(DistanceFields.Field field, Coordinate destination,
+			MovementRule rule) {
+		DistanceFields.Field rebuilt = build(new DistanceFields(world), destination, rule);
+		for (int x = 0; x < NB_X; x++)
+			for (int y = 0; y < NB_Y; y++)
+				for (int z = 0; z < NB_Z; z++)
+					assertEquals(rebuilt.getDistance(x, y, z), field.getDistance(x, y, z));
+	}
+
+
+	/**************************************************
+	 * 	POPULARITY
+	 **************************************************/
+
+	@Test
+	public void request_BuiltAtThreshold() {
+		Coordinate destination = new Coordinate(5, 5, 1);
+		for (int i = 1; i < distanceFields.getPopularityThreshold(); i++)
+			assertNull(distanceFields.request(destination, MovementRule.GROUNDED));
+		assertNull(distanceFields.getField(destination, MovementRule.GROUNDED));
+		DistanceFields.Field field = distanceFields.request(destination, MovementRule.GROUNDED);
+		assertNotNull(field);
+		assertSame(field, distanceFields.getField(destination, MovementRule.GROUNDED));
+		assertSame(field, distanceFields.request(destination, MovementRule.GROUNDED));
+		assertEquals(1, distanceFields.getNbFields());
+	}
+
+	@Test
+	public void request_PerRule() {
+		Coordinate destination = new Coordinate(5, 5, 1);
+		DistanceFields.Field grounded = build(distanceFields, destination, MovementRule.GROUNDED);
+		assertNull(distanceFields.getField(destination, MovementRule.FREE));
+		DistanceFields.Field free = build(distanceFields, destination, MovementRule.FREE);
+		assertNotSame(grounded, free);
+		assertEquals(2, distanceFields.getNbFields());
+	}
+
+	/**
+	 * A destination requested every now and then keeps its count while many
+	 * other destinations are requested once.
+	 */
+	@Test
+	public void request_KeepsRecentCounts() {
+		Coordinate popular = new Coordinate(5, 5, 1);
+		for (int i = 1; i < distanceFields.getPopularityThreshold(); i++) {
+			assertNull(distanceFields.request(popular, MovementRule.GROUNDED));
+			for (int x = 0; x < NB_X; x++)
+				for (int y = 0; y < NB_Y; y++)
+					for (int z = 0; z < NB_Z; z++)
+						if (!popular.equals(new Coordinate(x, y, z))) {
+							distanceFields.request(new Coordinate(x, y, z), MovementRule.GROUNDED);
+							distanceFields.request(new Coordinate(x, y, z), MovementRule.FREE);
+						}
+		}
+		assertNotNull(distanceFields.request(popular, MovementRule.GROUNDED));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void setPopularityThreshold_Illegal() {
+		distanceFields.setPopularityThreshold(0);
+	}
+
+
+	/**************************************************
+	 * 	DISTANCES
+	 **************************************************/
+
+	/**
+	 * Each cube a nit can move through is as many steps away from the
+	 * destination as the length of the shortest path the path finder finds.
+	 */
+	private void checkDistances(Coordinate destination, MovementRule rule) {
+		DistanceFields.Field field = build(distanceFields, destination, rule);
+		PathFinder pathFinder = world.getPathFinder();
+		for (int x = 0; x < NB_X; x++)
+			for (int y = 0; y < NB_Y; y++)
+				for (int z = 0; z < NB_Z; z++) {
+					Coordinate cube = new Coordinate(x, y, z);
+					if (cube.equals(destination)) {
+						assertEquals(0, field.getDistance(x, y, z));
+					}
+					else if (!rule.isTraversable(world, x, y, z)) {
+						assertEquals(-1, field.getDistance(x, y, z));
+					}
+					else {
+						int[] path = pathFinder.findPath(cube, destination, rule);
+						assertEquals(path == null ? -1 : path.length, field.getDistance(x, y, z));
+					}
+				}
+	}
+
+	@Test
+	public void getDistance_Grounded() {
+		for (long seed = 0; seed < 5; seed++) {
+			setUpWorld(seed);
+			checkDistances(new Coordinate(5, 5, 1), MovementRule.GROUNDED);
+		}
+	}
+
+	@Test
+	public void getDistance_Free() {
+		for (long seed = 0; seed < 5; seed++) {
+			setUpWorld(seed);
+			checkDistances(new Coordinate(2, 7, 3), MovementRule.FREE);
+		}
+	}
+
+	@Test
+	public void getNextStep_LeadsToDestination() {
+		Coordinate destination = new Coordinate(9, 9, 1);
+		DistanceFields.Field field = build(distanceFields, destination, MovementRule.GROUNDED);
+		PathFinder pathFinder = world.getPathFinder();
+		assertEquals(pathFinder.indexOf(destination), field.getNextStep(9, 9, 1));
+		for (int x = 0; x < NB_X; x++)
+			for (int y = 0; y < NB_Y; y++)
+				for (int z = 1; z < NB_Z; z++) {
+					int distance = field.getDistance(x, y, z);
+					if (distance <= 0)
+						continue;
+					Coordinate next = pathFinder.coordinateOf(field.getNextStep(x, y, z));
+					assertTrue(world.isNeighbouring(new Coordinate(x, y, z), next));
+					assertEquals(distance - 1, field.getDistance(next.get(0), next.get(1), next.get(2)));
+				}
+	}
+
+	@Test
+	public void getNextStep_Unreachable() {
+		world.setCubeTypeAt(new Coordinate(4, 4, 1), TerrainType.AIR);
+		for (int x = 3; x < 6; x++)
+			for (int y = 3; y < 6; y++)
+				for (int z = 1; z < 3; z++)
+					if (x != 4 || y != 4 || z != 1)
+						world.setCubeTypeAt(new Coordinate(x, y, z), TerrainType.ROCK);
+		DistanceFields.Field field = build(distanceFields, new Coordinate(9, 9, 1), MovementRule.GROUNDED);
+		assertEquals(-1, field.getDistance(4, 4, 1));
+		assertEquals(-1, field.getNextStep(4, 4, 1));
+	}
+
+
+	/**************************************************
+	 * 	TERRAIN CHANGES
+	 **************************************************/
+
+	/**
+	 * Apply random changes to the terrain, checking after each one that the
+	 * fields kept by the service agree with fields built from scratch.
+	 */
+	private void checkRandomChanges(MovementRule rule, long seed) {
+		setUpWorld(seed);
+		Coordinate first = new Coordinate(1, 1, 1);
+		Coordinate second = new Coordinate(8, 6, 2);
+		world.setCubeTypeAt(first, TerrainType.AIR);
+		world.setCubeTypeAt(second, TerrainType.AIR);
+		build(distanceFields, first, rule);
+		build(distanceFields, second, rule);
+		Random random = new Random(seed);
+		for (int i = 0; i < 40; i++) {
+			Coordinate cube = new Coordinate(random.nextInt(NB_X), random.nextInt(NB_Y), 1 + random.nextInt(NB_Z - 1));
+			if (cube.equals(first) || cube.equals(second))
+				continue;
+			world.setCubeTypeAt(cube, world.getCubeTypeAt(cube) == TerrainType.ROCK
+					? TerrainType.AIR : TerrainType.ROCK);
+			checkSameAsRebuilt(distanceFields.getField(first, rule), first, rule);
+			checkSameAsRebuilt(distanceFields.getField(second, rule), second, rule);
+		}
+	}
+
+	@Test
+	public void terrainChanged_Grounded() {
+		for (long seed = 0; seed < 5; seed++)
+			checkRandomChanges(MovementRule.GROUNDED, seed);
+	}
+
+	@Test
+	public void terrainChanged_Free() {
+		for (long seed = 0; seed < 5; seed++)
+			checkRandomChanges(MovementRule.FREE, seed);
+	}
+
+	/**
+	 * Opening a wall only makes cubes closer, which the field relaxes in
+	 * place.
+	 */
+	@Test
+	public void terrainChanged_Opened() {
+		for (int x = 0; x < NB_X; x++)
+			for (int y = 0; y < NB_Y; y++)
+				for (int z = 1; z < NB_Z; z++)
+					world.setCubeTypeAt(new Coordinate(x, y, z),
+							x == 5 ? TerrainType.ROCK : TerrainType.AIR);
+		Coordinate destination = new Coordinate(9, 0, 1);
+		DistanceFields.Field field = build(distanceFields, destination, MovementRule.GROUNDED);
+		assertEquals(-1, field.getDistance(0, 0, 1));
+		world.setCubeTypeAt(new Coordinate(5, 0, 1), TerrainType.AIR);
+		assertEquals(9, field.getDistance(0, 0, 1));
+		checkSameAsRebuilt(field, destination, MovementRule.GROUNDED);
+	}
+
+	/**
+	 * Closing the only opening in a wall cuts off the cubes behind it, while
+	 * the cubes in front of it keep their distances.
+	 */
+	@Test
+	public void terrainChanged_Blocked() {
+		for (int x = 0; x < NB_X; x++)
+			for (int y = 0; y < NB_Y; y++)
+				for (int z = 1; z < NB_Z; z++)
+					world.setCubeTypeAt(new Coordinate(x, y, z),
+							x == 5 && (y > 0 || z > 1) ? TerrainType.ROCK : TerrainType.AIR);
+		Coordinate destination = new Coordinate(9, 0, 1);
+		DistanceFields.Field field = build(distanceFields, destination, MovementRule.GROUNDED);
+		assertEquals(9, field.getDistance(0, 0, 1));
+		world.setCubeTypeAt(new Coordinate(5, 0, 1), TerrainType.ROCK);
+		assertEquals(-1, field.getDistance(0, 0, 1));
+		assertEquals(-1, field.getDistance(5, 0, 1));
+		assertEquals(3, field.getDistance(6, 3, 1));
+		checkSameAsRebuilt(field, destination, MovementRule.GROUNDED);
+	}
+
+
+	/**************************************************
+	 * 	MEMORY BUDGET
+	 **************************************************/
+
+	private static final long FIELD_SIZE = 4L * NB_X * NB_Y * NB_Z;
+
+	@Test
+	public void request_EvictsLeastRecentlyUsed() {
+		distanceFields.setMemoryBudget(2 * FIELD_SIZE);
+		Coordinate first = new Coordinate(1, 1, 1);
+		Coordinate second = new Coordinate(2, 2, 1);
+		Coordinate third = new Coordinate(3, 3, 1);
+		build(distanceFields, first, MovementRule.GROUNDED);
+		build(distanceFields, second, MovementRule.GROUNDED);
+		distanceFields.getField(first, MovementRule.GROUNDED);
+		build(distanceFields, third, MovementRule.GROUNDED);
+		assertEquals(2, distanceFields.getNbFields());
+		assertNotNull(distanceFields.getField(first, MovementRule.GROUNDED));
+		assertNull(distanceFields.getField(second, MovementRule.GROUNDED));
+		assertNotNull(distanceFields.getField(third, MovementRule.GROUNDED));
+	}
+
+	@Test
+	public void request_FieldExceedsBudget() {
+		distanceFields.setMemoryBudget(FIELD_SIZE - 1);
+		Coordinate destination = new Coordinate(1, 1, 1);
+		for (int i = 0; i < 2 * distanceFields.getPopularityThreshold(); i++)
+			assertNull(distanceFields.request(destination, MovementRule.GROUNDED));
+		assertEquals(0, distanceFields.getNbFields());
+	}
+
+}
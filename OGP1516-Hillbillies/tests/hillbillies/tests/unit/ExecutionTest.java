@@ -0,0 +1,406 @@
+package hillbillies.tests.unit;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.*;
+
+import hillbillies.model.*;
+import hillbillies.model.World.TerrainType;
+import hillbillies.part2.listener.DefaultTerrainChangeListener;
+import hillbillies.part3.programs.TaskParser;
+
+/**
+ * A class collecting tests for the execution of the programs of tasks.
+ *
+ * Variables get their slots in the order in which they first occur in the
+ * activities of a task, so the first variable is in slot 0.
+ *
+ * @author Ruben Cartuyvels
+ * @version 1.0
+ *
+ */
+public class ExecutionTest {
+
+	private static Task parse(String activities) {
+		return TaskParser.parseTasksFromString("name: \"test\"\npriority: 1\nactivities:\n" + activities,
+				new TaskFactory(), Collections.<int[]>emptyList()).get(0);
+	}
+
+	/**
+	 * Execute the given task, which needs no nit, until it is completed.
+	 */
+	private static void runToCompletion(Task task) {
+		for (int i = 0; i < 1000 && !task.isCompleted(); i++)
+			task.execute(0.01);
+		assertTrue(task.isCompleted());
+	}
+
+
+	/**************************************************
+	 * 	CONTROL FLOW
+	 **************************************************/
+
+	@Test
+	public void if_Then() {
+		Task task = parse("if true then a := true; else b := true; fi");
+		runToCompletion(task);
+		assertEquals(true, task.getVariable(0));
+		assertNull(task.getVariable(1));
+	}
+
+	@Test
+	public void if_Else() {
+		Task task = parse("if !true then a := true; else b := true; fi");
+		runToCompletion(task);
+		assertNull(task.getVariable(0));
+		assertEquals(true, task.getVariable(1));
+	}
+
+	@Test
+	public void if_WithoutElse() {
+		Task task = parse("if false then a := true; fi b := true;");
+		runToCompletion(task);
+		assertNull(task.getVariable(0));
+		assertEquals(true, task.getVariable(1));
+	}
+
+	@Test
+	public void while_RunsUntilConditionFalse() {
+		Task task = parse("a := true; while a do b := (1, 2, 3); a := false; done c := b;");
+		runToCompletion(task);
+		assertEquals(false, task.getVariable(0));
+		assertEquals(new Coordinate(1, 2, 3), task.getVariable(2));
+	}
+
+	@Test
+	public void while_ConditionFalse() {
+		Task task = parse("while false do a := true; done b := true;");
+		runToCompletion(task);
+		assertNull(task.getVariable(0));
+		assertEquals(true, task.getVariable(1));
+	}
+
+	@Test
+	public void break_LeavesInnermostLoop() {
+		Task task = parse("while true do while true do break; a := false; done "
+				+ "b := true; break; done c := true;");
+		runToCompletion(task);
+		assertNull(task.getVariable(0));
+		assertEquals(true, task.getVariable(1));
+		assertEquals(true, task.getVariable(2));
+	}
+
+	@Test
+	public void break_InIfInLoop() {
+		Task task = parse("a := true; while true do if a then break; fi a := false; done b := a;");
+		runToCompletion(task);
+		assertEquals(true, task.getVariable(1));
+	}
+
+	@Test
+	public void break_OutsideLoopEndsTask() {
+		Task task = parse("a := true; break; b := true;");
+		runToCompletion(task);
+		assertEquals(true, task.getVariable(0));
+		assertNull(task.getVariable(1));
+	}
+
+
+	/**************************************************
+	 * 	BOOLEAN OPERATORS
+	 **************************************************/
+
+	@Test
+	public void and_Values() {
+		Task task = parse("a := true && true; b := true && false; c := false && true;");
+		runToCompletion(task);
+		assertEquals(true, task.getVariable(0));
+		assertEquals(false, task.getVariable(1));
+		assertEquals(false, task.getVariable(2));
+	}
+
+	@Test
+	public void or_Values() {
+		Task task = parse("a := false || false; b := false || true; c := true || false;");
+		runToCompletion(task);
+		assertEquals(false, task.getVariable(0));
+		assertEquals(true, task.getVariable(1));
+		assertEquals(true, task.getVariable(2));
+	}
+
+	/**
+	 * The task has no nit, so evaluating the right operand would fail.
+	 */
+	@Test
+	public void and_ShortCircuits() {
+		Task task = parse("a := false && is_alive this;");
+		runToCompletion(task);
+		assertEquals(false, task.getVariable(0));
+	}
+
+	/**
+	 * The task has no nit, so evaluating the right operand would fail.
+	 */
+	@Test
+	public void or_ShortCircuits() {
+		Task task = parse("a := true || is_alive this;");
+		runToCompletion(task);
+		assertEquals(true, task.getVariable(0));
+	}
+
+	@Test(expected = NullPointerException.class)
+	public void and_EvaluatesRightOperand() {
+		parse("a := true && is_alive this;").execute(0.01);
+	}
+
+
+	/**************************************************
+	 * 	TIME
+	 **************************************************/
+
+	@Test
+	public void execute_OneStatementPerStep() {
+		Task task = parse("a := true; b := true; c := true;");
+		task.execute(0.001);
+		assertEquals(true, task.getVariable(0));
+		assertNull(task.getVariable(1));
+		assertFalse(task.isCompleted());
+		task.execute(0.002);
+		assertEquals(true, task.getVariable(2));
+		assertTrue(task.isCompleted());
+	}
+
+	@Test
+	public void execute_PartialStepCounts() {
+		Task task = parse("a := true; b := true; c := true;");
+		task.execute(0.0015);
+		assertEquals(true, task.getVariable(1));
+		assertNull(task.getVariable(2));
+	}
+
+	@Test
+	public void execute_ConditionTakesStep() {
+		Task task = parse("if true then a := true; fi");
+		task.execute(0.001);
+		assertNull(task.getVariable(0));
+		task.execute(0.001);
+		assertEquals(true, task.getVariable(0));
+		assertTrue(task.isCompleted());
+	}
+
+	@Test
+	public void execute_LoopSpreadOverSteps() {
+		Task task = parse("a := true; while a do a := false; done");
+		task.execute(0.002);
+		assertEquals(true, task.getVariable(0));
+		assertFalse(task.isCompleted());
+		task.execute(0.001);
+		assertEquals(false, task.getVariable(0));
+		assertFalse(task.isCompleted());
+		task.execute(0.001);
+		assertTrue(task.isCompleted());
+	}
+
+	@Test
+	public void interrupt_RestartsProgram() {
+		Task task = parse("a := true; b := true;");
+		task.execute(0.001);
+		task.interrupt();
+		assertNull(task.getVariable(0));
+		task.execute(0.001);
+		assertEquals(true, task.getVariable(0));
+		assertNull(task.getVariable(1));
+	}
+
+
+	/**************************************************
+	 * 	VARIABLES
+	 **************************************************/
+
+	@Test
+	public void variables_SameNameSameSlot() {
+		Task task = parse("a := true; b := a; a := false;");
+		runToCompletion(task);
+		assertEquals(false, task.getVariable(0));
+		assertEquals(true, task.getVariable(1));
+	}
+
+	/**
+	 * The slots start again from slot 0 for each task a factory creates.
+	 */
+	@Test
+	public void variables_SlotsPerTask() {
+		TaskFactory factory = new TaskFactory();
+		Task first = TaskParser.parseTasksFromString("name: \"first\"\npriority: 1\nactivities:\n"
+				+ "a := true; b := false;", factory, Collections.<int[]>emptyList()).get(0);
+		Task second = TaskParser.parseTasksFromString("name: \"second\"\npriority: 1\nactivities:\n"
+				+ "c := false; a := true;", factory, Collections.<int[]>emptyList()).get(0);
+		assertEquals(2, second.getProgram().getNbVariables());
+		runToCompletion(first);
+		runToCompletion(second);
+		assertEquals(true, first.getVariable(0));
+		assertEquals(false, second.getVariable(0));
+		assertEquals(true, second.getVariable(1));
+	}
+
+	/**
+	 * The tasks created for several selected cubes share their program, but
+	 * each keeps the values of its variables in a frame of its own.
+	 */
+	@Test
+	public void variables_FramePerTask() {
+		List<int[]> selected = Arrays.asList(new int[] { 1, 2, 3 }, new int[] { 4, 5, 6 });
+		List<Task> tasks = TaskParser.parseTasksFromString("name: \"test\"\npriority: 1\nactivities:\n"
+				+ "a := selected;", new TaskFactory(), selected);
+		assertEquals(2, tasks.size());
+		runToCompletion(tasks.get(0));
+		assertEquals(new Coordinate(1, 2, 3), tasks.get(0).getVariable(0));
+		assertNull(tasks.get(1).getVariable(0));
+		runToCompletion(tasks.get(1));
+		assertEquals(new Coordinate(4, 5, 6), tasks.get(1).getVariable(0));
+		assertEquals(new Coordinate(1, 2, 3), tasks.get(0).getVariable(0));
+	}
+
+	@Test
+	public void setVariable_Slot() {
+		Task task = parse("a := true; b := true;");
+		task.setVariable(1, "value");
+		assertEquals("value", task.getVariable(1));
+		assertNull(task.getVariable(0));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void getVariable_IllegalSlot() {
+		parse("a := true;").getVariable(1);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void setVariable_IllegalSlot() {
+		parse("a := true;").setVariable(-1, true);
+	}
+
+
+	/**************************************************
+	 * 	ACTIONS
+	 **************************************************/
+
+	private World world;
+
+	private Unit unit;
+
+	/**
+	 * A 10x1x2 world with a floor of rock, and a unit in it that has no
+	 * default behaviour.
+	 */
+	@Before
+	public void setUpWorld() {
+		int[][][] types = new int[10][1][2];
+		for (int x = 0; x < 10; x++)
+			types[x][0][0] = TerrainType.ROCK.getNumber();
+		world = new World(types, new DefaultTerrainChangeListener(),
+				ConnectivityEngine.FLOOD_FILL, 42L);
+		unit = world.spawnUnit(false);
+	}
+
+	private void assign(Task task, Nit nit) {
+		task.setBeingExecuted(true);
+		nit.setAssignedTask(task);
+	}
+
+	private static boolean isBusy(Nit nit) {
+		return nit.isMoving() || nit.isWorking() || nit.isAttacking()
+				|| (nit.getDestCubeLT() != null && !nit.getCoordinate().equals(nit.getDestCubeLT()));
+	}
+
+	private void advanceUntilIdle(Nit nit) {
+		for (int i = 0; i < 1000 && isBusy(nit); i++)
+			world.advanceTime(0.1);
+	}
+
+	private void moveAndWait(Nit nit, Coordinate cube) {
+		nit.moveTo(cube);
+		advanceUntilIdle(nit);
+		assertEquals(cube, nit.getCoordinate());
+	}
+
+	@Test
+	public void moveTo_ResumesAfterMove() {
+		moveAndWait(unit, new Coordinate(0, 0, 1));
+		Task task = parse("moveTo (9, 0, 1); a := true;");
+		assign(task, unit);
+		task.execute(0.01);
+		assertTrue(unit.isMoving());
+		assertNull(task.getVariable(0));
+		advanceUntilIdle(unit);
+		assertEquals(new Coordinate(9, 0, 1), unit.getCoordinate());
+		task.execute(0.01);
+		assertEquals(true, task.getVariable(0));
+		assertTrue(task.isCompleted());
+	}
+
+	@Test
+	public void work_ResumesAfterWork() {
+		Task task = parse("work here; a := true;");
+		assign(task, unit);
+		task.execute(0.01);
+		assertTrue(unit.isWorking());
+		assertNull(task.getVariable(0));
+		advanceUntilIdle(unit);
+		task.execute(0.01);
+		assertEquals(true, task.getVariable(0));
+		assertTrue(task.isCompleted());
+	}
+
+	@Test
+	public void attack_ResumesAfterAttack() {
+		Unit enemy = world.spawnUnit(false);
+		moveAndWait(unit, new Coordinate(4, 0, 1));
+		moveAndWait(enemy, new Coordinate(5, 0, 1));
+		Task task = parse("attack any; a := true;");
+		assign(task, unit);
+		task.execute(0.01);
+		assertTrue(unit.isAttacking());
+		assertNull(task.getVariable(0));
+		advanceUntilIdle(unit);
+		task.execute(0.01);
+		assertEquals(true, task.getVariable(0));
+		assertTrue(task.isCompleted());
+	}
+
+	@Test
+	public void follow_MovesUntilNextToUnit() {
+		Unit other = world.spawnUnit(false);
+		moveAndWait(unit, new Coordinate(0, 0, 1));
+		moveAndWait(other, new Coordinate(9, 0, 1));
+		Task task = parse("follow any; a := true;");
+		assign(task, unit);
+		task.execute(0.01);
+		assertTrue(unit.isMoving());
+		assertNull(task.getVariable(0));
+		task.execute(0.01);
+		assertTrue(unit.isMoving());
+		assertNull(task.getVariable(0));
+		advanceUntilIdle(unit);
+		task.execute(0.01);
+		assertEquals(true, task.getVariable(0));
+		assertTrue(task.isCompleted());
+	}
+
+	@Test
+	public void follow_NextToUnit() {
+		Unit other = world.spawnUnit(false);
+		moveAndWait(unit, new Coordinate(4, 0, 1));
+		moveAndWait(other, new Coordinate(5, 0, 1));
+		Task task = parse("follow any; a := true;");
+		assign(task, unit);
+		task.execute(0.01);
+		assertFalse(unit.isMoving());
+		assertEquals(true, task.getVariable(0));
+		assertTrue(task.isCompleted());
+	}
+
+}
@@ -0,0 +1,177 @@
+package hillbillies.tests.unit;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.*;
+
+import hillbillies.model.*;
+import hillbillies.model.World.TerrainType;
+import hillbillies.part2.listener.DefaultTerrainChangeListener;
+
+/**
+ * A class collecting tests for the limits on the number of nits and factions
+ * of worlds, and for the faction that newly spawned units join.
+ *
+ * @author Ruben Cartuyvels
+ * @version 1.0
+ *
+ */
+public class FactionLimitsTest {
+
+	private World world;
+
+	@Before
+	public void setUpWorld() {
+		int[][][] types = new int[20][20][3];
+		for (int x = 0; x < 20; x++)
+			for (int y = 0; y < 20; y++)
+				types[x][y][0] = TerrainType.ROCK.getNumber();
+		world = new World(types, new DefaultTerrainChangeListener(),
+				ConnectivityEngine.FLOOD_FILL, 42L);
+	}
+
+	private int getSmallestNbNits() {
+		int smallest = Integer.MAX_VALUE;
+		for (Faction faction: world.getAllFactions())
+			smallest = Math.min(smallest, faction.getNbNits());
+		return smallest;
+	}
+
+	private int getLargestNbNits() {
+		int largest = 0;
+		for (Faction faction: world.getAllFactions())
+			largest = Math.max(largest, faction.getNbNits());
+		return largest;
+	}
+
+
+	/**************************************************
+	 * 	LIMITS
+	 **************************************************/
+
+	@Test
+	public void constructor_DefaultLimits() {
+		assertEquals(World.DEFAULT_MAX_NB_NITS, world.getMaxNbNits());
+		assertEquals(World.DEFAULT_MAX_NB_FACTIONS, world.getMaxNbFactions());
+		assertEquals(World.DEFAULT_MAX_NB_NITS_PER_FACTION, world.getMaxNbNitsPerFaction());
+	}
+
+	@Test
+	public void getMaxNbNits_Faction() {
+		Faction faction = new Faction();
+		assertEquals(World.DEFAULT_MAX_NB_NITS_PER_FACTION, faction.getMaxNbNits());
+		world.setMaxNbNitsPerFaction(7);
+		assertEquals(7, world.spawnUnit(false).getFaction().getMaxNbNits());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void setMaxNbNits_NotPositive() {
+		world.setMaxNbNits(0);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void setMaxNbNits_BelowNbNits() {
+		for (int i = 0; i < 10; i++)
+			world.spawnUnit(false);
+		world.setMaxNbNits(9);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void setMaxNbFactions_BelowNbFactions() {
+		for (int i = 0; i < 3; i++)
+			world.spawnUnit(false);
+		world.setMaxNbFactions(2);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void setMaxNbNitsPerFaction_BelowNbNits() {
+		world.setMaxNbFactions(1);
+		for (int i = 0; i < 4; i++)
+			world.spawnUnit(false);
+		world.setMaxNbNitsPerFaction(3);
+	}
+
+	@Test
+	public void setMaxNbNitsPerFaction_AtNbNits() {
+		world.setMaxNbFactions(1);
+		for (int i = 0; i < 4; i++)
+			world.spawnUnit(false);
+		world.setMaxNbNitsPerFaction(4);
+		assertEquals(4, world.getMaxNbNitsPerFaction());
+	}
+
+
+	/**************************************************
+	 * 	SPAWNING
+	 **************************************************/
+
+	/**
+	 * Each spawned unit joins a new faction as long as the world can hold
+	 * more factions, and a smallest faction afterwards, so that the factions
+	 * never differ by more than one nit.
+	 */
+	@Test
+	public void spawnUnit_SmallestFaction() {
+		world.setMaxNbNits(300);
+		world.setMaxNbNitsPerFaction(100);
+		for (int i = 0; i < 237; i++) {
+			Unit unit = world.spawnUnit(false);
+			assertEquals(Math.min(i + 1, World.DEFAULT_MAX_NB_FACTIONS), world.getNbFactions());
+			assertTrue(getLargestNbNits() - getSmallestNbNits() <= 1);
+			assertEquals(getLargestNbNits(), unit.getFaction().getNbNits());
+		}
+	}
+
+	@Test
+	public void spawnUnit_RaisedLimits() {
+		world.setMaxNbNits(3000);
+		world.setMaxNbFactions(12);
+		world.setMaxNbNitsPerFaction(250);
+		for (int i = 0; i < 3000; i++)
+			world.spawnUnit(false);
+		assertEquals(3000, world.getNbNits());
+		assertEquals(12, world.getNbFactions());
+		for (Faction faction: world.getAllFactions())
+			assertEquals(250, faction.getNbNits());
+	}
+
+	@Test(expected = IllegalNbException.class)
+	public void spawnUnit_FactionsFull() {
+		world.setMaxNbFactions(2);
+		world.setMaxNbNitsPerFaction(3);
+		for (int i = 0; i < 6; i++)
+			world.spawnUnit(false);
+		assertEquals(6, world.getNbNits());
+		world.spawnUnit(false);
+	}
+
+	/**
+	 * Nits leave random factions, after which each spawned unit must still
+	 * join a smallest faction.
+	 */
+	@Test
+	public void spawnUnit_AfterLeaving() {
+		Random random = new Random(42L);
+		world.setMaxNbNits(1000);
+		world.setMaxNbFactions(8);
+		world.setMaxNbNitsPerFaction(200);
+		List<Unit> units = new ArrayList<Unit>();
+		for (int i = 0; i < 400; i++)
+			units.add(world.spawnUnit(false));
+		for (int i = 0; i < 300; i++) {
+			Unit unit = units.remove(random.nextInt(units.size()));
+			unit.getFaction().removeNit(unit);
+			if (i % 3 == 0)
+				continue;
+			int smallest = getSmallestNbNits();
+			Unit spawned = world.spawnUnit(false);
+			assertEquals(smallest + 1, spawned.getFaction().getNbNits());
+			units.add(spawned);
+		}
+	}
+
+}
@@ -0,0 +1,227 @@
+package hillbillies.tests.unit;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.*;
+
+import hillbillies.model.*;
+import hillbillies.model.World.TerrainType;
+import hillbillies.part2.listener.DefaultTerrainChangeListener;
+
+/**
+ * A class collecting tests for the hierarchical path finder of worlds,
+ * checking the waypoints of its routes with the A* path finder.
+ *
+ * @author Ruben Cartuyvels
+ * @version 1.0
+ *
+ */
+public class HierarchicalPathFinderTest {
+
+	private static final int NB_X = 40, NB_Y = 40, NB_Z = 4;
+
+	private World world;
+
+	private PathFinder pathFinder;
+
+	private HierarchicalPathFinder hierarchicalPathFinder;
+
+	/**
+	 * A 40x40x4 world, spanning 3x3 chunks, with a floor of rock and rock in
+	 * each other cube with the given probability.
+	 */
+	private void setUpWorld(double rockProbability, long seed) {
+		Random random = new Random(seed);
+		int[][][] types = new int[NB_X][NB_Y][NB_Z];
+		for (int x = 0; x < NB_X; x++)
+			for (int y = 0; y < NB_Y; y++)
+				for (int z = 0; z < NB_Z; z++)
+					if (z == 0 || random.nextDouble() < rockProbability)
+						types[x][y][z] = TerrainType.ROCK.getNumber();
+		world = new World(types, new DefaultTerrainChangeListener(),
+				ConnectivityEngine.FLOOD_FILL, seed);
+		pathFinder = world.getPathFinder();
+		hierarchicalPathFinder = world.getHierarchicalPathFinder();
+	}
+
+	@Before
+	public void setUpWorld() {
+		setUpWorld(0, 1);
+	}
+
+	private Coordinate randomCube(Random random) {
+		return new Coordinate(random.nextInt(NB_X), random.nextInt(NB_Y), 1 + random.nextInt(NB_Z - 1));
+	}
+
+	/**
+	 * Return the number of steps along the route from the given start to
+	 * the given destination, after checking that it ends in the destination
+	 * and that each waypoint can be reached from the one before it, or -1 if
+	 * the route only holds the destination.
+	 */
+	private int checkRoute(HierarchicalPathFinder hierarchicalPathFinder, Coordinate start,
+			Coordinate destination, MovementRule rule) {
+		int[] route = hierarchicalPathFinder.findRoute(start, destination, rule);
+		assertEquals(pathFinder.indexOf(destination), route[route.length - 1]);
+		if (route.length == 1)
+			return -1;
+		int length = 0;
+		Coordinate previous = start;
+		for (int waypoint: route) {
+			Coordinate next = pathFinder.coordinateOf(waypoint);
+			int[] path = pathFinder.findPath(previous, next, rule);
+			assertNotNull(path);
+			length += path.length;
+			previous = next;
+		}
+		return length;
+	}
+
+	/**
+	 * Check the routes between random pairs of cubes in a random world. The
+	 * abstract graph must connect every pair that can be reached, in at most
+	 * twice the number of steps of a shortest path.
+	 */
+	private void checkRandomRoutes(MovementRule rule, double rockProbability) {
+		for (long seed = 0; seed < 3; seed++) {
+			setUpWorld(rockProbability, seed);
+			Random random = new Random(seed);
+			for (int i = 0; i < 40; i++) {
+				Coordinate start = randomCube(random);
+				Coordinate destination = randomCube(random);
+				if (!rule.isTraversable(world, start.get(0), start.get(1), start.get(2))
+						|| !rule.isTraversable(world, destination.get(0), destination.get(1), destination.get(2)))
+					continue;
+				int[] shortest = pathFinder.findPath(start, destination, rule);
+				int length = checkRoute(hierarchicalPathFinder, start, destination, rule);
+				if (shortest == null)
+					assertEquals(-1, length);
+				else if (length != -1)
+					assertTrue(length <= 2 * shortest.length);
+				else
+					assertTrue(shortest.length <= HierarchicalPathFinder.CHUNK_SIZE);
+			}
+		}
+	}
+
+
+	/**************************************************
+	 * 	ROUTES
+	 **************************************************/
+
+	@Test
+	public void findRoute_SameChunk() {
+		int[] route = hierarchicalPathFinder.findRoute(new Coordinate(1, 1, 1),
+				new Coordinate(14, 14, 1), MovementRule.GROUNDED);
+		assertArrayEquals(new int[] { pathFinder.indexOf(14, 14, 1) }, route);
+	}
+
+	@Test
+	public void findRoute_AcrossChunks() {
+		Coordinate start = new Coordinate(0, 0, 1);
+		Coordinate destination = new Coordinate(39, 39, 1);
+		assertTrue(checkRoute(hierarchicalPathFinder, start, destination, MovementRule.GROUNDED) >= 39);
+		assertTrue(hierarchicalPathFinder.findRoute(start, destination, MovementRule.GROUNDED).length > 1);
+	}
+
+	@Test
+	public void findRoute_Grounded() {
+		checkRandomRoutes(MovementRule.GROUNDED, 0.2);
+	}
+
+	@Test
+	public void findRoute_Free() {
+		checkRandomRoutes(MovementRule.FREE, 0.2);
+	}
+
+	@Test
+	public void findRoute_DenseRock() {
+		checkRandomRoutes(MovementRule.GROUNDED, 0.45);
+	}
+
+	/**
+	 * Two corridors in diagonally neighbouring chunks only meet at the edge
+	 * between those chunks, which must be an entrance of the abstract graph.
+	 */
+	@Test
+	public void findRoute_DiagonalEntrance() {
+		for (int x = 0; x < NB_X; x++)
+			for (int y = 0; y < NB_Y; y++)
+				for (int z = 1; z < NB_Z; z++)
+					world.setCubeTypeAt(new Coordinate(x, y, z),
+							(z == 1 && ((y == 15 && x < 16) || (y == 16 && x >= 16)))
+							? TerrainType.AIR : TerrainType.ROCK);
+		Coordinate start = new Coordinate(0, 15, 1);
+		Coordinate destination = new Coordinate(31, 16, 1);
+		assertEquals(31, pathFinder.findPath(start, destination, MovementRule.GROUNDED).length);
+		assertEquals(31, checkRoute(hierarchicalPathFinder, start, destination, MovementRule.GROUNDED));
+		assertEquals(31, checkRoute(hierarchicalPathFinder, destination, start, MovementRule.GROUNDED));
+	}
+
+	@Test
+	public void findRoute_Unreachable() {
+		for (int y = 0; y < NB_Y; y++)
+			for (int z = 1; z < NB_Z; z++)
+				world.setCubeTypeAt(new Coordinate(20, y, z), TerrainType.ROCK);
+		Coordinate destination = new Coordinate(39, 39, 1);
+		assertArrayEquals(new int[] { pathFinder.indexOf(destination) },
+				hierarchicalPathFinder.findRoute(new Coordinate(0, 0, 1), destination,
+						MovementRule.GROUNDED));
+	}
+
+
+	/**************************************************
+	 * 	TERRAIN CHANGES
+	 **************************************************/
+
+	/**
+	 * A wall is built across the world and opened again in another place,
+	 * so the routes must go through the opening, both for the path finder
+	 * that rebuilt the chunks around the changes and for a new one.
+	 */
+	@Test
+	public void terrainChanged_WallMoved() {
+		Coordinate start = new Coordinate(0, 0, 1);
+		Coordinate destination = new Coordinate(39, 0, 1);
+		checkRoute(hierarchicalPathFinder, start, destination, MovementRule.GROUNDED);
+		for (int y = 0; y < NB_Y; y++)
+			for (int z = 1; z < NB_Z; z++)
+				world.setCubeTypeAt(new Coordinate(20, y, z), TerrainType.ROCK);
+		assertEquals(-1, checkRoute(hierarchicalPathFinder, start, destination, MovementRule.GROUNDED));
+		world.setCubeTypeAt(new Coordinate(20, 35, 1), TerrainType.AIR);
+		int length = checkRoute(hierarchicalPathFinder, start, destination, MovementRule.GROUNDED);
+		assertTrue(length >= 2 * 35);
+		assertEquals(length != -1, checkRoute(new HierarchicalPathFinder(world), start,
+				destination, MovementRule.GROUNDED) != -1);
+	}
+
+	/**
+	 * Random changes are made to the terrain, after which the routes of the
+	 * path finder that rebuilt the chunks around the changes must be found
+	 * exactly when a new path finder finds them.
+	 */
+	@Test
+	public void terrainChanged_Random() {
+		setUpWorld(0.2, 3);
+		Random random = new Random(3);
+		for (int i = 0; i < 300; i++) {
+			Coordinate cube = randomCube(random);
+			world.setCubeTypeAt(cube, world.getCubeTypeAt(cube) == TerrainType.ROCK
+					? TerrainType.AIR : TerrainType.ROCK);
+			if (i % 10 != 0)
+				continue;
+			HierarchicalPathFinder rebuilt = new HierarchicalPathFinder(world);
+			for (int j = 0; j < 10; j++) {
+				Coordinate start = randomCube(random);
+				Coordinate destination = randomCube(random);
+				if (!MovementRule.GROUNDED.isTraversable(world, start.get(0), start.get(1), start.get(2)))
+					continue;
+				assertEquals(checkRoute(rebuilt, start, destination, MovementRule.GROUNDED) != -1,
+						checkRoute(hierarchicalPathFinder, start, destination, MovementRule.GROUNDED) != -1);
+			}
+		}
+	}
+
+}
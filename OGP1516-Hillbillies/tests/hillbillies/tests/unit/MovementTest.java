@@ -0,0 +1,141 @@
+package hillbillies.tests.unit;
+
+import static org.junit.Assert.*;
+
+import org.junit.*;
+
+import hillbillies.model.*;
+import hillbillies.model.World.TerrainType;
+import hillbillies.part2.listener.DefaultTerrainChangeListener;
+
+/**
+ * A class collecting tests for units moving to distant cubes along the
+ * paths they cache.
+ *
+ * The worlds fit in a single chunk of the hierarchical path finder, so each
+ * route has the destination as its only waypoint, and no distance fields are
+ * built, so the units follow their own paths.
+ *
+ * @author Ruben Cartuyvels
+ * @version 1.0
+ *
+ */
+public class MovementTest {
+
+	private World world;
+
+	private Unit unit;
+
+	/**
+	 * A 16x16x3 world with a floor of rock, and a unit without default
+	 * behaviour standing in its corner at (0, 0, 1).
+	 */
+	@Before
+	public void setUpWorld() {
+		int[][][] types = new int[16][16][3];
+		for (int x = 0; x < 16; x++)
+			for (int y = 0; y < 16; y++)
+				types[x][y][0] = TerrainType.ROCK.getNumber();
+		world = new World(types, new DefaultTerrainChangeListener(),
+				ConnectivityEngine.FLOOD_FILL, 42L);
+		world.getDistanceFields().setPopularityThreshold(Integer.MAX_VALUE);
+		unit = world.spawnUnit(false);
+		moveAndWait(new Coordinate(0, 0, 1));
+	}
+
+	private boolean isBusy() {
+		return unit.isMoving() || (unit.getDestCubeLT() != null
+				&& !unit.getCoordinate().equals(unit.getDestCubeLT()));
+	}
+
+	private void advanceUntilIdle() {
+		for (int i = 0; i < 1000 && isBusy(); i++)
+			world.advanceTime(0.1);
+	}
+
+	private void moveAndWait(Coordinate cube) {
+		unit.moveTo(cube);
+		advanceUntilIdle();
+		assertEquals(cube, unit.getCoordinate());
+	}
+
+	/**
+	 * Start moving the unit to the given cube, and let it take its first
+	 * step, so that it has computed its path.
+	 */
+	private void startMoving(Coordinate cube) {
+		unit.moveTo(cube);
+		world.advanceTime(0.1);
+		assertTrue(unit.isMoving());
+	}
+
+	/**
+	 * Restrict searches of the path finder to a single cube, so that only
+	 * paths to a neighbouring cube can still be found.
+	 */
+	private void disablePathFinder() {
+		world.getPathFinder().setNodeBudget(1);
+	}
+
+
+	/**************************************************
+	 * 	CACHED PATHS
+	 **************************************************/
+
+	@Test
+	public void moveTo_FollowsCachedPath() {
+		Coordinate destination = new Coordinate(15, 3, 1);
+		startMoving(destination);
+		disablePathFinder();
+		advanceUntilIdle();
+		assertEquals(destination, unit.getCoordinate());
+	}
+
+	@Test
+	public void moveTo_KeepsPathAfterUnrelatedChange() {
+		Coordinate destination = new Coordinate(15, 0, 1);
+		startMoving(destination);
+		disablePathFinder();
+		world.setCubeTypeAt(new Coordinate(10, 15, 1), TerrainType.ROCK);
+		advanceUntilIdle();
+		assertEquals(destination, unit.getCoordinate());
+	}
+
+	@Test
+	public void moveTo_ReplansWhenPathBlocked() {
+		Coordinate destination = new Coordinate(15, 0, 1);
+		startMoving(destination);
+		for (int y = 0; y < 15; y++)
+			for (int z = 1; z < 3; z++)
+				world.setCubeTypeAt(new Coordinate(8, y, z), TerrainType.ROCK);
+		advanceUntilIdle();
+		assertEquals(destination, unit.getCoordinate());
+	}
+
+	/**
+	 * Without a path finder that can search beyond a neighbouring cube, a
+	 * blocked path can no longer be replaced, so the unit stops in front of
+	 * the wall instead of walking into it.
+	 */
+	@Test
+	public void moveTo_BlockedPathNotFollowed() {
+		Coordinate destination = new Coordinate(15, 0, 1);
+		startMoving(destination);
+		disablePathFinder();
+		for (int y = 0; y < 15; y++)
+			for (int z = 1; z < 3; z++)
+				world.setCubeTypeAt(new Coordinate(8, y, z), TerrainType.ROCK);
+		advanceUntilIdle();
+		assertTrue(unit.getCoordinate().get(0) < 8);
+	}
+
+	@Test
+	public void moveTo_NewDestination() {
+		startMoving(new Coordinate(15, 0, 1));
+		Coordinate destination = new Coordinate(0, 15, 1);
+		unit.moveTo(destination);
+		advanceUntilIdle();
+		assertEquals(destination, unit.getCoordinate());
+	}
+
+}
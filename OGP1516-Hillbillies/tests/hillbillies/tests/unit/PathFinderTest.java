@@ -0,0 +1,217 @@
+package hillbillies.tests.unit;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.*;
+
+import hillbillies.model.*;
+import hillbillies.model.World.TerrainType;
+import hillbillies.part2.listener.DefaultTerrainChangeListener;
+
+/**
+ * A class collecting tests for the A* path finder of worlds, comparing the
+ * length of the paths it finds with a breadth-first search.
+ *
+ * @author Ruben Cartuyvels
+ * @version 1.0
+ *
+ */
+public class PathFinderTest {
+
+	private World world;
+
+	private PathFinder pathFinder;
+
+	/**
+	 * A world with the given dimensions, a floor of rock and rock in each
+	 * other cube with the given probability.
+	 */
+	private void setUpWorld(int nbX, int nbY, int nbZ, double rockProbability, long seed) {
+		Random random = new Random(seed);
+		int[][][] types = new int[nbX][nbY][nbZ];
+		for (int x = 0; x < nbX; x++)
+			for (int y = 0; y < nbY; y++)
+				for (int z = 0; z < nbZ; z++)
+					if (z == 0 || random.nextDouble() < rockProbability)
+						types[x][y][z] = TerrainType.ROCK.getNumber();
+		world = new World(types, new DefaultTerrainChangeListener(),
+				ConnectivityEngine.FLOOD_FILL, seed);
+		pathFinder = world.getPathFinder();
+	}
+
+	/**
+	 * Return the number of steps from the given cube to each cube of the
+	 * world, moving through cubes that are traversable according to the
+	 * given rule, or -1 for the cubes that cannot be reached. Like the path
+	 * finder, the cube reached is not tested itself.
+	 */
+	private int[] breadthFirst(Coordinate start, Coordinate destination, MovementRule rule) {
+		int nbX = world.getNbCubesX(), nbY = world.getNbCubesY(), nbZ = world.getNbCubesZ();
+		int[] distance = new int[nbX * nbY * nbZ];
+		Arrays.fill(distance, -1);
+		int target = pathFinder.indexOf(destination);
+		ArrayDeque<Integer> queue = new ArrayDeque<Integer>();
+		distance[pathFinder.indexOf(start)] = 0;
+		queue.add(pathFinder.indexOf(start));
+		while (!queue.isEmpty()) {
+			int current = queue.poll();
+			if (current == target)
+				continue;
+			Coordinate cube = pathFinder.coordinateOf(current);
+			for (int[] offset: World.getNeighbourOffsets()) {
+				int x = cube.get(0) + offset[0], y = cube.get(1) + offset[1], z = cube.get(2) + offset[2];
+				if (x < 0 || x >= nbX || y < 0 || y >= nbY || z < 0 || z >= nbZ)
+					continue;
+				int neighbour = pathFinder.indexOf(x, y, z);
+				if (distance[neighbour] != -1)
+					continue;
+				if (neighbour != target && !rule.isTraversable(world, x, y, z))
+					continue;
+				distance[neighbour] = distance[current] + 1;
+				queue.add(neighbour);
+			}
+		}
+		return distance;
+	}
+
+	/**
+	 * Check that the path from the given start to the given destination is
+	 * a shortest path through traversable neighbouring cubes, or null if
+	 * there is none.
+	 */
+	private void checkPath(Coordinate start, Coordinate destination, MovementRule rule) {
+		int[] path = pathFinder.findPath(start, destination, rule);
+		int expected = breadthFirst(start, destination, rule)[pathFinder.indexOf(destination)];
+		if (expected == -1) {
+			assertNull(path);
+			return;
+		}
+		assertNotNull(path);
+		assertEquals(expected, path.length);
+		Coordinate previous = start;
+		for (int i = 0; i < path.length; i++) {
+			Coordinate next = pathFinder.coordinateOf(path[i]);
+			assertTrue(world.isNeighbouring(previous, next));
+			if (i < path.length - 1)
+				assertTrue(rule.isTraversable(world, next.get(0), next.get(1), next.get(2)));
+			previous = next;
+		}
+		assertEquals(destination, previous);
+	}
+
+	private void checkRandomPaths(MovementRule rule, double rockProbability) {
+		for (long seed = 0; seed < 5; seed++) {
+			setUpWorld(12, 12, 6, rockProbability, seed);
+			Random random = new Random(seed);
+			for (int i = 0; i < 50; i++) {
+				Coordinate start = new Coordinate(random.nextInt(12), random.nextInt(12), 1 + random.nextInt(5));
+				Coordinate destination = new Coordinate(random.nextInt(12), random.nextInt(12), 1 + random.nextInt(5));
+				checkPath(start, destination, rule);
+			}
+		}
+	}
+
+
+	/**************************************************
+	 * 	SHORTEST PATHS
+	 **************************************************/
+
+	@Test
+	public void findPath_Grounded() {
+		checkRandomPaths(MovementRule.GROUNDED, 0.3);
+	}
+
+	@Test
+	public void findPath_Free() {
+		checkRandomPaths(MovementRule.FREE, 0.3);
+	}
+
+	@Test
+	public void findPath_DenseRock() {
+		checkRandomPaths(MovementRule.GROUNDED, 0.6);
+	}
+
+	@Test
+	public void findPath_SameCube() {
+		setUpWorld(5, 5, 3, 0, 1);
+		Coordinate cube = new Coordinate(2, 2, 1);
+		assertEquals(0, pathFinder.findPath(cube, cube, MovementRule.GROUNDED).length);
+	}
+
+	@Test
+	public void findPath_Diagonal() {
+		setUpWorld(5, 5, 3, 0, 1);
+		int[] path = pathFinder.findPath(new Coordinate(0, 0, 1), new Coordinate(4, 4, 1),
+				MovementRule.GROUNDED);
+		assertEquals(4, path.length);
+	}
+
+	@Test
+	public void findPath_Enclosed() {
+		setUpWorld(5, 5, 3, 0, 1);
+		for (int x = 1; x < 4; x++)
+			for (int y = 1; y < 4; y++)
+				for (int z = 1; z < 3; z++)
+					if (x != 2 || y != 2 || z != 1)
+						world.setCubeTypeAt(new Coordinate(x, y, z), TerrainType.ROCK);
+		assertNull(pathFinder.findPath(new Coordinate(0, 0, 1), new Coordinate(2, 2, 1),
+				MovementRule.GROUNDED));
+		assertNull(pathFinder.findPath(new Coordinate(0, 0, 1), new Coordinate(2, 2, 1),
+				MovementRule.FREE));
+	}
+
+	/**
+	 * The cubes at z == 2 and z == 3 do not neighbour the floor, so only
+	 * nits that may move freely can pass through them.
+	 */
+	@Test
+	public void findPath_RuleDecidesTraversable() {
+		setUpWorld(5, 1, 4, 0, 1);
+		Coordinate start = new Coordinate(0, 0, 3);
+		Coordinate destination = new Coordinate(4, 0, 3);
+		assertEquals(4, pathFinder.findPath(start, destination, MovementRule.FREE).length);
+		assertNull(pathFinder.findPath(start, destination, MovementRule.GROUNDED));
+	}
+
+
+	/**************************************************
+	 * 	NODE BUDGET
+	 **************************************************/
+
+	@Test
+	public void findPath_BudgetExceeded() {
+		setUpWorld(20, 20, 3, 0, 1);
+		pathFinder.setNodeBudget(5);
+		assertNull(pathFinder.findPath(new Coordinate(0, 0, 1), new Coordinate(19, 19, 1),
+				MovementRule.GROUNDED));
+		pathFinder.setNodeBudget(PathFinder.DEFAULT_NODE_BUDGET);
+		assertEquals(19, pathFinder.findPath(new Coordinate(0, 0, 1), new Coordinate(19, 19, 1),
+				MovementRule.GROUNDED).length);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void setNodeBudget_Illegal() {
+		setUpWorld(5, 5, 3, 0, 1);
+		pathFinder.setNodeBudget(0);
+	}
+
+	/**
+	 * Searches are stamped with a generation, so the results of an earlier
+	 * search must not leak into a later one.
+	 */
+	@Test
+	public void findPath_RepeatedSearches() {
+		setUpWorld(12, 12, 6, 0.3, 7);
+		Random random = new Random(7);
+		Coordinate destination = new Coordinate(6, 6, 1);
+		for (int i = 0; i < 200; i++) {
+			Coordinate start = new Coordinate(random.nextInt(12), random.nextInt(12), 1 + random.nextInt(5));
+			checkPath(start, destination, MovementRule.GROUNDED);
+		}
+	}
+
+}
@@ -0,0 +1,189 @@
+package hillbillies.tests.unit;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.*;
+
+import hillbillies.model.*;
+import hillbillies.model.World.TerrainType;
+import hillbillies.model.program.Program;
+import hillbillies.part2.listener.DefaultTerrainChangeListener;
+import hillbillies.part3.programs.TaskParser;
+
+/**
+ * A class collecting tests for the compilation of the activities of tasks to
+ * programs, using the tasks shipped in the resources.
+ *
+ * @author Ruben Cartuyvels
+ * @version 1.0
+ *
+ */
+public class ProgramTest {
+
+	private static final String TASKS = "src-provided/resources/tasks/";
+
+	private static List<Task> parse(String filename, int[] selected) throws IOException {
+		return TaskParser.parseTasksFromFile(TASKS + filename, new TaskFactory(),
+				Collections.singletonList(selected));
+	}
+
+	private static Task parseActivities(String activities) {
+		return TaskParser.parseTasksFromString("name: \"test\"\npriority: 1\nactivities:\n" + activities,
+				new TaskFactory(), Collections.<int[]>emptyList()).get(0);
+	}
+
+
+	/**************************************************
+	 * 	COMPILATION
+	 **************************************************/
+
+	@Test
+	public void compile_ShippedTasks() throws IOException {
+		File[] files = new File(TASKS).listFiles();
+		assertTrue(files.length > 0);
+		for (File file: files) {
+			List<Task> tasks = parse(file.getName(), new int[] { 1, 1, 1 });
+			assertEquals(file.getName(), 1, tasks.size());
+			Program program = tasks.get(0).getProgram();
+			assertTrue(file.getName(), program.getLength() > 0);
+			assertEquals(file.getName(), 1, program.getMaxStackDepth());
+		}
+	}
+
+	@Test
+	public void compile_Variables() throws IOException {
+		assertEquals(1, parse("operate_workshop.txt", new int[] { 1, 1, 1 }).get(0)
+				.getProgram().getNbVariables());
+		assertEquals(0, parse("dig.txt", new int[] { 1, 1, 1 }).get(0)
+				.getProgram().getNbVariables());
+		Task task = parseActivities("a := true; b := a; a := false; print b;");
+		assertEquals(2, task.getProgram().getNbVariables());
+		assertFalse(task.isValidVariableSlot(2));
+	}
+
+	@Test
+	public void compile_BreakOutsideLoop() {
+		Task task = parseActivities("a := true; break; b := true;");
+		assertEquals(2, task.getProgram().getNbVariables());
+	}
+
+	/**
+	 * The tasks created for the cubes selected with a single activity share
+	 * the program compiled from it.
+	 */
+	@Test
+	public void compile_OncePerActivity() throws IOException {
+		List<Task> tasks = TaskParser.parseTasksFromFile(TASKS + "dig.txt", new TaskFactory(),
+				Arrays.asList(new int[] { 1, 1, 1 }, new int[] { 2, 2, 1 }));
+		assertEquals(2, tasks.size());
+		assertSame(tasks.get(0).getProgram(), tasks.get(1).getProgram());
+	}
+
+	/**
+	 * A task that fails to be created leaves no variable slots behind for the
+	 * next task parsed with the same factory.
+	 */
+	@Test
+	public void compile_VariablesAfterFailure() {
+		TaskFactory factory = new TaskFactory();
+		assertNull(TaskParser.parseTasksFromString("name: \"test\"\npriority: 1\nactivities:\n"
+				+ "a := true; b := a;", factory, Collections.singletonList(new int[] { 1 })));
+		Task task = TaskParser.parseTasksFromString("name: \"test\"\npriority: 1\nactivities:\n"
+				+ "c := true; print c;", factory, Collections.<int[]>emptyList()).get(0);
+		assertEquals(1, task.getProgram().getNbVariables());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void compile_Null() {
+		Program.compile(null);
+	}
+
+
+	/**************************************************
+	 * 	RUNNING THE SHIPPED TASKS
+	 **************************************************/
+
+	private World world;
+
+	private Unit unit;
+
+	/**
+	 * A 20x20x12 world with a floor of rock up to z == 9, a line of rock at
+	 * z == 10 from x == 11 to x == 14 along y == 10, a workshop, and a log and
+	 * a boulder on the floor.
+	 */
+	@Before
+	public void setUpWorld() {
+		int[][][] types = new int[20][20][12];
+		for (int x = 0; x < 20; x++)
+			for (int y = 0; y < 20; y++)
+				for (int z = 0; z < 10; z++)
+					types[x][y][z] = TerrainType.ROCK.getNumber();
+		for (int x = 11; x < 15; x++)
+			types[x][10][10] = TerrainType.ROCK.getNumber();
+		types[5][5][10] = TerrainType.WORKSHOP.getNumber();
+		world = new World(types, new DefaultTerrainChangeListener(),
+				ConnectivityEngine.FLOOD_FILL, 42L);
+		world.addItem(new Log(new Coordinate(3, 3, 10), world));
+		world.addItem(new Boulder(new Coordinate(4, 4, 10), world));
+		unit = world.spawnUnit(true);
+	}
+
+	/**
+	 * Schedule the given task for the faction of the unit, and advance the
+	 * time of the world until the task is done, for at most 300 seconds.
+	 * The unit then finishes the activity its last statement started,
+	 * without taking up any other activity.
+	 */
+	private void runToCompletion(Task task) {
+		Scheduler scheduler = unit.getFaction().getScheduler();
+		scheduler.addTask(task);
+		for (int i = 0; i < 3000 && !task.isCompleted(); i++)
+			world.advanceTime(0.1);
+		assertTrue(task.getName(), task.isCompleted());
+		assertFalse(scheduler.hasAsTask(task));
+		unit.setDefaultBehavior(false);
+		for (int i = 0; i < 300 && (unit.isWorking()
+				|| !unit.getCoordinate().equals(unit.getDestCubeLT())); i++)
+			world.advanceTime(0.1);
+	}
+
+	@Test
+	public void run_GotoTask() throws IOException {
+		runToCompletion(parse("goto_10_10_10.txt", new int[] { 1, 1, 10 }).get(0));
+		assertEquals(new Coordinate(10, 10, 10), unit.getCoordinate());
+	}
+
+	@Test
+	public void run_DigTunnelTask() throws IOException {
+		runToCompletion(parse("digtunnel.txt", new int[] { 1, 1, 10 }).get(0));
+		for (int x = 11; x < 15; x++)
+			assertEquals(TerrainType.AIR, world.getCubeTypeAt(new Coordinate(x, 10, 10)));
+	}
+
+	@Test
+	public void run_DigTunnelIfTask() throws IOException {
+		world.setCubeTypeAt(new Coordinate(12, 10, 10), TerrainType.AIR);
+		runToCompletion(parse("digtunnel_if.txt", new int[] { 1, 1, 10 }).get(0));
+		for (int x = 11; x < 15; x++)
+			assertEquals(TerrainType.AIR, world.getCubeTypeAt(new Coordinate(x, 10, 10)));
+	}
+
+	@Test
+	public void run_ALotOfThingsTask() throws IOException {
+		runToCompletion(parse("alotofthings.txt", new int[] { 8, 8, 10 }).get(0));
+	}
+
+	@Test
+	public void run_OperateWorkshopTask() throws IOException {
+		runToCompletion(parse("operate_workshop.txt", new int[] { 1, 1, 10 }).get(0));
+		assertEquals(new Coordinate(5, 5, 10), unit.getCoordinate());
+	}
+
+}
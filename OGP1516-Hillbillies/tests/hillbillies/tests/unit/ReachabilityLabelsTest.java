@@ -0,0 +1,160 @@
+package hillbillies.tests.unit;
+
+import static org.junit.Assert.*;
+
+import java.util.SplittableRandom;
+
+import org.junit.*;
+
+import hillbillies.model.*;
+import hillbillies.model.World.TerrainType;
+import hillbillies.part2.listener.DefaultTerrainChangeListener;
+
+/**
+ * A class collecting tests for the labelling of the cubes of a world by the
+ * connected component they belong to.
+ *
+ * @author Ruben Cartuyvels
+ * @version 1.0
+ *
+ */
+public class ReachabilityLabelsTest {
+
+	private World world;
+
+	private ReachabilityLabels labels;
+
+	private final Coordinate start = new Coordinate(1, 1, 1);
+
+	/**
+	 * A 20x3x3 world with a rock floor, split in two by a rock wall at x == 10.
+	 */
+	@Before
+	public void setUpWorld() {
+		int[][][] types = new int[20][3][3];
+		for (int x = 0; x < 20; x++)
+			for (int y = 0; y < 3; y++) {
+				types[x][y][0] = TerrainType.ROCK.getNumber();
+				if (x == 10)
+					for (int z = 1; z < 3; z++)
+						types[x][y][z] = TerrainType.ROCK.getNumber();
+			}
+		world = new World(types, new DefaultTerrainChangeListener(),
+				ConnectivityEngine.FLOOD_FILL, 42L);
+		labels = world.getReachabilityLabels();
+	}
+
+
+	@Test
+	public void isReachable_SameSide() {
+		assertTrue(labels.isReachable(start, new Coordinate(9, 2, 1), MovementRule.GROUNDED));
+		assertTrue(labels.isReachable(start, new Coordinate(9, 2, 2), MovementRule.FREE));
+	}
+
+	@Test
+	public void isReachable_AcrossWall() {
+		assertFalse(labels.isReachable(start, new Coordinate(12, 1, 1), MovementRule.GROUNDED));
+		assertFalse(labels.isReachable(start, new Coordinate(12, 1, 1), MovementRule.FREE));
+	}
+
+	@Test
+	public void isReachable_AfterWallDug() {
+		for (int y = 0; y < 3; y++)
+			world.setCubeTypeAt(new Coordinate(10, y, 1), TerrainType.AIR);
+		assertTrue(labels.isReachable(start, new Coordinate(12, 1, 1), MovementRule.GROUNDED));
+	}
+
+	/**
+	 * Building a wall through the middle of the left part splits it in two,
+	 * after which each side still reaches itself.
+	 */
+	@Test
+	public void isReachable_AfterWallBuilt() {
+		for (MovementRule rule: MovementRule.values())
+			assertTrue(labels.isReachable(start, new Coordinate(8, 1, 1), rule));
+		for (int y = 0; y < 3; y++)
+			for (int z = 1; z < 3; z++)
+				world.setCubeTypeAt(new Coordinate(5, y, z), TerrainType.ROCK);
+		for (MovementRule rule: MovementRule.values()) {
+			assertFalse(labels.isReachable(start, new Coordinate(8, 1, 1), rule));
+			assertTrue(labels.isReachable(start, new Coordinate(3, 2, 1), rule));
+			assertTrue(labels.isReachable(new Coordinate(6, 0, 1), new Coordinate(9, 2, 1), rule));
+			assertFalse(labels.isReachable(new Coordinate(6, 0, 1), new Coordinate(12, 2, 1), rule));
+		}
+	}
+
+	/**
+	 * Random changes are made to the terrain of a world with rock in half of
+	 * its cubes, splitting and merging many components, after which the
+	 * labels kept up to date must tell the same pairs of cubes apart as
+	 * labels computed from scratch.
+	 */
+	@Test
+	public void isReachable_RandomChanges() {
+		SplittableRandom random = new SplittableRandom(4);
+		int[][][] types = new int[8][8][3];
+		for (int x = 0; x < 8; x++)
+			for (int y = 0; y < 8; y++)
+				for (int z = 0; z < 3; z++)
+					if (z == 0 || random.nextBoolean())
+						types[x][y][z] = TerrainType.ROCK.getNumber();
+		world = new World(types, new DefaultTerrainChangeListener(),
+				ConnectivityEngine.FLOOD_FILL, 42L);
+		labels = world.getReachabilityLabels();
+		for (MovementRule rule: MovementRule.values())
+			labels.isReachable(start, new Coordinate(7, 7, 1), rule);
+		for (int i = 0; i < 300; i++) {
+			Coordinate cube = randomCube(random);
+			world.setCubeTypeAt(cube, world.getCubeTypeAt(cube) == TerrainType.ROCK
+					? TerrainType.AIR : TerrainType.ROCK);
+			ReachabilityLabels rebuilt = new ReachabilityLabels(world);
+			for (int j = 0; j < 50; j++) {
+				Coordinate first = randomCube(random);
+				Coordinate second = randomCube(random);
+				for (MovementRule rule: MovementRule.values())
+					assertEquals(rebuilt.isReachable(first, second, rule),
+							labels.isReachable(first, second, rule));
+			}
+		}
+	}
+
+	private static Coordinate randomCube(SplittableRandom random) {
+		return new Coordinate(random.nextInt(8), random.nextInt(8), 1 + random.nextInt(2));
+	}
+
+
+	@Test
+	public void getNearRandomReachableCube_WithinRadius() {
+		SplittableRandom random = new SplittableRandom(1);
+		for (int i = 0; i < 100; i++) {
+			Coordinate cube = labels.getNearRandomReachableCube(start, 3, MovementRule.GROUNDED,
+					c -> world.isAboveSolid(c), random);
+			assertTrue(Math.abs(cube.get(0) - start.get(0)) <= 3);
+			assertTrue(world.isAboveSolid(cube));
+			assertTrue(labels.isReachable(start, cube, MovementRule.GROUNDED));
+		}
+	}
+
+	@Test
+	public void getNearRandomReachableCube_WidensRadius() {
+		SplittableRandom random = new SplittableRandom(2);
+		for (int i = 0; i < 100; i++) {
+			Coordinate cube = labels.getNearRandomReachableCube(start, 3, MovementRule.GROUNDED,
+					c -> c.get(0) >= 7 && world.isAboveSolid(c), random);
+			assertTrue(cube.get(0) >= 7 && cube.get(0) < 10);
+			assertTrue(world.isAboveSolid(cube));
+			assertTrue(labels.isReachable(start, cube, MovementRule.GROUNDED));
+		}
+	}
+
+	@Test
+	public void getNearRandomReachableCube_NoneReachable() {
+		SplittableRandom random = new SplittableRandom(3);
+		for (int i = 0; i < 100; i++) {
+			Coordinate cube = labels.getNearRandomReachableCube(start, 3, MovementRule.FREE,
+					c -> c.get(0) > 10, random);
+			assertEquals(start, cube);
+		}
+	}
+
+}
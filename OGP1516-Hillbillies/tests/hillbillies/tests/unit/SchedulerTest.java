@@ -0,0 +1,313 @@
+package hillbillies.tests.unit;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.*;
+
+import hillbillies.model.*;
+import hillbillies.model.expression.True;
+import hillbillies.model.statement.Print;
+
+/**
+ * A class collecting tests for the ordering of the tasks of a scheduler.
+ *
+ * @author Ruben Cartuyvels
+ * @version 1.0
+ *
+ */
+public class SchedulerTest {
+
+	private Scheduler scheduler;
+
+	@Before
+	public void setUpScheduler() {
+		scheduler = new Scheduler();
+	}
+
+	private static Task task(String name, int priority) {
+		return new Task(name, priority, new Print(new True()));
+	}
+
+	/**
+	 * Take the available tasks from the scheduler by decreasing priority,
+	 * marking each one as being executed.
+	 */
+	private List<Task> drain() {
+		List<Task> tasks = new ArrayList<Task>();
+		while (scheduler.hasUnassignedTask()) {
+			Task task = scheduler.getHighestPriorityTask();
+			task.setBeingExecuted(true);
+			tasks.add(task);
+		}
+		return tasks;
+	}
+
+
+	/**************************************************
+	 * 	PRIORITY
+	 **************************************************/
+
+	@Test
+	public void getHighestPriorityTask_Empty() {
+		assertNull(scheduler.getHighestPriorityTask());
+		assertFalse(scheduler.hasUnassignedTask());
+	}
+
+	@Test
+	public void getHighestPriorityTask_ByPriority() {
+		Task low = task("low", -5);
+		Task high = task("high", 10);
+		Task middle = task("middle", 3);
+		scheduler.addTask(low);
+		scheduler.addTask(high);
+		scheduler.addTask(middle);
+		assertEquals(Arrays.asList(high, middle, low), drain());
+	}
+
+	@Test
+	public void getHighestPriorityTask_EqualPriorityFirstAdded() {
+		Task first = task("first", 1);
+		Task second = task("second", 1);
+		Task third = task("third", 1);
+		scheduler.addTask(first);
+		scheduler.addTask(second);
+		scheduler.addTask(third);
+		assertEquals(Arrays.asList(first, second, third), drain());
+	}
+
+	@Test
+	public void getAllTasks_ByDecreasingPriority() {
+		Task low = task("low", 1);
+		Task high = task("high", 2);
+		scheduler.addTask(low);
+		scheduler.addTask(high);
+		low.setBeingExecuted(true);
+		assertEquals(Arrays.asList(high, low), scheduler.getAllTasks());
+		assertEquals(2, scheduler.getNbTasks());
+	}
+
+
+	/**************************************************
+	 * 	EXCLUDING A TASK
+	 **************************************************/
+
+	@Test
+	public void getHighestPriorityTaskExcept_Empty() {
+		assertNull(scheduler.getHighestPriorityTaskExcept(task("task", 1)));
+	}
+
+	@Test
+	public void getHighestPriorityTaskExcept_OnlyTask() {
+		Task task = task("task", 1);
+		scheduler.addTask(task);
+		assertNull(scheduler.getHighestPriorityTaskExcept(task));
+		assertSame(task, scheduler.getHighestPriorityTaskExcept(null));
+	}
+
+	@Test
+	public void getHighestPriorityTaskExcept_NotHighest() {
+		Task high = task("high", 10);
+		Task low = task("low", 1);
+		scheduler.addTask(high);
+		scheduler.addTask(low);
+		assertSame(high, scheduler.getHighestPriorityTaskExcept(low));
+	}
+
+	@Test
+	public void getHighestPriorityTaskExcept_Highest() {
+		Task high = task("high", 10);
+		Task low = task("low", 5);
+		Task middle = task("middle", 8);
+		Task lowest = task("lowest", 2);
+		scheduler.addTask(high);
+		scheduler.addTask(low);
+		scheduler.addTask(middle);
+		scheduler.addTask(lowest);
+		assertSame(middle, scheduler.getHighestPriorityTaskExcept(high));
+	}
+
+	@Test
+	public void getHighestPriorityTaskExcept_EqualPriority() {
+		Task first = task("first", 1);
+		Task second = task("second", 1);
+		Task third = task("third", 1);
+		scheduler.addTask(first);
+		scheduler.addTask(second);
+		scheduler.addTask(third);
+		assertSame(second, scheduler.getHighestPriorityTaskExcept(first));
+	}
+
+
+	/**************************************************
+	 * 	CHANGES OF STATE AND PRIORITY
+	 **************************************************/
+
+	@Test
+	public void setBeingExecuted_NotAvailable() {
+		Task task = task("task", 1);
+		scheduler.addTask(task);
+		task.setBeingExecuted(true);
+		assertTrue(scheduler.hasAsTask(task));
+		assertFalse(scheduler.hasUnassignedTask());
+		assertNull(scheduler.getHighestPriorityTask());
+		assertEquals(1, scheduler.getNbTasks());
+	}
+
+	@Test
+	public void setBeingExecuted_AvailableAgain() {
+		Task high = task("high", 2);
+		Task low = task("low", 1);
+		scheduler.addTask(high);
+		scheduler.addTask(low);
+		high.setBeingExecuted(true);
+		assertSame(low, scheduler.getHighestPriorityTask());
+		high.setBeingExecuted(false);
+		assertSame(high, scheduler.getHighestPriorityTask());
+		assertEquals(2, scheduler.getNbTasks());
+	}
+
+	@Test
+	public void addTask_BeingExecuted() {
+		Task task = task("task", 1);
+		task.setBeingExecuted(true);
+		scheduler.addTask(task);
+		assertTrue(scheduler.hasAsTask(task));
+		assertFalse(scheduler.hasUnassignedTask());
+		task.setBeingExecuted(false);
+		assertSame(task, scheduler.getHighestPriorityTask());
+	}
+
+	@Test
+	public void setCompleted_NotAvailable() {
+		Task task = task("task", 1);
+		scheduler.addTask(task);
+		task.setCompleted();
+		assertTrue(scheduler.hasAsTask(task));
+		assertNull(scheduler.getHighestPriorityTask());
+	}
+
+	@Test
+	public void interrupt_LowersPriority() {
+		Task first = task("first", 5);
+		Task second = task("second", 5);
+		scheduler.addTask(first);
+		scheduler.addTask(second);
+		first.setBeingExecuted(true);
+		first.interrupt();
+		assertEquals(4, first.getPriority());
+		assertEquals(Arrays.asList(second, first), drain());
+	}
+
+	@Test
+	public void interrupt_KeepsHigherPriority() {
+		Task high = task("high", 10);
+		Task low = task("low", 5);
+		scheduler.addTask(high);
+		scheduler.addTask(low);
+		high.setBeingExecuted(true);
+		high.interrupt();
+		assertSame(high, scheduler.getHighestPriorityTask());
+	}
+
+	@Test
+	public void removeTask_Available() {
+		Task high = task("high", 2);
+		Task low = task("low", 1);
+		scheduler.addTask(high);
+		scheduler.addTask(low);
+		scheduler.removeTask(high);
+		assertFalse(scheduler.hasAsTask(high));
+		assertSame(low, scheduler.getHighestPriorityTask());
+	}
+
+	@Test
+	public void removeTask_BeingExecuted() {
+		Task task = task("task", 1);
+		scheduler.addTask(task);
+		task.setBeingExecuted(true);
+		scheduler.removeTask(task);
+		assertFalse(scheduler.hasAsTask(task));
+		assertEquals(0, scheduler.getNbTasks());
+	}
+
+
+	/**************************************************
+	 * 	SCHEDULING AT ONCE
+	 **************************************************/
+
+	/**
+	 * Add the given number of tasks one by one and then the given number of
+	 * tasks at once, all with random priorities, and check that they are
+	 * taken by decreasing priority, and in the order in which they were added
+	 * for equal priorities.
+	 */
+	private void checkScheduleAll(int nbAdded, int nbScheduled) {
+		Random random = new Random(nbAdded * 1000 + nbScheduled);
+		List<Task> expected = new ArrayList<Task>();
+		for (int i = 0; i < nbAdded; i++) {
+			Task task = task("added " + i, random.nextInt(5));
+			scheduler.addTask(task);
+			expected.add(task);
+		}
+		List<Task> batch = new ArrayList<Task>();
+		for (int i = 0; i < nbScheduled; i++)
+			batch.add(task("scheduled " + i, random.nextInt(5)));
+		scheduler.scheduleAll(batch);
+		expected.addAll(batch);
+		expected.sort(Comparator.comparingInt(Task::getPriority).reversed());
+		assertEquals(nbAdded + nbScheduled, scheduler.getNbTasks());
+		assertEquals(expected, drain());
+	}
+
+	@Test
+	public void scheduleAll_FewerThanScheduled() {
+		checkScheduleAll(40, 10);
+	}
+
+	@Test
+	public void scheduleAll_MoreThanScheduled() {
+		checkScheduleAll(3, 100);
+	}
+
+	@Test
+	public void scheduleAll_EmptyScheduler() {
+		checkScheduleAll(0, 100);
+	}
+
+	@Test
+	public void scheduleAll_SkipsScheduledTasks() {
+		Task task = task("task", 1);
+		scheduler.addTask(task);
+		Task other = task("other", 1);
+		scheduler.scheduleAll(Arrays.asList(task, other, other));
+		assertEquals(2, scheduler.getNbTasks());
+		assertEquals(Arrays.asList(task, other), drain());
+	}
+
+	@Test
+	public void scheduleAll_BeingExecuted() {
+		Task task = task("task", 1);
+		task.setBeingExecuted(true);
+		Task other = task("other", 0);
+		scheduler.scheduleAll(Arrays.asList(task, other));
+		assertEquals(2, scheduler.getNbTasks());
+		assertEquals(Arrays.asList(other), drain());
+	}
+
+	@Test
+	public void scheduleAll_IllegalTask() {
+		try {
+			scheduler.scheduleAll(Arrays.asList(task("task", 1), null));
+			fail();
+		} catch (IllegalArgumentException exc) {
+			assertEquals(0, scheduler.getNbTasks());
+		}
+	}
+
+}
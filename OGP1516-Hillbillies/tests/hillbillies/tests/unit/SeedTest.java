@@ -0,0 +1,178 @@
+package hillbillies.tests.unit;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.*;
+
+import hillbillies.model.*;
+import hillbillies.model.World.TerrainType;
+import hillbillies.part2.listener.DefaultTerrainChangeListener;
+
+/**
+ * A class collecting tests for the seeds of worlds, checking that two worlds
+ * with the same terrain and seed evolve in the same way under the same
+ * commands.
+ *
+ * @author Ruben Cartuyvels
+ * @version 1.0
+ *
+ */
+public class SeedTest {
+
+	private static final int NB_X = 20, NB_Y = 20, NB_Z = 6;
+
+	/**
+	 * Return the terrain of a 20x20x6 world with a floor of rock, some
+	 * floating rock that caves in when the world is created, and random rock
+	 * and trees on the floor.
+	 */
+	private static int[][][] createTerrain() {
+		Random random = new Random(7L);
+		int[][][] types = new int[NB_X][NB_Y][NB_Z];
+		for (int x = 0; x < NB_X; x++)
+			for (int y = 0; y < NB_Y; y++) {
+				types[x][y][0] = TerrainType.ROCK.getNumber();
+				double dice = random.nextDouble();
+				if (dice < 0.1)
+					types[x][y][1] = TerrainType.ROCK.getNumber();
+				else if (dice < 0.15)
+					types[x][y][1] = TerrainType.TREE.getNumber();
+			}
+		for (int x = 5; x < 15; x++)
+			for (int y = 5; y < 15; y++)
+				types[x][y][4] = TerrainType.ROCK.getNumber();
+		return types;
+	}
+
+	private static World createWorld(long seed) {
+		return new World(createTerrain(), new DefaultTerrainChangeListener(),
+				ConnectivityEngine.FLOOD_FILL, seed);
+	}
+
+	/**
+	 * Return a description of the state of the given world: its terrain, and
+	 * the position and attributes of each of its nits and items, in the order
+	 * the world lists them.
+	 */
+	private static List<String> getState(World world) {
+		List<String> state = new ArrayList<String>();
+		for (int x = 0; x < NB_X; x++)
+			for (int y = 0; y < NB_Y; y++)
+				for (int z = 0; z < NB_Z; z++)
+					state.add(world.getCubeTypeAt(new Coordinate(x, y, z)).toString());
+		List<String> objects = new ArrayList<String>();
+		for (Nit nit: world.getAllNits())
+			objects.add(Arrays.toString(nit.getPosition()) + " " + nit.getWeight() + " "
+					+ nit.getStrength() + " " + nit.getAgility() + " " + nit.getToughness() + " "
+					+ nit.getCurrentHitPoints() + " " + nit.getCurrentStaminaPoints() + " "
+					+ nit.getOrientation() + " " + nit.getExperiencePoints());
+		for (Item item: world.getAllLogs())
+			objects.add("log " + Arrays.toString(item.getPosition()) + " " + item.getWeight());
+		for (Item item: world.getAllBoulders())
+			objects.add("boulder " + Arrays.toString(item.getPosition()) + " " + item.getWeight());
+		Collections.sort(objects);
+		state.addAll(objects);
+		return state;
+	}
+
+	/**
+	 * Spawn units with default behaviour in the given world and let its time
+	 * advance, returning the states of the world along the way.
+	 */
+	private static List<List<String>> run(World world) {
+		List<List<String>> states = new ArrayList<List<String>>();
+		world.setMaxNbNits(30);
+		for (int i = 0; i < 30; i++)
+			world.spawnUnit(true);
+		states.add(getState(world));
+		for (int i = 0; i < 500; i++) {
+			world.advanceTime(0.1);
+			if (i % 50 == 0)
+				states.add(getState(world));
+		}
+		states.add(getState(world));
+		return states;
+	}
+
+
+	/**************************************************
+	 * 	SEEDS
+	 **************************************************/
+
+	@Test
+	public void constructor_Seed() {
+		assertEquals(42L, createWorld(42L).getSeed());
+		assertEquals(-3L, createWorld(-3L).getSeed());
+	}
+
+	/**
+	 * The floating rock caves in when a world is created, leaving the same
+	 * boulders for the same seed.
+	 */
+	@Test
+	public void constructor_SameCaveIns() {
+		World world = createWorld(42L);
+		assertFalse(world.getAllBoulders().isEmpty());
+		assertEquals(getState(world), getState(createWorld(42L)));
+	}
+
+	@Test
+	public void advanceTime_SameSeed() {
+		for (long seed = 0; seed < 3; seed++)
+			assertEquals(run(createWorld(seed)), run(createWorld(seed)));
+	}
+
+	@Test
+	public void advanceTime_OtherSeed() {
+		assertNotEquals(run(createWorld(1L)), run(createWorld(2L)));
+	}
+
+	/**
+	 * The nits of a world carry out their activities in the same way whether
+	 * the partitions of nits run one after the other or in parallel.
+	 */
+	@Test
+	public void advanceTime_ParallelSameAsSequential() {
+		for (long seed = 0; seed < 3; seed++) {
+			World parallel = createWorld(seed);
+			parallel.setTickMode(TickMode.PARALLEL);
+			assertEquals(TickMode.PARALLEL, parallel.getTickMode());
+			assertEquals(run(createWorld(seed)), run(parallel));
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void setTickMode_Null() {
+		createWorld(42L).setTickMode(null);
+	}
+
+	/**
+	 * The random choices of a unit do not depend on the draws of the units
+	 * created after it.
+	 */
+	@Test
+	public void spawnUnit_IndependentOfLaterUnits() {
+		World world = createWorld(42L);
+		World other = createWorld(42L);
+		Unit unit = world.spawnUnit(false);
+		Unit same = other.spawnUnit(false);
+		other.spawnUnit(false);
+		other.spawnUnit(false);
+		assertArrayEquals(unit.getPosition(), same.getPosition(), 0);
+		Coordinate destination = new Coordinate(18, 18, 1);
+		unit.moveTo(destination);
+		same.moveTo(destination);
+		for (int i = 0; i < 50; i++) {
+			world.advanceTime(0.1);
+			other.advanceTime(0.1);
+		}
+		assertArrayEquals(unit.getPosition(), same.getPosition(), 0);
+	}
+
+}
@@ -0,0 +1,300 @@
+package hillbillies.tests.unit;
+
+import static org.junit.Assert.*;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.*;
+
+import hillbillies.model.*;
+import hillbillies.model.World.TerrainType;
+import hillbillies.part2.listener.DefaultTerrainChangeListener;
+
+/**
+ * A class collecting tests for the spatial indices of worlds, comparing the
+ * objects they find in and around cubes with the objects at those cubes.
+ *
+ * @author Ruben Cartuyvels
+ * @version 1.0
+ *
+ */
+public class SpatialIndexTest {
+
+	private static final int NB_X = 12, NB_Y = 12, NB_Z = 4;
+
+	private World world;
+
+	/**
+	 * A 12x12x4 world with a floor of rock.
+	 */
+	@Before
+	public void setUpWorld() {
+		int[][][] types = new int[NB_X][NB_Y][NB_Z];
+		for (int x = 0; x < NB_X; x++)
+			for (int y = 0; y < NB_Y; y++)
+				types[x][y][0] = TerrainType.ROCK.getNumber();
+		world = new World(types, new DefaultTerrainChangeListener(),
+				ConnectivityEngine.FLOOD_FILL, 42L);
+	}
+
+	private static boolean isNear(GameObject gameObject, Coordinate cube, int radius) {
+		for (int i = 0; i < 3; i++)
+			if (Math.abs(gameObject.getCoordinate().get(i) - cube.get(i)) > radius)
+				return false;
+		return true;
+	}
+
+	/**
+	 * Check, for every cube of the world, that the nits found at it and
+	 * around it are the nits of the world that occupy those cubes.
+	 */
+	private void checkNits() {
+		for (int x = 0; x < NB_X; x++)
+			for (int y = 0; y < NB_Y; y++)
+				for (int z = 0; z < NB_Z; z++) {
+					Coordinate cube = new Coordinate(x, y, z);
+					Set<Nit> at = new HashSet<Nit>();
+					Set<Nit> near = new HashSet<Nit>();
+					for (Nit nit: world.getAllNits()) {
+						if (nit.getCoordinate().equals(cube))
+							at.add(nit);
+						if (isNear(nit, cube, 1))
+							near.add(nit);
+					}
+					assertEquals(at, new HashSet<Nit>(world.getNitsAt(cube)));
+					assertEquals(at.size(), world.getNitsAt(cube).size());
+					assertEquals(near, new HashSet<Nit>(world.getNitsNear(cube, 1)));
+					assertEquals(near.size(), world.getNitsNear(cube, 1).size());
+				}
+	}
+
+	/**
+	 * Check, for every cube of the world, that the items found at it are the
+	 * logs and boulders of the world that occupy it.
+	 */
+	private void checkItems() {
+		for (int x = 0; x < NB_X; x++)
+			for (int y = 0; y < NB_Y; y++)
+				for (int z = 0; z < NB_Z; z++) {
+					Coordinate cube = new Coordinate(x, y, z);
+					Set<Item> at = new HashSet<Item>();
+					for (Item item: world.getAllLogs())
+						if (item.getCoordinate().equals(cube))
+							at.add(item);
+					for (Item item: world.getAllBoulders())
+						if (item.getCoordinate().equals(cube))
+							at.add(item);
+					assertEquals(at, world.getObjectsAt(cube));
+				}
+	}
+
+
+	/**************************************************
+	 * 	NITS
+	 **************************************************/
+
+	@Test
+	public void getNitsAt_Spawned() {
+		for (int i = 0; i < 40; i++)
+			world.spawnUnit(false);
+		checkNits();
+	}
+
+	@Test
+	public void getNitsAt_Moving() {
+		world.setMaxNbNits(60);
+		for (int i = 0; i < 60; i++)
+			world.spawnUnit(true);
+		for (int i = 0; i < 300; i++) {
+			world.advanceTime(0.1);
+			if (i % 20 == 0)
+				checkNits();
+		}
+		checkNits();
+	}
+
+	@Test
+	public void getNitsAt_SameCube() {
+		Unit first = world.spawnUnit(false);
+		Unit second = world.spawnUnit(false);
+		Coordinate cube = new Coordinate(5, 5, 1);
+		for (Unit unit: new Unit[] { first, second }) {
+			unit.moveTo(cube);
+			for (int i = 0; i < 1000 && !unit.getCoordinate().equals(cube); i++)
+				world.advanceTime(0.1);
+		}
+		assertEquals(2, world.getNitsAt(cube).size());
+		checkNits();
+	}
+
+	@Test
+	public void getNitsAt_Removed() {
+		for (int i = 0; i < 20; i++)
+			world.spawnUnit(false);
+		Random random = new Random(42L);
+		for (int i = 0; i < 10; i++) {
+			Nit nit = world.getAllNits().get(random.nextInt(world.getNbNits()));
+			Coordinate cube = nit.getCoordinate();
+			world.removeNit(nit);
+			assertFalse(world.getNitsAt(cube).contains(nit));
+			checkNits();
+		}
+	}
+
+	/**
+	 * Nits spawned after others were removed take over their ids in the
+	 * index, and must still be found where they move to.
+	 */
+	@Test
+	public void getNitsAt_SpawnedAfterRemoved() {
+		for (int i = 0; i < 30; i++)
+			world.spawnUnit(false);
+		Random random = new Random(7L);
+		for (int round = 0; round < 5; round++) {
+			for (int i = 0; i < 6; i++)
+				world.removeNit(world.getAllNits().get(random.nextInt(world.getNbNits())));
+			for (int i = 0; i < 6; i++)
+				world.spawnUnit(false);
+			for (Nit nit: world.getAllNits())
+				((Unit) nit).moveTo(new Coordinate(random.nextInt(NB_X), random.nextInt(NB_Y), 1));
+			for (int i = 0; i < 30; i++)
+				world.advanceTime(0.1);
+			checkNits();
+		}
+	}
+
+	@Test
+	public void getNitsNear_Radius() {
+		for (int i = 0; i < 40; i++)
+			world.spawnUnit(false);
+		Coordinate cube = new Coordinate(6, 6, 2);
+		for (int radius = 0; radius < NB_X; radius++) {
+			Set<Nit> near = new HashSet<Nit>();
+			for (Nit nit: world.getAllNits())
+				if (isNear(nit, cube, radius))
+					near.add(nit);
+			assertEquals(near, new HashSet<Nit>(world.getNitsNear(cube, radius)));
+		}
+		assertEquals(40, world.getNitsNear(new Coordinate(0, 0, 0), NB_X).size());
+	}
+
+
+	/**************************************************
+	 * 	ITEMS
+	 **************************************************/
+
+	@Test
+	public void getObjectsAt_Falling() {
+		Random random = new Random(42L);
+		for (int i = 0; i < 30; i++) {
+			Coordinate cube = new Coordinate(random.nextInt(NB_X), random.nextInt(NB_Y), 1 + random.nextInt(NB_Z - 1));
+			world.addItem(i % 2 == 0 ? new Log(cube, world) : new Boulder(cube, world));
+		}
+		checkItems();
+		for (int i = 0; i < 50; i++) {
+			world.advanceTime(0.1);
+			checkItems();
+		}
+		for (Item item: world.getAllLogs())
+			assertEquals(1, item.getCoordinate().get(2));
+	}
+
+	@Test
+	public void getObjectsAt_Removed() {
+		Coordinate cube = new Coordinate(3, 3, 1);
+		Log log = new Log(cube, world);
+		Boulder boulder = new Boulder(cube, world);
+		world.addItem(log);
+		world.addItem(boulder);
+		assertEquals(2, world.getObjectsAt(cube).size());
+		world.removeItem(log);
+		assertEquals(1, world.getObjectsAt(cube).size());
+		assertTrue(world.getObjectsAt(cube).contains(boulder));
+		checkItems();
+	}
+
+
+	/**************************************************
+	 * 	BOXES
+	 **************************************************/
+
+	private Set<GameObject> getObjectsInBoxSlowly(double[] min, double[] max) {
+		Set<GameObject> gameObjects = new HashSet<GameObject>();
+		Set<GameObject> all = new HashSet<GameObject>(world.getAllNits());
+		all.addAll(world.getAllLogs());
+		all.addAll(world.getAllBoulders());
+		for (GameObject gameObject: all) {
+			double[] position = gameObject.getPosition();
+			boolean inside = true;
+			for (int i = 0; i < 3; i++)
+				if (position[i] < min[i] || position[i] >= max[i])
+					inside = false;
+			if (inside)
+				gameObjects.add(gameObject);
+		}
+		return gameObjects;
+	}
+
+	@Test
+	public void getObjectsInBox_RandomBoxes() {
+		Random random = new Random(42L);
+		world.setMaxNbNits(60);
+		for (int i = 0; i < 60; i++)
+			world.spawnUnit(true);
+		for (int i = 0; i < 20; i++) {
+			Coordinate cube = new Coordinate(random.nextInt(NB_X), random.nextInt(NB_Y), 1 + random.nextInt(NB_Z - 1));
+			world.addItem(i % 2 == 0 ? new Log(cube, world) : new Boulder(cube, world));
+		}
+		for (int step = 0; step < 100; step++) {
+			world.advanceTime(0.1);
+			for (int i = 0; i < 20; i++) {
+				double[] min = new double[3], max = new double[3];
+				int[] nbCubes = { NB_X, NB_Y, NB_Z };
+				for (int j = 0; j < 3; j++) {
+					double first = random.nextDouble() * (nbCubes[j] + 2) - 1;
+					double second = random.nextDouble() * (nbCubes[j] + 2) - 1;
+					min[j] = Math.min(first, second);
+					max[j] = Math.max(first, second);
+				}
+				assertEquals(getObjectsInBoxSlowly(min, max), world.getObjectsInBox(min, max));
+			}
+		}
+	}
+
+	@Test
+	public void getObjectsInBox_WholeWorld() {
+		for (int i = 0; i < 40; i++)
+			world.spawnUnit(false);
+		world.addItem(new Log(new Coordinate(0, 0, 1), world));
+		world.addItem(new Boulder(new Coordinate(NB_X - 1, NB_Y - 1, 1), world));
+		assertEquals(42, world.getObjectsInBox(new double[] { 0, 0, 0 },
+				new double[] { NB_X, NB_Y, NB_Z }).size());
+		assertEquals(42, world.getObjectsInBox(new double[] { -10, -10, -10 },
+				new double[] { 100, 100, 100 }).size());
+	}
+
+	/**
+	 * The minimum corner of a box is inclusive and its maximum corner is
+	 * exclusive.
+	 */
+	@Test
+	public void getObjectsInBox_Borders() {
+		Log log = new Log(new Coordinate(3, 3, 1), world);
+		world.addItem(log);
+		double[] position = log.getPosition();
+		assertTrue(world.getObjectsInBox(position, new double[] { 4, 4, 2 }).contains(log));
+		assertTrue(world.getObjectsInBox(new double[] { 3, 3, 1 }, new double[] {
+				position[0] + 0.01, position[1] + 0.01, position[2] + 0.01 }).contains(log));
+		assertFalse(world.getObjectsInBox(new double[] { 3, 3, 1 }, position).contains(log));
+		assertTrue(world.getObjectsInBox(new double[] { 5, 5, 1 }, new double[] { 6, 6, 2 }).isEmpty());
+		assertTrue(world.getObjectsInBox(new double[] { 4, 4, 2 }, new double[] { 3, 3, 1 }).isEmpty());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void getObjectsInBox_IllegalCorner() {
+		world.getObjectsInBox(new double[] { 0, 0 }, new double[] { 1, 1, 1 });
+	}
+
+}
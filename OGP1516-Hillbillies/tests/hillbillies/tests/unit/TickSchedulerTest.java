@@ -0,0 +1,240 @@
+package hillbillies.tests.unit;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.*;
+
+import hillbillies.model.*;
+import hillbillies.model.World.TerrainType;
+import hillbillies.part2.listener.DefaultTerrainChangeListener;
+
+/**
+ * A class collecting tests for tick schedulers, checking the game objects
+ * registered for each phase after buffered changes are flushed.
+ *
+ * @author Ruben Cartuyvels
+ * @version 1.0
+ *
+ */
+public class TickSchedulerTest {
+
+	private World world;
+
+	private TickScheduler scheduler;
+
+	/**
+	 * A 10x10x4 world with a floor of rock, and a scheduler of its own.
+	 */
+	@Before
+	public void setUpWorld() {
+		int[][][] types = new int[10][10][4];
+		for (int x = 0; x < 10; x++)
+			for (int y = 0; y < 10; y++)
+				types[x][y][0] = TerrainType.ROCK.getNumber();
+		world = new World(types, new DefaultTerrainChangeListener(),
+				ConnectivityEngine.FLOOD_FILL, 42L);
+		scheduler = new TickScheduler();
+	}
+
+	private Log createLog(int z) {
+		return new Log(new Coordinate(1, 1, z), world);
+	}
+
+	/**
+	 * Return the game objects in the slots of the given phase, checking that
+	 * none of them takes more than one slot.
+	 */
+	private Set<GameObject> getObjects(TickScheduler scheduler, TickPhase phase) {
+		Set<GameObject> objects = new HashSet<GameObject>();
+		for (int slot = 0; slot < scheduler.getNbObjects(phase); slot++)
+			assertTrue(objects.add(scheduler.getObjectAt(phase, slot)));
+		return objects;
+	}
+
+
+	/**************************************************
+	 * 	REGISTRATION
+	 **************************************************/
+
+	@Test
+	public void constructor_Empty() {
+		for (TickPhase phase: TickPhase.values())
+			assertEquals(0, scheduler.getNbObjects(phase));
+	}
+
+	@Test
+	public void register_AfterFlush() {
+		Log log = createLog(1);
+		scheduler.register(log);
+		assertEquals(0, scheduler.getNbObjects(TickPhase.ITEM_PHYSICS));
+		scheduler.flush();
+		assertEquals(1, scheduler.getNbObjects(TickPhase.ITEM_PHYSICS));
+		assertSame(log, scheduler.getObjectAt(TickPhase.ITEM_PHYSICS, 0));
+		assertEquals(0, scheduler.getNbObjects(TickPhase.NIT_ACTIVITIES));
+	}
+
+	@Test
+	public void register_Twice() {
+		Log log = createLog(1);
+		scheduler.register(log);
+		scheduler.register(log);
+		scheduler.flush();
+		scheduler.register(log);
+		scheduler.flush();
+		assertEquals(1, scheduler.getNbObjects(TickPhase.ITEM_PHYSICS));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void register_OtherScheduler() {
+		Log log = createLog(1);
+		scheduler.register(log);
+		scheduler.flush();
+		new TickScheduler().register(log);
+	}
+
+	/**
+	 * A game object that is unregistered and flushed may be registered with
+	 * another scheduler.
+	 */
+	@Test
+	public void register_OtherSchedulerAfterFlush() {
+		Log log = createLog(1);
+		scheduler.register(log);
+		scheduler.flush();
+		scheduler.unregister(log);
+		scheduler.flush();
+		TickScheduler other = new TickScheduler();
+		other.register(log);
+		other.flush();
+		assertSame(log, other.getObjectAt(TickPhase.ITEM_PHYSICS, 0));
+		assertEquals(0, scheduler.getNbObjects(TickPhase.ITEM_PHYSICS));
+	}
+
+	/**
+	 * Only the last change to the registration of a game object before a
+	 * flush counts.
+	 */
+	@Test
+	public void unregister_LastChangeCounts() {
+		Log first = createLog(1), second = createLog(1);
+		scheduler.register(first);
+		scheduler.unregister(first);
+		scheduler.unregister(second);
+		scheduler.register(second);
+		scheduler.flush();
+		assertEquals(1, scheduler.getNbObjects(TickPhase.ITEM_PHYSICS));
+		assertSame(second, scheduler.getObjectAt(TickPhase.ITEM_PHYSICS, 0));
+		scheduler.unregister(second);
+		assertEquals(1, scheduler.getNbObjects(TickPhase.ITEM_PHYSICS));
+		scheduler.flush();
+		assertEquals(0, scheduler.getNbObjects(TickPhase.ITEM_PHYSICS));
+	}
+
+	/**
+	 * Game objects are registered and unregistered at random, after which the
+	 * slots of their phase must hold exactly the registered ones.
+	 */
+	@Test
+	public void flush_RandomChanges() {
+		Random random = new Random(42L);
+		List<Log> logs = new ArrayList<Log>();
+		for (int i = 0; i < 40; i++)
+			logs.add(createLog(1));
+		Set<GameObject> registered = new HashSet<GameObject>();
+		for (int i = 0; i < 50; i++) {
+			for (int j = 0; j < 20; j++) {
+				Log log = logs.get(random.nextInt(logs.size()));
+				if (random.nextBoolean()) {
+					scheduler.register(log);
+					registered.add(log);
+				}
+				else {
+					scheduler.unregister(log);
+					registered.remove(log);
+				}
+			}
+			scheduler.flush();
+			assertEquals(registered, getObjects(scheduler, TickPhase.ITEM_PHYSICS));
+		}
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void getObjectAt_IllegalSlot() {
+		scheduler.register(createLog(1));
+		scheduler.flush();
+		scheduler.getObjectAt(TickPhase.ITEM_PHYSICS, 1);
+	}
+
+
+	/**************************************************
+	 * 	PHASES
+	 **************************************************/
+
+	@Test
+	public void advanceTime_OnlyGivenPhase() {
+		Log log = createLog(3);
+		scheduler.register(log);
+		scheduler.flush();
+		double height = log.getPosition()[2];
+		scheduler.advanceTime(TickPhase.NIT_ACTIVITIES, 0.1);
+		assertEquals(height, log.getPosition()[2], 1e-9);
+		scheduler.advanceTime(TickPhase.ITEM_PHYSICS, 0.1);
+		scheduler.advanceTime(TickPhase.ITEM_PHYSICS, 0.1);
+		assertTrue(log.getPosition()[2] < height);
+	}
+
+	@Test
+	public void advanceTime_UnregisteredObjectsStay() {
+		Log log = createLog(3);
+		scheduler.register(log);
+		scheduler.unregister(log);
+		scheduler.flush();
+		double height = log.getPosition()[2];
+		for (int i = 0; i < 5; i++)
+			scheduler.advanceTime(TickPhase.ITEM_PHYSICS, 0.1);
+		assertEquals(height, log.getPosition()[2], 1e-9);
+	}
+
+
+	/**************************************************
+	 * 	WORLDS
+	 **************************************************/
+
+	/**
+	 * The game objects added to and removed from a world are registered with
+	 * its scheduler for their phase from its next time step on.
+	 */
+	@Test
+	public void world_RegistersGameObjects() {
+		TickScheduler scheduler = world.getTickScheduler();
+		List<Unit> units = new ArrayList<Unit>();
+		for (int i = 0; i < 10; i++)
+			units.add(world.spawnUnit(false));
+		Log log = createLog(1);
+		Boulder boulder = new Boulder(new Coordinate(2, 2, 1), world);
+		world.addItem(log);
+		world.addItem(boulder);
+		world.advanceTime(0.1);
+		assertEquals(new HashSet<Nit>(world.getAllNits()), getObjects(scheduler, TickPhase.NIT_ACTIVITIES));
+		Set<GameObject> items = new HashSet<GameObject>();
+		items.add(log);
+		items.add(boulder);
+		assertEquals(items, getObjects(scheduler, TickPhase.ITEM_PHYSICS));
+
+		world.removeNit(units.get(3));
+		world.removeItem(log);
+		assertEquals(10, scheduler.getNbObjects(TickPhase.NIT_ACTIVITIES));
+		world.advanceTime(0.1);
+		assertEquals(new HashSet<Nit>(world.getAllNits()), getObjects(scheduler, TickPhase.NIT_ACTIVITIES));
+		assertEquals(9, scheduler.getNbObjects(TickPhase.NIT_ACTIVITIES));
+		items.remove(log);
+		assertEquals(items, getObjects(scheduler, TickPhase.ITEM_PHYSICS));
+	}
+
+}
@@ -0,0 +1,424 @@
+package hillbillies.tests.unit;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import org.junit.*;
+
+import hillbillies.model.*;
+import hillbillies.model.World.TerrainType;
+import hillbillies.model.expression.HerePosition;
+import hillbillies.model.statement.Sequence;
+import hillbillies.model.statement.Statement;
+import hillbillies.model.statement.Work;
+import hillbillies.part2.listener.DefaultTerrainChangeListener;
+
+/**
+ * A class collecting tests for the class of worlds.
+ *
+ * @author Ruben Cartuyvels
+ * @version 1.0
+ *
+ */
+public class WorldTest {
+
+	private World world;
+
+	@Before
+	public void setUpWorld() {
+		int[][][] types = new int[20][20][3];
+		for (int x = 0; x < 20; x++)
+			for (int y = 0; y < 20; y++)
+				types[x][y][0] = TerrainType.ROCK.getNumber();
+		world = new World(types, new DefaultTerrainChangeListener(),
+				ConnectivityEngine.FLOOD_FILL, 42L);
+	}
+
+
+	/**************************************************
+	 * 	TERRAIN
+	 **************************************************/
+
+	@Test
+	public void constructor_CopiesTerrainMap() {
+		TerrainMap terrain = new TerrainMap(3, 3, 3);
+		terrain.set(1, 1, 0, (byte) TerrainType.ROCK.getNumber());
+		World other = new World(terrain, new DefaultTerrainChangeListener(),
+				ConnectivityEngine.FLOOD_FILL, 42L);
+		terrain.set(1, 1, 1, (byte) TerrainType.ROCK.getNumber());
+		assertEquals(TerrainType.AIR, other.getCubeTypeAt(new Coordinate(1, 1, 1)));
+		assertTrue(other.isPassable(1, 1, 1));
+	}
+
+	@Test
+	public void setCubeTypeAt_IncrementsTerrainVersion() {
+		long version = world.getTerrainVersion();
+		world.setCubeTypeAt(new Coordinate(5, 5, 1), TerrainType.ROCK);
+		assertEquals(version + 1, world.getTerrainVersion());
+		world.setCubeTypeAt(new Coordinate(5, 5, 1), TerrainType.AIR);
+		assertEquals(version + 2, world.getTerrainVersion());
+	}
+
+
+	/**************************************************
+	 * 	NEIGHBOURS
+	 **************************************************/
+
+	/**
+	 * Return the cubes of the world that differ at most one in each
+	 * coordinate from the given cube, apart from the cube itself.
+	 */
+	private Set<Coordinate> neighboursOf(int x, int y, int z) {
+		Set<Coordinate> neighbours = new HashSet<Coordinate>();
+		for (int i = x - 1; i <= x + 1; i++)
+			for (int j = y - 1; j <= y + 1; j++)
+				for (int k = z - 1; k <= z + 1; k++)
+					if ((i != x || j != y || k != z) && i >= 0 && i < world.getNbCubesX()
+							&& j >= 0 && j < world.getNbCubesY() && k >= 0 && k < world.getNbCubesZ())
+						neighbours.add(new Coordinate(i, j, k));
+		return neighbours;
+	}
+
+	private static final int[][] CUBES = { { 0, 0, 0 }, { 19, 19, 2 }, { 0, 5, 1 },
+			{ 5, 19, 0 }, { 7, 8, 1 }, { 19, 0, 1 } };
+
+	@Test
+	public void forEachNeighbour_AllCubes() {
+		for (int[] cube: CUBES) {
+			Set<Coordinate> neighbours = new HashSet<Coordinate>();
+			world.forEachNeighbour(cube[0], cube[1], cube[2],
+					index -> assertTrue(neighbours.add(world.getCoordinateAt(index))));
+			assertEquals(neighboursOf(cube[0], cube[1], cube[2]), neighbours);
+		}
+	}
+
+	/**
+	 * The neighbour offsets are returned in a new array each time, so
+	 * changing them does not change the neighbours of cubes.
+	 */
+	@Test
+	public void getNeighbourOffsets_Copies() {
+		int[][] offsets = World.getNeighbourOffsets();
+		assertEquals(26, offsets.length);
+		Set<Coordinate> cubes = new HashSet<Coordinate>();
+		for (int[] offset: offsets) {
+			cubes.add(new Coordinate(7 + offset[0], 8 + offset[1], 1 + offset[2]));
+			offset[0] = 0;
+			offset[1] = 0;
+			offset[2] = 0;
+		}
+		assertEquals(neighboursOf(7, 8, 1), cubes);
+		assertFalse(Arrays.asList(World.getNeighbourOffsets()).stream()
+				.anyMatch(offset -> Arrays.equals(offset, new int[3])));
+		assertEquals(26, world.getNbNeighbours(7, 8, 1));
+		assertEquals(neighboursOf(7, 8, 1), world.getNeighbours(new Coordinate(7, 8, 1)));
+	}
+
+	@Test
+	public void getNbNeighbours_AllCubes() {
+		assertEquals(7, world.getNbNeighbours(0, 0, 0));
+		assertEquals(26, world.getNbNeighbours(7, 8, 1));
+		for (int[] cube: CUBES)
+			assertEquals(neighboursOf(cube[0], cube[1], cube[2]).size(),
+					world.getNbNeighbours(cube[0], cube[1], cube[2]));
+	}
+
+	@Test
+	public void getNeighbours_AllCubes() {
+		for (int[] cube: CUBES)
+			assertEquals(neighboursOf(cube[0], cube[1], cube[2]),
+					world.getNeighbours(new Coordinate(cube[0], cube[1], cube[2])));
+	}
+
+	@Test
+	public void isNeighbouring_Cubes() {
+		Coordinate cube = new Coordinate(7, 8, 1);
+		for (int x = 5; x < 10; x++)
+			for (int y = 6; y < 11; y++)
+				for (int z = 0; z < 3; z++) {
+					Coordinate other = new Coordinate(x, y, z);
+					assertEquals(neighboursOf(7, 8, 1).contains(other), world.isNeighbouring(cube, other));
+				}
+		assertFalse(world.isNeighbouring(new Coordinate(0, 0, 0), new Coordinate(-1, 0, 0)));
+	}
+
+	@Test
+	public void isNeighbouringSolid_Cubes() {
+		assertTrue(world.isNeighbouringSolid(7, 8, 1));
+		assertTrue(world.isNeighbouringSolid(7, 8, 0));
+		assertFalse(world.isNeighbouringSolid(7, 8, 2));
+		world.setCubeTypeAt(new Coordinate(8, 9, 1), TerrainType.ROCK);
+		assertTrue(world.isNeighbouringSolid(7, 8, 2));
+		assertTrue(world.isNeighbouringSolid(new Coordinate(9, 10, 2)));
+		assertFalse(world.isNeighbouringSolid(new Coordinate(10, 10, 2)));
+	}
+
+	@Test
+	public void getRandomNeighbouringCube_AllNeighbours() {
+		SplittableRandom random = new SplittableRandom(42L);
+		for (int[] cube: CUBES) {
+			Set<Coordinate> expected = neighboursOf(cube[0], cube[1], cube[2]);
+			Set<Coordinate> drawn = new HashSet<Coordinate>();
+			Coordinate coordinate = new Coordinate(cube[0], cube[1], cube[2]);
+			for (int i = 0; i < 1000; i++) {
+				Coordinate neighbour = world.getRandomNeighbouringCube(coordinate, random);
+				assertTrue(expected.contains(neighbour));
+				drawn.add(neighbour);
+			}
+			assertEquals(expected, drawn);
+		}
+	}
+
+
+	/**************************************************
+	 * 	ROUTES
+	 **************************************************/
+
+	@Test
+	public void computeRoute_Reachable() {
+		Coordinate start = new Coordinate(0, 0, 1);
+		Coordinate destination = new Coordinate(19, 18, 1);
+		Route route = world.computeRoute(start, destination, MovementRule.GROUNDED);
+		PathFinder pathFinder = world.getPathFinder();
+		int[] waypoints = route.getWaypoints();
+		int[] path = route.getPath();
+		assertEquals(pathFinder.indexOf(destination), waypoints[waypoints.length - 1]);
+		assertNotNull(path);
+		assertEquals(waypoints[0], path[path.length - 1]);
+		Coordinate previous = start;
+		for (int cube: path) {
+			Coordinate next = pathFinder.coordinateOf(cube);
+			assertTrue(world.isNeighbouring(previous, next));
+			previous = next;
+		}
+	}
+
+	@Test
+	public void computeRoute_Unreachable() {
+		for (int x = 18; x < 20; x++)
+			for (int y = 18; y < 20; y++)
+				for (int z = 1; z < 3; z++)
+					if (x != 19 || y != 19 || z != 1)
+						world.setCubeTypeAt(new Coordinate(x, y, z), TerrainType.ROCK);
+		Coordinate destination = new Coordinate(19, 19, 1);
+		Route route = world.computeRoute(new Coordinate(0, 0, 1), destination, MovementRule.GROUNDED);
+		assertArrayEquals(new int[] { world.getPathFinder().indexOf(destination) },
+				route.getWaypoints());
+		assertNull(route.getPath());
+	}
+
+
+	/**************************************************
+	 * 	SPAWNING
+	 **************************************************/
+
+	@Test
+	public void spawnUnit_ValidAttributes() {
+		world.setMaxNbNits(20000);
+		world.setMaxNbNitsPerFaction(4000);
+		for (int i = 0; i < 20000; i++) {
+			Unit unit = world.spawnUnit(false);
+			assertTrue(unit.canHaveAsWeight(unit.getWeight()));
+			assertTrue(unit.getWeight() <= Nit.getMaxInitialSkill());
+		}
+		assertEquals(20000, world.getNbNits());
+	}
+
+	@Test(expected = IllegalNbException.class)
+	public void spawnUnit_WorldFull() {
+		for (int i = 0; i <= world.getMaxNbNits(); i++)
+			world.spawnUnit(false);
+	}
+
+
+	/**************************************************
+	 * 	TASKS
+	 **************************************************/
+
+	private static Task workTwice() {
+		return new Task("work", 1, new Sequence(Arrays.<Statement>asList(
+				new Work(new HerePosition()), new Work(new HerePosition()))));
+	}
+
+	@Test
+	public void advanceTime_AssignsTask() {
+		Unit unit = world.spawnUnit(true);
+		Task task = workTwice();
+		unit.getFaction().getScheduler().addTask(task);
+		world.advanceTime(0.1);
+		assertSame(task, unit.getAssignedTask());
+		assertTrue(task.beingExecuted());
+		assertTrue(unit.isWorking());
+	}
+
+	@Test
+	public void advanceTime_InterruptedTaskNotReassigned() {
+		Unit unit = world.spawnUnit(true);
+		Task task = workTwice();
+		unit.getFaction().getScheduler().addTask(task);
+		world.advanceTime(0.1);
+		unit.stopExecutingTask();
+		for (int i = 0; i < 100; i++) {
+			world.advanceTime(0.1);
+			assertNull(unit.getAssignedTask());
+		}
+		assertFalse(task.beingExecuted());
+		assertTrue(unit.isMoving() || unit.isWorking() || unit.isResting() || unit.isAttacking()
+				|| !unit.getCoordinate().equals(unit.getDestCubeLT()));
+	}
+
+	@Test
+	public void advanceTime_InterruptedTaskToOtherUnit() {
+		world.setMaxNbFactions(1);
+		Unit unit = world.spawnUnit(true);
+		Task task = workTwice();
+		unit.getFaction().getScheduler().addTask(task);
+		world.advanceTime(0.1);
+		unit.stopExecutingTask();
+		Unit other = world.spawnUnit(true);
+		assertSame(unit.getFaction(), other.getFaction());
+		world.advanceTime(0.1);
+		assertSame(task, other.getAssignedTask());
+	}
+
+
+	/**************************************************
+	 * 	ASSIGNMENT STRATEGIES
+	 **************************************************/
+
+	private static Task workTwiceAt(int priority, Coordinate cube) {
+		return new Task("work", priority, new Sequence(Arrays.<Statement>asList(
+				new Work(new HerePosition()), new Work(new HerePosition()))),
+				cube.getCoordinates());
+	}
+
+	/**
+	 * Spawn a unit of the only faction of this world and move it to the
+	 * given cube, after which it waits for a task.
+	 */
+	private Unit spawnUnitAt(Coordinate cube) {
+		world.setMaxNbFactions(1);
+		Unit unit = world.spawnUnit(false);
+		unit.moveTo(cube);
+		for (int i = 0; i < 1000 && (unit.isMoving() || !unit.getCoordinate().equals(cube)); i++)
+			world.advanceTime(0.1);
+		assertEquals(cube, unit.getCoordinate());
+		return unit;
+	}
+
+	/**
+	 * Let the given units wait for tasks, and assign the tasks of their
+	 * scheduler to them.
+	 */
+	private void assignTasks(Unit... units) {
+		for (Unit unit: units)
+			unit.setDefaultBehavior(true);
+		world.advanceTime(0.1);
+	}
+
+	@Test
+	public void getAssignmentStrategy_Default() {
+		assertEquals(AssignmentStrategy.BY_PRIORITY,
+				world.spawnUnit(false).getFaction().getScheduler().getAssignmentStrategy());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void setAssignmentStrategy_Null() {
+		world.spawnUnit(false).getFaction().getScheduler().setAssignmentStrategy(null);
+	}
+
+	/**
+	 * Each task on the cube of one of the units goes to that unit, whatever
+	 * the order of the units and the priorities of the tasks.
+	 */
+	@Test
+	public void advanceTime_NearestUnit() {
+		Coordinate[] cubes = { new Coordinate(2, 3, 1), new Coordinate(17, 4, 1),
+				new Coordinate(9, 9, 1), new Coordinate(3, 16, 1), new Coordinate(15, 18, 1) };
+		Unit[] units = new Unit[cubes.length];
+		for (int i = 0; i < cubes.length; i++)
+			units[i] = spawnUnitAt(cubes[i]);
+		Scheduler scheduler = units[0].getFaction().getScheduler();
+		scheduler.setAssignmentStrategy(AssignmentStrategy.NEAREST_NIT);
+		Task[] tasks = new Task[cubes.length];
+		for (int i = 0; i < cubes.length; i++) {
+			tasks[i] = workTwiceAt((i * 3) % cubes.length, cubes[i]);
+			scheduler.addTask(tasks[i]);
+		}
+		assignTasks(units);
+		for (int i = 0; i < cubes.length; i++)
+			assertSame(tasks[i], units[i].getAssignedTask());
+	}
+
+	/**
+	 * The task with the highest priority is assigned first, even if the only
+	 * idle unit is closer to another task.
+	 */
+	@Test
+	public void advanceTime_NearestUnitHighestPriorityFirst() {
+		Unit unit = spawnUnitAt(new Coordinate(2, 2, 1));
+		Scheduler scheduler = unit.getFaction().getScheduler();
+		scheduler.setAssignmentStrategy(AssignmentStrategy.NEAREST_NIT);
+		Task near = workTwiceAt(1, new Coordinate(2, 2, 1));
+		Task far = workTwiceAt(5, new Coordinate(18, 18, 1));
+		scheduler.addTask(near);
+		scheduler.addTask(far);
+		assignTasks(unit);
+		assertSame(far, unit.getAssignedTask());
+		assertFalse(near.beingExecuted());
+	}
+
+	/**
+	 * A wall puts the unit that is closest to the cube of a task as the crow
+	 * flies furthest away from it by path, which counts as soon as the world
+	 * keeps a distance field towards that cube.
+	 */
+	@Test
+	public void advanceTime_NearestUnitByDistanceField() {
+		for (int y = 0; y < 19; y++)
+			for (int z = 1; z < 3; z++)
+				world.setCubeTypeAt(new Coordinate(10, y, z), TerrainType.ROCK);
+		Coordinate cube = new Coordinate(11, 0, 1);
+		Unit behindWall = spawnUnitAt(new Coordinate(9, 0, 1));
+		Unit inFront = spawnUnitAt(new Coordinate(16, 0, 1));
+		world.getDistanceFields().setPopularityThreshold(1);
+		assertNotNull(world.getDistanceFields().request(cube, MovementRule.GROUNDED));
+		Scheduler scheduler = inFront.getFaction().getScheduler();
+		scheduler.setAssignmentStrategy(AssignmentStrategy.NEAREST_NIT);
+		Task task = workTwiceAt(1, cube);
+		scheduler.addTask(task);
+		assignTasks(behindWall, inFront);
+		assertSame(task, inFront.getAssignedTask());
+		assertNull(behindWall.getAssignedTask());
+	}
+
+	@Test
+	public void advanceTime_NearestUnitWithoutDistanceField() {
+		world.getDistanceFields().setPopularityThreshold(Integer.MAX_VALUE);
+		Unit far = spawnUnitAt(new Coordinate(16, 0, 1));
+		Unit near = spawnUnitAt(new Coordinate(9, 0, 1));
+		Scheduler scheduler = near.getFaction().getScheduler();
+		scheduler.setAssignmentStrategy(AssignmentStrategy.NEAREST_NIT);
+		Task task = workTwiceAt(1, new Coordinate(11, 0, 1));
+		scheduler.addTask(task);
+		assignTasks(far, near);
+		assertSame(task, near.getAssignedTask());
+		assertNull(far.getAssignedTask());
+	}
+
+	@Test
+	public void advanceTime_NearestUnitTaskWithoutCube() {
+		Unit unit = spawnUnitAt(new Coordinate(2, 2, 1));
+		Scheduler scheduler = unit.getFaction().getScheduler();
+		scheduler.setAssignmentStrategy(AssignmentStrategy.NEAREST_NIT);
+		Task task = workTwice();
+		scheduler.addTask(task);
+		assignTasks(unit);
+		assertSame(task, unit.getAssignedTask());
+	}
+
+}